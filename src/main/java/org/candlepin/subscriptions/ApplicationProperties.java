@@ -118,6 +118,20 @@ public class ApplicationProperties {
    */
   private Duration hourlyTallyOffset = Duration.ofMinutes(60L);
 
+  /**
+   * Maximum number of service type pipelines (metric collection and rollups) run concurrently
+   * during hourly tallies, shared by all orgs being tallied. A value of 1 runs the service types of
+   * an org one after another on the calling thread.
+   */
+  private int hourlyTallyServiceTypeConcurrency = 1;
+
+  /**
+   * If enabled, hourly tallies that aren't retallies update the existing rollups by the change in
+   * the hourly snapshots, rather than re-reading and re-summing every hourly snapshot of each
+   * affected day.
+   */
+  private boolean incrementalRollups = true;
+
   /** Additional properties related to the Subscription Service */
   private SubscriptionServiceProperties subscription = new SubscriptionServiceProperties();
 
@@ -30,6 +30,8 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.candlepin.subscriptions.capacity.files.ProductDenylist;
+import org.candlepin.subscriptions.db.CapacityReportMarkerRepository;
+import org.candlepin.subscriptions.db.OfferingRepository;
 import org.candlepin.subscriptions.db.SubscriptionRepository;
 import org.candlepin.subscriptions.db.model.Offering;
 import org.candlepin.subscriptions.db.model.Subscription;
@@ -37,13 +39,11 @@ import org.candlepin.subscriptions.db.model.Subscription.SubscriptionCompoundId;
 import org.candlepin.subscriptions.db.model.SubscriptionMeasurement;
 import org.candlepin.subscriptions.db.model.SubscriptionMeasurement.SubscriptionMeasurementKey;
 import org.candlepin.subscriptions.db.model.SubscriptionProductId;
-import org.candlepin.subscriptions.resource.ResourceUtils;
 import org.candlepin.subscriptions.task.TaskQueueProperties;
+import org.candlepin.subscriptions.util.ApplicationClock;
 import org.candlepin.subscriptions.utilization.api.model.MetricId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Sort;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
@@ -54,6 +54,9 @@ public class CapacityReconciliationController {
   private static final String CORES = MetricId.CORES.toString().toUpperCase();
 
   private final SubscriptionRepository subscriptionRepository;
+  private final OfferingRepository offeringRepository;
+  private final CapacityReportMarkerRepository capacityReportMarkerRepository;
+  private final ApplicationClock clock;
   private final KafkaTemplate<String, ReconcileCapacityByOfferingTask>
       reconcileCapacityByOfferingKafkaTemplate;
   private final ProductDenylist productDenylist;
@@ -67,6 +70,9 @@ public class CapacityReconciliationController {
   @Autowired
   public CapacityReconciliationController(
       SubscriptionRepository subscriptionRepository,
+      OfferingRepository offeringRepository,
+      CapacityReportMarkerRepository capacityReportMarkerRepository,
+      ApplicationClock clock,
       ProductDenylist productDenylist,
       CapacityProductExtractor productExtractor,
       MeterRegistry meterRegistry,
@@ -74,6 +80,9 @@ public class CapacityReconciliationController {
           reconcileCapacityByOfferingKafkaTemplate,
       @Qualifier("reconcileCapacityTasks") TaskQueueProperties props) {
     this.subscriptionRepository = subscriptionRepository;
+    this.offeringRepository = offeringRepository;
+    this.capacityReportMarkerRepository = capacityReportMarkerRepository;
+    this.clock = clock;
     this.productDenylist = productDenylist;
     this.productExtractor = productExtractor;
     this.reconcileCapacityByOfferingKafkaTemplate = reconcileCapacityByOfferingKafkaTemplate;
@@ -95,18 +104,60 @@ public class CapacityReconciliationController {
     reconcileSubscriptionProductIds(subscription);
   }
 
+  /**
+   * Reconciles the capacity of all subscriptions of an offering at once. Expected measurements are
+   * computed in the database by joining the subscriptions with the offering, and applied along with
+   * the expected product IDs using a few set-based statements, rather than loading and updating
+   * each subscription.
+   *
+   * @param sku the SKU of the offering whose subscriptions should be reconciled
+   */
   @Transactional
-  public void reconcileCapacityForOffering(String sku, int offset, int limit) {
-    Page<Subscription> subscriptions =
-        subscriptionRepository.findByOfferingSku(
-            sku, ResourceUtils.getPageable(offset, limit, Sort.by("subscriptionId")));
-    subscriptions.forEach(this::reconcileCapacityForSubscription);
-    if (subscriptions.hasNext()) {
-      offset = offset + limit;
-      reconcileCapacityByOfferingKafkaTemplate.send(
-          reconcileCapacityTopic,
-          ReconcileCapacityByOfferingTask.builder().sku(sku).offset(offset).limit(limit).build());
+  public void reconcileCapacityForOffering(String sku) {
+    Optional<Offering> offering = offeringRepository.findById(sku);
+    if (offering.isEmpty()) {
+      log.warn("Unable to reconcile capacity for unknown offering sku={}", sku);
+      return;
+    }
+
+    if (productDenylist.productIdMatches(sku)) {
+      int deleted = subscriptionRepository.deleteMeasurementsForOffering(sku);
+      int removedProducts = subscriptionRepository.deleteProductIdsForOffering(sku);
+      measurementsDeleted.increment(deleted);
+      if (deleted + removedProducts > 0) {
+        capacityReportMarkerRepository.markUpdatedForOffering(sku, clock.now());
+      }
+      return;
     }
+
+    int updated = subscriptionRepository.updateMeasurementsForOffering(sku);
+    int deleted = subscriptionRepository.deleteStaleMeasurementsForOffering(sku);
+    int created = subscriptionRepository.insertMissingMeasurementsForOffering(sku);
+    measurementsUpdated.increment(updated);
+    measurementsDeleted.increment(deleted);
+    measurementsCreated.increment(created);
+
+    Set<String> products = productExtractor.getProducts(offering.get().getProductIdsAsStrings());
+    int removedProducts =
+        products.isEmpty()
+            ? subscriptionRepository.deleteProductIdsForOffering(sku)
+            : subscriptionRepository.deleteProductIdsForOfferingNotIn(sku, products);
+    int addedProducts =
+        products.stream()
+            .mapToInt(
+                product -> subscriptionRepository.insertMissingProductIdForOffering(sku, product))
+            .sum();
+    if (created + updated + deleted + removedProducts + addedProducts > 0) {
+      capacityReportMarkerRepository.markUpdatedForOffering(sku, clock.now());
+    }
+
+    log.info(
+        "Reconciled capacity for offering sku={}: created={}, updated={}, deleted={} measurements and removed={} products.",
+        sku,
+        created,
+        updated,
+        deleted,
+        removedProducts);
   }
 
   public void enqueueReconcileCapacityForOffering(String sku) {
@@ -53,8 +53,6 @@ public class CapacityReconciliationWorker extends SeekableKafkaConsumer {
         "Capacity Reconciliation Worker is reconciling capacity for offering with values: {} ",
         reconcileCapacityByOfferingTask.toString());
     capacityReconciliationController.reconcileCapacityForOffering(
-        reconcileCapacityByOfferingTask.getSku(),
-        reconcileCapacityByOfferingTask.getOffset(),
-        reconcileCapacityByOfferingTask.getLimit());
+        reconcileCapacityByOfferingTask.getSku());
   }
 }
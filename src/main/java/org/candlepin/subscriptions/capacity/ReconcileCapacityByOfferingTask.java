@@ -34,6 +34,9 @@ public class ReconcileCapacityByOfferingTask {
   private static final Logger log = LoggerFactory.getLogger(ReconcileCapacityByOfferingTask.class);
 
   private String sku;
+
+  // Offering capacity is reconciled for all subscriptions at once, so offset and limit are only
+  // kept for compatibility with tasks produced by earlier versions.
   private int offset;
   private int limit;
 }
@@ -266,7 +266,7 @@ public class InternalSubscriptionResource implements InternalApi {
     try {
       Object principal = ResourceUtils.getPrincipal();
       log.info("Capacity Reconciliation for sku {} triggered by {}", sku, principal);
-      capacityReconciliationController.reconcileCapacityForOffering(sku, 0, 100);
+      capacityReconciliationController.reconcileCapacityForOffering(sku);
       response.setDetail(SUCCESS_STATUS);
     } catch (Exception e) {
       log.error("Error reconciling offering", e);
@@ -24,11 +24,18 @@ import java.time.OffsetDateTime;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.util.StringUtils;
 
-/** Represents an inventory host's facts. */
+/**
+ * Represents an inventory host's facts.
+ *
+ * <p>The comma-delimited product facts are kept as read from inventory, and only split into sets
+ * the first time they are asked for, since hosts whose products are resolved from a memoized
+ * signature never need them split.
+ */
 @Getter
 @Setter
 public class InventoryHostFacts {
@@ -38,7 +45,13 @@ public class InventoryHostFacts {
   private String displayName;
   private String orgId;
   private String syncTimestamp;
+
+  @Setter(AccessLevel.NONE)
+  private String productsValue;
+
+  @Getter(AccessLevel.NONE)
   private Set<String> products;
+
   private String systemProfileInfrastructureType;
   private Integer systemProfileCoresPerSocket;
   private Integer systemProfileSockets;
@@ -53,9 +66,25 @@ public class InventoryHostFacts {
   private String guestId;
   private String subscriptionManagerId;
   private String insightsId;
+
+  @Setter(AccessLevel.NONE)
+  private String qpcProductsValue;
+
+  @Setter(AccessLevel.NONE)
+  private String qpcProductIdsValue;
+
+  @Setter(AccessLevel.NONE)
+  private String systemProfileProductIdsValue;
+
+  @Getter(AccessLevel.NONE)
   private Set<String> qpcProducts;
+
+  @Getter(AccessLevel.NONE)
   private Set<String> qpcProductIds;
+
+  @Getter(AccessLevel.NONE)
   private Set<String> systemProfileProductIds;
+
   private String syspurposeRole;
   private String syspurposeSla;
   private String syspurposeUsage;
@@ -112,16 +141,16 @@ public class InventoryHostFacts {
     this.account = account;
     this.displayName = displayName;
     this.orgId = orgId;
-    this.products = asStringSet(products);
-    this.qpcProducts = asStringSet(qpcProducts);
-    this.qpcProductIds = asStringSet(qpcProductIds);
+    setProducts(products);
+    setQpcProducts(qpcProducts);
+    setQpcProductIds(qpcProductIds);
     this.syncTimestamp = StringUtils.hasText(syncTimestamp) ? syncTimestamp : "";
     this.systemProfileInfrastructureType = systemProfileInfrastructureType;
     this.systemProfileCoresPerSocket = asInt(systemProfileCores);
     this.systemProfileSockets = asInt(systemProfileSockets);
     this.systemProfileArch = systemProfileArch;
     this.isMarketplace = asBoolean(isMarketplace);
-    this.systemProfileProductIds = asStringSet(systemProfileProductIds);
+    setSystemProfileProductIds(systemProfileProductIds);
     this.syspurposeRole = syspurposeRole;
     this.syspurposeSla = syspurposeSla;
     this.syspurposeUsage = syspurposeUsage;
@@ -142,7 +171,15 @@ public class InventoryHostFacts {
   }
 
   public void setProducts(String products) {
-    this.products = asStringSet(products);
+    this.productsValue = asValue(products);
+    this.products = null;
+  }
+
+  public Set<String> getProducts() {
+    if (products == null && productsValue != null) {
+      products = asStringSet(productsValue);
+    }
+    return products;
   }
 
   private boolean asBoolean(String value) {
@@ -157,6 +194,11 @@ public class InventoryHostFacts {
     }
   }
 
+  private String asValue(String productJson) {
+    // an explicitly set null splits into an empty set, unlike a value that was never set
+    return productJson == null ? "" : productJson;
+  }
+
   private Set<String> asStringSet(String productJson) {
     if (!StringUtils.hasText(productJson)) {
       return new HashSet<>();
@@ -173,14 +215,38 @@ public class InventoryHostFacts {
   }
 
   public void setQpcProducts(String qpcProducts) {
-    this.qpcProducts = asStringSet(qpcProducts);
+    this.qpcProductsValue = asValue(qpcProducts);
+    this.qpcProducts = null;
+  }
+
+  public Set<String> getQpcProducts() {
+    if (qpcProducts == null && qpcProductsValue != null) {
+      qpcProducts = asStringSet(qpcProductsValue);
+    }
+    return qpcProducts;
   }
 
   public void setQpcProductIds(String qpcProductIds) {
-    this.qpcProductIds = asStringSet(qpcProductIds);
+    this.qpcProductIdsValue = asValue(qpcProductIds);
+    this.qpcProductIds = null;
+  }
+
+  public Set<String> getQpcProductIds() {
+    if (qpcProductIds == null && qpcProductIdsValue != null) {
+      qpcProductIds = asStringSet(qpcProductIdsValue);
+    }
+    return qpcProductIds;
   }
 
   public void setSystemProfileProductIds(String productIds) {
-    this.systemProfileProductIds = asStringSet(productIds);
+    this.systemProfileProductIdsValue = asValue(productIds);
+    this.systemProfileProductIds = null;
+  }
+
+  public Set<String> getSystemProfileProductIds() {
+    if (systemProfileProductIds == null && systemProfileProductIdsValue != null) {
+      systemProfileProductIds = asStringSet(systemProfileProductIdsValue);
+    }
+    return systemProfileProductIds;
   }
 }
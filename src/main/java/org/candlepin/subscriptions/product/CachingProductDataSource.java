@@ -0,0 +1,108 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.product;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.candlepin.subscriptions.product.api.model.EngineeringProduct;
+import org.candlepin.subscriptions.product.api.model.RESTProductTree;
+
+/**
+ * Data source that remembers the product trees and engineering products fetched from another
+ * data source, for use within a single offering sync run.
+ *
+ * <p>Offerings commonly share child SKUs and derived SKUs, so syncing every offering fetches the
+ * same upstream data many times over. Sharing one instance between all the offerings synced in a
+ * run means each product tree and each SKU's engineering products are requested only once.
+ * Engineering products are still requested in batches, for only the SKUs not seen yet.
+ */
+class CachingProductDataSource implements ProductDataSource {
+
+  static final String UPSTREAM_REQUESTS_METRIC = "swatch_offering_sync_upstream_requests";
+
+  private final ProductDataSource delegate;
+  private final ConcurrentMap<String, Optional<RESTProductTree>> trees = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, List<EngineeringProduct>> engProducts =
+      new ConcurrentHashMap<>();
+  private final AtomicInteger treeRequests = new AtomicInteger();
+  private final AtomicInteger engProductRequests = new AtomicInteger();
+  private final Counter treeRequestCounter;
+  private final Counter engProductRequestCounter;
+
+  CachingProductDataSource(ProductDataSource delegate, MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.treeRequestCounter = meterRegistry.counter(UPSTREAM_REQUESTS_METRIC, "type", "tree");
+    this.engProductRequestCounter =
+        meterRegistry.counter(UPSTREAM_REQUESTS_METRIC, "type", "engineering_products");
+  }
+
+  @Override
+  public Optional<RESTProductTree> getTree(String sku) throws ApiException {
+    Optional<RESTProductTree> tree = trees.get(sku);
+    if (tree == null) {
+      treeRequests.incrementAndGet();
+      treeRequestCounter.increment();
+      tree = delegate.getTree(sku);
+      trees.putIfAbsent(sku, tree);
+    }
+    return tree;
+  }
+
+  @Override
+  public Map<String, List<EngineeringProduct>> getEngineeringProductsForSkus(
+      Collection<String> skus) throws ApiException {
+    Set<String> missingSkus = new LinkedHashSet<>(skus);
+    missingSkus.removeAll(engProducts.keySet());
+    if (!missingSkus.isEmpty()) {
+      engProductRequests.incrementAndGet();
+      engProductRequestCounter.increment();
+      Map<String, List<EngineeringProduct>> fetched =
+          delegate.getEngineeringProductsForSkus(missingSkus);
+      // remember SKUs without engineering products too, so that they aren't requested again
+      missingSkus.forEach(
+          sku -> engProducts.putIfAbsent(sku, fetched.getOrDefault(sku, List.of())));
+    }
+
+    Map<String, List<EngineeringProduct>> result = new HashMap<>();
+    skus.forEach(sku -> result.put(sku, engProducts.get(sku)));
+    return result;
+  }
+
+  /** Number of product tree requests made to the underlying data source. */
+  int getTreeRequests() {
+    return treeRequests.get();
+  }
+
+  /** Number of engineering product requests made to the underlying data source. */
+  int getEngineeringProductRequests() {
+    return engProductRequests.get();
+  }
+}
@@ -23,21 +23,30 @@ package org.candlepin.subscriptions.product;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import java.time.Duration;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.candlepin.subscriptions.capacity.CapacityReconciliationController;
 import org.candlepin.subscriptions.capacity.files.ProductDenylist;
+import org.candlepin.subscriptions.db.CapacityReportMarkerRepository;
 import org.candlepin.subscriptions.db.OfferingRepository;
 import org.candlepin.subscriptions.db.model.Offering;
+import org.candlepin.subscriptions.product.UpstreamProductData.UpstreamResponses;
 import org.candlepin.subscriptions.task.TaskQueueProperties;
 import org.candlepin.subscriptions.umb.CanonicalMessage;
 import org.candlepin.subscriptions.umb.UmbOperationalProduct;
+import org.candlepin.subscriptions.util.ApplicationClock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -56,16 +65,25 @@ public class OfferingSyncController {
   private static final String SYNC_LOG_TEMPLATE =
       "{} for offeringSku=\"{}\" in offeringSyncTimeMillis={}.";
 
+  /** A sync-all run is considered finished once none of its offerings was synced for this long. */
+  private static final Duration SYNC_RUN_IDLE_TIMEOUT = Duration.ofMinutes(30);
+
   private final OfferingRepository offeringRepository;
   private final ProductDenylist productDenylist;
   private final ProductService productService;
   private final CapacityReconciliationController capacityReconciliationController;
+  private final CapacityReportMarkerRepository capacityReportMarkerRepository;
+  private final ApplicationClock clock;
   private final Timer syncTimer;
   private final Timer enqueueAllTimer;
+  private final Counter skippedUnchangedCounter;
+  private final Counter appliedCounter;
   private final KafkaTemplate<String, OfferingSyncTask> offeringSyncKafkaTemplate;
   private final ObjectMapper objectMapper;
   private final String offeringSyncTopic;
   private final XmlMapper umbMessageMapper;
+  private final MeterRegistry meterRegistry;
+  private final Cache<String, CachingProductDataSource> syncRunProductData;
 
   @Autowired
   public OfferingSyncController(
@@ -73,6 +91,8 @@ public class OfferingSyncController {
       ProductDenylist productDenylist,
       ProductService productService,
       CapacityReconciliationController capacityReconciliationController,
+      CapacityReportMarkerRepository capacityReportMarkerRepository,
+      ApplicationClock clock,
       MeterRegistry meterRegistry,
       KafkaTemplate<String, OfferingSyncTask> offeringSyncKafkaTemplate,
       ObjectMapper objectMapper,
@@ -81,12 +101,29 @@ public class OfferingSyncController {
     this.productDenylist = productDenylist;
     this.productService = productService;
     this.capacityReconciliationController = capacityReconciliationController;
+    this.capacityReportMarkerRepository = capacityReportMarkerRepository;
+    this.clock = clock;
     this.syncTimer = meterRegistry.timer("swatch_offering_sync");
     this.enqueueAllTimer = meterRegistry.timer("swatch_offering_sync_enqueue_all");
+    this.skippedUnchangedCounter = meterRegistry.counter("swatch_offering_sync_skipped_unchanged");
+    this.appliedCounter = meterRegistry.counter("swatch_offering_sync_applied");
     this.offeringSyncKafkaTemplate = offeringSyncKafkaTemplate;
     this.objectMapper = objectMapper;
     this.offeringSyncTopic = taskQueueProperties.getTopic();
     this.umbMessageMapper = CanonicalMessage.createMapper();
+    this.meterRegistry = meterRegistry;
+    this.syncRunProductData =
+        CacheBuilder.newBuilder()
+            .expireAfterAccess(SYNC_RUN_IDLE_TIMEOUT)
+            .removalListener(
+                (RemovalListener<String, CachingProductDataSource>)
+                    notification ->
+                        LOGGER.info(
+                            "Offering sync run syncRunId={} made productTreeRequests={} and engProductRequests={} upstream",
+                            notification.getKey(),
+                            notification.getValue().getTreeRequests(),
+                            notification.getValue().getEngineeringProductRequests()))
+            .build();
   }
 
   /**
@@ -96,6 +133,32 @@ public class OfferingSyncController {
    */
   @Transactional
   public SyncResult syncOffering(String sku) {
+    return syncOffering(sku, productService);
+  }
+
+  /**
+   * Fetches the latest upstream version of an offering as part of a sync-all run, and updates
+   * Swatch's version if different. Upstream product data is shared by all offerings synced with the
+   * same run ID, so that product trees and engineering products common to several offerings are
+   * fetched once per run.
+   *
+   * @param sku the identifier of the marketing operational product
+   * @param syncRunId identifies the sync-all run
+   */
+  @Transactional
+  public SyncResult syncOffering(String sku, String syncRunId) {
+    CachingProductDataSource productData;
+    try {
+      productData =
+          syncRunProductData.get(
+              syncRunId, () -> new CachingProductDataSource(productService, meterRegistry));
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Unable to create product data cache", e);
+    }
+    return syncOffering(sku, productData);
+  }
+
+  private SyncResult syncOffering(String sku, ProductDataSource productDataSource) {
     Timer.Sample syncTime = Timer.start();
 
     if (productDenylist.productIdMatches(sku)) {
@@ -107,7 +170,9 @@ public class OfferingSyncController {
 
     try {
       SyncResult result =
-          getUpstreamOffering(sku).map(this::syncOffering).orElse(SyncResult.SKIPPED_NOT_FOUND);
+          UpstreamProductData.fetchUpstream(sku, productDataSource)
+              .map(this::syncOffering)
+              .orElse(SyncResult.SKIPPED_NOT_FOUND);
       Duration syncDuration = Duration.ofNanos(syncTime.stop(syncTimer));
       LOGGER.info(SYNC_LOG_TEMPLATE, result, sku, syncDuration.toMillis());
       return result;
@@ -119,27 +184,31 @@ public class OfferingSyncController {
     }
   }
 
-  /**
-   * @param sku the identifier of the marketing operational product
-   * @return An Offering with information filled by an upstream service, or empty if the product was
-   *     not found.
-   */
-  private Optional<Offering> getUpstreamOffering(String sku) {
-    LOGGER.debug("Retrieving product tree for offeringSku=\"{}\"", sku);
-    return UpstreamProductData.offeringFromUpstream(sku, productService);
-  }
-
   /**
    * Persists the latest state of an Offering. If no stored Offering matches the SKU, then the
    * Offering is inserted into the datastore. Otherwise, if there are actual changes, the stored
    * Offering with the matching SKU is updated with the given Offering.
    *
-   * @param newState the updated Offering
+   * <p>The upstream responses are hashed and checked against the content hash stored with the
+   * Offering first, so that unchanged offerings are skipped without merging the upstream responses
+   * into an Offering or loading the stored Offering.
+   *
+   * @param upstream the upstream product data of the Offering
    * @return {@link SyncResult#FETCHED_AND_SYNCED} if upstream offering was stored, or {@link
    *     SyncResult#SKIPPED_MATCHING} if the upstream offering matches what was stored and syncing
    *     was skipped.
    */
-  private SyncResult syncOffering(Offering newState) {
+  private SyncResult syncOffering(UpstreamResponses upstream) {
+    String contentHash = upstream.contentHash();
+    if (offeringRepository
+        .findContentHashBySku(upstream.sku())
+        .filter(contentHash::equals)
+        .isPresent()) {
+      skippedUnchangedCounter.increment();
+      return SyncResult.SKIPPED_MATCHING;
+    }
+    Offering newState = UpstreamProductData.offeringFromResponses(upstream);
+    newState.setContentHash(contentHash);
     Optional<Offering> persistedOffering = offeringRepository.findById(newState.getSku());
     return syncOffering(newState, persistedOffering);
   }
@@ -147,6 +216,8 @@ public class OfferingSyncController {
   private SyncResult syncOffering(Offering newState, Optional<Offering> persistedOffering) {
     LOGGER.debug("New state of offering to save: {}", newState);
     if (alreadySynced(persistedOffering, newState)) {
+      persistedOffering.ifPresent(existing -> storeHashes(existing, newState));
+      skippedUnchangedCounter.increment();
       return SyncResult.SKIPPED_MATCHING;
     }
 
@@ -158,18 +229,40 @@ public class OfferingSyncController {
           "Failed to insert offering: {} because of constraint violation. Checking again if it already exists.",
           newState);
       if (alreadySynced(offeringRepository.findById(newState.getSku()), newState)) {
+        skippedUnchangedCounter.increment();
         return SyncResult.SKIPPED_MATCHING;
       } else {
         throw ex;
       }
     }
 
+    // Capacity reports read the service level and usage of the offering directly.
+    capacityReportMarkerRepository.markUpdatedForOffering(newState.getSku(), clock.now());
     // Existing capacities might need updated if certain parts of the offering was changed.
     capacityReconciliationController.enqueueReconcileCapacityForOffering(newState.getSku());
 
+    appliedCounter.increment();
     return SyncResult.FETCHED_AND_SYNCED;
   }
 
+  /**
+   * Records the hashes of an offering whose content is unchanged, so that the next sync of the same
+   * content can be skipped before the offering is loaded. Each hash of the stored offering is kept
+   * when the latest state was not synced from that source.
+   */
+  private void storeHashes(Offering existing, Offering latest) {
+    String contentHash =
+        Optional.ofNullable(latest.getContentHash()).orElse(existing.getContentHash());
+    String umbMessageHash =
+        Optional.ofNullable(latest.getUmbMessageHash()).orElse(existing.getUmbMessageHash());
+    if (!Objects.equals(existing.getContentHash(), contentHash)
+        || !Objects.equals(existing.getUmbMessageHash(), umbMessageHash)) {
+      existing.setContentHash(contentHash);
+      existing.setUmbMessageHash(umbMessageHash);
+      offeringRepository.save(existing);
+    }
+  }
+
   /**
    * Enqueues all offerings listed not in the product denylist to be synced with upstream.
    *
@@ -179,7 +272,12 @@ public class OfferingSyncController {
     Timer.Sample enqueueTime = Timer.start();
 
     Set<String> products = offeringRepository.findAllDistinctSkus();
-    products.forEach(this::enqueueOfferingSyncTask);
+    // tasks of the same run share upstream product data, see syncOffering(String, String)
+    String syncRunId = UUID.randomUUID().toString();
+    products.forEach(
+        sku ->
+            offeringSyncKafkaTemplate.send(
+                offeringSyncTopic, new OfferingSyncTask(sku, syncRunId)));
 
     Duration enqueueDuration = Duration.ofNanos(enqueueTime.stop(enqueueAllTimer));
     int numProducts = products.size();
@@ -218,11 +316,17 @@ public class OfferingSyncController {
         .map(sku -> UpstreamProductData.offeringFromUpstream(sku, productDataSource))
         .filter(Optional::isPresent)
         .map(Optional::get)
-        .forEach(offeringRepository::save);
+        .forEach(
+            offering -> {
+              offeringRepository.save(offering);
+              capacityReportMarkerRepository.markUpdatedForOffering(offering.getSku(), clock.now());
+            });
     return productDataSource.getTopLevelSkus();
   }
 
+  @Transactional
   public void deleteOffering(String sku) {
+    capacityReportMarkerRepository.markUpdatedForOffering(sku, clock.now());
     offeringRepository.deleteById(sku);
   }
 
@@ -264,16 +368,36 @@ public class OfferingSyncController {
    * Sync the offering state using only the UMB message if possible, otherwise sync the offering
    * from the RHIT product service.
    *
+   * <p>A message matching the last one applied to the offering is skipped without loading the
+   * stored offering. The hash of the last applied message is cleared whenever the offering is
+   * changed by a sync from the product service.
+   *
    * @param umbOperationalProduct product definition from a UMB message
    * @see UpstreamProductData#offeringFromUmbData
    */
   private SyncResult syncRootSku(UmbOperationalProduct umbOperationalProduct) {
+    String umbMessageHash = UpstreamProductData.umbMessageHash(umbOperationalProduct);
+    if (offeringRepository
+        .findUmbMessageHashBySku(umbOperationalProduct.getSku())
+        .filter(umbMessageHash::equals)
+        .isPresent()) {
+      LOGGER.debug(
+          "Skipping UMB message for sku={} because it matches the last applied message",
+          umbOperationalProduct.getSku());
+      skippedUnchangedCounter.increment();
+      return SyncResult.SKIPPED_MATCHING;
+    }
+
     Optional<Offering> existing = offeringRepository.findById(umbOperationalProduct.getSku());
     Optional<Offering> newState =
         UpstreamProductData.offeringFromUmbData(
             umbOperationalProduct, existing.orElse(null), productService);
     if (newState.isPresent()) {
-      return syncOffering(newState.get(), existing);
+      Offering offering = newState.get();
+      // the content hash is a hash of product service responses, so a stored offering changed by
+      // a UMB message has its content hash cleared
+      offering.setUmbMessageHash(umbMessageHash);
+      return syncOffering(offering, existing);
     } else {
       LOGGER.warn(
           "Unable to sync offering from UMB message for sku={}, because product service has no records for it",
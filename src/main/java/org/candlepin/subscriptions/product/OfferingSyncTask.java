@@ -27,9 +27,17 @@ import lombok.Value;
 public class OfferingSyncTask {
   @NonNull private final String sku;
 
-  // Use ConstructorProperties for Jackson deserialization
-  @java.beans.ConstructorProperties("sku")
+  /** Identifies the sync-all run the task belongs to, or null for a sync of a single offering. */
+  private final String syncRunId;
+
   public OfferingSyncTask(String sku) {
+    this(sku, null);
+  }
+
+  // Use ConstructorProperties for Jackson deserialization
+  @java.beans.ConstructorProperties({"sku", "syncRunId"})
+  public OfferingSyncTask(String sku, String syncRunId) {
     this.sku = sku;
+    this.syncRunId = syncRunId;
   }
 }
@@ -66,7 +66,11 @@ public class OfferingWorker extends SeekableKafkaConsumer {
     String sku = task.getSku();
     log.info("Sync for offeringSku={} triggered by OfferingSyncTask", sku);
 
-    controller.syncOffering(sku);
+    if (task.getSyncRunId() == null) {
+      controller.syncOffering(sku);
+    } else {
+      controller.syncOffering(sku, task.getSyncRunId());
+    }
   }
 
   @JmsListener(destination = "#{@umbProperties.productTopic}")
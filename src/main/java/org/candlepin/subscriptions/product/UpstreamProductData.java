@@ -20,6 +20,9 @@
  */
 package org.candlepin.subscriptions.product;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Collectors;
 import lombok.ToString;
@@ -78,6 +81,14 @@ class UpstreamProductData {
   /** Ignore any product attribute whose value is in this set. */
   private static final Set<String> ATTRIBUTE_DISALLOWED_VALUES = Set.of("n/a", "0", "n", "none");
 
+  /**
+   * Version of the mapping from upstream product data to offerings, included in the content and UMB
+   * message hashes. Offerings whose hash matches are not derived again, so this must be bumped
+   * whenever that mapping changes (attributes read, merging of children or derived SKUs, capacity
+   * calculation, ...), or offerings already stored keep their old derivation.
+   */
+  static final int DERIVATION_VERSION = 1;
+
   private UpstreamProductData(String sku) {
     this.sku = sku;
   }
@@ -99,15 +110,49 @@ class UpstreamProductData {
    */
   public static Optional<Offering> offeringFromUpstream(
       String sku, ProductDataSource productDataSource) {
+    return fetchUpstream(sku, productDataSource).map(UpstreamProductData::offeringFromResponses);
+  }
+
+  /**
+   * Fetch the upstream product data needed to create an {@link Offering}, without merging it into
+   * an offering yet. The SKUs to fetch engineering products for are read directly from the fetched
+   * product trees.
+   *
+   * @param sku the identifier of the marketing operational product
+   * @param productDataSource the upstream product service
+   * @return the upstream responses for the offering, or empty if the product was not found.
+   */
+  public static Optional<UpstreamResponses> fetchUpstream(
+      String sku, ProductDataSource productDataSource) {
     LOGGER.debug("Retrieving product tree for offeringSku=\"{}\"", sku);
 
     try {
-      return productDataSource
-          .getTree(sku)
-          .map(UpstreamProductData::createFromTree)
-          .map(mid -> mid.fetchAndAddDerivedTreeIfExists(productDataSource))
-          .map(mid -> mid.fetchAndAddEngProdsIfExist(productDataSource))
-          .map(UpstreamProductData::toOffering);
+      Optional<RESTProductTree> tree = productDataSource.getTree(sku);
+      if (tree.isEmpty()) {
+        return Optional.empty();
+      }
+      List<OperationalProduct> products = tree.get().getProducts();
+      Set<String> allSkus = new HashSet<>();
+      products.forEach(product -> allSkus.add(product.getSku()));
+
+      Optional<RESTProductTree> derivedTree = Optional.empty();
+      String derivedSku = findDerivedSku(products);
+      if (derivedSku != null) {
+        allSkus.add(derivedSku);
+        derivedTree = fetchDerivedTree(products.get(0).getSku(), derivedSku, productDataSource);
+        derivedTree
+            .map(RESTProductTree::getProducts)
+            .filter(derivedProducts -> !derivedProducts.isEmpty())
+            .ifPresent(
+                derivedProducts ->
+                    derivedProducts
+                        .subList(1, derivedProducts.size())
+                        .forEach(product -> allSkus.add(product.getSku())));
+      }
+
+      Map<String, List<EngineeringProduct>> engProds =
+          fetchEngProds(sku, allSkus, productDataSource);
+      return Optional.of(new UpstreamResponses(tree.get(), derivedTree, engProds));
     } catch (ApiException e) {
       throw new ExternalServiceException(
           ErrorCode.REQUEST_PROCESSING_ERROR,
@@ -118,6 +163,68 @@ class UpstreamProductData {
     }
   }
 
+  /**
+   * Merge previously fetched upstream product data into an {@link Offering}.
+   *
+   * @param responses the upstream responses for the offering
+   * @return An Offering with information filled by the upstream responses
+   */
+  public static Offering offeringFromResponses(UpstreamResponses responses) {
+    UpstreamProductData offer = createFromTree(responses.tree());
+    offer.addDerivedTreeIfExists(responses.derivedTree());
+    offer.addEngProds(responses.engProds());
+    return offer.toOffering();
+  }
+
+  /**
+   * Find the DERIVED_SKU attribute of a product tree, the same way that attributes are merged into
+   * an offering: the first allowed value wins, and the parent product is listed first.
+   */
+  private static String findDerivedSku(List<OperationalProduct> products) {
+    return products.stream()
+        .map(OperationalProduct::getAttributes)
+        .filter(Objects::nonNull)
+        .flatMap(List::stream)
+        .filter(attr -> Attr.DERIVED_SKU.name().equals(attr.getCode()))
+        .map(AttributeValue::getValue)
+        .filter(UpstreamProductData::attributeIsAllowed)
+        .findFirst()
+        .orElse(null);
+  }
+
+  private static Optional<RESTProductTree> fetchDerivedTree(
+      String sku, String derivedSku, ProductDataSource productDataSource) {
+    try {
+      // derived SKUs are marketing SKUs, so need to get its service SKUs too and add
+      // the SKUs to the list of children so the engOids are fetched.
+      return productDataSource.getTree(derivedSku);
+    } catch (ApiException e) {
+      throw new ExternalServiceException(
+          ErrorCode.REQUEST_PROCESSING_ERROR,
+          "Unable to retrieve derivedSku=\"" + derivedSku + "\" for offeringSku=\"" + sku + "\"",
+          e);
+    }
+  }
+
+  private static Map<String, List<EngineeringProduct>> fetchEngProds(
+      String sku, Set<String> allSkus, ProductDataSource productDataSource) {
+    /*
+    Engineering Product OIDs need be fetched for all SKUs, including derived SKUs. For *most*
+    VDC SKUs like RH00001 and its child SVCRH00001, neither of them will have associated engOIDs.
+    but their derived SKU RH00049 has a child SVCRH00049 with associated engOIDs. So it is important
+    to fetch engOIDs for derived SKUs.
+    */
+    LOGGER.debug("Retrieving engOids for skus=\"{}\" of offeringSku=\"{}\"", allSkus, sku);
+    try {
+      return productDataSource.getEngineeringProductsForSkus(allSkus);
+    } catch (ApiException e) {
+      throw new ExternalServiceException(
+          ErrorCode.REQUEST_PROCESSING_ERROR,
+          "Unable to retrieve engOids of skus=\"" + allSkus + "\" for offeringSku=\"" + sku + "\"",
+          e);
+    }
+  }
+
   public static String findSku(RESTProductTree skuTree) {
     List<OperationalProduct> products = skuTree.getProducts();
     if (products == null || products.isEmpty()) {
@@ -213,6 +320,93 @@ class UpstreamProductData {
     return Optional.of(umbData.toOffering());
   }
 
+  /**
+   * Computes a digest of the parts of a UMB product message that are used to sync an offering.
+   * Attributes not used by offerings are ignored, and child SKUs are sorted.
+   *
+   * @param product umb data for the offering
+   * @return hex encoded SHA-256 digest
+   */
+  public static String umbMessageHash(UmbOperationalProduct product) {
+    UpstreamProductData umbData = createFromUmbMessage(product);
+    Hasher hasher = Hashing.sha256().newHasher();
+    putField(hasher, DERIVATION_VERSION);
+    putField(hasher, umbData.sku);
+    putField(hasher, umbData.children);
+    umbData.attrs.forEach((attr, value) -> putField(hasher, attr + "=" + value));
+    return hasher.hash().toString();
+  }
+
+  /**
+   * The upstream product data used to create an {@link Offering}, as returned by the product
+   * service.
+   *
+   * @param tree the product tree of the offering SKU
+   * @param derivedTree the product tree of the derived SKU, if the offering has one
+   * @param engProds the engineering products of every SKU in the product trees
+   */
+  public record UpstreamResponses(
+      RESTProductTree tree,
+      Optional<RESTProductTree> derivedTree,
+      Map<String, List<EngineeringProduct>> engProds) {
+
+    /** The SKU of the offering, which is listed first in its product tree. */
+    public String sku() {
+      return findSku(tree);
+    }
+
+    /**
+     * Computes a digest of the upstream responses, so that unchanged upstream data can be detected
+     * before it is merged into an offering. Only the fields read when creating an offering are
+     * hashed, along with {@link UpstreamProductData#DERIVATION_VERSION}. Engineering products are
+     * sorted by SKU and OID, since their order doesn't affect the offering.
+     *
+     * @return hex encoded SHA-256 digest
+     */
+    public String contentHash() {
+      Hasher hasher = Hashing.sha256().newHasher();
+      putField(hasher, DERIVATION_VERSION);
+      putTree(hasher, tree);
+      putField(hasher, derivedTree.isPresent());
+      derivedTree.ifPresent(derived -> putTree(hasher, derived));
+      new TreeMap<>(engProds)
+          .forEach(
+              (engProdSku, engProdList) -> {
+                putField(hasher, engProdSku);
+                List<Integer> oids =
+                    engProdList.stream().map(EngineeringProduct::getOid).sorted().toList();
+                putField(hasher, oids.size());
+                oids.forEach(oid -> putField(hasher, oid));
+              });
+      return hasher.hash().toString();
+    }
+
+    private static void putTree(Hasher hasher, RESTProductTree productTree) {
+      List<OperationalProduct> products = productTree.getProducts();
+      putField(hasher, products.size());
+      for (OperationalProduct product : products) {
+        putField(hasher, product.getSku());
+        putField(hasher, product.getDescription());
+        List<String> roles = Optional.ofNullable(product.getRoles()).orElse(List.of());
+        putField(hasher, roles.size());
+        roles.forEach(role -> putField(hasher, role));
+        // attribute order is kept, since the first of two conflicting attributes wins
+        List<AttributeValue> attributes =
+            Optional.ofNullable(product.getAttributes()).orElse(List.of());
+        putField(hasher, attributes.size());
+        for (AttributeValue attribute : attributes) {
+          putField(hasher, attribute.getCode());
+          putField(hasher, attribute.getValue());
+        }
+      }
+    }
+  }
+
+  private static void putField(Hasher hasher, Object value) {
+    // terminate each field so that adjacent values can't be shifted into one another
+    hasher.putString(String.valueOf(value), StandardCharsets.UTF_8).putByte((byte) 0);
+  }
+
   private static UpstreamProductData createFromUmbMessage(UmbOperationalProduct product) {
     UpstreamProductData data = new UpstreamProductData(product.getSku());
     if (product.getChildSkus() != null) {
@@ -328,64 +522,29 @@ class UpstreamProductData {
   }
 
   /**
-   * If the DERIVED_SKU attribute exists, will fetch the product tree of the derived SKU and merge
-   * it with the offering. Merging means its attributes and its children's attributes will be used
-   * in the offering if not yet, and the derived sku and its child skus will be added as child skus
-   * of the offering.
+   * If the DERIVED_SKU attribute exists, will merge the product tree of the derived SKU with the
+   * offering. Merging means its attributes and its children's attributes will be used in the
+   * offering if not yet, and the derived sku and its child skus will be added as child skus of the
+   * offering.
    *
    * <p>It is unclear if derived SKUs <b>should</b> have the attributes merged and the derived SKUs
    * listed as children in the longer term. For now though, this simplification fits with how we
    * present offerings to the user. See:
    * https://docs.google.com/document/d/1t5OlyWanEpwXOA7ysPKuZW61cvYnIScwRMl--hmajXY/edit#heading=h.3aq1apsnbb0o
    *
-   * @param productDataSource the upstream datasource to fetch the derived product from
-   * @return this UpstreamProductData (not the derived product), for chaining.
+   * @param derivedTree the product tree of the derived SKU, if it was found upstream
    */
-  private UpstreamProductData fetchAndAddDerivedTreeIfExists(ProductDataSource productDataSource) {
+  private void addDerivedTreeIfExists(Optional<RESTProductTree> derivedTree) {
     String derivedSku = attrs.get(Attr.DERIVED_SKU);
     if (derivedSku != null) {
-      try {
-        // derived SKUs are marketing SKUs, so need to get its service SKUs too and add
-        // the SKUs to the list of children so the engOids are fetched.
-        Optional<UpstreamProductData> derived =
-            productDataSource.getTree(derivedSku).map(UpstreamProductData::createFromTree);
-        if (derived.isEmpty()) {
-          LOGGER.warn("No tree found for derivedSku=\"{}\" of offeringSku=\"{}\"", derivedSku, sku);
-        } else {
-          derivedChildren.addAll(derived.get().children);
-          derived.get().attrs.forEach(this::putIfNoConflict);
-        }
-      } catch (ApiException e) {
-        throw new ExternalServiceException(
-            ErrorCode.REQUEST_PROCESSING_ERROR,
-            "Unable to retrieve derivedSku=\"" + derivedSku + "\" for offeringSku=\"" + sku + "\"",
-            e);
+      Optional<UpstreamProductData> derived = derivedTree.map(UpstreamProductData::createFromTree);
+      if (derived.isEmpty()) {
+        LOGGER.warn("No tree found for derivedSku=\"{}\" of offeringSku=\"{}\"", derivedSku, sku);
+      } else {
+        derivedChildren.addAll(derived.get().children);
+        derived.get().attrs.forEach(this::putIfNoConflict);
       }
     }
-    return this;
-  }
-
-  private UpstreamProductData fetchAndAddEngProdsIfExist(ProductDataSource productDataSource) {
-    /*
-    Engineering Product OIDs need be fetched for all SKUs, including derived SKUs. For *most*
-    VDC SKUs like RH00001 and its child SVCRH00001, neither of them will have associated engOIDs.
-    but their derived SKU RH00049 has a child SVCRH00049 with associated engOIDs. So it is important
-    to fetch engOIDs for derived SKUs.
-    */
-    Set<String> allSkus = allSkus();
-    LOGGER.debug("Retrieving engOids for skus=\"{}\" of offeringSku=\"{}\"", allSkus, sku);
-    try {
-      Map<String, List<EngineeringProduct>> engProds =
-          productDataSource.getEngineeringProductsForSkus(allSkus);
-      addEngProds(engProds);
-    } catch (ApiException e) {
-      throw new ExternalServiceException(
-          ErrorCode.REQUEST_PROCESSING_ERROR,
-          "Unable to retrieve engOids of skus=\"" + allSkus + "\" for offeringSku=\"" + sku + "\"",
-          e);
-    }
-
-    return this;
   }
 
   private void addEngProds(Map<String, List<EngineeringProduct>> engProds) {
@@ -394,20 +553,6 @@ class UpstreamProductData {
         .forEach(engOids::add);
   }
 
-  /**
-   * Get all SKUs involved in the offering, including the offering SKU, child SKUs, derived SKU, and
-   * derived child SKUs.
-   *
-   * @return collection of all SKUs, or empty if none.
-   */
-  private Set<String> allSkus() {
-    var skus = new HashSet<>(children);
-    skus.add(sku);
-    Optional.ofNullable(attrs.get(Attr.DERIVED_SKU)).ifPresent(skus::add);
-    skus.addAll(derivedChildren);
-    return skus;
-  }
-
   private void calcCapacityForOffering(Offering offering) {
     // If IFL attr is defined, use it...
     Integer cores =
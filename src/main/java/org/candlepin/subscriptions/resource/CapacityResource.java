@@ -28,6 +28,7 @@ import jakarta.ws.rs.core.UriInfo;
 import java.time.OffsetDateTime;
 import java.time.temporal.TemporalAmount;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
@@ -80,6 +81,7 @@ public class CapacityResource implements CapacityApi {
   private final PageLinkCreator pageLinkCreator;
   private final ApplicationClock clock;
   private final TagProfile tagProfile;
+  private final ReportResponseCache reportResponseCache;
 
   @Context UriInfo uriInfo;
 
@@ -88,12 +90,14 @@ public class CapacityResource implements CapacityApi {
       SubscriptionRepository subscriptionRepository,
       PageLinkCreator pageLinkCreator,
       ApplicationClock clock,
-      TagProfile tagProfile) {
+      TagProfile tagProfile,
+      ReportResponseCache reportResponseCache) {
     this.repository = repository;
     this.subscriptionRepository = subscriptionRepository;
     this.pageLinkCreator = pageLinkCreator;
     this.clock = clock;
     this.tagProfile = tagProfile;
+    this.reportResponseCache = reportResponseCache;
   }
 
   /**
@@ -112,7 +116,43 @@ public class CapacityResource implements CapacityApi {
       @Min(1) Integer limit,
       ServiceLevelType sla,
       UsageType usage) {
+    String orgId = ResourceUtils.getOrgId();
+    return reportResponseCache.getCapacityReport(
+        orgId,
+        Arrays.asList(
+            "capacityReport",
+            productId,
+            granularityType,
+            beginning,
+            ending,
+            offset,
+            limit,
+            sla,
+            usage),
+        () ->
+            buildCapacityReport(
+                orgId,
+                productId,
+                granularityType,
+                beginning,
+                ending,
+                offset,
+                limit,
+                sla,
+                usage));
+  }
 
+  @SuppressWarnings("java:S107")
+  private CapacityReport buildCapacityReport(
+      String orgId,
+      ProductId productId,
+      GranularityType granularityType,
+      OffsetDateTime beginning,
+      OffsetDateTime ending,
+      Integer offset,
+      Integer limit,
+      ServiceLevelType sla,
+      UsageType usage) {
     // capacity records do not include _ANY rows
     ServiceLevel sanitizedServiceLevel = ResourceUtils.sanitizeServiceLevel(sla);
     if (sanitizedServiceLevel == ServiceLevel._ANY) {
@@ -125,7 +165,6 @@ public class CapacityResource implements CapacityApi {
     }
 
     Granularity granularityValue = Granularity.fromString(granularityType.toString());
-    String orgId = ResourceUtils.getOrgId();
     List<CapacitySnapshot> capacities =
         getCapacities(
             orgId,
@@ -190,9 +229,50 @@ public class CapacityResource implements CapacityApi {
         beginning,
         ending,
         reportCategory);
-    HypervisorReportCategory hypervisorReportCategory =
-        HypervisorReportCategory.mapCategory(reportCategory);
 
+    String orgId = ResourceUtils.getOrgId();
+    return reportResponseCache.getCapacityReport(
+        orgId,
+        Arrays.asList(
+            "capacityReportByMetricId",
+            productId,
+            metricId,
+            granularityType,
+            beginning,
+            ending,
+            offset,
+            limit,
+            reportCategory,
+            sla,
+            usage),
+        () ->
+            buildCapacityReportByMetricId(
+                orgId,
+                productId,
+                metricId,
+                granularityType,
+                beginning,
+                ending,
+                offset,
+                limit,
+                reportCategory,
+                sla,
+                usage));
+  }
+
+  @SuppressWarnings("java:S107")
+  private CapacityReportByMetricId buildCapacityReportByMetricId(
+      String orgId,
+      ProductId productId,
+      MetricId metricId,
+      GranularityType granularityType,
+      OffsetDateTime beginning,
+      OffsetDateTime ending,
+      Integer offset,
+      Integer limit,
+      ReportCategory reportCategory,
+      ServiceLevelType sla,
+      UsageType usage) {
     // capacity records do not include _ANY rows
     ServiceLevel sanitizedServiceLevel = ResourceUtils.sanitizeServiceLevel(sla);
     if (sanitizedServiceLevel == ServiceLevel._ANY) {
@@ -204,8 +284,9 @@ public class CapacityResource implements CapacityApi {
       sanitizedUsage = null;
     }
 
+    HypervisorReportCategory hypervisorReportCategory =
+        HypervisorReportCategory.mapCategory(reportCategory);
     Granularity granularityValue = Granularity.fromString(granularityType.toString());
-    String orgId = ResourceUtils.getOrgId();
     List<CapacitySnapshotByMetricId> capacities =
         getCapacitiesByMetricId(
             orgId,
@@ -0,0 +1,212 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.resource;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.ws.rs.core.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.candlepin.subscriptions.db.CapacityReportMarkerRepository;
+import org.candlepin.subscriptions.db.TallyReportMarkerRepository;
+import org.candlepin.subscriptions.exception.NotModifiedException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Conditional GET support and short-lived caching for tally and capacity reports.
+ *
+ * <p>Each report response gets an entity tag derived from the query and the org's change markers:
+ * the time its tally snapshots or its subscription capacity were last written.
+ * If the client already holds a matching tag, a 304 is sent without running any report queries.
+ * Otherwise, computed reports are kept in a bounded in-memory cache keyed by that same tag, so an
+ * entry is naturally bypassed once the markers move.
+ */
+@Component
+@Slf4j
+public class ReportResponseCache {
+  private static final String METRIC_PREFIX = "rhsm-subscriptions.report-response-cache";
+
+  private final TallyReportMarkerRepository tallyReportMarkerRepository;
+  private final CapacityReportMarkerRepository capacityReportMarkerRepository;
+  private final ReportResponseCacheProperties properties;
+  private final Cache<String, CachedReport> cache;
+  private final Counter notModifiedCounter;
+  private final Timer computeTimer;
+  private final Timer savedTimer;
+
+  public ReportResponseCache(
+      TallyReportMarkerRepository tallyReportMarkerRepository,
+      CapacityReportMarkerRepository capacityReportMarkerRepository,
+      ReportResponseCacheProperties properties,
+      MeterRegistry meterRegistry) {
+    this.tallyReportMarkerRepository = tallyReportMarkerRepository;
+    this.capacityReportMarkerRepository = capacityReportMarkerRepository;
+    this.properties = properties;
+    this.cache =
+        CacheBuilder.newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .expireAfterWrite(properties.getExpireAfterWrite())
+            .recordStats()
+            .build();
+    GuavaCacheMetrics.monitor(meterRegistry, cache, METRIC_PREFIX);
+    this.notModifiedCounter = meterRegistry.counter(METRIC_PREFIX + ".not_modified");
+    this.computeTimer = meterRegistry.timer(METRIC_PREFIX + ".compute");
+    this.savedTimer = meterRegistry.timer(METRIC_PREFIX + ".saved");
+  }
+
+  /**
+   * Serve a report built from tally snapshots.
+   *
+   * @param orgId org the report is for
+   * @param query every parameter that influences the report's content
+   * @param reportSupplier builds the report when neither the client nor the cache has it
+   * @return the report
+   * @throws NotModifiedException if the request's If-None-Match matches the current report
+   */
+  public <T> T getTallyReport(String orgId, List<?> query, Supplier<T> reportSupplier) {
+    return getReport(
+        orgId,
+        query,
+        () -> marker(tallyReportMarkerRepository.findLastUpdatedByOrgId(orgId)),
+        reportSupplier);
+  }
+
+  /**
+   * Serve a report built from subscription capacity.
+   *
+   * @param orgId org the report is for
+   * @param query every parameter that influences the report's content
+   * @param reportSupplier builds the report when neither the client nor the cache has it
+   * @return the report
+   * @throws NotModifiedException if the request's If-None-Match matches the current report
+   */
+  public <T> T getCapacityReport(String orgId, List<?> query, Supplier<T> reportSupplier) {
+    return getReport(
+        orgId,
+        query,
+        () -> marker(capacityReportMarkerRepository.findLastUpdatedByOrgId(orgId)),
+        reportSupplier);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T getReport(
+      String orgId, List<?> query, Supplier<String> markerSupplier, Supplier<T> reportSupplier) {
+    Optional<ServletRequestAttributes> http = currentRequest();
+    if (http.isEmpty() && !properties.isEnabled()) {
+      return reportSupplier.get();
+    }
+
+    String entityTag = entityTag(orgId, query, markerSupplier.get());
+    CachedReport cached = properties.isEnabled() ? cache.getIfPresent(entityTag) : null;
+
+    if (http.isPresent()) {
+      HttpServletRequest request = http.get().getRequest();
+      if (matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), entityTag)) {
+        log.debug("Report for orgId={} not modified since etag={}", orgId, entityTag);
+        notModifiedCounter.increment();
+        if (cached != null) {
+          savedTimer.record(cached.computeNanos(), TimeUnit.NANOSECONDS);
+        }
+        throw new NotModifiedException(entityTag);
+      }
+      HttpServletResponse response = http.get().getResponse();
+      if (response != null) {
+        response.setHeader(HttpHeaders.ETAG, quote(entityTag));
+        // reports are per-org, so only the requesting client may reuse them, after revalidating
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+      }
+    }
+
+    if (cached != null) {
+      savedTimer.record(cached.computeNanos(), TimeUnit.NANOSECONDS);
+      return (T) cached.report();
+    }
+
+    long start = System.nanoTime();
+    T report = reportSupplier.get();
+    long elapsed = System.nanoTime() - start;
+    computeTimer.record(elapsed, TimeUnit.NANOSECONDS);
+    if (properties.isEnabled()) {
+      cache.put(entityTag, new CachedReport(report, elapsed));
+    }
+    return report;
+  }
+
+  private static String marker(Optional<OffsetDateTime> lastUpdated) {
+    return lastUpdated.map(OffsetDateTime::toString).orElse("none");
+  }
+
+  static String entityTag(String orgId, List<?> query, String marker) {
+    return Hashing.sha256()
+        .hashString(
+            String.join("|", orgId, String.valueOf(query), marker), StandardCharsets.UTF_8)
+        .toString();
+  }
+
+  static boolean matchesAny(String ifNoneMatch, String entityTag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.trim();
+      if (tag.equals("*")) {
+        return true;
+      }
+      // If-None-Match uses weak comparison, so a weak validator still counts as a match
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (Objects.equals(tag, quote(entityTag))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String quote(String entityTag) {
+    return "\"" + entityTag + "\"";
+  }
+
+  private static Optional<ServletRequestAttributes> currentRequest() {
+    if (RequestContextHolder.getRequestAttributes()
+        instanceof ServletRequestAttributes attributes) {
+      return Optional.of(attributes);
+    }
+    return Optional.empty();
+  }
+
+  private record CachedReport(Object report, long computeNanos) {}
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.resource;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/** Settings for the in-process cache of tally and capacity report responses. */
+@Component
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "rhsm-subscriptions.report-response-cache")
+public class ReportResponseCacheProperties {
+  /**
+   * Whether computed reports are kept in memory. Conditional requests (If-None-Match) are honored
+   * either way.
+   */
+  private boolean enabled = true;
+
+  /** Maximum number of report responses kept in memory. */
+  private long maximumSize = 1000;
+
+  /**
+   * How long a cached report may be served. Entries are also bypassed as soon as the org's change
+   * markers move, so this only bounds memory held by idle entries.
+   */
+  private Duration expireAfterWrite = Duration.ofMinutes(10);
+}
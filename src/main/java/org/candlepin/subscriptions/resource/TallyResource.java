@@ -28,6 +28,7 @@ import jakarta.ws.rs.core.UriInfo;
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -36,6 +37,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -76,6 +78,7 @@ public class TallyResource implements TallyApi {
   private final ApplicationClock clock;
   private final TagProfile tagProfile;
   private final BillableUsageRemittanceRepository remittanceRepository;
+  private final ReportResponseCache reportResponseCache;
 
   @Context private UriInfo uriInfo;
 
@@ -85,12 +88,14 @@ public class TallyResource implements TallyApi {
       PageLinkCreator pageLinkCreator,
       ApplicationClock clock,
       TagProfile tagProfile,
-      BillableUsageRemittanceRepository remittanceRepository) {
+      BillableUsageRemittanceRepository remittanceRepository,
+      ReportResponseCache reportResponseCache) {
     this.repository = repository;
     this.pageLinkCreator = pageLinkCreator;
     this.clock = clock;
     this.tagProfile = tagProfile;
     this.remittanceRepository = remittanceRepository;
+    this.reportResponseCache = reportResponseCache;
   }
 
   @Override
@@ -126,6 +131,57 @@ public class TallyResource implements TallyApi {
             offset,
             limit);
 
+    Supplier<TallyReportData> reportSupplier =
+        () ->
+            buildTallyReportData(
+                reportCriteria,
+                productId,
+                metricId,
+                category,
+                sla,
+                usageType,
+                billingProviderType,
+                billingAcctId,
+                useRunningTotalsFormat);
+    // Reports split by billing category also depend on remittance, which has no change marker.
+    if (billingCategory != null) {
+      return reportSupplier.get();
+    }
+    return reportResponseCache.getTallyReport(
+        reportCriteria.getOrgId(),
+        Arrays.asList(
+            "tallyReportData",
+            productId,
+            metricId,
+            granularityType,
+            beginning,
+            ending,
+            category,
+            sla,
+            usageType,
+            billingProviderType,
+            billingAcctId,
+            offset,
+            limit,
+            useRunningTotalsFormat),
+        reportSupplier);
+  }
+
+  @SuppressWarnings("java:S107")
+  private TallyReportData buildTallyReportData(
+      ReportCriteria reportCriteria,
+      ProductId productId,
+      MetricId metricId,
+      ReportCategory category,
+      ServiceLevelType sla,
+      UsageType usageType,
+      BillingProviderType billingProviderType,
+      String billingAcctId,
+      Boolean useRunningTotalsFormat) {
+    BillingCategory billingCategory = reportCriteria.getBillingCategory();
+    OffsetDateTime beginning = reportCriteria.getBeginning();
+    OffsetDateTime ending = reportCriteria.getEnding();
+
     Page<org.candlepin.subscriptions.db.model.TallySnapshot> snapshotPage =
         repository.findSnapshot(
             reportCriteria.getOrgId(),
@@ -399,6 +455,28 @@ public class TallyResource implements TallyApi {
             offset,
             limit);
 
+    return reportResponseCache.getTallyReport(
+        reportCriteria.getOrgId(),
+        Arrays.asList(
+            "tallyReport",
+            productId,
+            granularityType,
+            beginning,
+            ending,
+            offset,
+            limit,
+            sla,
+            usageType,
+            useRunningTotalsFormat),
+        () -> buildTallyReport(reportCriteria, productId, sla, usageType, useRunningTotalsFormat));
+  }
+
+  private TallyReport buildTallyReport(
+      ReportCriteria reportCriteria,
+      ProductId productId,
+      ServiceLevelType sla,
+      UsageType usageType,
+      Boolean useRunningTotalsFormat) {
     Page<org.candlepin.subscriptions.db.model.TallySnapshot> snapshotPage =
         repository.findSnapshot(
             reportCriteria.getOrgId(),
@@ -441,7 +519,11 @@ public class TallyResource implements TallyApi {
       ReportFiller<TallySnapshot> reportFiller =
           ReportFillerFactory.getInstance(clock, reportCriteria.getGranularity());
       report.setData(
-          reportFiller.fillGaps(report.getData(), beginning, ending, useRunningTotalsFormat));
+          reportFiller.fillGaps(
+              report.getData(),
+              reportCriteria.getBeginning(),
+              reportCriteria.getEnding(),
+              useRunningTotalsFormat));
     }
 
     // Set the count last since the report may have gotten filled.
@@ -24,8 +24,10 @@ import io.micrometer.core.annotation.Timed;
 import java.time.OffsetDateTime;
 import java.util.stream.Stream;
 import org.candlepin.subscriptions.db.AccountConfigRepository;
+import org.candlepin.subscriptions.db.TallyReportMarkerRepository;
 import org.candlepin.subscriptions.db.TallySnapshotRepository;
 import org.candlepin.subscriptions.db.model.Granularity;
+import org.candlepin.subscriptions.util.ApplicationClock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -40,16 +42,22 @@ public class TallyRetentionController {
 
   private final TallySnapshotRepository tallySnapshotRepository;
   private final AccountConfigRepository accountConfigRepository;
+  private final TallyReportMarkerRepository tallyReportMarkerRepository;
   private final TallyRetentionPolicy policy;
+  private final ApplicationClock clock;
 
   @Autowired
   public TallyRetentionController(
       TallySnapshotRepository tallySnapshotRepository,
       AccountConfigRepository accountConfigRepository,
-      TallyRetentionPolicy policy) {
+      TallyReportMarkerRepository tallyReportMarkerRepository,
+      TallyRetentionPolicy policy,
+      ApplicationClock clock) {
     this.tallySnapshotRepository = tallySnapshotRepository;
     this.accountConfigRepository = accountConfigRepository;
+    this.tallyReportMarkerRepository = tallyReportMarkerRepository;
     this.policy = policy;
+    this.clock = clock;
   }
 
   @Timed("rhsm-subscriptions.snapshots.purge")
@@ -68,13 +76,19 @@ public class TallyRetentionController {
   }
 
   public void cleanStaleSnapshotsForOrgId(String orgId) {
+    int deleted = 0;
     for (Granularity granularity : Granularity.values()) {
       OffsetDateTime cutoffDate = policy.getCutoffDate(granularity);
       if (cutoffDate == null) {
         continue;
       }
-      tallySnapshotRepository.deleteAllByOrgIdAndGranularityAndSnapshotDateBefore(
-          orgId, granularity, cutoffDate);
+      deleted +=
+          tallySnapshotRepository.deleteAllByOrgIdAndGranularityAndSnapshotDateBefore(
+              orgId, granularity, cutoffDate);
+    }
+    // cached tally reports of the org may include the removed snapshots
+    if (deleted > 0) {
+      tallyReportMarkerRepository.markUpdated(orgId, clock.now());
     }
   }
 }
@@ -20,54 +20,82 @@
  */
 package org.candlepin.subscriptions.subscription;
 
+import com.google.common.collect.Lists;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import jakarta.transaction.Transactional;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import org.candlepin.subscriptions.capacity.files.ProductDenylist;
+import org.candlepin.subscriptions.db.CapacityReportMarkerRepository;
 import org.candlepin.subscriptions.db.SubscriptionRepository;
 import org.candlepin.subscriptions.db.model.OrgConfigRepository;
-import org.candlepin.subscriptions.db.model.Subscription;
 import org.candlepin.subscriptions.task.TaskQueueProperties;
+import org.candlepin.subscriptions.util.ApplicationClock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /** Logic for pruning unlisted subscriptions (where the SKU is not in the denylist). */
 @Slf4j
 @Component
 public class SubscriptionPruneController {
   private final SubscriptionRepository subscriptionRepository;
+  private final CapacityReportMarkerRepository capacityReportMarkerRepository;
   private final OrgConfigRepository orgRepository;
   private final Timer pruneAllTimer;
   private final KafkaTemplate<String, PruneSubscriptionsTask>
       pruneSubscriptionsByOrgTaskKafkaTemplate;
   private final String pruneSubscriptionsTopic;
   private final ProductDenylist productDenylist;
+  private final SubscriptionServiceProperties properties;
+  private final ApplicationClock clock;
+  private final TransactionTemplate transactionTemplate;
 
   @Autowired
   public SubscriptionPruneController(
       SubscriptionRepository subscriptionRepository,
+      CapacityReportMarkerRepository capacityReportMarkerRepository,
       OrgConfigRepository orgRepository,
       MeterRegistry meterRegistry,
       KafkaTemplate<String, PruneSubscriptionsTask> pruneSubscriptionsByOrgTaskKafkaTemplate,
       ProductDenylist productDenylist,
-      @Qualifier("pruneSubscriptionTasks") TaskQueueProperties pruneQueueProperties) {
+      @Qualifier("pruneSubscriptionTasks") TaskQueueProperties pruneQueueProperties,
+      SubscriptionServiceProperties properties,
+      ApplicationClock clock,
+      PlatformTransactionManager transactionManager) {
     this.subscriptionRepository = subscriptionRepository;
+    this.capacityReportMarkerRepository = capacityReportMarkerRepository;
     this.orgRepository = orgRepository;
     this.pruneAllTimer = meterRegistry.timer("swatch_subscription_prune_enqueue_all");
     this.productDenylist = productDenylist;
     this.pruneSubscriptionsTopic = pruneQueueProperties.getTopic();
     this.pruneSubscriptionsByOrgTaskKafkaTemplate = pruneSubscriptionsByOrgTaskKafkaTemplate;
+    this.properties = properties;
+    this.clock = clock;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
   }
 
-  @Transactional
   public void pruneAllUnlistedSubscriptions() {
+    if (properties.getPruneChunkSize() > 0) {
+      pruneAllUnlistedSubscriptionsInChunks(properties.getPruneChunkSize());
+      return;
+    }
     Timer.Sample enqueueAllTime = Timer.start();
-    orgRepository.findSyncEnabledOrgs().forEach(this::enqueueSubscriptionPrune);
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          try (Stream<String> orgIds = orgRepository.findSyncEnabledOrgs()) {
+            orgIds.forEach(this::enqueueSubscriptionPrune);
+          }
+        });
     Duration enqueueAllDuration = Duration.ofNanos(enqueueAllTime.stop(pruneAllTimer));
     log.info(
         "Enqueued orgs to prune subscriptions in enqueueTimeMillis={}",
@@ -75,21 +103,51 @@ public class SubscriptionPruneController {
   }
 
   @Transactional
-  public void pruneUnlistedSubscriptions(String orgId) {
-    Stream<Subscription> subscriptions = subscriptionRepository.findByOrgId(orgId);
-    // Associated subscription measurements and product IDs should be removed by cascade
-    subscriptions.forEach(
-        subscription -> {
-          var sku = subscription.getOffering().getSku();
-          if (productDenylist.productIdMatches(sku)) {
-            log.info(
-                "Removing subscriptionId={} for orgId={} w/ sku={}",
-                subscription.getSubscriptionId(),
-                orgId,
-                sku);
-            subscriptionRepository.delete(subscription);
-          }
-        });
+  public int pruneUnlistedSubscriptions(String orgId) {
+    int deleted = pruneUnlistedSubscriptions(List.of(orgId));
+    log.info("Removed {} denylisted subscription records for orgId={}", deleted, orgId);
+    return deleted;
+  }
+
+  /**
+   * Prune the subscriptions of all sync-enabled orgs, a chunk of orgs at a time. Each chunk is
+   * committed in its own transaction, so that a failure only rolls back the chunk it happened in,
+   * and locks are not held until every org has been pruned.
+   */
+  private void pruneAllUnlistedSubscriptionsInChunks(int chunkSize) {
+    List<String> orgIds =
+        transactionTemplate.execute(
+            status -> {
+              try (Stream<String> syncEnabledOrgs = orgRepository.findSyncEnabledOrgs()) {
+                return syncEnabledOrgs.toList();
+              }
+            });
+    int deleted = 0;
+    for (List<String> chunk : Lists.partition(orgIds, chunkSize)) {
+      deleted += transactionTemplate.execute(status -> pruneUnlistedSubscriptions(chunk));
+    }
+    log.info("Removed {} denylisted subscription records across {} orgs", deleted, orgIds.size());
+  }
+
+  /**
+   * Delete the subscriptions of the given orgs whose SKU is on the denylist. The SKUs in use by the
+   * orgs are checked against the denylist, and matching subscriptions are removed with set-based
+   * deletes, along with their measurements and product IDs.
+   */
+  private int pruneUnlistedSubscriptions(Collection<String> orgIds) {
+    Set<String> deniedSkus =
+        subscriptionRepository.findDistinctSkusByOrgIdIn(orgIds).stream()
+            .filter(productDenylist::productIdMatches)
+            .collect(Collectors.toSet());
+    if (deniedSkus.isEmpty()) {
+      return 0;
+    }
+    log.info("Removing subscriptions w/ skus={} for orgIds={}", deniedSkus, orgIds);
+    int deleted = subscriptionRepository.deleteByOrgIdInAndSkuIn(orgIds, deniedSkus);
+    if (deleted > 0) {
+      capacityReportMarkerRepository.markUpdated(orgIds, clock.now());
+    }
+    return deleted;
   }
 
   private void enqueueSubscriptionPrune(String orgId) {
@@ -22,10 +22,15 @@ package org.candlepin.subscriptions.subscription;
 
 import io.micrometer.core.annotation.Timed;
 import jakarta.ws.rs.core.Response;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Deque;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 import org.candlepin.subscriptions.exception.ErrorCode;
@@ -33,6 +38,8 @@ import org.candlepin.subscriptions.exception.ExternalServiceException;
 import org.candlepin.subscriptions.exception.UnretryableException;
 import org.candlepin.subscriptions.subscription.api.model.Subscription;
 import org.candlepin.subscriptions.subscription.api.resources.SearchApi;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.stereotype.Service;
 
@@ -48,14 +55,17 @@ public class SubscriptionService {
   private final SearchApi searchApi;
   private final RetryTemplate subscriptionServiceRetryTemplate;
   private final SubscriptionServiceProperties properties;
+  private final AsyncTaskExecutor subscriptionPageFetchExecutor;
 
   public SubscriptionService(
       SearchApi searchApi,
       RetryTemplate subscriptionServiceRetryTemplate,
-      SubscriptionServiceProperties properties) {
+      SubscriptionServiceProperties properties,
+      @Qualifier("subscriptionPageFetchExecutor") AsyncTaskExecutor subscriptionPageFetchExecutor) {
     this.searchApi = searchApi;
     this.subscriptionServiceRetryTemplate = subscriptionServiceRetryTemplate;
     this.properties = properties;
+    this.subscriptionPageFetchExecutor = subscriptionPageFetchExecutor;
   }
 
   /**
@@ -113,24 +123,73 @@ public class SubscriptionService {
     return monoRetryWrapper(supplier);
   }
 
+  /**
+   * Obtain all Subscription Service Subscription Models for an orgId.
+   *
+   * <p>Up to {@link SubscriptionServiceProperties#getPageFetchConcurrency()} pages are requested at
+   * once; the pages after the one being waited on are fetched speculatively and cancelled once a
+   * short page shows the end of the results has been reached. Pages are merged in index order, so
+   * the result does not depend on the order in which responses arrive.
+   *
+   * @param orgId the orgId of the customer.
+   * @return a list of Subscription models.
+   */
   public List<Subscription> getSubscriptionsByOrgId(String orgId) {
     var index = 0;
     var pageSize = properties.getPageSize();
+    var concurrency = Math.max(1, properties.getPageFetchConcurrency());
     int latestResultCount;
 
-    Set<Subscription> total = new HashSet<>();
-    do {
-      List<Subscription> subscriptionsByOrgId;
-
-      subscriptionsByOrgId = getSubscriptionsByOrgId(orgId, index, pageSize);
-      latestResultCount = subscriptionsByOrgId.size();
-      total.addAll(subscriptionsByOrgId);
-      index = index + pageSize;
-    } while (latestResultCount == pageSize);
+    Set<Subscription> total = new LinkedHashSet<>();
+    Deque<Future<List<Subscription>>> pendingPages = new ArrayDeque<>(concurrency);
+    try {
+      do {
+        while (pendingPages.size() < concurrency) {
+          pendingPages.addLast(requestPage(orgId, index, pageSize));
+          index = index + pageSize;
+        }
+
+        List<Subscription> subscriptionsByOrgId = awaitPage(pendingPages.removeFirst());
+        latestResultCount = subscriptionsByOrgId.size();
+        total.addAll(subscriptionsByOrgId);
+      } while (latestResultCount == pageSize);
+    } finally {
+      // pages past the last one (or past a failed one) are not needed anymore
+      pendingPages.forEach(page -> page.cancel(true));
+    }
 
     return new ArrayList<>(total);
   }
 
+  private Future<List<Subscription>> requestPage(String orgId, int index, int pageSize) {
+    if (properties.getPageFetchConcurrency() <= 1) {
+      // nothing to overlap with, so don't bother handing the request to another thread
+      return CompletableFuture.completedFuture(getSubscriptionsByOrgId(orgId, index, pageSize));
+    }
+    return subscriptionPageFetchExecutor.submit(
+        () -> getSubscriptionsByOrgId(orgId, index, pageSize));
+  }
+
+  private List<Subscription> awaitPage(Future<List<Subscription>> page) {
+    try {
+      return page.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ExternalServiceException(
+          ErrorCode.REQUEST_PROCESSING_ERROR,
+          ERROR_DURING_ATTEMPT_TO_REQUEST_SUBSCRIPTION_INFO_MSG,
+          e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new ExternalServiceException(
+          ErrorCode.REQUEST_PROCESSING_ERROR,
+          ERROR_DURING_ATTEMPT_TO_REQUEST_SUBSCRIPTION_INFO_MSG,
+          e.getCause());
+    }
+  }
+
   /**
    * Obtain Subscription Service Subscription Models for an orgId.
    *
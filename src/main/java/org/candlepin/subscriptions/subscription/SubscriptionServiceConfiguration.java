@@ -33,9 +33,11 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.jms.annotation.EnableJms;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.retry.support.RetryTemplateBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 /** Configuration class for subscription package. */
 @Configuration
@@ -84,4 +86,17 @@ public class SubscriptionServiceConfiguration {
         .notRetryOn(UnretryableException.class)
         .build();
   }
+
+  @Bean(name = "subscriptionPageFetchExecutor")
+  public AsyncTaskExecutor subscriptionPageFetchExecutor(
+      SubscriptionServiceProperties subscriptionServiceProperties) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setThreadNamePrefix("subscription-page-fetch-");
+    // shared by all syncs, so that the upstream service never sees more than this many requests
+    int concurrency = Math.max(1, subscriptionServiceProperties.getPageFetchConcurrency());
+    executor.setCorePoolSize(concurrency);
+    executor.setMaxPoolSize(concurrency);
+    executor.initialize();
+    return executor;
+  }
 }
@@ -53,12 +53,24 @@ public class SubscriptionServiceProperties extends HttpClientProperties {
   /** Page size for subscription queries */
   private int pageSize = 1000;
 
+  /**
+   * Maximum number of pages requested at once when fetching all subscriptions for an org. Pages
+   * past the current one are fetched speculatively; a value of 1 fetches one page at a time.
+   */
+  private int pageFetchConcurrency = 1;
+
   /** Do not sync any subs that have expired longer than this much in the past from now. */
   private Period ignoreExpiredOlderThan = Period.ofMonths(2);
 
   /** Do not sync any subs starting later than this much in the future from now. */
   private Period ignoreStartingLaterThan = Period.ofMonths(2);
 
+  /**
+   * Number of orgs pruned together when pruning unlisted subscriptions for all orgs. A value of 0
+   * enqueues a prune task per org instead.
+   */
+  private int pruneChunkSize = 0;
+
   /** Allow force sync of PAYG subscriptions */
   private boolean enablePaygSubscriptionForceSync;
 }
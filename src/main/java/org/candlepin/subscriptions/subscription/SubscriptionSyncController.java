@@ -32,8 +32,11 @@ import jakarta.ws.rs.core.Response;
 import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -41,10 +44,12 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.candlepin.subscriptions.capacity.CapacityReconciliationController;
 import org.candlepin.subscriptions.capacity.files.ProductDenylist;
+import org.candlepin.subscriptions.db.CapacityReportMarkerRepository;
 import org.candlepin.subscriptions.db.OfferingRepository;
 import org.candlepin.subscriptions.db.SubscriptionMeasurementRepository;
 import org.candlepin.subscriptions.db.SubscriptionRepository;
@@ -86,6 +91,7 @@ public class SubscriptionSyncController {
 
   private static final XmlMapper umbMessageMapper = CanonicalMessage.createMapper();
   private SubscriptionRepository subscriptionRepository;
+  private final CapacityReportMarkerRepository capacityReportMarkerRepository;
   private OrgConfigRepository orgRepository;
   private OfferingRepository offeringRepository;
   private SubscriptionService subscriptionService;
@@ -105,6 +111,7 @@ public class SubscriptionSyncController {
   public SubscriptionSyncController(
       SubscriptionRepository subscriptionRepository,
       SubscriptionMeasurementRepository measurementRepository,
+      CapacityReportMarkerRepository capacityReportMarkerRepository,
       OrgConfigRepository orgRepository,
       OfferingRepository offeringRepository,
       ApplicationClock clock,
@@ -120,6 +127,7 @@ public class SubscriptionSyncController {
       TagProfile tagProfile,
       AccountService accountService) {
     this.subscriptionRepository = subscriptionRepository;
+    this.capacityReportMarkerRepository = capacityReportMarkerRepository;
     this.orgRepository = orgRepository;
     this.offeringRepository = offeringRepository;
     this.subscriptionService = subscriptionService;
@@ -165,18 +173,49 @@ public class SubscriptionSyncController {
       String sku,
       org.candlepin.subscriptions.db.model.Subscription newOrUpdated,
       Optional<org.candlepin.subscriptions.db.model.Subscription> subscriptionOptional) {
+    var subscriptionsToSave =
+        prepareSubscriptionSync(
+            sku, newOrUpdated, subscriptionOptional, offeringRepository::existsById);
+    subscriptionsToSave.forEach(subscriptionRepository::save);
+    markCapacityUpdated(subscriptionsToSave);
+  }
+
+  private void markCapacityUpdated(
+      Collection<org.candlepin.subscriptions.db.model.Subscription> subscriptions) {
+    capacityReportMarkerRepository.markUpdated(
+        subscriptions.stream()
+            .map(org.candlepin.subscriptions.db.model.Subscription::getOrgId)
+            .filter(Objects::nonNull)
+            .toList(),
+        clock.now());
+  }
+
+  /**
+   * Work out the records that need to be written to sync a subscription, without writing them.
+   *
+   * @param sku the SKU for the subscription
+   * @param newOrUpdated a Subscription constructed from a DTO, not in the persistence context
+   * @param subscriptionOptional optional existing Subscription. Managed in the persistence context.
+   * @param offeringExists checks whether an offering is already known for a SKU
+   * @return the subscription records to save; empty if there is nothing to write
+   */
+  private List<org.candlepin.subscriptions.db.model.Subscription> prepareSubscriptionSync(
+      String sku,
+      org.candlepin.subscriptions.db.model.Subscription newOrUpdated,
+      Optional<org.candlepin.subscriptions.db.model.Subscription> subscriptionOptional,
+      Predicate<String> offeringExists) {
     if (productDenylist.productIdMatches(sku)) {
       log.debug(
           "Sku {} on denylist, skipping subscription sync for subscriptionId: {} in org: {} ",
           sku,
           newOrUpdated.getSubscriptionId(),
           newOrUpdated.getOrgId());
-      return;
+      return List.of();
     }
 
     // NOTE: we do not need to check if the offering exists if there is an existing DB record for
     // the subscription that uses that offering
-    if (subscriptionOptional.isEmpty() && !offeringRepository.existsById(sku)) {
+    if (subscriptionOptional.isEmpty() && !offeringExists.test(sku)) {
       log.debug("Sku={} not in Offering repository, syncing offering.", sku);
       if (!SyncResult.isSynced(offeringSyncController.syncOffering(sku))) {
         log.debug(
@@ -184,7 +223,7 @@ public class SubscriptionSyncController {
             sku,
             newOrUpdated.getSubscriptionId(),
             newOrUpdated.getOrgId());
-        return;
+        return List.of();
       }
     }
 
@@ -205,7 +244,7 @@ public class SubscriptionSyncController {
           "Subscription not found in subscription service; unable to save subscriptionNumber={} for orgId={} without a subscription ID",
           newOrUpdated.getSubscriptionNumber(),
           newOrUpdated.getOrgId());
-      return;
+      return List.of();
     }
     // enrich product IDs and measurements onto the incoming subscription record from the offering
     capacityReconciliationController.reconcileCapacityForSubscription(newOrUpdated);
@@ -218,11 +257,11 @@ public class SubscriptionSyncController {
           subscriptionOptional.get();
       log.debug("Existing subscription in DB={}", existingSubscription);
       if (existingSubscription.equals(newOrUpdated)) {
-        return; // we have nothing to do as the DB and the subs service have the same info
+        // we have nothing to do as the DB and the subs service have the same info
+        return List.of();
       }
       if (existingSubscription.quantityHasChanged(newOrUpdated.getQuantity())) {
         existingSubscription.endSubscription();
-        subscriptionRepository.save(existingSubscription);
         final org.candlepin.subscriptions.db.model.Subscription newSub =
             org.candlepin.subscriptions.db.model.Subscription.builder()
                 .subscriptionId(existingSubscription.getSubscriptionId())
@@ -238,13 +277,13 @@ public class SubscriptionSyncController {
                 .billingProvider(newOrUpdated.getBillingProvider())
                 .build();
         capacityReconciliationController.reconcileCapacityForSubscription(newSub);
-        subscriptionRepository.save(newSub);
+        return List.of(existingSubscription, newSub);
       } else {
         updateExistingSubscription(newOrUpdated, existingSubscription);
-        subscriptionRepository.save(existingSubscription);
+        return List.of(existingSubscription);
       }
     } else {
-      subscriptionRepository.save(newOrUpdated);
+      return List.of(newOrUpdated);
     }
   }
 
@@ -333,21 +372,45 @@ public class SubscriptionSyncController {
                   sub -> new SubscriptionCompoundId(sub.getSubscriptionId(), sub.getStartDate()),
                   Function.identity()));
     }
-    subscriptions
-        .filter(this::shouldSyncSub)
-        .forEach(
-            subscription -> {
-              if (productDenylist.productIdMatches(SubscriptionDtoUtil.extractSku(subscription))) {
-                return;
-              }
-              seenSubscriptionIds.add(subscription.getId().toString());
-              var swatchSubscription =
-                  swatchSubscriptions.remove(
-                      new SubscriptionCompoundId(
-                          subscription.getId().toString(),
-                          clock.dateFromMilliseconds(subscription.getEffectiveStartDate())));
-              syncSubscription(subscription, Optional.ofNullable(swatchSubscription));
-            });
+    // Diff the upstream subscriptions against the existing records up front, so that unchanged
+    // subscriptions are skipped before any offering lookups or capacity reconciliation, and all
+    // new and changed records are written together.
+    Map<String, Boolean> offeringExistsBySku = new HashMap<>();
+    Predicate<String> offeringExists =
+        sku -> offeringExistsBySku.computeIfAbsent(sku, offeringRepository::existsById);
+    List<org.candlepin.subscriptions.db.model.Subscription> subscriptionsToSave =
+        new ArrayList<>();
+    int unchangedCount = 0;
+    for (Subscription subscription : subscriptions.filter(this::shouldSyncSub).toList()) {
+      var sku = SubscriptionDtoUtil.extractSku(subscription);
+      if (productDenylist.productIdMatches(sku)) {
+        continue;
+      }
+      seenSubscriptionIds.add(subscription.getId().toString());
+      var swatchSubscription =
+          swatchSubscriptions.remove(
+              new SubscriptionCompoundId(
+                  subscription.getId().toString(),
+                  clock.dateFromMilliseconds(subscription.getEffectiveStartDate())));
+      var newOrUpdated = convertDto(subscription);
+      if (newOrUpdated.equals(swatchSubscription)) {
+        unchangedCount++;
+        continue;
+      }
+      subscriptionsToSave.addAll(
+          prepareSubscriptionSync(
+              sku, newOrUpdated, Optional.ofNullable(swatchSubscription), offeringExists));
+    }
+
+    log.info(
+        "Saving {} new/changed subscription records for orgId={}, {} subscriptions unchanged",
+        subscriptionsToSave.size(),
+        orgId,
+        unchangedCount);
+    if (!subscriptionsToSave.isEmpty()) {
+      subscriptionRepository.saveAll(subscriptionsToSave);
+      capacityReportMarkerRepository.markUpdated(orgId, clock.now());
+    }
 
     if (paygOnly) {
       // don't clean up stale subs, because PAYG-only sync discards/ignores too much data to
@@ -362,6 +425,7 @@ public class SubscriptionSyncController {
 
     if (!recordsToDelete.isEmpty()) {
       log.info("Removing {} stale/incorrect subscription records", recordsToDelete.size());
+      capacityReportMarkerRepository.markUpdated(orgId, clock.now());
     }
 
     // anything remaining in the map at this point is stale. Measurements and subscription product
@@ -503,6 +567,7 @@ public class SubscriptionSyncController {
                   capacityReconciliationController.reconcileCapacityForSubscription(subscription);
                 }
                 subscriptionRepository.save(subscription);
+                markCapacityUpdated(List.of(subscription));
               });
     } catch (JsonProcessingException e) {
       throw new IllegalArgumentException("Error parsing subscriptionsJson", e);
@@ -528,8 +593,11 @@ public class SubscriptionSyncController {
         subscriptionRepository.findBySubscriptionNumber(subscription.getSubscriptionNumber()));
   }
 
+  @Transactional
   public void deleteSubscription(String subscriptionId) {
+    Set<String> orgIds = subscriptionRepository.findOrgIdsBySubscriptionId(subscriptionId);
     subscriptionRepository.deleteBySubscriptionId(subscriptionId);
+    capacityReportMarkerRepository.markUpdated(orgIds, clock.now());
   }
 
   @Transactional
@@ -542,6 +610,7 @@ public class SubscriptionSyncController {
     // Wait until after we are sure there's an offering for this subscription before setting the
     // end date.  We want validation to occur before we start mutating data.
     subscription.setEndDate(terminationDate);
+    markCapacityUpdated(List.of(subscription));
 
     OffsetDateTime now = OffsetDateTime.now();
     // The calculation returns a whole number, representing the number of complete units
@@ -26,6 +26,8 @@ import org.candlepin.subscriptions.db.BillableUsageRemittanceRepository;
 import org.candlepin.subscriptions.db.EventRecordRepository;
 import org.candlepin.subscriptions.db.HostRepository;
 import org.candlepin.subscriptions.db.SubscriptionRepository;
+import org.candlepin.subscriptions.db.CapacityReportMarkerRepository;
+import org.candlepin.subscriptions.db.TallyReportMarkerRepository;
 import org.candlepin.subscriptions.db.TallySnapshotRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -39,6 +41,8 @@ public class AccountResetService {
   private final AccountServiceInventoryRepository accountServiceInventoryRepository;
   private final SubscriptionRepository subscriptionRepository;
   private final BillableUsageRemittanceRepository remittanceRepository;
+  private final TallyReportMarkerRepository tallyReportMarkerRepository;
+  private final CapacityReportMarkerRepository capacityReportMarkerRepository;
 
   @Autowired
   public AccountResetService(
@@ -47,13 +51,17 @@ public class AccountResetService {
       TallySnapshotRepository tallySnapshotRepository,
       AccountServiceInventoryRepository accountServiceInventoryRepository,
       SubscriptionRepository subscriptionRepository,
-      BillableUsageRemittanceRepository remittanceRepository) {
+      BillableUsageRemittanceRepository remittanceRepository,
+      TallyReportMarkerRepository tallyReportMarkerRepository,
+      CapacityReportMarkerRepository capacityReportMarkerRepository) {
     this.eventRecordRepo = eventRecordRepo;
     this.hostRepo = hostRepo;
     this.tallySnapshotRepository = tallySnapshotRepository;
     this.accountServiceInventoryRepository = accountServiceInventoryRepository;
     this.subscriptionRepository = subscriptionRepository;
     this.remittanceRepository = remittanceRepository;
+    this.tallyReportMarkerRepository = tallyReportMarkerRepository;
+    this.capacityReportMarkerRepository = capacityReportMarkerRepository;
   }
 
   @Transactional
@@ -64,5 +72,7 @@ public class AccountResetService {
     tallySnapshotRepository.deleteByOrgId(orgId);
     subscriptionRepository.deleteByOrgId(orgId);
     remittanceRepository.deleteByKeyOrgId(orgId);
+    tallyReportMarkerRepository.deleteById(orgId);
+    capacityReportMarkerRepository.deleteById(orgId);
   }
 }
@@ -63,16 +63,9 @@ public class AccountUsageCalculation {
   }
 
   public void addCalculation(UsageCalculation calc) {
-    String productId = calc.getProductId();
-    this.calculations.put(
-        new UsageCalculation.Key(
-            productId,
-            calc.getSla(),
-            calc.getUsage(),
-            calc.getBillingProvider(),
-            calc.getBillingAccountId()),
-        calc);
-    this.products.add(productId);
+    // the calculation's own key is used rather than a copy, so keys are only allocated by callers
+    this.calculations.put(calc.getKey(), calc);
+    this.products.add(calc.getProductId());
   }
 
   public void addUsage(
@@ -80,9 +73,7 @@ public class AccountUsageCalculation {
       HardwareMeasurementType category,
       Measurement.Uom uom,
       Double value) {
-    UsageCalculation usageCalculation = getOrCreateCalculation(key);
-    usageCalculation.add(category, uom, value);
-    products.add(key.getProductId());
+    getOrCreateCalculation(key).add(category, uom, value);
   }
 
   public boolean containsCalculation(UsageCalculation.Key key) {
@@ -25,6 +25,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -35,6 +37,7 @@ import java.util.Set;
 import java.util.function.DoubleBinaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.candlepin.subscriptions.ApplicationProperties;
 import org.candlepin.subscriptions.db.TallySnapshotRepository;
 import org.candlepin.subscriptions.db.model.Granularity;
 import org.candlepin.subscriptions.db.model.HardwareMeasurementType;
@@ -54,21 +57,55 @@ import org.springframework.transaction.annotation.Transactional;
  *
  * <p>Today, this strategy assumes that the Swatch Product ID in AccountUsage records passed to this
  * class have only a SwatchProductId that has a finestGranularity of Granularity.HOURLY
+ *
+ * <p>Rollups are either recomputed from all of their component snapshots, or updated incrementally
+ * by adding the difference between the old and new values of the finest granularity snapshots that
+ * changed. The incremental mode only reads the snapshots in the affected range, rather than every
+ * component of the enclosing rollups.
  */
 @Service
 public class CombiningRollupSnapshotStrategy {
 
   private static final Logger log = LoggerFactory.getLogger(CombiningRollupSnapshotStrategy.class);
   private static final Granularity[] GRANULARITIES = {Granularity.HOURLY, Granularity.DAILY};
+  private static final double MEASUREMENT_TOLERANCE = 1e-9;
 
   private final TallySnapshotRepository tallyRepo;
   private final ApplicationClock clock;
+  private final ApplicationProperties applicationProperties;
 
   @Autowired
   public CombiningRollupSnapshotStrategy(
-      TallySnapshotRepository tallyRepo, ApplicationClock clock) {
+      TallySnapshotRepository tallyRepo,
+      ApplicationClock clock,
+      ApplicationProperties applicationProperties) {
     this.tallyRepo = tallyRepo;
     this.clock = clock;
+    this.applicationProperties = applicationProperties;
+  }
+
+  /**
+   * Produce snapshots, recomputing the rollups from all of their component snapshots.
+   *
+   * @see #produceSnapshotsFromCalculations(String, DateRange, Set, Map, Granularity,
+   *     DoubleBinaryOperator, boolean)
+   */
+  @Transactional
+  public Map<String, List<TallySnapshot>> produceSnapshotsFromCalculations(
+      String orgId,
+      DateRange affectedRange,
+      Set<String> affectedProductTags,
+      Map<OffsetDateTime, AccountUsageCalculation> accountCalcs,
+      Granularity finestGranularity,
+      DoubleBinaryOperator reductionFunction) {
+    return produceSnapshotsFromCalculations(
+        orgId,
+        affectedRange,
+        affectedProductTags,
+        accountCalcs,
+        finestGranularity,
+        reductionFunction,
+        false);
   }
 
   /**
@@ -79,6 +116,9 @@ public class CombiningRollupSnapshotStrategy {
    * @param finestGranularity the base granularity to be used for the calculations
    * @param reductionFunction how to reduce the set of lower granularity snapshots its higher
    *     granularity
+   * @param incremental whether to update the existing rollups with the change in the finest
+   *     granularity snapshots rather than recomputing them. Only valid for an additive reduction
+   *     function, and ignored when incremental rollups are disabled.
    */
   @Transactional
   public Map<String, List<TallySnapshot>> produceSnapshotsFromCalculations(
@@ -87,8 +127,10 @@ public class CombiningRollupSnapshotStrategy {
       Set<String> affectedProductTags,
       Map<OffsetDateTime, AccountUsageCalculation> accountCalcs,
       Granularity finestGranularity,
-      DoubleBinaryOperator reductionFunction) {
+      DoubleBinaryOperator reductionFunction,
+      boolean incremental) {
 
+    boolean incrementalRollups = incremental && applicationProperties.isIncrementalRollups();
     Map<TallySnapshotNaturalKey, TallySnapshot> totalExistingSnapshots = new HashMap<>();
     Map<TallySnapshotNaturalKey, List<TallySnapshot>> derivedExistingSnapshots = new HashMap<>();
 
@@ -97,7 +139,20 @@ public class CombiningRollupSnapshotStrategy {
         affectedRange,
         totalExistingSnapshots,
         derivedExistingSnapshots,
-        affectedProductTags);
+        affectedProductTags,
+        !incrementalRollups);
+
+    // measurements of the finest granularity snapshots before this tally changes them
+    Map<TallySnapshotNaturalKey, Map<TallyMeasurementKey, Double>> previousMeasurements =
+        new HashMap<>();
+    if (incrementalRollups) {
+      totalExistingSnapshots.forEach(
+          (key, snapshot) -> {
+            if (snapshot.getGranularity() == finestGranularity) {
+              previousMeasurements.put(key, new HashMap<>(snapshot.getTallyMeasurements()));
+            }
+          });
+    }
 
     List<TallySnapshot> finestGranularitySnapshots =
         produceFinestGranularitySnapshots(
@@ -114,12 +169,21 @@ public class CombiningRollupSnapshotStrategy {
             .filter(g -> !Objects.equals(g, finestGranularity))
             .map(
                 granularity ->
-                    produceRollups(
-                        totalExistingSnapshots,
-                        derivedExistingSnapshots,
-                        granularity,
-                        groupedFinestSnapshots,
-                        reductionFunction))
+                    incrementalRollups
+                        ? produceIncrementalRollups(
+                            orgId,
+                            affectedProductTags,
+                            totalExistingSnapshots,
+                            granularity,
+                            groupedFinestSnapshots,
+                            previousMeasurements,
+                            reductionFunction)
+                        : produceRollups(
+                            totalExistingSnapshots,
+                            derivedExistingSnapshots,
+                            granularity,
+                            groupedFinestSnapshots,
+                            reductionFunction))
             .flatMap(List::stream)
             .collect(Collectors.toList());
 
@@ -143,18 +207,16 @@ public class CombiningRollupSnapshotStrategy {
       DateRange reportDateRange,
       Map<TallySnapshotNaturalKey, TallySnapshot> totalExistingSnapshots,
       Map<TallySnapshotNaturalKey, List<TallySnapshot>> derivedExistingSnapshots,
-      Set<String> swatchProductIds) {
+      Set<String> swatchProductIds,
+      boolean includeRollupComponents) {
+    Map<Granularity, DateRange> ranges = new EnumMap<>(Granularity.class);
     for (Granularity granularity : GRANULARITIES) {
       Granularity rollupGranularity = calculateNextGranularity(granularity);
 
-      boolean granularityWillBeRolledUp =
-          Arrays.asList(GRANULARITIES).contains(rollupGranularity)
-              && Objects.nonNull(rollupGranularity);
-
       OffsetDateTime effectiveStartTime;
       OffsetDateTime effectiveEndTime;
 
-      if (granularityWillBeRolledUp) {
+      if (willBeRolledUp(rollupGranularity, includeRollupComponents)) {
         // need to fetch all component snapshots of the rollups affected
         effectiveStartTime =
             clock.calculateStartOfRange(reportDateRange.getStartDate(), rollupGranularity);
@@ -165,12 +227,16 @@ public class CombiningRollupSnapshotStrategy {
             clock.calculateStartOfRange(reportDateRange.getStartDate(), granularity);
         effectiveEndTime = reportDateRange.getEndDate();
       }
+      ranges.put(granularity, new DateRange(effectiveStartTime, effectiveEndTime));
+    }
 
-      var snapMap =
-          getCurrentSnapshotsByOrgId(
-              orgId, swatchProductIds, granularity, effectiveStartTime, effectiveEndTime);
+    // a single query for the snapshots of all granularities
+    TallySnapshotCatalog catalog =
+        TallySnapshotCatalog.load(tallyRepo, orgId, swatchProductIds, ranges);
 
-      List<TallySnapshot> existingSnapshots = snapMap.getOrDefault(orgId, Collections.emptyList());
+    for (Granularity granularity : GRANULARITIES) {
+      Granularity rollupGranularity = calculateNextGranularity(granularity);
+      List<TallySnapshot> existingSnapshots = catalog.getSnapshots(granularity);
 
       existingSnapshots.forEach(
           snap -> {
@@ -181,7 +247,7 @@ public class CombiningRollupSnapshotStrategy {
             totalExistingSnapshots.put(key, snap);
           });
 
-      if (granularityWillBeRolledUp) {
+      if (willBeRolledUp(rollupGranularity, includeRollupComponents)) {
         derivedExistingSnapshots.putAll(
             existingSnapshots.stream()
                 .collect(Collectors.groupingBy(s -> calculateRollupKey(rollupGranularity, s))));
@@ -189,6 +255,12 @@ public class CombiningRollupSnapshotStrategy {
     }
   }
 
+  private boolean willBeRolledUp(Granularity rollupGranularity, boolean includeRollupComponents) {
+    return includeRollupComponents
+        && Arrays.asList(GRANULARITIES).contains(rollupGranularity)
+        && Objects.nonNull(rollupGranularity);
+  }
+
   @SuppressWarnings("indentation")
   protected Map<String, List<TallySnapshot>> getCurrentSnapshotsByOrgId(
       String orgId,
@@ -400,6 +472,129 @@ public class CombiningRollupSnapshotStrategy {
         existingSnapshotLookup, granularity, reducedMeasurements, firstFinestGranularitySnapshot);
   }
 
+  /**
+   * Update each rollup by adding the change in its finest granularity snapshots to its current
+   * measurements. A rollup that doesn't exist yet has nothing to add to, so it is computed from all
+   * of its component snapshots instead. A measurement dropped from a component is removed from the
+   * rollup once nothing is left of it, rather than kept at zero.
+   */
+  private List<TallySnapshot> produceIncrementalRollups(
+      String orgId,
+      Set<String> swatchProductIds,
+      Map<TallySnapshotNaturalKey, TallySnapshot> existingSnapshotLookup,
+      Granularity granularity,
+      Map<TallySnapshotNaturalKey, List<TallySnapshot>> snapshotMapping,
+      Map<TallySnapshotNaturalKey, Map<TallyMeasurementKey, Double>> previousMeasurements,
+      DoubleBinaryOperator reductionFunction) {
+
+    Set<TallySnapshotNaturalKey> missingRollups =
+        snapshotMapping.keySet().stream()
+            .filter(rollupKey -> !existingSnapshotLookup.containsKey(rollupKey))
+            .collect(Collectors.toSet());
+    Map<TallySnapshotNaturalKey, List<TallySnapshot>> missingRollupComponents =
+        fetchRollupComponents(orgId, swatchProductIds, granularity, missingRollups);
+
+    List<TallySnapshot> rollupsProduced = new ArrayList<>();
+    snapshotMapping.forEach(
+        (rollupKey, newAndUpdatedSnapshots) -> {
+          TallySnapshot existingRollup = existingSnapshotLookup.get(rollupKey);
+          if (existingRollup == null) {
+            rollupsProduced.addAll(
+                produceRollups(
+                    existingSnapshotLookup,
+                    granularity,
+                    missingRollupComponents.getOrDefault(rollupKey, Collections.emptyList()),
+                    newAndUpdatedSnapshots,
+                    reductionFunction));
+            return;
+          }
+
+          Map<TallyMeasurementKey, Double> measurements =
+              new HashMap<>(existingRollup.getTallyMeasurements());
+          Set<TallyMeasurementKey> droppedMeasurements = new HashSet<>();
+          newAndUpdatedSnapshots.forEach(
+              snapshot -> {
+                Map<TallyMeasurementKey, Double> previous =
+                    previousMeasurements.getOrDefault(
+                        new TallySnapshotNaturalKey(snapshot), Collections.emptyMap());
+                snapshot
+                    .getTallyMeasurements()
+                    .forEach(
+                        (key, value) ->
+                            measurements.merge(
+                                key, value - previous.getOrDefault(key, 0.0), Double::sum));
+                previous.forEach(
+                    (key, value) -> {
+                      if (!snapshot.getTallyMeasurements().containsKey(key)) {
+                        measurements.merge(key, -value, Double::sum);
+                        droppedMeasurements.add(key);
+                      }
+                    });
+              });
+          // the rounding error of adding and subtracting differences would otherwise leave a
+          // measurement without any components at a tiny non-zero value
+          measurements.replaceAll(
+              (key, value) -> Math.abs(value) < MEASUREMENT_TOLERANCE ? 0.0 : value);
+          droppedMeasurements.stream()
+              .filter(key -> measurements.get(key) == 0.0)
+              .forEach(measurements::remove);
+
+          TallySnapshot firstFinestGranularitySnapshot = newAndUpdatedSnapshots.get(0);
+          rollupsProduced.addAll(
+              updateTallySnapshots(
+                  existingSnapshotLookup,
+                  granularity,
+                  Map.of(UsageCalculation.Key.fromTallySnapshot(existingRollup), measurements),
+                  firstFinestGranularitySnapshot));
+        });
+
+    return rollupsProduced;
+  }
+
+  /** Load the component snapshots of the given rollups, using a single query spanning all. */
+  private Map<TallySnapshotNaturalKey, List<TallySnapshot>> fetchRollupComponents(
+      String orgId,
+      Set<String> swatchProductIds,
+      Granularity rollupGranularity,
+      Set<TallySnapshotNaturalKey> rollupKeys) {
+    if (rollupKeys.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    OffsetDateTime start =
+        rollupKeys.stream()
+            .map(TallySnapshotNaturalKey::getReferenceDate)
+            .min(Comparator.naturalOrder())
+            .orElseThrow();
+    OffsetDateTime end =
+        rollupKeys.stream()
+            .map(key -> clock.calculateEndOfRange(key.getReferenceDate(), rollupGranularity))
+            .max(Comparator.naturalOrder())
+            .orElseThrow();
+    Map<TallySnapshotNaturalKey, List<TallySnapshot>> components =
+        getCurrentSnapshotsByOrgId(
+                orgId,
+                swatchProductIds,
+                calculateComponentGranularity(rollupGranularity),
+                start,
+                end)
+            .getOrDefault(orgId, Collections.emptyList())
+            .stream()
+            .collect(Collectors.groupingBy(s -> calculateRollupKey(rollupGranularity, s)));
+    // the range may span rollups that are updated incrementally
+    components.keySet().retainAll(rollupKeys);
+    return components;
+  }
+
+  private Granularity calculateComponentGranularity(Granularity rollupGranularity) {
+    return Arrays.stream(GRANULARITIES)
+        .filter(granularity -> calculateNextGranularity(granularity) == rollupGranularity)
+        .findFirst()
+        .orElseThrow(
+            () ->
+                new IllegalArgumentException(
+                    String.format("Unsupported rollup granularity: %s", rollupGranularity)));
+  }
+
   private void updateSnapshotWithHardwareMeasurements(
       TallySnapshot snapshot,
       HardwareMeasurementType type,
@@ -447,6 +642,8 @@ public class CombiningRollupSnapshotStrategy {
           snapshot.setUsage(usageKey.getUsage());
           snapshot.setBillingAccountId(usageKey.getBillingAccountId());
           snapshot.setBillingProvider(usageKey.getBillingProvider());
+          // drop measurements that none of the components have anymore
+          snapshot.getTallyMeasurements().keySet().retainAll(measurements.keySet());
           measurements.forEach(
               (measurementKey, value) ->
                   snapshot.setMeasurement(
@@ -109,6 +109,7 @@ public class InventoryAccountUsageCollector {
 
     OrgHostsData orgHostsData = new OrgHostsData(orgId);
     Map<String, Set<HostBucketKey>> hostSeenBucketKeysLookup = new HashMap<>();
+    UsageKeyCombinations keyCombinations = new UsageKeyCombinations();
 
     orgHostsData.addReportedHypervisors(inventory);
 
@@ -139,7 +140,7 @@ public class InventoryAccountUsageCollector {
           }
 
           Set<Key> usageKeys =
-              createKeyCombinations(
+              keyCombinations.get(
                   products,
                   Set.of(facts.getSla(), ServiceLevel._ANY),
                   Set.of(facts.getUsage(), Usage._ANY),
@@ -383,13 +384,14 @@ public class InventoryAccountUsageCollector {
         AccountServiceInventoryId.builder().orgId(orgId).serviceType(HBI_INSTANCE_TYPE).build())) {
       accountServiceInventoryRepository.save(new AccountServiceInventory(orgId, HBI_INSTANCE_TYPE));
     }
+    UsageKeyCombinations keyCombinations = new UsageKeyCombinations();
     int systemsUpdatedForOrg =
         collator.collateData(
             orgId,
             culledOffsetDays,
             (hbiSystem, swatchSystem, hypervisorData, iterationCount) -> {
               reconcileHbiSystemWithSwatchSystem(
-                  hbiSystem, swatchSystem, hypervisorData, applicableProducts);
+                  hbiSystem, swatchSystem, hypervisorData, applicableProducts, keyCombinations);
               if (iterationCount % hbiReconciliationFlushInterval == 0) {
                 log.debug("Flushing system changes w/ count={}", iterationCount);
                 hostRepository.flush();
@@ -416,6 +418,27 @@ public class InventoryAccountUsageCollector {
       Host swatchSystem,
       OrgHostsData orgHostsData,
       Set<String> applicableProducts) {
+    reconcileHbiSystemWithSwatchSystem(
+        hbiSystem, swatchSystem, orgHostsData, applicableProducts, new UsageKeyCombinations());
+  }
+
+  /**
+   * Reconciles an HBI system record with a swatch system record, reusing the usage key combinations
+   * already created for other systems of the org.
+   *
+   * @param hbiSystem HBI system record, or null
+   * @param swatchSystem swatch system record, or null
+   * @param orgHostsData container for data gathered from guests, expected to contain an entry for
+   *     the hbi system being processed if it is a hypervisor
+   * @param applicableProducts set of product tags to process
+   * @param keyCombinations memoized usage key combinations of the org being reconciled
+   */
+  public void reconcileHbiSystemWithSwatchSystem(
+      InventoryHostFacts hbiSystem,
+      Host swatchSystem,
+      OrgHostsData orgHostsData,
+      Set<String> applicableProducts,
+      UsageKeyCombinations keyCombinations) {
     log.debug(
         "Reconciling HBI inventoryId={} & swatch inventoryId={}",
         Optional.ofNullable(hbiSystem).map(InventoryHostFacts::getInventoryId),
@@ -427,7 +450,8 @@ public class InventoryAccountUsageCollector {
       hostRepository.delete(swatchSystem);
     } else {
       NormalizedFacts normalizedFacts = factNormalizer.normalize(hbiSystem, orgHostsData);
-      Set<Key> usageKeys = createHostUsageKeys(applicableProducts, normalizedFacts);
+      Set<Key> usageKeys =
+          createHostUsageKeys(applicableProducts, normalizedFacts, keyCombinations);
       if (swatchSystem != null) {
         log.debug("Updating system w/ inventoryId={}", hbiSystem.getInventoryId());
         updateSwatchSystem(hbiSystem, normalizedFacts, swatchSystem, usageKeys);
@@ -492,8 +516,9 @@ public class InventoryAccountUsageCollector {
     return host;
   }
 
-  private Set<Key> createHostUsageKeys(Set<String> products, NormalizedFacts facts) {
-    return createKeyCombinations(
+  private Set<Key> createHostUsageKeys(
+      Set<String> products, NormalizedFacts facts, UsageKeyCombinations keyCombinations) {
+    return keyCombinations.get(
         products.stream().filter(facts.getProducts()::contains).collect(Collectors.toSet()),
         Set.of(facts.getSla(), ServiceLevel._ANY),
         Set.of(facts.getUsage(), Usage._ANY),
@@ -24,7 +24,6 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import org.candlepin.subscriptions.db.TallySnapshotRepository;
 import org.candlepin.subscriptions.db.model.TallySnapshot;
 import org.candlepin.subscriptions.registry.TagProfile;
@@ -48,6 +47,7 @@ public class MaxSeenSnapshotStrategy {
 
   private static final Logger log = LoggerFactory.getLogger(MaxSeenSnapshotStrategy.class);
 
+  private final TallySnapshotRepository tallyRepo;
   private final HourlySnapshotRoller hourlyRoller;
   private final DailySnapshotRoller dailyRoller;
   private final WeeklySnapshotRoller weeklyRoller;
@@ -62,6 +62,7 @@ public class MaxSeenSnapshotStrategy {
       ApplicationClock clock,
       TagProfile tagProfile,
       SnapshotSummaryProducer summaryProducer) {
+    this.tallyRepo = tallyRepo;
     this.summaryProducer = summaryProducer;
     hourlyRoller = new HourlySnapshotRoller(tallyRepo, clock, tagProfile);
     dailyRoller = new DailySnapshotRoller(tallyRepo, clock, tagProfile);
@@ -73,13 +74,23 @@ public class MaxSeenSnapshotStrategy {
 
   @Transactional
   public List<TallySnapshot> produceSnapshotsFromCalculations(AccountUsageCalculation accountCalc) {
-    Stream<BaseSnapshotRoller> rollers =
-        Stream.of(
+    List<BaseSnapshotRoller> rollers =
+        List.of(
             hourlyRoller, dailyRoller, weeklyRoller, monthlyRoller, quarterlyRoller, yearlyRoller);
     var orgId = accountCalc.getOrgId();
+    // Load the existing snapshots of every granularity at once, rather than once per roller.
+    var catalog =
+        TallySnapshotCatalog.load(
+            tallyRepo,
+            orgId,
+            accountCalc.getProducts(),
+            rollers.stream()
+                .collect(
+                    Collectors.toMap(
+                        BaseSnapshotRoller::getGranularity, BaseSnapshotRoller::getCurrentRange)));
     var newAndUpdatedSnapshots =
-        rollers
-            .map(roller -> roller.rollSnapshots(accountCalc))
+        rollers.stream()
+            .map(roller -> roller.rollSnapshots(accountCalc, catalog))
             .flatMap(Collection::stream)
             .collect(Collectors.toList());
     summaryProducer.produceTallySummaryMessages(Map.of(orgId, newAndUpdatedSnapshots));
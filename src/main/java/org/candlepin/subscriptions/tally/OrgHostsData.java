@@ -29,10 +29,12 @@ import java.util.Optional;
 import java.util.Set;
 import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
+import lombok.ToString;
 import org.candlepin.subscriptions.db.model.Host;
 import org.candlepin.subscriptions.db.model.HostBucketKey;
 import org.candlepin.subscriptions.db.model.HostTallyBucket;
@@ -40,6 +42,7 @@ import org.candlepin.subscriptions.inventory.db.InventoryDatabaseOperations;
 import org.candlepin.subscriptions.tally.collector.ProductUsageCollector;
 import org.candlepin.subscriptions.tally.collector.ProductUsageCollectorFactory;
 import org.candlepin.subscriptions.tally.facts.NormalizedFacts;
+import org.candlepin.subscriptions.tally.facts.ProductResolutionMemo;
 
 @Data
 @RequiredArgsConstructor
@@ -56,6 +59,11 @@ public class OrgHostsData {
   // the host update.
   private Map<Host, NormalizedFacts> hostNormalizedFactsMap = new LinkedHashMap<>();
 
+  // Products the FactNormalizer already resolved for this tally; a cache, not part of the data.
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private final ProductResolutionMemo productResolutionMemo = new ProductResolutionMemo();
+
   @Getter(AccessLevel.NONE)
   @Setter(AccessLevel.NONE)
   /* This map is the important end result of all the work this class does.  I want to give it a
@@ -0,0 +1,87 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.tally;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.candlepin.subscriptions.db.TallySnapshotRepository;
+import org.candlepin.subscriptions.db.model.Granularity;
+import org.candlepin.subscriptions.db.model.TallySnapshot;
+import org.candlepin.subscriptions.util.DateRange;
+
+/**
+ * The existing snapshots of an org for every granularity a tally touches, loaded with a single
+ * query. Snapshot producers read the snapshots they update from the catalog rather than querying
+ * for each granularity separately.
+ */
+public class TallySnapshotCatalog {
+
+  private final Map<Granularity, List<TallySnapshot>> snapshotsByGranularity;
+
+  public TallySnapshotCatalog(Collection<TallySnapshot> snapshots) {
+    this.snapshotsByGranularity =
+        snapshots.stream()
+            .collect(
+                Collectors.groupingBy(
+                    TallySnapshot::getGranularity,
+                    () -> new EnumMap<>(Granularity.class),
+                    Collectors.toList()));
+  }
+
+  /**
+   * Load the catalog of an org's snapshots.
+   *
+   * @param tallyRepo the repository to load the snapshots from
+   * @param orgId the org of the snapshots
+   * @param productIds the products of the snapshots
+   * @param ranges for each granularity to load, the (inclusive) range of its snapshot dates
+   * @return the catalog of the loaded snapshots
+   */
+  public static TallySnapshotCatalog load(
+      TallySnapshotRepository tallyRepo,
+      String orgId,
+      Collection<String> productIds,
+      Map<Granularity, DateRange> ranges) {
+    return new TallySnapshotCatalog(tallyRepo.findSnapshotsForRanges(orgId, productIds, ranges));
+  }
+
+  /**
+   * @param granularity the granularity of the snapshots
+   * @return the cataloged snapshots of the granularity, ordered as loaded
+   */
+  public List<TallySnapshot> getSnapshots(Granularity granularity) {
+    return snapshotsByGranularity.getOrDefault(granularity, List.of());
+  }
+
+  /**
+   * @param granularity the granularity of the snapshots
+   * @param productIds the products of the snapshots
+   * @return the cataloged snapshots of the granularity for any of the products
+   */
+  public List<TallySnapshot> getSnapshots(Granularity granularity, Collection<String> productIds) {
+    return getSnapshots(granularity).stream()
+        .filter(snapshot -> productIds.contains(snapshot.getProductId()))
+        .collect(Collectors.toList());
+  }
+}
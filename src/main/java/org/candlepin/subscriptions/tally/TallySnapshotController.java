@@ -22,15 +22,22 @@ package org.candlepin.subscriptions.tally;
 
 import io.micrometer.core.annotation.Timed;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 import org.candlepin.subscriptions.db.AccountConfigRepository;
+import org.candlepin.subscriptions.db.TallyReportMarkerRepository;
 import org.candlepin.subscriptions.db.model.Granularity;
 import org.candlepin.subscriptions.db.model.TallySnapshot;
 import org.candlepin.subscriptions.registry.TagProfile;
+import org.candlepin.subscriptions.util.ApplicationClock;
 import org.candlepin.subscriptions.util.DateRange;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,6 +63,9 @@ public class TallySnapshotController {
   private final Set<String> applicableProducts;
   private final TagProfile tagProfile;
   private final SnapshotSummaryProducer summaryProducer;
+  private final TallyReportMarkerRepository tallyReportMarkerRepository;
+  private final ApplicationClock clock;
+  private final Executor hourlyTallyExecutor;
 
   @Autowired
   public TallySnapshotController(
@@ -67,7 +77,10 @@ public class TallySnapshotController {
       MetricUsageCollector metricUsageCollector,
       CombiningRollupSnapshotStrategy combiningRollupSnapshotStrategy,
       TagProfile tagProfile,
-      SnapshotSummaryProducer summaryProducer) {
+      SnapshotSummaryProducer summaryProducer,
+      TallyReportMarkerRepository tallyReportMarkerRepository,
+      ApplicationClock clock,
+      @Qualifier("hourlyTallyExecutor") Executor hourlyTallyExecutor) {
 
     this.accountRepo = accountRepo;
     this.applicableProducts = applicableProducts;
@@ -78,6 +91,9 @@ public class TallySnapshotController {
     this.combiningRollupSnapshotStrategy = combiningRollupSnapshotStrategy;
     this.tagProfile = tagProfile;
     this.summaryProducer = summaryProducer;
+    this.tallyReportMarkerRepository = tallyReportMarkerRepository;
+    this.clock = clock;
+    this.hourlyTallyExecutor = hourlyTallyExecutor;
   }
 
   // SWATCH-614 Deprecate this method after org id migration
@@ -104,6 +120,7 @@ public class TallySnapshotController {
     }
 
     maxSeenSnapshotStrategy.produceSnapshotsFromCalculations(accountCalc);
+    markReportsUpdated(orgId);
   }
 
   // Because we want to ensure that our DB operations have been completed before
@@ -119,53 +136,110 @@ public class TallySnapshotController {
 
     String accountNumber = accountRepo.findAccountNumberByOrgId(orgId);
     log.info("Producing snapshots for Org ID {} with Account {}.", orgId, accountNumber);
-    tagProfile
-        .getServiceTypes()
-        .forEach(
-            serviceType -> {
-              log.info(
-                  "Producing hourly snapshots for orgId {} for service type {} "
-                      + "between startDateTime {} and endDateTime {}",
-                  orgId,
-                  serviceType,
-                  snapshotRange.getStartString(),
-                  snapshotRange.getEndString());
-              try {
-                var result =
-                    retryTemplate.execute(
-                        context ->
-                            metricUsageCollector.collect(
-                                serviceType, accountNumber, orgId, snapshotRange));
-                if (result == null) {
-                  return;
-                }
-
-                var applicableUsageCalculations =
-                    result.getCalculations().entrySet().stream()
-                        .filter(this::isCombiningRollupStrategySupported)
-                        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-                Map<String, List<TallySnapshot>> totalSnapshots =
-                    combiningRollupSnapshotStrategy.produceSnapshotsFromCalculations(
-                        orgId,
-                        result.getRange(),
-                        tagProfile.getTagsForServiceType(serviceType),
-                        applicableUsageCalculations,
-                        Granularity.HOURLY,
-                        Double::sum);
-
-                summaryProducer.produceTallySummaryMessages(totalSnapshots);
-                log.info(
-                    "Finished producing hourly snapshots for account {} with orgId {}",
-                    accountNumber,
-                    orgId);
-              } catch (Exception e) {
-                log.error(
-                    "Could not collect metrics and/or produce snapshots for account {} with orgId {}",
-                    accountNumber,
-                    orgId,
-                    e);
-              }
-            });
+
+    // Service types have disjoint metrics, products and inventory rows, so their pipelines can
+    // run side by side, each in its own transactions. Joining in service type order keeps the
+    // merged results identical to a serial run.
+    List<CompletableFuture<Optional<Map<String, List<TallySnapshot>>>>> pipelines =
+        tagProfile.getServiceTypes().stream()
+            .map(
+                serviceType ->
+                    CompletableFuture.supplyAsync(
+                        () ->
+                            produceHourlySnapshotsForServiceType(
+                                orgId, accountNumber, serviceType, snapshotRange),
+                        hourlyTallyExecutor))
+            .toList();
+
+    Map<String, List<TallySnapshot>> totalSnapshots = new HashMap<>();
+    boolean snapshotsUpdated = false;
+    for (var pipeline : pipelines) {
+      Optional<Map<String, List<TallySnapshot>>> result = pipeline.join();
+      if (result.isPresent()) {
+        snapshotsUpdated = true;
+        result
+            .get()
+            .forEach(
+                (key, snapshots) ->
+                    totalSnapshots.computeIfAbsent(key, k -> new ArrayList<>()).addAll(snapshots));
+      }
+    }
+
+    if (!snapshotsUpdated) {
+      return;
+    }
+    try {
+      summaryProducer.produceTallySummaryMessages(totalSnapshots);
+      log.info(
+          "Finished producing hourly snapshots for account {} with orgId {}",
+          accountNumber,
+          orgId);
+    } catch (Exception e) {
+      log.error(
+          "Could not produce tally summaries for account {} with orgId {}",
+          accountNumber,
+          orgId,
+          e);
+    }
+    markReportsUpdated(orgId);
+  }
+
+  /**
+   * Bump the report marker of an org, so that its cached tally reports are recomputed.
+   *
+   * <p>The snapshots are saved in transactions of their own, so the marker is not updated
+   * atomically with them: it is bumped only once they are committed and their summaries are sent. A
+   * failed bump leaves cached reports stale until the org's next tally, and must never keep the
+   * summaries from being sent, so it is logged rather than thrown.
+   */
+  private void markReportsUpdated(String orgId) {
+    try {
+      tallyReportMarkerRepository.markUpdated(orgId, clock.now());
+    } catch (Exception e) {
+      log.warn("Could not update the tally report marker for orgId {}", orgId, e);
+    }
+  }
+
+  private Optional<Map<String, List<TallySnapshot>>> produceHourlySnapshotsForServiceType(
+      String orgId, String accountNumber, String serviceType, DateRange snapshotRange) {
+    log.info(
+        "Producing hourly snapshots for orgId {} for service type {} "
+            + "between startDateTime {} and endDateTime {}",
+        orgId,
+        serviceType,
+        snapshotRange.getStartString(),
+        snapshotRange.getEndString());
+    try {
+      var result =
+          retryTemplate.execute(
+              context ->
+                  metricUsageCollector.collect(serviceType, accountNumber, orgId, snapshotRange));
+      if (result == null) {
+        return Optional.empty();
+      }
+
+      var applicableUsageCalculations =
+          result.getCalculations().entrySet().stream()
+              .filter(this::isCombiningRollupStrategySupported)
+              .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+      return Optional.of(
+          combiningRollupSnapshotStrategy.produceSnapshotsFromCalculations(
+              orgId,
+              result.getRange(),
+              tagProfile.getTagsForServiceType(serviceType),
+              applicableUsageCalculations,
+              Granularity.HOURLY,
+              Double::sum,
+              // retallies recompute the rollups, since they restate a whole month of usage
+              !result.isWasRecalculated()));
+    } catch (Exception e) {
+      log.error(
+          "Could not collect metrics and/or produce snapshots for account {} with orgId {}",
+          accountNumber,
+          orgId,
+          e);
+      return Optional.empty();
+    }
   }
 
   private boolean isCombiningRollupStrategySupported(
@@ -44,6 +44,7 @@ import org.candlepin.subscriptions.task.queue.TaskConsumerConfiguration;
 import org.candlepin.subscriptions.task.queue.TaskConsumerFactory;
 import org.candlepin.subscriptions.util.ApplicationClock;
 import org.candlepin.subscriptions.util.KafkaConsumerRegistry;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -181,6 +182,36 @@ public class TallyWorkerConfiguration {
     return new KafkaTemplate<>(tallySummaryProducerFactory);
   }
 
+  @Bean(name = "hourlyTallyExecutor")
+  public Executor hourlyTallyExecutor(ApplicationProperties applicationProperties) {
+    int concurrency = applicationProperties.getHourlyTallyServiceTypeConcurrency();
+    if (concurrency <= 1) {
+      // Run the service types of an org serially, on the thread performing the tally.
+      return Runnable::run;
+    }
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setThreadNamePrefix("hourly-tally-");
+    executor.setCorePoolSize(concurrency);
+    executor.setMaxPoolSize(concurrency);
+    // carry the caller's logging context (e.g. org_id) over to the pool threads
+    executor.setTaskDecorator(
+        runnable -> {
+          Map<String, String> context = MDC.getCopyOfContextMap();
+          return () -> {
+            if (context != null) {
+              MDC.setContextMap(context);
+            }
+            try {
+              runnable.run();
+            } finally {
+              MDC.clear();
+            }
+          };
+        });
+    executor.initialize();
+    return executor;
+  }
+
   @Bean(name = "purgeTallySnapshotsJobExecutor")
   public Executor getPurgeSnapshotsJobExecutor() {
     ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
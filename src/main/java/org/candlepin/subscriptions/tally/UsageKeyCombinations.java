@@ -0,0 +1,99 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.tally;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.candlepin.subscriptions.db.model.BillingProvider;
+import org.candlepin.subscriptions.db.model.ServiceLevel;
+import org.candlepin.subscriptions.db.model.Usage;
+import org.candlepin.subscriptions.tally.UsageCalculation.Key;
+
+/**
+ * Memoizes the usage key combinations of a tally by their inputs.
+ *
+ * <p>Most hosts of an org share a handful of product/SLA/usage tuples, so rather than building the
+ * cartesian product and a new set of keys for every host, the combinations are built once per
+ * distinct input and the same (immutable) keys are handed to every host that needs them.
+ *
+ * <p>Instances are meant to live for a single tally and are not thread-safe.
+ */
+public class UsageKeyCombinations {
+
+  private record Inputs(
+      Set<String> products,
+      Set<ServiceLevel> slas,
+      Set<Usage> usages,
+      Set<BillingProvider> billingProviders,
+      Set<String> billingAccountIds) {}
+
+  private final Map<Inputs, Set<Key>> combinations = new HashMap<>();
+  private final Map<Key, Key> keys = new HashMap<>();
+
+  /**
+   * Get all possible combinations of product, SLA, usage, billing provider, and account ID.
+   *
+   * @param products productIds
+   * @param slas a set of SLAs
+   * @param usages a set of usages
+   * @param billingProviders a set of BillingProviders
+   * @param billingAccountIds a set of billing account IDs
+   * @return an unmodifiable set of the keys for all combinations of the input parameters, shared
+   *     with every other caller passing the same inputs
+   * @see InventoryAccountUsageCollector#createKeyCombinations
+   */
+  public Set<Key> get(
+      Set<String> products,
+      Set<ServiceLevel> slas,
+      Set<Usage> usages,
+      Set<BillingProvider> billingProviders,
+      Set<String> billingAccountIds) {
+    Inputs inputs = new Inputs(products, slas, usages, billingProviders, billingAccountIds);
+    Set<Key> memoized = combinations.get(inputs);
+    if (memoized == null) {
+      Set<Key> created = new HashSet<>();
+      for (Key key :
+          InventoryAccountUsageCollector.createKeyCombinations(
+              products, slas, usages, billingProviders, billingAccountIds)) {
+        created.add(keys.computeIfAbsent(key, k -> k));
+      }
+      memoized = Collections.unmodifiableSet(created);
+      // copy the inputs, so that a caller changing its sets afterwards can't corrupt the memo
+      combinations.put(
+          new Inputs(
+              Set.copyOf(products),
+              Set.copyOf(slas),
+              Set.copyOf(usages),
+              Set.copyOf(billingProviders),
+              Set.copyOf(billingAccountIds)),
+          memoized);
+    }
+    return memoized;
+  }
+
+  /** @return the number of distinct keys created so far */
+  int keyCount() {
+    return keys.size();
+  }
+}
@@ -34,6 +34,7 @@ import org.candlepin.subscriptions.json.Event;
 import org.candlepin.subscriptions.security.OptInController;
 import org.candlepin.subscriptions.tally.AccountResetService;
 import org.candlepin.subscriptions.tally.job.CaptureSnapshotsTaskManager;
+import org.candlepin.subscriptions.task.TaskType;
 import org.candlepin.subscriptions.util.DateRange;
 import org.candlepin.subscriptions.utilization.api.model.OptInConfig;
 import org.springframework.stereotype.Component;
@@ -105,6 +106,11 @@ public class InternalTallyDataController {
     return objectMapper.writeValueAsString(events);
   }
 
+  public int replayDeadLetterTasks(
+      String orgId, TaskType taskType, OffsetDateTime deadLetteredAfter) {
+    return tasks.replayDeadLetterTasks(orgId, taskType, deadLetteredAfter);
+  }
+
   public void tallyAllOrgsByHourly(DateRange range) throws IllegalArgumentException {
     tasks.updateHourlySnapshotsForAllOrgs(Optional.ofNullable(range));
   }
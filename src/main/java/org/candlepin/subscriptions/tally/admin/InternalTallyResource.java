@@ -21,10 +21,13 @@
 package org.candlepin.subscriptions.tally.admin;
 
 import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.core.Response.Status;
 import java.time.OffsetDateTime;
 import lombok.extern.slf4j.Slf4j;
 import org.candlepin.subscriptions.ApplicationProperties;
 import org.candlepin.subscriptions.db.model.config.OptInType;
+import org.candlepin.subscriptions.exception.ErrorCode;
+import org.candlepin.subscriptions.exception.SubscriptionsException;
 import org.candlepin.subscriptions.resource.ResourceUtils;
 import org.candlepin.subscriptions.retention.RemittanceRetentionController;
 import org.candlepin.subscriptions.retention.TallyRetentionController;
@@ -32,6 +35,7 @@ import org.candlepin.subscriptions.security.SecurityProperties;
 import org.candlepin.subscriptions.tally.MarketplaceResendTallyController;
 import org.candlepin.subscriptions.tally.TallySnapshotController;
 import org.candlepin.subscriptions.tally.admin.api.InternalApi;
+import org.candlepin.subscriptions.tally.admin.api.model.DeadLetterReplayResponse;
 import org.candlepin.subscriptions.tally.admin.api.model.DefaultResponse;
 import org.candlepin.subscriptions.tally.admin.api.model.EventsResponse;
 import org.candlepin.subscriptions.tally.admin.api.model.OptInResponse;
@@ -40,6 +44,7 @@ import org.candlepin.subscriptions.tally.admin.api.model.TallyResendData;
 import org.candlepin.subscriptions.tally.admin.api.model.TallyResponse;
 import org.candlepin.subscriptions.tally.admin.api.model.UuidList;
 import org.candlepin.subscriptions.tally.job.CaptureSnapshotsTaskManager;
+import org.candlepin.subscriptions.task.TaskType;
 import org.candlepin.subscriptions.util.ApplicationClock;
 import org.candlepin.subscriptions.util.DateRange;
 import org.jetbrains.annotations.NotNull;
@@ -289,6 +294,45 @@ public class InternalTallyResource implements InternalApi {
     return getDefaultResponse(SUCCESS_STATUS);
   }
 
+  /**
+   * Re-enqueue tally tasks that were dead-lettered after running out of attempts.
+   *
+   * @param orgId only replay the tasks of this org, if set
+   * @param taskType only replay the tasks of this type, if set
+   * @param deadLetteredAfter only replay the tasks dead-lettered after this time, if set
+   * @return the number of replayed tasks
+   * @throws SubscriptionsException with status 503 if tally tasks are not dead-lettered in this
+   *     deployment
+   */
+  @Override
+  public DeadLetterReplayResponse replayDeadLetterTasks(
+      String orgId, String taskType, OffsetDateTime deadLetteredAfter) {
+    TaskType type;
+    try {
+      type = StringUtils.hasText(taskType) ? TaskType.valueOf(taskType) : null;
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestException(String.format("Unknown task type: %s", taskType));
+    }
+    log.info(
+        "Replay of dead-lettered tasks for org {} triggered over API by {}",
+        orgId,
+        ResourceUtils.getPrincipal());
+    var response = new DeadLetterReplayResponse();
+    try {
+      int replayed =
+          internalTallyDataController.replayDeadLetterTasks(orgId, type, deadLetteredAfter);
+      response.setReplayed(replayed);
+      response.setDetail(String.format("Replayed %d dead-lettered task(s)", replayed));
+    } catch (IllegalStateException e) {
+      throw new SubscriptionsException(
+          ErrorCode.REQUEST_PROCESSING_ERROR,
+          Status.SERVICE_UNAVAILABLE,
+          "Unable to replay dead-lettered tasks",
+          e);
+    }
+    return response;
+  }
+
   /**
    * Create or update an opt in configuration. This operation is idempotent
    *
@@ -22,7 +22,12 @@ package org.candlepin.subscriptions.tally.billing;
 
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 import org.candlepin.subscriptions.db.BillableUsageRemittanceFilter;
 import org.candlepin.subscriptions.db.BillableUsageRemittanceRepository;
@@ -71,19 +76,41 @@ public class BillableUsageController {
   }
 
   public void submitBillableUsage(BillingWindow billingWindow, BillableUsage usage) {
+    submitBillableUsage(billingWindow, usage, null);
+  }
+
+  /**
+   * Submit billable usage using remittance totals that were looked up ahead of time.
+   *
+   * @param billingWindow the billing window of the usage's metric
+   * @param usage the usage to bill
+   * @param remittedTotals totals from {@link #getTotalsRemitted(Collection)}, kept up to date as
+   *     new remittance is recorded; if null, the total is looked up for this usage alone
+   */
+  public void submitBillableUsage(
+      BillingWindow billingWindow,
+      BillableUsage usage,
+      Map<BillableUsageRemittanceFilter, Double> remittedTotals) {
     // Send the message last to ensure that remittance has been updated.
     // If the message fails to send, it will roll back the transaction.
-    billingProducer.produce(processBillableUsage(billingWindow, usage));
+    billingProducer.produce(processBillableUsage(billingWindow, usage, remittedTotals));
   }
 
   public BillableUsage processBillableUsage(BillingWindow billingWindow, BillableUsage usage) {
+    return processBillableUsage(billingWindow, usage, null);
+  }
+
+  private BillableUsage processBillableUsage(
+      BillingWindow billingWindow,
+      BillableUsage usage,
+      Map<BillableUsageRemittanceFilter, Double> remittedTotals) {
     BillableUsage toBill;
     switch (billingWindow) {
       case HOURLY:
         toBill = produceHourlyBillable(usage);
         break;
       case MONTHLY:
-        toBill = produceMonthlyBillable(usage);
+        toBill = produceMonthlyBillable(usage, remittedTotals);
         break;
       default:
         throw new UnsupportedOperationException(
@@ -93,25 +120,66 @@ public class BillableUsageController {
   }
 
   public double getTotalRemitted(BillableUsage billableUsage) {
-    BillableUsageRemittanceEntityPK key =
-        BillableUsageRemittanceEntityPK.keyFrom(billableUsage, clock.now());
-    var filter =
-        BillableUsageRemittanceFilter.builder()
-            .orgId(key.getOrgId())
-            .billingAccountId(key.getBillingAccountId())
-            .billingProvider(key.getBillingProvider())
-            .accumulationPeriod(key.getAccumulationPeriod())
-            .metricId(key.getMetricId())
-            .productId(key.getProductId())
-            .sla(key.getSla())
-            .usage(key.getUsage())
-            .build();
-    return billableUsageRemittanceRepository.getRemittanceSummaries(filter).stream()
+    return billableUsageRemittanceRepository
+        .getRemittanceSummaries(remittanceFilter(billableUsage))
+        .stream()
         .findFirst()
         .map(RemittanceSummaryProjection::getTotalRemittedPendingValue)
         .orElse(0.0);
   }
 
+  /**
+   * Look up the remitted totals of many usages with a single query. Usages in a tally summary
+   * usually share the org and month and only differ by metric, sla, etc., so this replaces one
+   * summary query per usage.
+   *
+   * @param billableUsages the usages to look up
+   * @return the remitted total per remittance key, including keys without any remittance yet
+   */
+  public Map<BillableUsageRemittanceFilter, Double> getTotalsRemitted(
+      Collection<BillableUsage> billableUsages) {
+    Map<BillableUsageRemittanceFilter, Double> totals = new HashMap<>();
+    billableUsages.forEach(usage -> totals.put(remittanceFilter(usage), 0.0));
+    if (totals.isEmpty()) {
+      return totals;
+    }
+    Set<BillableUsageRemittanceFilter> found = new HashSet<>();
+    for (RemittanceSummaryProjection summary :
+        billableUsageRemittanceRepository.getRemittanceSummariesForKeys(totals.keySet())) {
+      var filter =
+          BillableUsageRemittanceFilter.builder()
+              .orgId(summary.getOrgId())
+              .billingAccountId(summary.getBillingAccountId())
+              .billingProvider(summary.getBillingProvider())
+              .accumulationPeriod(summary.getAccumulationPeriod())
+              .metricId(summary.getMetricId())
+              .productId(summary.getProductId())
+              .sla(summary.getSla())
+              .usage(summary.getUsage())
+              .build();
+      // like getTotalRemitted, only the first summary of a key counts
+      if (totals.containsKey(filter) && found.add(filter)) {
+        totals.put(filter, summary.getTotalRemittedPendingValue());
+      }
+    }
+    return totals;
+  }
+
+  private BillableUsageRemittanceFilter remittanceFilter(BillableUsage billableUsage) {
+    BillableUsageRemittanceEntityPK key =
+        BillableUsageRemittanceEntityPK.keyFrom(billableUsage, clock.now());
+    return BillableUsageRemittanceFilter.builder()
+        .orgId(key.getOrgId())
+        .billingAccountId(key.getBillingAccountId())
+        .billingProvider(key.getBillingProvider())
+        .accumulationPeriod(key.getAccumulationPeriod())
+        .metricId(key.getMetricId())
+        .productId(key.getProductId())
+        .sla(key.getSla())
+        .usage(key.getUsage())
+        .build();
+  }
+
   /**
    * Find the latest remitted value and billing factor used for that remittance in the database.
    * Convert it to use the billing factor that's currently listed in the tag profile. This might be
@@ -160,7 +228,8 @@ public class BillableUsageController {
     return usage;
   }
 
-  private BillableUsage produceMonthlyBillable(BillableUsage usage) {
+  private BillableUsage produceMonthlyBillable(
+      BillableUsage usage, Map<BillableUsageRemittanceFilter, Double> remittedTotals) {
     log.info(
         "Processing monthly billable usage for orgId={} productId={} uom={} provider={}, billingAccountId={} snapshotDate={}",
         usage.getOrgId(),
@@ -212,7 +281,13 @@ public class BillableUsageController {
             .positiveOrZero() // ignore usage less than the contract amount
             .getValue();
 
-    var totalRemitted = getTotalRemitted(usage);
+    var remittanceKey = remittanceFilter(usage);
+    double totalRemitted;
+    if (remittedTotals != null && remittedTotals.containsKey(remittanceKey)) {
+      totalRemitted = remittedTotals.get(remittanceKey);
+    } else {
+      totalRemitted = getTotalRemitted(usage);
+    }
     BillableUsageCalculation usageCalc =
         calculateBillableUsage(applicableUsage, usage, totalRemitted);
 
@@ -230,6 +305,9 @@ public class BillableUsageController {
 
     if (usageCalc.getRemittedValue() > 0) {
       createRemittance(usage, usageCalc);
+      if (remittedTotals != null) {
+        remittedTotals.put(remittanceKey, totalRemitted + usageCalc.getRemittedValue());
+      }
     } else {
       log.debug("Nothing to remit. Remittance record will not be created.");
     }
@@ -21,10 +21,16 @@
 package org.candlepin.subscriptions.tally.billing;
 
 import io.micrometer.core.annotation.Timed;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
+import org.candlepin.subscriptions.db.BillableUsageRemittanceFilter;
+import org.candlepin.subscriptions.json.BillableUsage;
 import org.candlepin.subscriptions.json.Measurement;
 import org.candlepin.subscriptions.json.TallySummary;
+import org.candlepin.subscriptions.registry.BillingWindow;
 import org.candlepin.subscriptions.registry.TagMetric;
 import org.candlepin.subscriptions.registry.TagProfile;
 import org.candlepin.subscriptions.task.TaskQueueProperties;
@@ -79,25 +85,34 @@ public class TallySummaryMessageConsumer extends SeekableKafkaConsumer {
       @Header(name = KafkaHeaders.RECEIVED_KEY, required = false) String kafkaMessageKey) {
     log.debug("Tally Summary received w/ key={}. Producing billable usage.", kafkaMessageKey);
 
-    billableUsageMapper
-        .fromTallySummary(tallySummary)
-        .forEach(
-            usage -> {
-              Measurement.Uom uom = Measurement.Uom.fromValue(usage.getUom().toString());
-              Optional<TagMetric> tagMetric = tagProfile.getTagMetric(usage.getProductId(), uom);
-              if (tagMetric.isEmpty()) {
-                throw new UnsupportedOperationException(
-                    String.format(
-                        "Unable to find TagMetric for snapshot measurement with product %s and UOM %s!",
-                        usage.getProductId(), uom));
-              }
+    List<BillableUsage> usages = billableUsageMapper.fromTallySummary(tallySummary).toList();
+    Map<BillableUsage, BillingWindow> billingWindows = new IdentityHashMap<>();
+    for (BillableUsage usage : usages) {
+      Measurement.Uom uom = Measurement.Uom.fromValue(usage.getUom().toString());
+      Optional<TagMetric> tagMetric = tagProfile.getTagMetric(usage.getProductId(), uom);
+      if (tagMetric.isEmpty()) {
+        throw new UnsupportedOperationException(
+            String.format(
+                "Unable to find TagMetric for snapshot measurement with product %s and UOM %s!",
+                usage.getProductId(), uom));
+      }
+      billingWindows.put(usage, tagMetric.get().getBillingWindow());
+    }
 
-              retry.execute(
-                  context -> {
-                    billableUsageController.submitBillableUsage(
-                        tagMetric.get().getBillingWindow(), usage);
-                    return null;
-                  });
-            });
+    // Look up remittance for all monthly usages of the summary at once.
+    Map<BillableUsageRemittanceFilter, Double> remittedTotals =
+        billableUsageController.getTotalsRemitted(
+            usages.stream()
+                .filter(usage -> billingWindows.get(usage) == BillingWindow.MONTHLY)
+                .toList());
+
+    usages.forEach(
+        usage ->
+            retry.execute(
+                context -> {
+                  billableUsageController.submitBillableUsage(
+                      billingWindows.get(usage), usage, remittedTotals);
+                  return null;
+                }));
   }
 }
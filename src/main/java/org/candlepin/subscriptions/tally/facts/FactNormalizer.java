@@ -24,9 +24,9 @@ import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 import org.candlepin.subscriptions.ApplicationProperties;
 import org.candlepin.subscriptions.db.model.HardwareMeasurementType;
 import org.candlepin.subscriptions.db.model.HostHardwareType;
@@ -73,26 +73,68 @@ public class FactNormalizer {
    * @return a normalized version of the host's facts.
    */
   public NormalizedFacts normalize(InventoryHostFacts hostFacts, OrgHostsData guestData) {
+    return normalize(hostFacts, guestData, guestData.getProductResolutionMemo());
+  }
+
+  NormalizedFacts normalize(
+      InventoryHostFacts hostFacts, OrgHostsData guestData, ProductResolutionMemo memo) {
+    boolean applyRhsmFacts = shouldApplyRhsmFacts(hostFacts);
 
     NormalizedFacts normalizedFacts = new NormalizedFacts();
     normalizeClassification(normalizedFacts, hostFacts, guestData);
     normalizeHardwareType(normalizedFacts, hostFacts);
     normalizeSystemProfileFacts(normalizedFacts, hostFacts);
     normalizeSatelliteFacts(normalizedFacts, hostFacts);
-    normalizeRhsmFacts(normalizedFacts, hostFacts);
-    normalizeQpcFacts(normalizedFacts, hostFacts);
+    normalizeRhsmFacts(normalizedFacts, hostFacts, applyRhsmFacts);
     normalizeSocketCount(normalizedFacts, hostFacts);
     normalizeMarketplace(normalizedFacts, hostFacts);
-    normalizeConflictingOrMissingRhelVariants(normalizedFacts);
-    pruneProducts(normalizedFacts);
+    normalizeProducts(normalizedFacts, hostFacts, applyRhsmFacts, memo);
     normalizeUnits(normalizedFacts, hostFacts);
     defaultNullFacts(normalizedFacts, hostFacts);
     return normalizedFacts;
   }
 
+  /**
+   * Set the products of the host, resolving them only if no other host of the tally had the same
+   * product signature.
+   */
+  private void normalizeProducts(
+      NormalizedFacts normalizedFacts,
+      InventoryHostFacts hostFacts,
+      boolean applyRhsmFacts,
+      ProductResolutionMemo memo) {
+    var signature =
+        new ProductResolutionMemo.Signature(
+            hostFacts.getSystemProfileProductIdsValue(),
+            hostFacts.getSatelliteRole(),
+            applyRhsmFacts ? hostFacts.getProductsValue() : null,
+            applyRhsmFacts ? hostFacts.getSyspurposeRole() : null,
+            hostFacts.getQpcProductsValue(),
+            hostFacts.getQpcProductIdsValue());
+    normalizedFacts.setProducts(
+        memo.resolve(signature, () -> resolveProducts(hostFacts, applyRhsmFacts)));
+  }
+
+  private Set<String> resolveProducts(InventoryHostFacts hostFacts, boolean applyRhsmFacts) {
+    Set<String> products = new HashSet<>();
+    addProductsFromProductIds(products, hostFacts.getSystemProfileProductIds());
+    handleRole(products, hostFacts.getSatelliteRole());
+    if (applyRhsmFacts) {
+      addProductsFromProductIds(products, hostFacts.getProducts());
+      handleRole(products, hostFacts.getSyspurposeRole());
+    }
+    // Check if this is a RHEL host and set product.
+    if (hostFacts.getQpcProducts() != null && hostFacts.getQpcProducts().contains("RHEL")) {
+      products.add("RHEL");
+    }
+    addProductsFromProductIds(products, hostFacts.getQpcProductIds());
+    normalizeConflictingOrMissingRhelVariants(products);
+    pruneProducts(products);
+    return Collections.unmodifiableSet(products);
+  }
+
   private void normalizeSatelliteFacts(
       NormalizedFacts normalizedFacts, InventoryHostFacts hostFacts) {
-    handleRole(normalizedFacts, hostFacts.getSatelliteRole());
     handleSla(normalizedFacts, hostFacts, hostFacts.getSatelliteSla());
     handleUsage(normalizedFacts, hostFacts, hostFacts.getSatelliteUsage());
   }
@@ -156,17 +198,12 @@ public class FactNormalizer {
     normalizedFacts.setHardwareType(hardwareType);
   }
 
-  @SuppressWarnings("indentation")
-  private void pruneProducts(NormalizedFacts normalizedFacts) {
+  private void pruneProducts(Set<String> products) {
     // If a Satellite or OpenShift product was found, do not include RHEL or its variants.
     boolean hasRhelIncludedProduct =
-        normalizedFacts.getProducts().stream()
-            .anyMatch(s -> s.startsWith("Satellite") || s.startsWith("OpenShift"));
+        products.stream().anyMatch(s -> s.startsWith("Satellite") || s.startsWith("OpenShift"));
     if (hasRhelIncludedProduct) {
-      normalizedFacts.setProducts(
-          normalizedFacts.getProducts().stream()
-              .filter(prod -> !prod.startsWith("RHEL"))
-              .collect(Collectors.toSet()));
+      products.removeIf(prod -> prod.startsWith("RHEL"));
     }
   }
 
@@ -180,14 +217,13 @@ public class FactNormalizer {
     }
   }
 
-  private void normalizeConflictingOrMissingRhelVariants(NormalizedFacts normalizedFacts) {
-    long variantCount =
-        normalizedFacts.getProducts().stream().filter(FactNormalizer::isRhelVariant).count();
+  private void normalizeConflictingOrMissingRhelVariants(Set<String> products) {
+    long variantCount = products.stream().filter(FactNormalizer::isRhelVariant).count();
 
-    boolean hasRhel = normalizedFacts.getProducts().contains("RHEL");
+    boolean hasRhel = products.contains("RHEL");
 
     if ((variantCount == 0 && hasRhel) || variantCount > 1) {
-      normalizedFacts.addProduct("RHEL Ungrouped");
+      products.add("RHEL Ungrouped");
     }
   }
 
@@ -213,7 +249,6 @@ public class FactNormalizer {
       var effectiveCores = calculateVirtualCPU(hostFacts);
       normalizedFacts.setCores(effectiveCores);
     }
-    getProductsFromProductIds(normalizedFacts, hostFacts.getSystemProfileProductIds());
   }
 
   private void normalizeMarketplace(NormalizedFacts normalizedFacts, InventoryHostFacts hostFacts) {
@@ -246,8 +281,7 @@ public class FactNormalizer {
     return (int) Math.ceil(cpu / threadsPerCore);
   }
 
-  private void getProductsFromProductIds(
-      NormalizedFacts normalizedFacts, Collection<String> productIds) {
+  private void addProductsFromProductIds(Set<String> products, Collection<String> productIds) {
     if (productIds == null) {
       return;
     }
@@ -255,46 +289,43 @@ public class FactNormalizer {
     for (String productId : productIds) {
       try {
         Integer numericProductId = Integer.parseInt(productId);
-        normalizedFacts
-            .getProducts()
-            .addAll(
-                engProductIdToSwatchProductIdsMap.getOrDefault(
-                    numericProductId, Collections.emptySet()));
+        products.addAll(
+            engProductIdToSwatchProductIdsMap.getOrDefault(
+                numericProductId, Collections.emptySet()));
       } catch (NumberFormatException e) {
         log.debug("Skipping non-numeric productId: {}", productId);
       }
     }
   }
 
-  private void normalizeRhsmFacts(NormalizedFacts normalizedFacts, InventoryHostFacts hostFacts) {
+  private boolean shouldApplyRhsmFacts(InventoryHostFacts hostFacts) {
     // If the host hasn't been seen by rhsm-conduit, consider the host as unregistered, and do not
     // apply this host's facts.
     //
     // NOTE: This logic is applied since currently the inventory service does not prune inventory
     //       records once a host no longer exists.
     String syncTimestamp = hostFacts.getSyncTimestamp();
-    boolean skipRhsmFacts =
-        StringUtils.hasText(syncTimestamp) && hostUnregistered(OffsetDateTime.parse(syncTimestamp));
-    if (!skipRhsmFacts) {
-      getProductsFromProductIds(normalizedFacts, hostFacts.getProducts());
+    return !StringUtils.hasText(syncTimestamp)
+        || !hostUnregistered(OffsetDateTime.parse(syncTimestamp));
+  }
 
+  private void normalizeRhsmFacts(
+      NormalizedFacts normalizedFacts, InventoryHostFacts hostFacts, boolean applyRhsmFacts) {
+    if (applyRhsmFacts) {
       // Check for cores and sockets. If not included, default to 0.
 
       normalizedFacts.setOrgId(hostFacts.getOrgId());
       normalizedFacts.setAccount(hostFacts.getAccount());
 
-      handleRole(normalizedFacts, hostFacts.getSyspurposeRole());
       handleSla(normalizedFacts, hostFacts, hostFacts.getSyspurposeSla());
       handleUsage(normalizedFacts, hostFacts, hostFacts.getSyspurposeUsage());
     }
   }
 
-  private void handleRole(NormalizedFacts normalizedFacts, String role) {
+  private void handleRole(Set<String> products, String role) {
     if (role != null) {
-      normalizedFacts.getProducts().removeIf(FactNormalizer::isRhelVariant);
-      normalizedFacts
-          .getProducts()
-          .addAll(roleToProductsMap.getOrDefault(role, Collections.emptySet()));
+      products.removeIf(FactNormalizer::isRhelVariant);
+      products.addAll(roleToProductsMap.getOrDefault(role, Collections.emptySet()));
     }
   }
 
@@ -330,14 +361,6 @@ public class FactNormalizer {
     }
   }
 
-  private void normalizeQpcFacts(NormalizedFacts normalizedFacts, InventoryHostFacts hostFacts) {
-    // Check if this is a RHEL host and set product.
-    if (hostFacts.getQpcProducts() != null && hostFacts.getQpcProducts().contains("RHEL")) {
-      normalizedFacts.addProduct("RHEL");
-    }
-    getProductsFromProductIds(normalizedFacts, hostFacts.getQpcProductIds());
-  }
-
   /**
    * A host is considered unregistered if the last time it was synced passes the configured number
    * of hours.
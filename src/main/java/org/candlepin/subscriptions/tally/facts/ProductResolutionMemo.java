@@ -0,0 +1,67 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.tally.facts;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the products FactNormalizer resolved for each product signature of a tally.
+ *
+ * <p>In large orgs thousands of hosts report exactly the same product IDs, roles and QPC products,
+ * so the products are resolved once per distinct signature and the same immutable set is shared by
+ * every host reporting it.
+ *
+ * <p>Instances are meant to live for a single tally and are not thread-safe.
+ */
+public class ProductResolutionMemo {
+
+  /**
+   * The raw facts that product resolution depends on.
+   *
+   * <p>The RHSM facts are null when the host's RHSM facts are not applied.
+   */
+  record Signature(
+      String systemProfileProductIds,
+      String satelliteRole,
+      String rhsmProducts,
+      String syspurposeRole,
+      String qpcProducts,
+      String qpcProductIds) {}
+
+  private final Map<Signature, Set<String>> productsBySignature = new HashMap<>();
+
+  Set<String> resolve(Signature signature, Supplier<Set<String>> resolver) {
+    Set<String> products = productsBySignature.get(signature);
+    if (products == null) {
+      products = resolver.get();
+      productsBySignature.put(signature, products);
+    }
+    return products;
+  }
+
+  /** @return the number of distinct product signatures resolved so far */
+  public int size() {
+    return productsBySignature.size();
+  }
+}
@@ -20,12 +20,15 @@
  */
 package org.candlepin.subscriptions.tally.filler;
 
+import com.google.common.primitives.Ints;
 import io.micrometer.core.annotation.Timed;
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.time.Period;
+import java.time.temporal.ChronoUnit;
 import java.time.temporal.TemporalAmount;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 import org.candlepin.subscriptions.util.SnapshotTimeAdjuster;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,6 +39,10 @@ import org.slf4j.LoggerFactory;
  *
  * <p>An instance of ReportFillerAdapter is used to compare, create default items, and extract
  * dates.
+ *
+ * <p>The existing snaps are expected to be sorted by date. They are merged with the generated
+ * sequence of period dates in a single pass, writing straight into a result list sized up front
+ * for the whole range.
  */
 public class ReportFiller<T> {
   private static final Logger log = LoggerFactory.getLogger(ReportFiller.class);
@@ -50,6 +57,7 @@ public class ReportFiller<T> {
   }
 
   @Timed("rhsm-subscriptions.tally.fillReport")
+  @SuppressWarnings("squid:S2583")
   public List<T> fillGaps(
       List<T> existingSnaps,
       OffsetDateTime start,
@@ -60,30 +68,16 @@ public class ReportFiller<T> {
     OffsetDateTime firstDate = timeAdjuster.adjustToPeriodStart(start);
     OffsetDateTime lastDate = timeAdjuster.adjustToPeriodEnd(end);
 
-    if (existingSnaps == null || existingSnaps.isEmpty()) {
-      return fillWithRange(firstDate, lastDate, offset, null, useRunningTotalFormat);
-    } else {
-      return fillAndFilterSnapshots(
-          offset, firstDate, lastDate, existingSnaps, useRunningTotalFormat);
-    }
-  }
-
-  @SuppressWarnings("squid:S2583")
-  private List<T> fillAndFilterSnapshots(
-      TemporalAmount offset,
-      OffsetDateTime firstDate,
-      OffsetDateTime lastDate,
-      List<T> existingSnaps,
-      boolean useRunningTotalFormat) {
+    List<T> snaps = existingSnaps == null ? List.of() : existingSnaps;
+    List<T> result = new ArrayList<>(expectedCapacity(firstDate, lastDate, offset, snaps.size()));
 
-    List<T> result = new ArrayList<>();
     OffsetDateTime nextDate = firstDate;
     T lastSnap = null;
     OffsetDateTime lastSnapDate = null;
-    Optional<T> pending = Optional.empty();
-    Optional<OffsetDateTime> pendingSnapDate = Optional.empty();
+    T pending = null;
+    OffsetDateTime pendingSnapDate = null;
 
-    for (T snapshot : existingSnaps) {
+    for (T snapshot : snaps) {
       OffsetDateTime snapDate = reportFillerAdapter.getDate(snapshot);
 
       // Should never happen, but if the Filler is given a snapshot without a date
@@ -97,52 +91,70 @@ public class ReportFiller<T> {
 
       lastSnapDate = timeAdjuster.adjustToPeriodStart(snapDate);
 
-      if (pending.isPresent() && lastSnapDate.isAfter(pendingSnapDate.get())) {
-        result.add(pending.get());
-        lastSnap = pending.get();
-        pending = Optional.empty();
-        pendingSnapDate = Optional.empty();
+      // Several snapshots may land in the same period; only the largest one is kept, and it is
+      // only emitted once a snapshot from a later period shows up.
+      if (pending != null && lastSnapDate.isAfter(pendingSnapDate)) {
+        result.add(pending);
+        lastSnap = pending;
+        pending = null;
+        pendingSnapDate = null;
       }
 
-      // Fill report up until the next snapshot, then add the snapshot to the report list.
-      result.addAll(
-          fillWithRange(
-              nextDate, lastSnapDate.minus(offset), offset, lastSnap, useRunningTotalFormat));
-      if (pending.isEmpty() || reportFillerAdapter.itemIsLarger(pending.get(), snapshot)) {
-        pending = Optional.of(snapshot);
-        pendingSnapDate = Optional.of(lastSnapDate);
+      // Fill report up until the next snapshot, then hold on to the snapshot as pending.
+      fillRange(
+          result, nextDate, lastSnapDate.minus(offset), offset, lastSnap, useRunningTotalFormat);
+      if (pending == null || reportFillerAdapter.itemIsLarger(pending, snapshot)) {
+        pending = snapshot;
+        pendingSnapDate = lastSnapDate;
       }
       nextDate = lastSnapDate.plus(offset);
     }
-    if (pending.isPresent()) {
-      result.add(pending.get());
-      lastSnap = pending.get();
+    if (pending != null) {
+      result.add(pending);
+      lastSnap = pending;
     }
 
     // If no snaps contain dates, just use the start of the range. Otherwise,
     // fill from the date of the last snapshot found, to the end of the range.
     if (lastSnapDate == null) {
-      result.addAll(fillWithRange(firstDate, lastDate, offset, null, useRunningTotalFormat));
+      fillRange(result, firstDate, lastDate, offset, null, useRunningTotalFormat);
     } else if (lastSnapDate.isBefore(lastDate)) {
-      result.addAll(
-          fillWithRange(
-              lastSnapDate.plus(offset), lastDate, offset, lastSnap, useRunningTotalFormat));
+      fillRange(
+          result, lastSnapDate.plus(offset), lastDate, offset, lastSnap, useRunningTotalFormat);
     }
     return result;
   }
 
-  private List<T> fillWithRange(
+  private void fillRange(
+      List<T> result,
       OffsetDateTime start,
       OffsetDateTime end,
       TemporalAmount offset,
       T snapshot,
       boolean useRunningTotalFormat) {
-    List<T> result = new ArrayList<>();
-    OffsetDateTime next = timeAdjuster.adjustToPeriodStart(OffsetDateTime.from(start));
-    while (next.isBefore(end) || next.isEqual(end)) {
+    OffsetDateTime next = timeAdjuster.adjustToPeriodStart(start);
+    while (!next.isAfter(end)) {
       result.add(reportFillerAdapter.createDefaultItem(next, snapshot, useRunningTotalFormat));
       next = timeAdjuster.adjustToPeriodStart(next.plus(offset));
     }
-    return result;
+  }
+
+  /**
+   * Estimate how many items the filled report will hold, so the result list never has to grow.
+   * Every period in the range gets an item, and existing snaps can add at most one item each.
+   */
+  static int expectedCapacity(
+      OffsetDateTime firstDate, OffsetDateTime lastDate, TemporalAmount offset, int existingCount) {
+    long periods = 0;
+    if (!lastDate.isBefore(firstDate)) {
+      if (offset instanceof Duration duration) {
+        periods = Duration.between(firstDate, lastDate).dividedBy(duration) + 1;
+      } else if (offset instanceof Period period && period.toTotalMonths() > 0) {
+        periods = ChronoUnit.MONTHS.between(firstDate, lastDate) / period.toTotalMonths() + 1;
+      } else if (offset instanceof Period period && period.getDays() > 0) {
+        periods = ChronoUnit.DAYS.between(firstDate, lastDate) / period.getDays() + 1;
+      }
+    }
+    return Ints.saturatedCast(periods + existingCount);
   }
 }
@@ -22,6 +22,8 @@ package org.candlepin.subscriptions.tally.job;
 
 import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
@@ -34,15 +36,19 @@ import org.candlepin.subscriptions.task.TaskQueueProperties;
 import org.candlepin.subscriptions.task.TaskType;
 import org.candlepin.subscriptions.task.queue.TaskProducerConfiguration;
 import org.candlepin.subscriptions.task.queue.TaskQueue;
+import org.candlepin.subscriptions.task.queue.kafka.DeadLetteredTask;
+import org.candlepin.subscriptions.task.queue.kafka.KafkaDeadLetterTaskReplayer;
 import org.candlepin.subscriptions.util.ApplicationClock;
 import org.candlepin.subscriptions.util.DateRange;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Import;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 /**
  * Producer of tally snapshot production tasks.
@@ -60,6 +66,7 @@ public class CaptureSnapshotsTaskManager {
   private final ApplicationClock applicationClock;
 
   private final AccountConfigRepository accountRepo;
+  private final ObjectProvider<KafkaDeadLetterTaskReplayer> deadLetterTaskReplayer;
 
   @Autowired
   public CaptureSnapshotsTaskManager(
@@ -67,13 +74,15 @@ public class CaptureSnapshotsTaskManager {
       @Qualifier("tallyTaskQueueProperties") TaskQueueProperties tallyTaskQueueProperties,
       TaskQueue queue,
       ApplicationClock applicationClock,
-      AccountConfigRepository accountRepo) {
+      AccountConfigRepository accountRepo,
+      ObjectProvider<KafkaDeadLetterTaskReplayer> deadLetterTaskReplayer) {
 
     this.appProperties = appProperties;
     this.taskQueueProperties = tallyTaskQueueProperties;
     this.queue = queue;
     this.applicationClock = applicationClock;
     this.accountRepo = accountRepo;
+    this.deadLetterTaskReplayer = deadLetterTaskReplayer;
   }
 
   /**
@@ -188,4 +197,40 @@ public class CaptureSnapshotsTaskManager {
     // offset (e.g. Daylight Saving Time), the ZonedDateTime.minus method will handle that properly.
     return dateTime.toZonedDateTime().minus(adjustmentAmount).toOffsetDateTime();
   }
+
+  /**
+   * Re-enqueues the tally tasks that were dead-lettered after running out of attempts. Each
+   * criterion is ignored when null.
+   *
+   * @param orgId only replay the tasks of this org.
+   * @param taskType only replay the tasks of this type.
+   * @param deadLetteredAfter only replay the tasks dead-lettered after this time.
+   * @return the number of replayed tasks.
+   */
+  public int replayDeadLetterTasks(
+      String orgId, TaskType taskType, OffsetDateTime deadLetteredAfter) {
+    KafkaDeadLetterTaskReplayer replayer = deadLetterTaskReplayer.getIfAvailable();
+    if (replayer == null || !StringUtils.hasText(taskQueueProperties.getDeadLetterTopic())) {
+      throw new IllegalStateException("Tally tasks are not dead-lettered in this deployment.");
+    }
+    log.info(
+        "Replaying dead-lettered tally tasks for orgId={} type={} deadLetteredAfter={}",
+        orgId,
+        taskType,
+        deadLetteredAfter);
+    return replayer.replay(
+        taskQueueProperties.getDeadLetterTopic(),
+        task ->
+            (orgId == null || isTaskOfOrg(task, orgId))
+                && (taskType == null || taskType.name().equals(task.message().getType()))
+                && (deadLetteredAfter == null
+                    || task.deadLetteredAt().isAfter(deadLetteredAfter.toInstant())));
+  }
+
+  private static boolean isTaskOfOrg(DeadLetteredTask task, String orgId) {
+    Map<String, List<String>> args = task.message().getArgs();
+    return args != null
+        && Stream.of("orgs", "orgId")
+            .anyMatch(arg -> args.getOrDefault(arg, List.of()).contains(orgId));
+  }
 }
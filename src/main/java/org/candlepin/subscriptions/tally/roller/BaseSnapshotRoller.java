@@ -22,10 +22,10 @@ package org.candlepin.subscriptions.tally.roller;
 
 import java.time.OffsetDateTime;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -33,13 +33,15 @@ import java.util.stream.Stream;
 import org.candlepin.subscriptions.db.TallySnapshotRepository;
 import org.candlepin.subscriptions.db.model.Granularity;
 import org.candlepin.subscriptions.db.model.HardwareMeasurementType;
-import org.candlepin.subscriptions.db.model.TallyMeasurementKey;
 import org.candlepin.subscriptions.db.model.TallySnapshot;
+import org.candlepin.subscriptions.json.Measurement.Uom;
 import org.candlepin.subscriptions.registry.TagProfile;
 import org.candlepin.subscriptions.tally.AccountUsageCalculation;
+import org.candlepin.subscriptions.tally.TallySnapshotCatalog;
 import org.candlepin.subscriptions.tally.UsageCalculation;
 import org.candlepin.subscriptions.tally.UsageCalculation.Totals;
 import org.candlepin.subscriptions.util.ApplicationClock;
+import org.candlepin.subscriptions.util.DateRange;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -63,13 +65,43 @@ public abstract class BaseSnapshotRoller {
     this.tagProfile = tagProfile;
   }
 
+  /** @return the granularity of the snapshots this roller produces */
+  public abstract Granularity getGranularity();
+
+  /**
+   * @return the range of the current period of this roller's granularity, whose snapshots are
+   *     rolled
+   */
+  public abstract DateRange getCurrentRange();
+
+  /**
+   * Roll the snapshots for the given account, loading the existing snapshots of this roller's
+   * granularity on its own.
+   *
+   * @param accountCalc the current calculation from the host inventory.
+   * @return collection of snapshots
+   */
+  public Collection<TallySnapshot> rollSnapshots(AccountUsageCalculation accountCalc) {
+    Granularity granularity = getGranularity();
+    TallySnapshotCatalog catalog =
+        TallySnapshotCatalog.load(
+            tallyRepo,
+            accountCalc.getOrgId(),
+            getApplicableProducts(accountCalc, granularity),
+            Map.of(granularity, getCurrentRange()));
+    return rollSnapshots(accountCalc, catalog);
+  }
+
   /**
    * Roll the snapshots for the given account.
    *
    * @param accountCalc the current calculation from the host inventory.
+   * @param catalog the existing snapshots of the account, including those of the current period of
+   *     this roller's granularity
    * @return collection of snapshots
    */
-  public abstract Collection<TallySnapshot> rollSnapshots(AccountUsageCalculation accountCalc);
+  public abstract Collection<TallySnapshot> rollSnapshots(
+      AccountUsageCalculation accountCalc, TallySnapshotCatalog catalog);
 
   protected TallySnapshot createSnapshotFromProductUsageCalculation(
       String account, String orgId, UsageCalculation productCalc, Granularity granularity) {
@@ -120,25 +152,26 @@ public abstract class BaseSnapshotRoller {
     }
   }
 
-  @SuppressWarnings("indentation")
-  protected List<TallySnapshot> getCurrentSnapshotsByOrgId(
-      String orgId,
-      Collection<String> products,
-      Granularity granularity,
-      OffsetDateTime begin,
-      OffsetDateTime end) {
-    try (Stream<TallySnapshot> snapStream =
-        tallyRepo.findByOrgIdAndProductIdInAndGranularityAndSnapshotDateBetween(
-            orgId, products, granularity, begin, end)) {
-      return snapStream.collect(Collectors.toList());
-    }
+  protected List<TallySnapshot> getCurrentSnapshots(
+      AccountUsageCalculation accountCalc, TallySnapshotCatalog catalog) {
+    return catalog.getSnapshots(
+        getGranularity(), getApplicableProducts(accountCalc, getGranularity()));
   }
 
+  /**
+   * Apply the account calculation to the existing snapshots of a granularity, creating any missing
+   * ones. Only new and changed snapshots are saved, but snapshots at the finest granularity of
+   * their product are always returned, as they are sent on as tally summaries whether or not they
+   * changed.
+   *
+   * @return the new and changed snapshots, and the unchanged ones at their finest granularity
+   */
   protected Collection<TallySnapshot> updateSnapshots(
       AccountUsageCalculation accountCalc,
       List<TallySnapshot> existingSnaps,
       Granularity targetGranularity) {
     List<TallySnapshot> snaps = new LinkedList<>();
+    List<TallySnapshot> unchangedFinestSnaps = new LinkedList<>();
     Map<UsageCalculation.Key, TallySnapshot> orgSnapsByUsageKey;
     orgSnapsByUsageKey =
         existingSnaps.stream()
@@ -162,11 +195,19 @@ public abstract class BaseSnapshotRoller {
           snaps.add(snap);
         } else if (snap != null && updateMaxValues(snap, productCalc)) {
           snaps.add(snap);
+        } else if (snap != null && productCalc.hasMeasurements() && isFinestGranularity(snap)) {
+          unchangedFinestSnaps.add(snap);
         }
       }
     }
+    if (snaps.isEmpty()) {
+      log.debug("No {} snapshots changed.", targetGranularity);
+      return unchangedFinestSnaps;
+    }
     log.debug("Persisting {} {} snapshots.", snaps.size(), targetGranularity);
-    return tallyRepo.saveAll(snaps);
+    List<TallySnapshot> updated = new LinkedList<>(tallyRepo.saveAll(snaps));
+    updated.addAll(unchangedFinestSnaps);
+    return updated;
   }
 
   private TallySnapshot handleDuplicateSnapshot(TallySnapshot snap1, TallySnapshot snap2) {
@@ -206,6 +247,13 @@ public abstract class BaseSnapshotRoller {
     return tagProfile.granularityByTag(snap.getProductId());
   }
 
+  /**
+   * Apply the calculated totals of a measurement type to the snapshot. Only measurements whose
+   * value actually changes are written back, so that an unchanged snapshot (and its measurement
+   * collection) is never marked dirty and Hibernate issues no statements for it on flush.
+   *
+   * @return true if any measurement of the snapshot was changed
+   */
   private boolean updateTotals(
       boolean override,
       TallySnapshot snap,
@@ -220,30 +268,17 @@ public abstract class BaseSnapshotRoller {
       return false;
     }
 
-    HashMap<TallyMeasurementKey, Double> beforeUpdate = new HashMap<>(snap.getTallyMeasurements());
-
-    updateUomTotals(override, snap, measurementType, prodCalcTotals);
-
-    return override || !beforeUpdate.equals(snap.getTallyMeasurements());
-  }
-
-  private void updateUomTotals(
-      boolean override,
-      TallySnapshot snap,
-      HardwareMeasurementType measurementType,
-      Totals prodCalcTotals) {
-    if (prodCalcTotals != null) {
-      prodCalcTotals
-          .getMeasurements()
-          .forEach(
-              (uom, value) -> {
-                Double prodCalcMeasurement = prodCalcTotals.getMeasurement(uom);
-                if (override
-                    || mustUpdate(snap.getMeasurement(measurementType, uom), prodCalcMeasurement)) {
-                  snap.setMeasurement(measurementType, uom, prodCalcMeasurement);
-                }
-              });
+    boolean changed = false;
+    for (Map.Entry<Uom, Double> entry : prodCalcTotals.getMeasurements().entrySet()) {
+      Double existing = snap.getMeasurement(measurementType, entry.getKey());
+      Double prodCalcMeasurement = entry.getValue();
+      if (!Objects.equals(existing, prodCalcMeasurement)
+          && (override || mustUpdate(existing, prodCalcMeasurement))) {
+        snap.setMeasurement(measurementType, entry.getKey(), prodCalcMeasurement);
+        changed = true;
+      }
     }
+    return changed;
   }
 
   private boolean mustUpdate(Double existing, Double newMeasurment) {
@@ -25,10 +25,13 @@ import static org.candlepin.subscriptions.db.model.Granularity.HOURLY;
 import java.util.Collection;
 import java.util.List;
 import org.candlepin.subscriptions.db.TallySnapshotRepository;
+import org.candlepin.subscriptions.db.model.Granularity;
 import org.candlepin.subscriptions.db.model.TallySnapshot;
 import org.candlepin.subscriptions.registry.TagProfile;
 import org.candlepin.subscriptions.tally.AccountUsageCalculation;
+import org.candlepin.subscriptions.tally.TallySnapshotCatalog;
 import org.candlepin.subscriptions.util.ApplicationClock;
+import org.candlepin.subscriptions.util.DateRange;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.transaction.annotation.Transactional;
@@ -47,19 +50,24 @@ public class HourlySnapshotRoller extends BaseSnapshotRoller {
     super(tallyRepo, clock, tagProfile);
   }
 
+  @Override
+  public Granularity getGranularity() {
+    return HOURLY;
+  }
+
+  @Override
+  public DateRange getCurrentRange() {
+    return new DateRange(clock.startOfCurrentHour(), clock.endOfCurrentHour());
+  }
+
   @Override
   @Transactional
-  public Collection<TallySnapshot> rollSnapshots(AccountUsageCalculation accountCalc) {
+  public Collection<TallySnapshot> rollSnapshots(
+      AccountUsageCalculation accountCalc, TallySnapshotCatalog catalog) {
     var orgId = accountCalc.getOrgId();
     log.debug("Producing hourly snapshots for orgId={}.", orgId);
 
-    List<TallySnapshot> existingSnapsForTheHour =
-        getCurrentSnapshotsByOrgId(
-            orgId,
-            getApplicableProducts(accountCalc, HOURLY),
-            HOURLY,
-            clock.startOfCurrentHour(),
-            clock.endOfCurrentHour());
+    List<TallySnapshot> existingSnapsForTheHour = getCurrentSnapshots(accountCalc, catalog);
 
     return updateSnapshots(accountCalc, existingSnapsForTheHour, HOURLY);
   }
@@ -25,10 +25,13 @@ import static org.candlepin.subscriptions.db.model.Granularity.MONTHLY;
 import java.util.Collection;
 import java.util.List;
 import org.candlepin.subscriptions.db.TallySnapshotRepository;
+import org.candlepin.subscriptions.db.model.Granularity;
 import org.candlepin.subscriptions.db.model.TallySnapshot;
 import org.candlepin.subscriptions.registry.TagProfile;
 import org.candlepin.subscriptions.tally.AccountUsageCalculation;
+import org.candlepin.subscriptions.tally.TallySnapshotCatalog;
 import org.candlepin.subscriptions.util.ApplicationClock;
+import org.candlepin.subscriptions.util.DateRange;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.transaction.annotation.Transactional;
@@ -48,19 +51,24 @@ public class MonthlySnapshotRoller extends BaseSnapshotRoller {
     super(tallyRepo, clock, tagProfile);
   }
 
+  @Override
+  public Granularity getGranularity() {
+    return MONTHLY;
+  }
+
+  @Override
+  public DateRange getCurrentRange() {
+    return new DateRange(clock.startOfCurrentMonth(), clock.endOfCurrentMonth());
+  }
+
   @Override
   @Transactional
-  public Collection<TallySnapshot> rollSnapshots(AccountUsageCalculation accountCalc) {
+  public Collection<TallySnapshot> rollSnapshots(
+      AccountUsageCalculation accountCalc, TallySnapshotCatalog catalog) {
     var orgId = accountCalc.getOrgId();
     log.debug("Producing monthly snapshots for orgId={}.", orgId);
 
-    List<TallySnapshot> currentMonthlySnaps =
-        getCurrentSnapshotsByOrgId(
-            orgId,
-            getApplicableProducts(accountCalc, MONTHLY),
-            MONTHLY,
-            clock.startOfCurrentMonth(),
-            clock.endOfCurrentMonth());
+    List<TallySnapshot> currentMonthlySnaps = getCurrentSnapshots(accountCalc, catalog);
 
     return updateSnapshots(accountCalc, currentMonthlySnaps, MONTHLY);
   }
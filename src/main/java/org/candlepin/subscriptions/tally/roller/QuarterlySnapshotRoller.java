@@ -25,10 +25,13 @@ import static org.candlepin.subscriptions.db.model.Granularity.QUARTERLY;
 import java.util.Collection;
 import java.util.List;
 import org.candlepin.subscriptions.db.TallySnapshotRepository;
+import org.candlepin.subscriptions.db.model.Granularity;
 import org.candlepin.subscriptions.db.model.TallySnapshot;
 import org.candlepin.subscriptions.registry.TagProfile;
 import org.candlepin.subscriptions.tally.AccountUsageCalculation;
+import org.candlepin.subscriptions.tally.TallySnapshotCatalog;
 import org.candlepin.subscriptions.util.ApplicationClock;
+import org.candlepin.subscriptions.util.DateRange;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.transaction.annotation.Transactional;
@@ -51,19 +54,24 @@ public class QuarterlySnapshotRoller extends BaseSnapshotRoller {
     super(tallyRepo, clock, tagProfile);
   }
 
+  @Override
+  public Granularity getGranularity() {
+    return QUARTERLY;
+  }
+
+  @Override
+  public DateRange getCurrentRange() {
+    return new DateRange(clock.startOfCurrentQuarter(), clock.endOfCurrentQuarter());
+  }
+
   @Override
   @Transactional
-  public Collection<TallySnapshot> rollSnapshots(AccountUsageCalculation accountCalc) {
+  public Collection<TallySnapshot> rollSnapshots(
+      AccountUsageCalculation accountCalc, TallySnapshotCatalog catalog) {
     var orgId = accountCalc.getOrgId();
     log.debug("Producing quarterly snapshots for orgId={}.", orgId);
 
-    List<TallySnapshot> currentQuarterlySnaps =
-        getCurrentSnapshotsByOrgId(
-            orgId,
-            getApplicableProducts(accountCalc, QUARTERLY),
-            QUARTERLY,
-            clock.startOfCurrentQuarter(),
-            clock.endOfCurrentQuarter());
+    List<TallySnapshot> currentQuarterlySnaps = getCurrentSnapshots(accountCalc, catalog);
 
     return updateSnapshots(accountCalc, currentQuarterlySnaps, QUARTERLY);
   }
@@ -25,10 +25,13 @@ import static org.candlepin.subscriptions.db.model.Granularity.WEEKLY;
 import java.util.Collection;
 import java.util.List;
 import org.candlepin.subscriptions.db.TallySnapshotRepository;
+import org.candlepin.subscriptions.db.model.Granularity;
 import org.candlepin.subscriptions.db.model.TallySnapshot;
 import org.candlepin.subscriptions.registry.TagProfile;
 import org.candlepin.subscriptions.tally.AccountUsageCalculation;
+import org.candlepin.subscriptions.tally.TallySnapshotCatalog;
 import org.candlepin.subscriptions.util.ApplicationClock;
+import org.candlepin.subscriptions.util.DateRange;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.transaction.annotation.Transactional;
@@ -48,19 +51,24 @@ public class WeeklySnapshotRoller extends BaseSnapshotRoller {
     super(tallyRepo, clock, tagProfile);
   }
 
+  @Override
+  public Granularity getGranularity() {
+    return WEEKLY;
+  }
+
+  @Override
+  public DateRange getCurrentRange() {
+    return new DateRange(clock.startOfCurrentWeek(), clock.endOfCurrentWeek());
+  }
+
   @Override
   @Transactional
-  public Collection<TallySnapshot> rollSnapshots(AccountUsageCalculation accountCalc) {
+  public Collection<TallySnapshot> rollSnapshots(
+      AccountUsageCalculation accountCalc, TallySnapshotCatalog catalog) {
     var orgId = accountCalc.getOrgId();
     log.debug("Producing weekly snapshots for orgId={}.", orgId);
 
-    List<TallySnapshot> currentForWeek =
-        getCurrentSnapshotsByOrgId(
-            orgId,
-            getApplicableProducts(accountCalc, WEEKLY),
-            WEEKLY,
-            clock.startOfCurrentWeek(),
-            clock.endOfCurrentWeek());
+    List<TallySnapshot> currentForWeek = getCurrentSnapshots(accountCalc, catalog);
 
     return updateSnapshots(accountCalc, currentForWeek, WEEKLY);
   }
@@ -30,24 +30,23 @@ import static org.mockito.Mockito.*;
 import java.time.OffsetDateTime;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.candlepin.subscriptions.capacity.files.ProductDenylist;
+import org.candlepin.subscriptions.db.CapacityReportMarkerRepository;
 import org.candlepin.subscriptions.db.OfferingRepository;
 import org.candlepin.subscriptions.db.SubscriptionRepository;
 import org.candlepin.subscriptions.db.model.Offering;
 import org.candlepin.subscriptions.db.model.Subscription;
 import org.candlepin.subscriptions.db.model.SubscriptionMeasurement;
 import org.candlepin.subscriptions.db.model.SubscriptionProductId;
-import org.candlepin.subscriptions.resource.ResourceUtils;
 import org.candlepin.subscriptions.utilization.api.model.MetricId;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Sort;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.test.context.ActiveProfiles;
 
@@ -69,12 +68,19 @@ class CapacityReconciliationControllerTest {
 
   @MockBean CapacityProductExtractor capacityProductExtractor;
 
+  @MockBean CapacityReportMarkerRepository capacityReportMarkerRepository;
+
   @MockBean
   KafkaTemplate<String, ReconcileCapacityByOfferingTask> reconcileCapacityByOfferingKafkaTemplate;
 
   @AfterEach
   void afterEach() {
-    reset(subscriptionRepository, capacityProductExtractor, offeringRepository, denylist);
+    reset(
+        subscriptionRepository,
+        capacityProductExtractor,
+        offeringRepository,
+        denylist,
+        capacityReportMarkerRepository);
   }
 
   private static SubscriptionMeasurement createMeasurement(
@@ -230,21 +236,64 @@ class CapacityReconciliationControllerTest {
   }
 
   @Test
-  void shouldReconcileCapacityWithinLimitForOrgAndQueueTaskForNext() {
+  void shouldReconcileCapacityForAllSubscriptionsOfOfferingWithoutQueueingNextPage() {
+    Offering offering = Offering.builder().productIds(Set.of(45)).sku("MCT3718").build();
+    when(offeringRepository.findById("MCT3718")).thenReturn(Optional.of(offering));
+    when(denylist.productIdMatches(any())).thenReturn(false);
+    when(capacityProductExtractor.getProducts(offering.getProductIdsAsStrings()))
+        .thenReturn(Set.of("RHEL"));
+
+    capacityReconciliationController.reconcileCapacityForOffering("MCT3718");
+
+    verify(subscriptionRepository).updateMeasurementsForOffering("MCT3718");
+    verify(subscriptionRepository).deleteStaleMeasurementsForOffering("MCT3718");
+    verify(subscriptionRepository).insertMissingMeasurementsForOffering("MCT3718");
+    verify(subscriptionRepository).deleteProductIdsForOfferingNotIn("MCT3718", Set.of("RHEL"));
+    verify(subscriptionRepository).insertMissingProductIdForOffering("MCT3718", "RHEL");
+    verify(subscriptionRepository, never()).findByOfferingSku(any(), any());
+    verifyNoInteractions(reconcileCapacityByOfferingKafkaTemplate);
+  }
 
+  @Test
+  void shouldRemoveAllCapacitiesOfOfferingWhenProductIsOnDenylist() {
     Offering offering = Offering.builder().productIds(Set.of(45)).sku("MCT3718").build();
+    when(offeringRepository.findById("MCT3718")).thenReturn(Optional.of(offering));
+    when(denylist.productIdMatches(any())).thenReturn(true);
 
-    Page<Subscription> subscriptions = mock(Page.class);
-    when(subscriptions.hasNext()).thenReturn(true);
+    capacityReconciliationController.reconcileCapacityForOffering("MCT3718");
 
-    when(subscriptionRepository.findByOfferingSku(
-            "MCT3718", ResourceUtils.getPageable(0, 2, Sort.by("subscriptionId"))))
-        .thenReturn(subscriptions);
-    capacityReconciliationController.reconcileCapacityForOffering(offering.getSku(), 0, 2);
-    verify(reconcileCapacityByOfferingKafkaTemplate)
-        .send(
-            "platform.rhsm-subscriptions.capacity-reconcile",
-            ReconcileCapacityByOfferingTask.builder().sku("MCT3718").offset(2).limit(2).build());
+    verify(subscriptionRepository).deleteMeasurementsForOffering("MCT3718");
+    verify(subscriptionRepository).deleteProductIdsForOffering("MCT3718");
+    verify(subscriptionRepository, never()).insertMissingMeasurementsForOffering(any());
+    verify(subscriptionRepository, never()).insertMissingProductIdForOffering(any(), any());
+  }
+
+  @Test
+  void shouldMarkCapacityReportsUpdatedWhenOfferingCapacityChanges() {
+    Offering offering = Offering.builder().productIds(Set.of(45)).sku("MCT3718").build();
+    when(offeringRepository.findById("MCT3718")).thenReturn(Optional.of(offering));
+    when(denylist.productIdMatches(any())).thenReturn(false);
+    when(capacityProductExtractor.getProducts(offering.getProductIdsAsStrings()))
+        .thenReturn(Set.of("RHEL"));
+    when(subscriptionRepository.insertMissingProductIdForOffering("MCT3718", "RHEL"))
+        .thenReturn(1);
+
+    capacityReconciliationController.reconcileCapacityForOffering("MCT3718");
+
+    verify(capacityReportMarkerRepository).markUpdatedForOffering(eq("MCT3718"), any());
+  }
+
+  @Test
+  void shouldNotMarkCapacityReportsUpdatedWhenNothingChanges() {
+    Offering offering = Offering.builder().productIds(Set.of(45)).sku("MCT3718").build();
+    when(offeringRepository.findById("MCT3718")).thenReturn(Optional.of(offering));
+    when(denylist.productIdMatches(any())).thenReturn(false);
+    when(capacityProductExtractor.getProducts(offering.getProductIdsAsStrings()))
+        .thenReturn(Set.of("RHEL"));
+
+    capacityReconciliationController.reconcileCapacityForOffering("MCT3718");
+
+    verifyNoInteractions(capacityReportMarkerRepository);
   }
 
   @Test
@@ -407,6 +407,70 @@ class BillableUsageRemittanceRepositoryTest {
     assertEquals(24.0, results.get(0).getTotalRemittedPendingValue());
   }
 
+  @Test
+  void getRemittanceSummariesForKeys() {
+    BillableUsageRemittanceEntity remittance1 =
+        remittance(
+            "org123",
+            "product1",
+            BillingProvider.AWS.value(),
+            12.0,
+            truncateDate(clock.startOfCurrentMonth()));
+    BillableUsageRemittanceEntity remittance2 =
+        remittance(
+            "org123",
+            "product1",
+            BillingProvider.AWS.value(),
+            3.0,
+            truncateDate(clock.startOfCurrentMonth().plusDays(1)));
+    BillableUsageRemittanceEntity remittance3 =
+        remittance(
+            "org123",
+            "product2",
+            BillingProvider.AWS.value(),
+            5.0,
+            truncateDate(clock.startOfCurrentMonth()));
+    // Not part of the requested keys
+    BillableUsageRemittanceEntity remittance4 =
+        remittance(
+            "org123",
+            "product3",
+            BillingProvider.AWS.value(),
+            7.0,
+            truncateDate(clock.startOfCurrentMonth()));
+    repository.saveAllAndFlush(List.of(remittance1, remittance2, remittance3, remittance4));
+
+    var filters =
+        List.of(
+            keyFilter(remittance1.getKey()),
+            keyFilter(remittance3.getKey()),
+            keyFilter(remittance3.getKey().toBuilder().productId("product4").build()));
+
+    List<RemittanceSummaryProjection> results = repository.getRemittanceSummariesForKeys(filters);
+    assertEquals(2, results.size());
+    for (var filter : filters) {
+      assertEquals(
+          repository.getRemittanceSummaries(filter),
+          results.stream()
+              .filter(summary -> summary.getProductId().equals(filter.getProductId()))
+              .toList());
+    }
+    assertTrue(repository.getRemittanceSummariesForKeys(List.of()).isEmpty());
+  }
+
+  private BillableUsageRemittanceFilter keyFilter(BillableUsageRemittanceEntityPK key) {
+    return BillableUsageRemittanceFilter.builder()
+        .orgId(key.getOrgId())
+        .productId(key.getProductId())
+        .metricId(key.getMetricId())
+        .accumulationPeriod(key.getAccumulationPeriod())
+        .sla(key.getSla())
+        .usage(key.getUsage())
+        .billingProvider(key.getBillingProvider())
+        .billingAccountId(key.getBillingAccountId())
+        .build();
+  }
+
   // In memory DB does not save same length of decimals so truncate to make sure they equal
   OffsetDateTime truncateDate(OffsetDateTime date) {
     return date.truncatedTo(ChronoUnit.MILLIS);
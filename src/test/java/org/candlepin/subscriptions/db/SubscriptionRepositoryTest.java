@@ -24,6 +24,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import java.time.Duration;
 import java.time.OffsetDateTime;
@@ -51,6 +52,8 @@ class SubscriptionRepositoryTest {
 
   @Autowired OfferingRepository offeringRepo;
 
+  @Autowired EntityManager entityManager;
+
   @Transactional
   @Test
   void canInsertAndRetrieveSubscriptions() {
@@ -296,6 +299,132 @@ class SubscriptionRepositoryTest {
     assertThat(result, Matchers.containsInAnyOrder(s1, s2));
   }
 
+  @Transactional
+  @Test
+  void findsDistinctSkusForOrgs() {
+    var s1 = createSubscription("org123", "account123", "sub123", "seller123");
+    var s2 = createSubscription("org123", "account123", "sub321", "seller123");
+    var s3 = createSubscription("org456", "account456", "sub456", "seller456");
+    var offering1 = createOffering("testSku1", "Test SKU 1", 1066, null, null, null);
+    var offering2 = createOffering("testSku2", "Test SKU 2", 1066, null, null, null);
+    s1.setOffering(offering1);
+    s2.setOffering(offering1);
+    s3.setOffering(offering2);
+    offeringRepo.saveAll(List.of(offering1, offering2));
+    subscriptionRepo.saveAllAndFlush(List.of(s1, s2, s3));
+
+    assertEquals(Set.of("testSku1"), subscriptionRepo.findDistinctSkusByOrgIdIn(List.of("org123")));
+    assertEquals(
+        Set.of("testSku1", "testSku2"),
+        subscriptionRepo.findDistinctSkusByOrgIdIn(List.of("org123", "org456")));
+  }
+
+  @Transactional
+  @Test
+  void deletesSubscriptionsForOrgsAndSkusInBulk() {
+    var denied = createOffering("deniedSku", "Denied SKU", 1066, null, null, null);
+    var allowed = createOffering("allowedSku", "Allowed SKU", 1066, null, null, null);
+    var s1 = createSubscription("org123", "account123", "sub123", "seller123");
+    var s2 = createSubscription("org123", "account123", "sub321", "seller123");
+    var s3 = createSubscription("org456", "account456", "sub456", "seller456");
+    s1.setOffering(denied);
+    s2.setOffering(allowed);
+    s3.setOffering(denied);
+    for (var subscription : List.of(s1, s2, s3)) {
+      subscription.addSubscriptionMeasurement(
+          SubscriptionMeasurement.builder()
+              .metricId("Cores")
+              .measurementType("PHYSICAL")
+              .value(4.0)
+              .build());
+      subscription.addSubscriptionProductId(SubscriptionProductId.builder().productId("1").build());
+    }
+    offeringRepo.saveAll(List.of(denied, allowed));
+    subscriptionRepo.saveAllAndFlush(List.of(s1, s2, s3));
+
+    int deleted = subscriptionRepo.deleteByOrgIdInAndSkuIn(List.of("org123"), Set.of("deniedSku"));
+
+    assertEquals(1, deleted);
+    assertEquals(2, subscriptionRepo.count());
+    assertEquals(0, subscriptionRepo.deleteByOrgIdInAndSkuIn(List.of(), Set.of("deniedSku")));
+    assertEquals(
+        1, subscriptionRepo.deleteByOrgIdInAndSkuIn(List.of("org456"), Set.of("deniedSku")));
+    assertEquals(1, subscriptionRepo.count());
+  }
+
+  @Transactional
+  @Test
+  void reconcilesCapacityForAllSubscriptionsOfAnOffering() {
+    var offering = createOffering("testSku1", "Test SKU 1", 1066, null, null, null);
+    offering.setCores(2);
+    offering.setHypervisorSockets(3);
+    var other = createOffering("testSku2", "Test SKU 2", 1066, null, null, null);
+    var s1 = createSubscription("org123", "account123", "sub123", "seller123");
+    var s2 = createSubscription("org456", "account456", "sub456", "seller456");
+    var s3 = createSubscription("org123", "account123", "sub789", "seller123");
+    s1.setOffering(offering);
+    s2.setOffering(offering);
+    s3.setOffering(other);
+    // s1 has an outdated and a stale measurement, s2 has none
+    s1.addSubscriptionMeasurement(
+        SubscriptionMeasurement.builder()
+            .metricId("CORES")
+            .measurementType("PHYSICAL")
+            .value(1.0)
+            .build());
+    s1.addSubscriptionMeasurement(
+        SubscriptionMeasurement.builder()
+            .metricId("SOCKETS")
+            .measurementType("PHYSICAL")
+            .value(4.0)
+            .build());
+    s1.addSubscriptionProductId(SubscriptionProductId.builder().productId("RHEL").build());
+    s1.addSubscriptionProductId(SubscriptionProductId.builder().productId("stale").build());
+    s3.addSubscriptionMeasurement(
+        SubscriptionMeasurement.builder()
+            .metricId("SOCKETS")
+            .measurementType("PHYSICAL")
+            .value(4.0)
+            .build());
+    s3.addSubscriptionProductId(SubscriptionProductId.builder().productId("stale").build());
+    offeringRepo.saveAll(List.of(offering, other));
+    subscriptionRepo.saveAllAndFlush(List.of(s1, s2, s3));
+
+    assertEquals(1, subscriptionRepo.updateMeasurementsForOffering("testSku1"));
+    assertEquals(1, subscriptionRepo.deleteStaleMeasurementsForOffering("testSku1"));
+    assertEquals(3, subscriptionRepo.insertMissingMeasurementsForOffering("testSku1"));
+    assertEquals(
+        1, subscriptionRepo.deleteProductIdsForOfferingNotIn("testSku1", Set.of("RHEL", "RHEL2")));
+    assertEquals(1, subscriptionRepo.insertMissingProductIdForOffering("testSku1", "RHEL"));
+    assertEquals(2, subscriptionRepo.insertMissingProductIdForOffering("testSku1", "RHEL2"));
+    entityManager.clear();
+
+    for (var subscription : List.of(s1, s2)) {
+      var reconciled =
+          subscriptionRepo
+              .findById(
+                  new Subscription.SubscriptionCompoundId(
+                      subscription.getSubscriptionId(), subscription.getStartDate()))
+              .orElseThrow();
+      assertThat(
+          reconciled.getSubscriptionMeasurements().stream()
+              .map(m -> m.getMetricId() + "/" + m.getMeasurementType() + "=" + m.getValue())
+              .toList(),
+          Matchers.containsInAnyOrder("CORES/PHYSICAL=8.0", "SOCKETS/HYPERVISOR=12.0"));
+      assertThat(
+          reconciled.getSubscriptionProductIds().stream()
+              .map(SubscriptionProductId::getProductId)
+              .toList(),
+          Matchers.containsInAnyOrder("RHEL", "RHEL2"));
+    }
+    var untouched =
+        subscriptionRepo
+            .findById(new Subscription.SubscriptionCompoundId("sub789", s3.getStartDate()))
+            .orElseThrow();
+    assertEquals(1, untouched.getSubscriptionMeasurements().size());
+    assertEquals(1, untouched.getSubscriptionProductIds().size());
+  }
+
   private Offering createOffering(
       String sku, String productName, int productId, ServiceLevel sla, Usage usage, String role) {
     return Offering.builder()
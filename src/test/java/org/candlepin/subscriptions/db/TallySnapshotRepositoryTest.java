@@ -29,6 +29,7 @@ import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import org.candlepin.subscriptions.db.model.BillingProvider;
 import org.candlepin.subscriptions.db.model.Granularity;
@@ -39,6 +40,7 @@ import org.candlepin.subscriptions.db.model.TallySnapshot;
 import org.candlepin.subscriptions.db.model.Usage;
 import org.candlepin.subscriptions.json.Measurement;
 import org.candlepin.subscriptions.json.Measurement.Uom;
+import org.candlepin.subscriptions.util.DateRange;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -213,6 +215,53 @@ class TallySnapshotRepositoryTest {
         11, result.getMeasurement(HardwareMeasurementType.TOTAL, Uom.INSTANCES).intValue());
   }
 
+  @Test
+  void testFindSnapshotsForRanges() {
+    String product1 = "Product1";
+    String product2 = "Product2";
+    // Will be found.
+    TallySnapshot daily =
+        createUnpersisted("Org1", "Account1", product1, Granularity.DAILY, 9, 10, 11, NOWISH);
+    // Will be found.
+    TallySnapshot weekly =
+        createUnpersisted("Org1", "Account1", product2, Granularity.WEEKLY, 19, 20, 21, NOWISH);
+    // Will not be found - out of the daily range.
+    TallySnapshot oldDaily =
+        createUnpersisted("Org1", "Account1", product1, Granularity.DAILY, 2, 3, 4, LONG_AGO);
+    // Will not be found - granularity not requested.
+    TallySnapshot monthly =
+        createUnpersisted("Org1", "Account1", product1, Granularity.MONTHLY, 5, 6, 7, NOWISH);
+    // Will not be found - product not requested.
+    TallySnapshot otherProduct =
+        createUnpersisted("Org1", "Account1", "Product3", Granularity.DAILY, 5, 6, 7, NOWISH);
+    // Will not be found - other org.
+    TallySnapshot otherOrg =
+        createUnpersisted("Org2", "Account2", product1, Granularity.DAILY, 5, 6, 7, NOWISH);
+
+    repository.saveAll(List.of(daily, weekly, oldDaily, monthly, otherProduct, otherOrg));
+    repository.flush();
+
+    OffsetDateTime min = OffsetDateTime.of(2019, 05, 23, 00, 00, 00, 00, ZoneOffset.UTC);
+    OffsetDateTime max = OffsetDateTime.of(2019, 07, 23, 00, 00, 00, 00, ZoneOffset.UTC);
+
+    List<TallySnapshot> found =
+        repository.findSnapshotsForRanges(
+            "Org1",
+            List.of(product1, product2),
+            Map.of(
+                Granularity.DAILY,
+                new DateRange(min, max),
+                Granularity.WEEKLY,
+                new DateRange(LONG_AGO, FAR_FUTURE)));
+
+    assertEquals(
+        List.of(daily.getId(), weekly.getId()),
+        found.stream().map(TallySnapshot::getId).collect(Collectors.toList()));
+    assertEquals(
+        9, found.get(0).getMeasurement(HardwareMeasurementType.TOTAL, Uom.CORES).intValue());
+    assertTrue(repository.findSnapshotsForRanges("Org1", List.of(), Map.of()).isEmpty());
+  }
+
   @Test
   void testPersistsHardwareMeasurements() {
     TallySnapshot snap =
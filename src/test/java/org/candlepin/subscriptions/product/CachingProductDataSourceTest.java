@@ -0,0 +1,118 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.product;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Optional;
+import org.candlepin.subscriptions.db.model.Offering;
+import org.junit.jupiter.api.Test;
+
+class CachingProductDataSourceTest {
+
+  private static final List<String> SKUS =
+      List.of("RH00604F5", "RH00618F5", "RH0180191", "MW01485", "MW01484", "RH3413336");
+
+  @Test
+  void testSyncRunProducesSameOfferingsWithFewerUpstreamRequests() {
+    StubProductApi uncachedApi = spy(new StubProductApi());
+    ProductService uncached = new ProductService(uncachedApi);
+    StubProductApi cachedApi = spy(new StubProductApi());
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    CachingProductDataSource cached =
+        new CachingProductDataSource(new ProductService(cachedApi), meterRegistry);
+
+    for (String sku : SKUS) {
+      Optional<Offering> expected = UpstreamProductData.offeringFromUpstream(sku, uncached);
+      Optional<Offering> actual = UpstreamProductData.offeringFromUpstream(sku, cached);
+      assertTrue(actual.isPresent());
+      assertEquals(expected, actual);
+      assertEquals(expected.get().getProductIds(), actual.get().getProductIds());
+      assertEquals(expected.get().getChildSkus(), actual.get().getChildSkus());
+    }
+
+    int uncachedTreeRequests = countInvocations(uncachedApi, "getProductTree");
+    int uncachedEngProductRequests = countInvocations(uncachedApi, "getEngineeringProductsForSkus");
+    int cachedTreeRequests = countInvocations(cachedApi, "getProductTree");
+    int cachedEngProductRequests = countInvocations(cachedApi, "getEngineeringProductsForSkus");
+
+    assertTrue(cachedTreeRequests < uncachedTreeRequests);
+    assertTrue(cachedEngProductRequests < uncachedEngProductRequests);
+    assertEquals(cachedTreeRequests, cached.getTreeRequests());
+    assertEquals(cachedEngProductRequests, cached.getEngineeringProductRequests());
+    assertEquals(
+        cachedTreeRequests,
+        meterRegistry
+            .counter(CachingProductDataSource.UPSTREAM_REQUESTS_METRIC, "type", "tree")
+            .count());
+    assertEquals(
+        cachedEngProductRequests,
+        meterRegistry
+            .counter(
+                CachingProductDataSource.UPSTREAM_REQUESTS_METRIC, "type", "engineering_products")
+            .count());
+  }
+
+  @Test
+  void testTreeFetchedOncePerSku() throws ApiException {
+    StubProductApi productApi = spy(new StubProductApi());
+    CachingProductDataSource cached =
+        new CachingProductDataSource(new ProductService(productApi), new SimpleMeterRegistry());
+
+    cached.getTree("RH00618F5");
+    cached.getTree("RH00618F5");
+    // SKUs without a tree are remembered as well
+    cached.getTree("MISSING");
+    cached.getTree("MISSING");
+
+    verify(productApi, times(1)).getProductTree("RH00618F5", true);
+    verify(productApi, times(1)).getProductTree("MISSING", true);
+  }
+
+  @Test
+  void testEngineeringProductsOnlyRequestedForUnseenSkus() throws ApiException {
+    StubProductApi productApi = spy(new StubProductApi());
+    CachingProductDataSource cached =
+        new CachingProductDataSource(new ProductService(productApi), new SimpleMeterRegistry());
+
+    var first = cached.getEngineeringProductsForSkus(List.of("SVCRH01", "SVCMPV4"));
+    var second = cached.getEngineeringProductsForSkus(List.of("SVCRH01", "SVCRH01V4"));
+
+    verify(productApi).getEngineeringProductsForSkus("SVCRH01,SVCMPV4");
+    verify(productApi).getEngineeringProductsForSkus("SVCRH01V4");
+    assertEquals(first.get("SVCRH01"), second.get("SVCRH01"));
+    assertEquals(2, second.size());
+  }
+
+  private static int countInvocations(Object mock, String methodName) {
+    return (int)
+        mockingDetails(mock).getInvocations().stream()
+            .filter(invocation -> invocation.getMethod().getName().equals(methodName))
+            .count();
+  }
+}
@@ -21,10 +21,12 @@
 package org.candlepin.subscriptions.product;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -34,15 +36,20 @@ import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Stream;
 import org.candlepin.subscriptions.capacity.CapacityReconciliationController;
 import org.candlepin.subscriptions.capacity.files.ProductDenylist;
+import org.candlepin.subscriptions.db.CapacityReportMarkerRepository;
 import org.candlepin.subscriptions.db.OfferingRepository;
 import org.candlepin.subscriptions.db.model.Offering;
 import org.candlepin.subscriptions.db.model.ServiceLevel;
@@ -55,6 +62,7 @@ import org.candlepin.subscriptions.product.api.model.SkuEngProduct;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.stubbing.Answer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -107,8 +115,10 @@ class OfferingSyncControllerTest {
   @MockBean OfferingRepository repo;
   @MockBean ProductDenylist denylist;
   @MockBean CapacityReconciliationController capController;
+  @MockBean CapacityReportMarkerRepository capacityReportMarkerRepository;
   @MockBean KafkaTemplate<String, OfferingSyncTask> offeringSyncKafkaTemplate;
   @Autowired OfferingSyncController subject;
+  @Autowired MeterRegistry meterRegistry;
 
   @BeforeEach
   void init() {
@@ -128,6 +138,7 @@ class OfferingSyncControllerTest {
     assertEquals(SyncResult.FETCHED_AND_SYNCED, result);
     verify(repo).saveAndFlush(any(Offering.class));
     verify(capController).enqueueReconcileCapacityForOffering("MW01485");
+    verify(capacityReportMarkerRepository).markUpdatedForOffering(eq("MW01485"), any());
   }
 
   @Test
@@ -178,10 +189,38 @@ class OfferingSyncControllerTest {
     // When syncing the Offering,
     SyncResult result = subject.syncOffering(sku);
 
-    // Then no persisting or capacity reconciliation should happen.
+    // Then no persisting or capacity reconciliation should happen,
     assertEquals(SyncResult.SKIPPED_MATCHING, result);
     verify(repo, never()).saveAndFlush(any(Offering.class));
-    verifyNoInteractions(capController);
+    verifyNoInteractions(capController, capacityReportMarkerRepository);
+    // other than recording the content hash for the next sync.
+    verify(repo).save(persisted);
+    assertNotNull(persisted.getContentHash());
+  }
+
+  @Test
+  void testSyncOfferingWithMatchingContentHashSkipsLoadingOffering() {
+    // Given an Offering whose stored content hash matches the upstream content,
+    when(repo.findById(anyString())).thenReturn(Optional.empty());
+    String sku = "MW01485";
+    subject.syncOffering(sku);
+    var saved = ArgumentCaptor.forClass(Offering.class);
+    verify(repo).saveAndFlush(saved.capture());
+    when(repo.findContentHashBySku(sku))
+        .thenReturn(Optional.of(saved.getValue().getContentHash()));
+    double skippedBefore = meterRegistry.counter("swatch_offering_sync_skipped_unchanged").count();
+
+    // When syncing the Offering again,
+    SyncResult result = subject.syncOffering(sku);
+
+    // Then the stored Offering is neither loaded nor persisted, and capacities are not reconciled.
+    assertEquals(SyncResult.SKIPPED_MATCHING, result);
+    verify(repo, times(1)).findById(sku);
+    verify(repo, times(1)).saveAndFlush(any(Offering.class));
+    verify(capController, times(1)).enqueueReconcileCapacityForOffering(sku);
+    assertEquals(
+        skippedBefore + 1,
+        meterRegistry.counter("swatch_offering_sync_skipped_unchanged").count());
   }
 
   @Test
@@ -233,6 +272,31 @@ class OfferingSyncControllerTest {
     verify(offeringSyncKafkaTemplate, times(2)).send(anyString(), any(OfferingSyncTask.class));
   }
 
+  @Test
+  void testSyncAllOfferingsTasksShareSyncRunId() {
+    when(repo.findAllDistinctSkus()).thenReturn(Set.of("RH00604F5", "RH0180191"));
+    ArgumentCaptor<OfferingSyncTask> taskCaptor = ArgumentCaptor.forClass(OfferingSyncTask.class);
+
+    subject.syncAllOfferings();
+
+    verify(offeringSyncKafkaTemplate, times(2)).send(anyString(), taskCaptor.capture());
+    var runIds = taskCaptor.getAllValues().stream().map(OfferingSyncTask::getSyncRunId).toList();
+    assertNotNull(runIds.get(0));
+    assertEquals(runIds.get(0), runIds.get(1));
+  }
+
+  @Test
+  void testSyncOfferingsInSameRun() {
+    when(repo.findById(anyString())).thenReturn(Optional.empty());
+
+    assertEquals(SyncResult.FETCHED_AND_SYNCED, subject.syncOffering("RH00604F5", "run1"));
+    assertEquals(SyncResult.FETCHED_AND_SYNCED, subject.syncOffering("RH00618F5", "run1"));
+
+    verify(repo, times(2)).saveAndFlush(any(Offering.class));
+    verify(capController).enqueueReconcileCapacityForOffering("RH00604F5");
+    verify(capController).enqueueReconcileCapacityForOffering("RH00618F5");
+  }
+
   @Test
   void testSyncAllOfferingsEmptyWithDenyList() {
     // Given the denylist has no source (that is, no denylist is provided),
@@ -292,10 +356,73 @@ class OfferingSyncControllerTest {
 
   @Test
   void testSyncOfferingWithNoChangesFromUmbMessage() throws IOException {
-    when(repo.findById(any())).thenReturn(Optional.of(createTestOffering()));
+    Offering testOffering = createTestOffering();
+    testOffering.setContentHash("upstream-hash");
+    when(repo.findById(any())).thenReturn(Optional.of(testOffering));
     subject.syncUmbProductFromXml(read("mocked-product-message.xml"));
+    verify(repo).findUmbMessageHashBySku("RH0180191");
     verify(repo, times(1)).findById(any());
+    // only the message hash is recorded, so that a replay of the message is skipped
+    verify(repo).save(testOffering);
     verifyNoMoreInteractions(repo);
+    // the hash of the product service responses is still valid, since the offering is unchanged
+    assertEquals("upstream-hash", testOffering.getContentHash());
+    assertNotNull(testOffering.getUmbMessageHash());
+  }
+
+  @Test
+  void testReplayedUmbMessagesAreOnlyPersistedOnce() throws IOException {
+    // Given a store holding an offering that matches the UMB message,
+    Map<String, Offering> stored = new HashMap<>();
+    stored.put("RH0180191", createTestOffering());
+    when(repo.findById(anyString()))
+        .thenAnswer(
+            invocation -> Optional.ofNullable(stored.get(invocation.<String>getArgument(0))));
+    when(repo.findUmbMessageHashBySku(anyString()))
+        .thenAnswer(
+            invocation ->
+                Optional.ofNullable(stored.get(invocation.<String>getArgument(0)))
+                    .map(Offering::getUmbMessageHash));
+    Answer<Offering> store =
+        invocation -> {
+          Offering offering = invocation.getArgument(0);
+          stored.put(offering.getSku(), offering);
+          return offering;
+        };
+    when(repo.save(any())).thenAnswer(store);
+    when(repo.saveAndFlush(any())).thenAnswer(store);
+    String message = read("mocked-product-message.xml");
+    String changedMessage =
+        message.replace(
+            "<SkuDescription>Red Hat Enterprise Linux Server,",
+            "<SkuDescription>Red Hat Enterprise Linux Server (updated),");
+    double appliedBefore = meterRegistry.counter("swatch_offering_sync_applied").count();
+
+    // When the messages are replayed,
+    List<SyncResult> results = new ArrayList<>();
+    for (String productXml : List.of(message, message, changedMessage, changedMessage, message)) {
+      results.add(subject.syncUmbProductFromXml(productXml));
+    }
+
+    // Then repeats of the last applied message are skipped before loading the offering,
+    assertEquals(
+        List.of(
+            SyncResult.SKIPPED_MATCHING,
+            SyncResult.SKIPPED_MATCHING,
+            SyncResult.FETCHED_AND_SYNCED,
+            SyncResult.SKIPPED_MATCHING,
+            SyncResult.FETCHED_AND_SYNCED),
+        results);
+    verify(repo, times(3)).findById("RH0180191");
+    // and only messages with changed content are persisted and reconciled.
+    verify(repo, times(1)).save(any(Offering.class));
+    verify(repo, times(2)).saveAndFlush(any(Offering.class));
+    verify(capController, times(2)).enqueueReconcileCapacityForOffering("RH0180191");
+    assertEquals(
+        appliedBefore + 2, meterRegistry.counter("swatch_offering_sync_applied").count());
+    assertEquals(
+        "Red Hat Enterprise Linux Server, Standard (1-2 sockets) (Up to 4 guests) with Smart Management",
+        stored.get("RH0180191").getDescription());
   }
 
   @Test
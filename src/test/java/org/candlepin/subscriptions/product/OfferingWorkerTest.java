@@ -54,6 +54,14 @@ class OfferingWorkerTest {
     verify(controller).syncOffering(sku);
   }
 
+  @Test
+  void testReceiveWithSyncRunId() {
+    String sku = "RH00604F5";
+    offeringWorker.receive(new OfferingSyncTask(sku, "run1"));
+
+    verify(controller).syncOffering(sku, "run1");
+  }
+
   @Test
   void testReceive_WhenValidProductTopic() throws JsonProcessingException {
     String productMessageXml =
@@ -21,15 +21,24 @@
 package org.candlepin.subscriptions.product;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verifyNoInteractions;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import org.candlepin.subscriptions.db.model.Offering;
 import org.candlepin.subscriptions.db.model.ServiceLevel;
 import org.candlepin.subscriptions.db.model.Usage;
+import org.candlepin.subscriptions.product.UpstreamProductData.UpstreamResponses;
+import org.candlepin.subscriptions.product.api.model.AttributeValue;
+import org.candlepin.subscriptions.product.api.model.EngineeringProduct;
+import org.candlepin.subscriptions.product.api.model.OperationalProduct;
+import org.candlepin.subscriptions.product.api.model.RESTProductTree;
 import org.candlepin.subscriptions.umb.ChildProduct;
 import org.candlepin.subscriptions.umb.ProductAttribute;
 import org.candlepin.subscriptions.umb.ProductRelationship;
@@ -209,6 +218,49 @@ class UpstreamProductDataTest {
     assertTrue(actual.isEmpty(), "When a sku doesn't exist upstream, return an empty Optional.");
   }
 
+  @Test
+  void testUpstreamResponsesContentHashOnlyChangesWithResponses() {
+    // Given a marketing SKU that has a derived SKU,
+    var sku = "RH00604F5";
+
+    // When fetching its upstream responses twice,
+    var first = UpstreamProductData.fetchUpstream(sku, stub).orElseThrow();
+    var second = UpstreamProductData.fetchUpstream(sku, stub).orElseThrow();
+
+    // Then the derived SKU tree is fetched along with the SKU tree,
+    assertEquals("RH00618F5", UpstreamProductData.findSku(first.derivedTree().orElseThrow()));
+    // the responses hash the same, and differ from the responses of another SKU.
+    assertEquals(first.contentHash(), second.contentHash());
+    assertNotEquals(
+        first.contentHash(),
+        UpstreamProductData.fetchUpstream("MW01485", stub).orElseThrow().contentHash());
+  }
+
+  @Test
+  void testUpstreamResponsesContentHashCoversFieldsUsedByOfferings() {
+    // Given upstream responses for a SKU,
+    var responses = responses("4", List.of(2, 1));
+
+    // When the engineering products are listed in another order, the hash is the same,
+    assertEquals(responses.contentHash(), responses("4", List.of(1, 2)).contentHash());
+    // but when an attribute or an engineering product changes, the hash changes.
+    assertNotEquals(responses.contentHash(), responses("8", List.of(2, 1)).contentHash());
+    assertNotEquals(responses.contentHash(), responses("4", List.of(2, 3)).contentHash());
+  }
+
+  private static UpstreamResponses responses(String cores, List<Integer> oids) {
+    var tree =
+        new RESTProductTree()
+            .addProductsItem(
+                new OperationalProduct()
+                    .sku("RH00001")
+                    .description("Test Product")
+                    .roles(List.of("Red Hat Enterprise Linux Server"))
+                    .attributes(List.of(new AttributeValue().code("CORES").value(cores))));
+    var engProds = oids.stream().map(oid -> new EngineeringProduct().oid(oid)).toList();
+    return new UpstreamResponses(tree, Optional.empty(), Map.of("RH00001", engProds));
+  }
+
   @Test
   void testOfferingFromUpstreamOpenShiftUnlimitedCores() {
     // Given an Openshift SKU that has unlimited cores,
@@ -0,0 +1,152 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.resource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.ws.rs.core.HttpHeaders;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.candlepin.subscriptions.db.CapacityReportMarkerRepository;
+import org.candlepin.subscriptions.db.TallyReportMarkerRepository;
+import org.candlepin.subscriptions.exception.NotModifiedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+@ExtendWith(MockitoExtension.class)
+class ReportResponseCacheTest {
+
+  private static final OffsetDateTime UPDATED =
+      OffsetDateTime.of(2023, 7, 24, 10, 0, 0, 0, ZoneOffset.UTC);
+
+  @Mock TallyReportMarkerRepository tallyReportMarkerRepository;
+  @Mock CapacityReportMarkerRepository capacityReportMarkerRepository;
+
+  private ReportResponseCache cache;
+  private MockHttpServletRequest request;
+  private MockHttpServletResponse response;
+  private final AtomicInteger computations = new AtomicInteger();
+
+  @BeforeEach
+  void setup() {
+    cache =
+        new ReportResponseCache(
+            tallyReportMarkerRepository,
+            capacityReportMarkerRepository,
+            new ReportResponseCacheProperties(),
+            new SimpleMeterRegistry());
+    request = new MockHttpServletRequest();
+    response = new MockHttpServletResponse();
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+  }
+
+  @AfterEach
+  void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  private String report() {
+    return "report-" + computations.incrementAndGet();
+  }
+
+  @Test
+  void testSetsEntityTagOnResponse() {
+    when(tallyReportMarkerRepository.findLastUpdatedByOrgId("org123"))
+        .thenReturn(Optional.of(UPDATED));
+
+    assertEquals("report-1", cache.getTallyReport("org123", List.of("q"), this::report));
+
+    String expected = ReportResponseCache.entityTag("org123", List.of("q"), UPDATED.toString());
+    assertEquals("\"" + expected + "\"", response.getHeader(HttpHeaders.ETAG));
+    assertEquals("private, no-cache", response.getHeader(HttpHeaders.CACHE_CONTROL));
+  }
+
+  @Test
+  void testThrowsNotModifiedWhenEntityTagMatches() {
+    when(tallyReportMarkerRepository.findLastUpdatedByOrgId("org123"))
+        .thenReturn(Optional.of(UPDATED));
+    String tag = ReportResponseCache.entityTag("org123", List.of("q"), UPDATED.toString());
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"" + tag + "\"");
+
+    List<String> query = List.of("q");
+    assertThrows(
+        NotModifiedException.class, () -> cache.getTallyReport("org123", query, this::report));
+    assertEquals(0, computations.get());
+  }
+
+  @Test
+  void testServesCachedReportWhileMarkerIsUnchanged() {
+    when(tallyReportMarkerRepository.findLastUpdatedByOrgId("org123"))
+        .thenReturn(Optional.of(UPDATED));
+
+    cache.getTallyReport("org123", List.of("q"), this::report);
+    assertEquals("report-1", cache.getTallyReport("org123", List.of("q"), this::report));
+    assertEquals(1, computations.get());
+  }
+
+  @Test
+  void testRecomputesReportWhenMarkerMoves() {
+    when(tallyReportMarkerRepository.findLastUpdatedByOrgId("org123"))
+        .thenReturn(Optional.of(UPDATED), Optional.of(UPDATED.plusHours(1)));
+
+    cache.getTallyReport("org123", List.of("q"), this::report);
+    assertEquals("report-2", cache.getTallyReport("org123", List.of("q"), this::report));
+  }
+
+  @Test
+  void testDifferentQueriesAreCachedSeparately() {
+    when(capacityReportMarkerRepository.findLastUpdatedByOrgId("org123"))
+        .thenReturn(Optional.empty());
+
+    cache.getCapacityReport("org123", List.of("a"), this::report);
+    assertEquals("report-2", cache.getCapacityReport("org123", List.of("b"), this::report));
+  }
+
+  @Test
+  void testRecomputesCapacityReportWhenMarkerMoves() {
+    when(capacityReportMarkerRepository.findLastUpdatedByOrgId("org123"))
+        .thenReturn(Optional.of(UPDATED), Optional.of(UPDATED.plusSeconds(1)));
+
+    cache.getCapacityReport("org123", List.of("q"), this::report);
+    assertEquals("report-2", cache.getCapacityReport("org123", List.of("q"), this::report));
+  }
+
+  @Test
+  void testMatchesAnyHandlesListsAndWildcard() {
+    assertTrue(ReportResponseCache.matchesAny("\"x\", \"abc\"", "abc"));
+    assertTrue(ReportResponseCache.matchesAny("*", "abc"));
+    assertFalse(ReportResponseCache.matchesAny("\"x\"", "abc"));
+    assertFalse(ReportResponseCache.matchesAny(null, "abc"));
+  }
+}
@@ -28,6 +28,7 @@ import java.time.ZoneId;
 import java.util.Arrays;
 import java.util.List;
 import org.candlepin.subscriptions.db.AccountConfigRepository;
+import org.candlepin.subscriptions.db.TallyReportMarkerRepository;
 import org.candlepin.subscriptions.db.TallySnapshotRepository;
 import org.candlepin.subscriptions.db.model.Granularity;
 import org.junit.jupiter.api.Test;
@@ -50,6 +51,7 @@ class TallyRetentionControllerTest {
   @MockBean private TallyRetentionPolicy policy;
   @MockBean private TallySnapshotRepository repository;
   @MockBean private AccountConfigRepository accountConfigRepository;
+  @MockBean private TallyReportMarkerRepository markerRepository;
 
   @Autowired private TallyRetentionController controller;
 
@@ -70,6 +72,25 @@ class TallyRetentionControllerTest {
     verifyNoInteractions(repository);
   }
 
+  @Test
+  void retentionControllerShouldMarkTallyReportsUpdatedWhenSnapshotsRemoved() {
+    OffsetDateTime cutoff = OffsetDateTime.ofInstant(Instant.EPOCH, ZoneId.systemDefault());
+    when(policy.getCutoffDate(Granularity.DAILY)).thenReturn(cutoff);
+    when(repository.deleteAllByOrgIdAndGranularityAndSnapshotDateBefore(
+            "123456", Granularity.DAILY, cutoff))
+        .thenReturn(3);
+    controller.cleanStaleSnapshotsForOrgId("123456");
+    verify(markerRepository).markUpdated(eq("123456"), any());
+  }
+
+  @Test
+  void retentionControllerShouldNotMarkTallyReportsUpdatedWhenNothingRemoved() {
+    OffsetDateTime cutoff = OffsetDateTime.ofInstant(Instant.EPOCH, ZoneId.systemDefault());
+    when(policy.getCutoffDate(Granularity.DAILY)).thenReturn(cutoff);
+    controller.cleanStaleSnapshotsForOrgId("123456");
+    verifyNoInteractions(markerRepository);
+  }
+
   @Test
   void testPurgeSnapshots() throws Exception {
     OffsetDateTime cutoff = OffsetDateTime.ofInstant(Instant.EPOCH, ZoneId.systemDefault());
@@ -24,6 +24,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -32,6 +33,7 @@ import org.candlepin.subscriptions.rbac.RbacApi;
 import org.candlepin.subscriptions.rbac.RbacApiException;
 import org.candlepin.subscriptions.rbac.RbacProperties;
 import org.candlepin.subscriptions.rbac.RbacService;
+import org.candlepin.subscriptions.rbac.StubRbacApi;
 import org.candlepin.subscriptions.rbac.model.Access;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
@@ -96,6 +98,79 @@ class IdentityHeaderAuthenticationDetailsServiceTest {
     assertThat(extractRoles(true), Matchers.contains(RoleProvider.SWATCH_ADMIN_ROLE));
   }
 
+  @Test
+  void testRolesCachedPerOrgAndUser() throws RbacApiException {
+    StubRbacApi stubRbacApi = spy(new StubRbacApi(stubRbacProperties()));
+    IdentityHeaderAuthenticationDetailsService source = cachingDetailsService(stubRbacApi);
+
+    Collection<String> roles = source.getUserRoles(new InsightsUserPrincipal("org1", null, "u1"));
+    assertThat(roles, Matchers.contains(RoleProvider.SWATCH_ADMIN_ROLE));
+    assertEquals(roles, source.getUserRoles(new InsightsUserPrincipal("org1", null, "u1")));
+    verify(stubRbacApi, times(1)).getCurrentUserAccess("subscriptions");
+
+    source.getUserRoles(new InsightsUserPrincipal("org1", null, "u2"));
+    source.getUserRoles(new InsightsUserPrincipal("org2", null, "u1"));
+    verify(stubRbacApi, times(3)).getCurrentUserAccess("subscriptions");
+  }
+
+  @Test
+  void testRolesNotCachedWithoutUserIdentity() throws RbacApiException {
+    StubRbacApi stubRbacApi = spy(new StubRbacApi(stubRbacProperties()));
+    IdentityHeaderAuthenticationDetailsService source = cachingDetailsService(stubRbacApi);
+
+    source.getUserRoles(new InsightsUserPrincipal("org1", null));
+    source.getUserRoles(new InsightsUserPrincipal("org1", null));
+    verify(stubRbacApi, times(2)).getCurrentUserAccess("subscriptions");
+  }
+
+  @Test
+  void testStaleRolesServedWhenRbacFails() throws Exception {
+    RbacProperties rbacProps = stubRbacProperties();
+    rbacProps.setPermissionCacheTtl(Duration.ofMillis(1));
+    StubRbacApi stubRbacApi = spy(new StubRbacApi(rbacProps));
+    IdentityHeaderAuthenticationDetailsService source =
+        new IdentityHeaderAuthenticationDetailsService(
+            new SecurityProperties(),
+            rbacProps,
+            new IdentityHeaderAuthoritiesMapper(),
+            new RbacService(stubRbacApi));
+    InsightsUserPrincipal principal = new InsightsUserPrincipal("org1", null, "u1");
+
+    source.getUserRoles(principal);
+    doThrow(new RbacApiException("RBAC is down", null))
+        .when(stubRbacApi)
+        .getCurrentUserAccess("subscriptions");
+    Thread.sleep(5);
+
+    assertThat(source.getUserRoles(principal), Matchers.contains(RoleProvider.SWATCH_ADMIN_ROLE));
+    verify(stubRbacApi, times(2)).getCurrentUserAccess("subscriptions");
+  }
+
+  @Test
+  void testNoRolesWhenRbacFailsWithoutCachedEntry() throws RbacApiException {
+    StubRbacApi stubRbacApi = spy(new StubRbacApi(stubRbacProperties()));
+    doThrow(new RbacApiException("RBAC is down", null))
+        .when(stubRbacApi)
+        .getCurrentUserAccess("subscriptions");
+    IdentityHeaderAuthenticationDetailsService source = cachingDetailsService(stubRbacApi);
+
+    assertTrue(source.getUserRoles(new InsightsUserPrincipal("org1", null, "u1")).isEmpty());
+  }
+
+  private RbacProperties stubRbacProperties() {
+    RbacProperties rbacProps = new RbacProperties();
+    rbacProps.setStubPermissions(List.of("subscriptions:*:*"));
+    return rbacProps;
+  }
+
+  private IdentityHeaderAuthenticationDetailsService cachingDetailsService(RbacApi api) {
+    return new IdentityHeaderAuthenticationDetailsService(
+        new SecurityProperties(),
+        stubRbacProperties(),
+        new IdentityHeaderAuthoritiesMapper(),
+        new RbacService(api));
+  }
+
   private Collection<String> extractRoles(boolean devMode) {
     SecurityProperties props = new SecurityProperties();
     RbacProperties rbacProps = new RbacProperties();
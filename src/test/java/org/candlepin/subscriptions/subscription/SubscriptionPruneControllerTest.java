@@ -20,57 +20,74 @@
  */
 package org.candlepin.subscriptions.subscription;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.Set;
 import java.util.stream.Stream;
+import org.candlepin.subscriptions.FixedClockConfiguration;
 import org.candlepin.subscriptions.capacity.files.ProductDenylist;
+import org.candlepin.subscriptions.db.CapacityReportMarkerRepository;
 import org.candlepin.subscriptions.db.SubscriptionRepository;
-import org.candlepin.subscriptions.db.model.Offering;
 import org.candlepin.subscriptions.db.model.OrgConfigRepository;
-import org.candlepin.subscriptions.db.model.Subscription;
-import org.candlepin.subscriptions.db.model.SubscriptionMeasurement;
 import org.candlepin.subscriptions.task.TaskQueueProperties;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
 
 @ExtendWith(MockitoExtension.class)
 class SubscriptionPruneControllerTest {
   private final SubscriptionRepository subscriptionRepo;
+  private final CapacityReportMarkerRepository markerRepo;
   private final OrgConfigRepository orgConfigRepo;
   private final KafkaTemplate<String, PruneSubscriptionsTask> kafkaTemplate;
+  private final SubscriptionServiceProperties properties;
   private final SubscriptionPruneController controller;
 
   SubscriptionPruneControllerTest(
       @Mock SubscriptionRepository subscriptionRepo,
+      @Mock CapacityReportMarkerRepository markerRepo,
       @Mock OrgConfigRepository orgConfigRepo,
       @Mock MeterRegistry meterRegistry,
       @Mock Timer timer,
       @Mock KafkaTemplate<String, PruneSubscriptionsTask> kafkaTemplate,
-      @Mock ProductDenylist denylist) {
+      @Mock ProductDenylist denylist,
+      @Mock PlatformTransactionManager transactionManager) {
     this.subscriptionRepo = subscriptionRepo;
+    this.markerRepo = markerRepo;
     this.orgConfigRepo = orgConfigRepo;
     this.kafkaTemplate = kafkaTemplate;
     TaskQueueProperties queueProperties = new TaskQueueProperties();
+    this.properties = new SubscriptionServiceProperties();
     when(meterRegistry.timer(any())).thenReturn(timer);
-    when(denylist.productIdMatches("allowed")).thenReturn(false);
-    when(denylist.productIdMatches("denied")).thenReturn(true);
+    lenient().when(denylist.productIdMatches("allowed")).thenReturn(false);
+    lenient().when(denylist.productIdMatches("denied")).thenReturn(true);
     controller =
         new SubscriptionPruneController(
             subscriptionRepo,
+            markerRepo,
             orgConfigRepo,
             meterRegistry,
             kafkaTemplate,
             denylist,
-            queueProperties);
+            queueProperties,
+            properties,
+            new FixedClockConfiguration().fixedClock(),
+            transactionManager);
   }
 
   @Test
@@ -82,26 +99,42 @@ class SubscriptionPruneControllerTest {
 
   @Test
   void testPruneDoesNothingIfSkuOnNonDenylist() {
-    Offering offering = Offering.builder().sku("allowed").build();
-    Subscription allowedSub = new Subscription();
-    allowedSub.setOffering(offering);
-    when(subscriptionRepo.findByOrgId("up-to-date")).thenReturn(Stream.of(allowedSub));
-    SubscriptionMeasurement allowedMeasurement = SubscriptionMeasurement.builder().build();
-    allowedSub.addSubscriptionMeasurement(allowedMeasurement);
-    controller.pruneUnlistedSubscriptions("up-to-date");
-    verify(subscriptionRepo).findByOrgId("up-to-date");
+    when(subscriptionRepo.findDistinctSkusByOrgIdIn(List.of("up-to-date")))
+        .thenReturn(Set.of("allowed"));
+    assertEquals(0, controller.pruneUnlistedSubscriptions("up-to-date"));
+    verify(subscriptionRepo).findDistinctSkusByOrgIdIn(List.of("up-to-date"));
     verifyNoMoreInteractions(subscriptionRepo);
+    verifyNoInteractions(markerRepo);
   }
 
   @Test
   void testPruneRemovesDelistedSubscription() {
-    Offering offering = Offering.builder().sku("denied").build();
-    Subscription staleSub = new Subscription();
-    staleSub.setOffering(offering);
-    when(subscriptionRepo.findByOrgId("stale-sub")).thenReturn(Stream.of(staleSub));
-    controller.pruneUnlistedSubscriptions("stale-sub");
-    verify(subscriptionRepo).findByOrgId("stale-sub");
-    verify(subscriptionRepo).delete(staleSub);
+    when(subscriptionRepo.findDistinctSkusByOrgIdIn(List.of("stale-sub")))
+        .thenReturn(Set.of("allowed", "denied"));
+    when(subscriptionRepo.deleteByOrgIdInAndSkuIn(List.of("stale-sub"), Set.of("denied")))
+        .thenReturn(1);
+    assertEquals(1, controller.pruneUnlistedSubscriptions("stale-sub"));
+    verify(subscriptionRepo).findDistinctSkusByOrgIdIn(List.of("stale-sub"));
+    verify(subscriptionRepo).deleteByOrgIdInAndSkuIn(List.of("stale-sub"), Set.of("denied"));
     verifyNoMoreInteractions(subscriptionRepo);
+    verify(markerRepo).markUpdated(eq(List.of("stale-sub")), any());
+  }
+
+  @Test
+  void testPruneAllInChunksDoesNotEnqueueWork() {
+    properties.setPruneChunkSize(2);
+    when(orgConfigRepo.findSyncEnabledOrgs()).thenReturn(Stream.of("org1", "org2", "org3"));
+    when(subscriptionRepo.findDistinctSkusByOrgIdIn(List.of("org1", "org2")))
+        .thenReturn(Set.of("denied"));
+    when(subscriptionRepo.findDistinctSkusByOrgIdIn(List.of("org3")))
+        .thenReturn(Set.of("allowed"));
+    when(subscriptionRepo.deleteByOrgIdInAndSkuIn(List.of("org1", "org2"), Set.of("denied")))
+        .thenReturn(3);
+
+    controller.pruneAllUnlistedSubscriptions();
+
+    verify(subscriptionRepo).deleteByOrgIdInAndSkuIn(List.of("org1", "org2"), Set.of("denied"));
+    verify(subscriptionRepo, never()).deleteByOrgIdInAndSkuIn(eq(List.of("org3")), any());
+    verifyNoInteractions(kafkaTemplate);
   }
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.subscription;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.candlepin.subscriptions.exception.ExternalServiceException;
+import org.candlepin.subscriptions.subscription.api.model.Subscription;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.retry.policy.NeverRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+class SubscriptionServicePagingTest {
+
+  private static final int PAGE_SIZE = 10;
+
+  private ThreadPoolTaskExecutor executor;
+
+  @AfterEach
+  void shutdown() {
+    if (executor != null) {
+      executor.shutdown();
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 9, 10, 11, 95, 100})
+  void testConcurrentPagingMatchesSerialPaging(int totalSubscriptions) {
+    var serial = createService(new LatentSearchApi(totalSubscriptions, 0), 1);
+    var concurrent = createService(new LatentSearchApi(totalSubscriptions, 5), 4);
+
+    var expected = serial.getSubscriptionsByOrgId("org123");
+    var actual = concurrent.getSubscriptionsByOrgId("org123");
+
+    assertEquals(totalSubscriptions, actual.size());
+    assertEquals(expected, actual);
+  }
+
+  @Test
+  void testConcurrencyLimitIsRespected() {
+    var searchApi = new LatentSearchApi(200, 10);
+    var service = createService(searchApi, 3);
+
+    assertEquals(200, service.getSubscriptionsByOrgId("org123").size());
+    assertTrue(searchApi.maxInFlight.get() <= 3);
+    assertTrue(searchApi.maxInFlight.get() > 1);
+  }
+
+  @Test
+  void testPagesAreFetchedConcurrently() {
+    var searchApi = new LatentSearchApi(200, 0);
+    // each page request waits here until four of them are in flight at once
+    searchApi.gate = new CountDownLatch(4);
+    var service = createService(searchApi, 4);
+
+    assertEquals(200, service.getSubscriptionsByOrgId("org123").size());
+    assertEquals(0, searchApi.gate.getCount());
+    assertEquals(4, searchApi.maxInFlight.get());
+  }
+
+  @Test
+  void testFailedPageIsRethrown() {
+    var searchApi = new LatentSearchApi(200, 1);
+    searchApi.failingIndex = 30;
+    var service = createService(searchApi, 4);
+
+    assertThrows(ExternalServiceException.class, () -> service.getSubscriptionsByOrgId("org123"));
+  }
+
+  private SubscriptionService createService(StubSearchApi searchApi, int concurrency) {
+    var properties = new SubscriptionServiceProperties();
+    properties.setPageSize(PAGE_SIZE);
+    properties.setPageFetchConcurrency(concurrency);
+    if (executor == null) {
+      executor = new ThreadPoolTaskExecutor();
+      executor.setCorePoolSize(4);
+      executor.setMaxPoolSize(4);
+      executor.initialize();
+    }
+    var retryTemplate = new RetryTemplate();
+    retryTemplate.setRetryPolicy(new NeverRetryPolicy());
+    return new SubscriptionService(searchApi, retryTemplate, properties, executor);
+  }
+
+  /**
+   * Serves a fixed number of subscriptions, taking a while to answer each page and optionally
+   * holding each request until enough of them are in flight together.
+   */
+  private static class LatentSearchApi extends StubSearchApi {
+    private final int totalSubscriptions;
+    private final long latencyMillis;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private Integer failingIndex;
+    private CountDownLatch gate;
+
+    LatentSearchApi(int totalSubscriptions, long latencyMillis) {
+      this.totalSubscriptions = totalSubscriptions;
+      this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public List<Subscription> searchSubscriptionsByOrgId(
+        String orgId, Integer index, Integer pageSize) throws ApiException {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      try {
+        if (gate != null) {
+          gate.countDown();
+          gate.await(5, TimeUnit.SECONDS);
+        }
+        Thread.sleep(latencyMillis);
+        if (failingIndex != null && failingIndex.equals(index)) {
+          throw new ApiException(500, "Internal Server Error", Map.of(), "{}");
+        }
+        return IntStream.range(index, Math.min(index + pageSize, totalSubscriptions))
+            .mapToObj(i -> new Subscription().id(i).subscriptionNumber(String.valueOf(i)))
+            .toList();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return List.of();
+      } finally {
+        inFlight.decrementAndGet();
+      }
+    }
+  }
+}
@@ -218,7 +218,8 @@ class SubscriptionSyncControllerTest {
     subscriptionSyncController.reconcileSubscriptionsWithSubscriptionService("100", false);
 
     verify(subscriptionService).getSubscriptionsByOrgId("100");
-    verify(subscriptionRepository).save(any());
+    verify(subscriptionRepository).saveAll(subscriptionsCaptor.capture());
+    assertThat(subscriptionsCaptor.getValue(), iterableWithSize(1));
   }
 
   @Test
@@ -316,7 +317,8 @@ class SubscriptionSyncControllerTest {
     when(denylist.productIdMatches(any())).thenReturn(false);
     when(offeringRepository.existsById(any())).thenReturn(true);
     subscriptionSyncController.forceSyncSubscriptionsForOrg("123", false);
-    verify(subscriptionRepository, times(2)).save(any());
+    verify(subscriptionRepository).saveAll(subscriptionsCaptor.capture());
+    assertThat(subscriptionsCaptor.getValue(), iterableWithSize(2));
   }
 
   @Test
@@ -338,7 +340,8 @@ class SubscriptionSyncControllerTest {
     when(denylist.productIdMatches(any())).thenReturn(false);
     when(offeringRepository.existsById(any())).thenReturn(true);
     subscriptionSyncController.forceSyncSubscriptionsForOrg("123", false);
-    verify(subscriptionRepository, times(4)).save(any());
+    verify(subscriptionRepository).saveAll(subscriptionsCaptor.capture());
+    assertThat(subscriptionsCaptor.getValue(), iterableWithSize(4));
   }
 
   @Test
@@ -355,7 +358,8 @@ class SubscriptionSyncControllerTest {
     when(denylist.productIdMatches(any())).thenReturn(false);
     when(offeringRepository.existsById(any())).thenReturn(true);
     subscriptionSyncController.forceSyncSubscriptionsForOrg("123", true);
-    verify(subscriptionRepository, atLeastOnce()).save(any());
+    verify(subscriptionRepository).saveAll(subscriptionsCaptor.capture());
+    assertThat(subscriptionsCaptor.getValue(), not(emptyIterable()));
   }
 
   @Test
@@ -795,6 +799,45 @@ class SubscriptionSyncControllerTest {
     assertFalse(subscriptionsCaptor.getValue().iterator().hasNext());
   }
 
+  @Test
+  void testUnchangedSubscriptionsAreNotReconciledOrSaved() {
+    var unchangedDto = createDto("456", 4);
+    var changedDto = createDto("789", 4);
+    var unchanged = convertDto(unchangedDto);
+    unchanged.setSubscriptionNumber(unchangedDto.getSubscriptionNumber());
+    unchanged.setOffering(Offering.builder().sku("testsku").build());
+    var changed = convertDto(changedDto);
+    changed.setSubscriptionNumber(changedDto.getSubscriptionNumber());
+    changed.setOffering(Offering.builder().sku("testsku").build());
+    changed.setEndDate(changed.getEndDate().minusDays(1));
+    when(subscriptionRepository.findByOrgId("org123")).thenReturn(Stream.of(unchanged, changed));
+    when(subscriptionService.getSubscriptionsByOrgId("org123"))
+        .thenReturn(List.of(unchangedDto, changedDto));
+    when(denylist.productIdMatches(any())).thenReturn(false);
+
+    subscriptionSyncController.reconcileSubscriptionsWithSubscriptionService("org123", false);
+
+    verify(capacityReconciliationController, never()).reconcileCapacityForSubscription(unchanged);
+    verify(subscriptionRepository).saveAll(subscriptionsCaptor.capture());
+    assertThat(subscriptionsCaptor.getValue(), contains(changed));
+    verify(subscriptionRepository, never()).save(any());
+    verify(offeringRepository, never()).existsById(any());
+  }
+
+  @Test
+  void testOfferingExistenceCheckedOncePerSkuDuringReconcile() {
+    when(subscriptionService.getSubscriptionsByOrgId("org123"))
+        .thenReturn(List.of(createDto("456", 1), createDto("789", 2)));
+    when(denylist.productIdMatches(any())).thenReturn(false);
+    when(offeringRepository.existsById("testsku")).thenReturn(true);
+
+    subscriptionSyncController.reconcileSubscriptionsWithSubscriptionService("org123", false);
+
+    verify(offeringRepository, times(1)).existsById("testsku");
+    verify(subscriptionRepository).saveAll(subscriptionsCaptor.capture());
+    assertThat(subscriptionsCaptor.getValue(), iterableWithSize(2));
+  }
+
   private Subscription createSubscription(String orgId, String sku, String subId) {
     Offering offering = Offering.builder().sku(sku).build();
 
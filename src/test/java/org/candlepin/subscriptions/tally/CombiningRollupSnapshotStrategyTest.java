@@ -38,6 +38,7 @@ import org.candlepin.subscriptions.db.model.*;
 import org.candlepin.subscriptions.json.Measurement;
 import org.candlepin.subscriptions.json.Measurement.Uom;
 import org.candlepin.subscriptions.registry.TagProfile;
+import org.candlepin.subscriptions.util.ApplicationClock;
 import org.candlepin.subscriptions.util.DateRange;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -56,13 +57,13 @@ class CombiningRollupSnapshotStrategyTest {
 
   @Autowired TagProfile tagProfile;
 
+  @Autowired ApplicationClock clock;
+
   @MockBean TallySnapshotRepository repo;
 
   @Test
   void testConsecutiveHoursAddedTogether() {
-    when(repo.findByOrgIdAndProductIdInAndGranularityAndSnapshotDateBetween(
-            any(), any(), any(), any(), any()))
-        .then(invocation -> Stream.empty());
+    when(repo.findSnapshotsForRanges(any(), any(), any())).thenReturn(List.of());
     UsageCalculation.Key usageKey =
         new UsageCalculation.Key(
             OPEN_SHIFT_HOURLY,
@@ -114,9 +115,7 @@ class CombiningRollupSnapshotStrategyTest {
     OffsetDateTime hourlyTimestamp2 = OffsetDateTime.parse("2021-02-26T11:00:00Z");
     OffsetDateTime dailyTimestamp1 = OffsetDateTime.parse("2021-02-25T00:00:00Z");
     OffsetDateTime dailyTimestamp2 = OffsetDateTime.parse("2021-02-26T00:00:00Z");
-    when(repo.findByOrgIdAndProductIdInAndGranularityAndSnapshotDateBetween(
-            any(), any(), any(), any(), any()))
-        .then(invocation -> Stream.empty());
+    when(repo.findSnapshotsForRanges(any(), any(), any())).thenReturn(List.of());
     UsageCalculation.Key usageKey =
         new UsageCalculation.Key(
             OPEN_SHIFT_HOURLY,
@@ -179,12 +178,7 @@ class CombiningRollupSnapshotStrategyTest {
     TallySnapshot noonSnapshot =
         createTallySnapshot(Granularity.HOURLY, "2021-02-25T12:00:00Z", 4.0);
     noonSnapshot.setId(UUID.randomUUID());
-    when(repo.findByOrgIdAndProductIdInAndGranularityAndSnapshotDateBetween(
-            any(), any(), eq(Granularity.HOURLY), any(), any()))
-        .thenReturn(Stream.of(noonSnapshot));
-    when(repo.findByOrgIdAndProductIdInAndGranularityAndSnapshotDateBetween(
-            any(), any(), eq(Granularity.DAILY), any(), any()))
-        .thenReturn(Stream.empty());
+    when(repo.findSnapshotsForRanges(any(), any(), any())).thenReturn(List.of(noonSnapshot));
     UsageCalculation.Key usageKey =
         new UsageCalculation.Key(
             OPEN_SHIFT_HOURLY,
@@ -231,12 +225,7 @@ class CombiningRollupSnapshotStrategyTest {
     TallySnapshot dailySnapshot =
         createTallySnapshot(Granularity.DAILY, "2021-02-25T00:00:00Z", 7.0);
     dailySnapshot.setId(UUID.randomUUID());
-    when(repo.findByOrgIdAndProductIdInAndGranularityAndSnapshotDateBetween(
-            any(), any(), eq(Granularity.HOURLY), any(), any()))
-        .thenReturn(Stream.empty());
-    when(repo.findByOrgIdAndProductIdInAndGranularityAndSnapshotDateBetween(
-            any(), any(), eq(Granularity.DAILY), any(), any()))
-        .thenReturn(Stream.of(dailySnapshot));
+    when(repo.findSnapshotsForRanges(any(), any(), any())).thenReturn(List.of(dailySnapshot));
     UsageCalculation.Key usageKey =
         new UsageCalculation.Key(
             OPEN_SHIFT_HOURLY,
@@ -289,13 +278,8 @@ class CombiningRollupSnapshotStrategyTest {
     TallySnapshot dailySnapshot =
         createTallySnapshot(Granularity.DAILY, "2021-02-25T00:00:00Z", 7.0);
 
-    when(repo.findByOrgIdAndProductIdInAndGranularityAndSnapshotDateBetween(
-            any(), any(), eq(Granularity.HOURLY), any(), any()))
-        .thenReturn(Stream.of(noonSnapshot, afternoonSnapshot));
-
-    when(repo.findByOrgIdAndProductIdInAndGranularityAndSnapshotDateBetween(
-            any(), any(), eq(Granularity.DAILY), any(), any()))
-        .thenReturn(Stream.of(dailySnapshot));
+    when(repo.findSnapshotsForRanges(any(), any(), any()))
+        .thenReturn(List.of(noonSnapshot, afternoonSnapshot, dailySnapshot));
 
     when(repo.save(any())).then(invocation -> invocation.getArgument(0));
 
@@ -357,11 +341,6 @@ class CombiningRollupSnapshotStrategyTest {
     existingHourlySnapshot3.setId(UUID.randomUUID());
     existingHourlySnapshot3.setBillingProvider(BillingProvider.AWS);
 
-    when(repo.findByOrgIdAndProductIdInAndGranularityAndSnapshotDateBetween(
-            any(), any(), eq(Granularity.HOURLY), any(), any()))
-        .thenReturn(
-            Stream.of(existingHourlySnapshot1, existingHourlySnapshot2, existingHourlySnapshot3));
-
     TallySnapshot existingDailySnapshot1 =
         createTallySnapshot(Granularity.DAILY, "2021-02-25T00:00:00Z", 4.0);
     existingDailySnapshot1.setId(UUID.randomUUID());
@@ -370,9 +349,14 @@ class CombiningRollupSnapshotStrategyTest {
         createTallySnapshot(Granularity.DAILY, "2021-02-25T00:00:00Z", 16.0);
     existingDailySnapshot2.setId(UUID.randomUUID());
     existingDailySnapshot2.setBillingProvider(BillingProvider.AWS);
-    when(repo.findByOrgIdAndProductIdInAndGranularityAndSnapshotDateBetween(
-            any(), any(), eq(Granularity.DAILY), any(), any()))
-        .thenReturn(Stream.of(existingDailySnapshot1, existingDailySnapshot2));
+    when(repo.findSnapshotsForRanges(any(), any(), any()))
+        .thenReturn(
+            List.of(
+                existingHourlySnapshot1,
+                existingHourlySnapshot2,
+                existingHourlySnapshot3,
+                existingDailySnapshot1,
+                existingDailySnapshot2));
 
     UsageCalculation.Key usageKey =
         new UsageCalculation.Key(
@@ -437,9 +421,7 @@ class CombiningRollupSnapshotStrategyTest {
 
   @Test
   void testFinestGranularitySnapshotFilteredByDateRange() {
-    when(repo.findByOrgIdAndProductIdInAndGranularityAndSnapshotDateBetween(
-            any(), any(), any(), any(), any()))
-        .then(invocation -> Stream.empty());
+    when(repo.findSnapshotsForRanges(any(), any(), any())).thenReturn(List.of());
     UsageCalculation.Key usageKey =
         new UsageCalculation.Key(
             OPEN_SHIFT_HOURLY,
@@ -484,9 +466,7 @@ class CombiningRollupSnapshotStrategyTest {
   void testExistingOlderFinestGranularitySnapshotMeasurementsPreserved() {
     TallySnapshot existingSnapshot =
         createTallySnapshot(Granularity.HOURLY, "2022-10-24T12:00:00Z", 4.0);
-    when(repo.findByOrgIdAndProductIdInAndGranularityAndSnapshotDateBetween(
-            any(), any(), any(), any(), any()))
-        .then(invocation -> Stream.of(existingSnapshot));
+    when(repo.findSnapshotsForRanges(any(), any(), any())).thenReturn(List.of(existingSnapshot));
     combiningRollupSnapshotStrategy.produceSnapshotsFromCalculations(
         "org123",
         new DateRange(
@@ -503,9 +483,7 @@ class CombiningRollupSnapshotStrategyTest {
   void testExistingNewerFinestGranularitySnapshotMeasurementsPreserved() {
     TallySnapshot existingSnapshot =
         createTallySnapshot(Granularity.HOURLY, "2022-10-24T14:00:00Z", 4.0);
-    when(repo.findByOrgIdAndProductIdInAndGranularityAndSnapshotDateBetween(
-            any(), any(), any(), any(), any()))
-        .then(invocation -> Stream.of(existingSnapshot));
+    when(repo.findSnapshotsForRanges(any(), any(), any())).thenReturn(List.of(existingSnapshot));
     combiningRollupSnapshotStrategy.produceSnapshotsFromCalculations(
         "org123",
         new DateRange(
@@ -522,9 +500,7 @@ class CombiningRollupSnapshotStrategyTest {
   void testFinestGranularitySnapshotClearedWhenUsageNotPresent() {
     TallySnapshot existingSnapshot =
         createTallySnapshot(Granularity.HOURLY, "2022-10-24T13:00:00Z", 4.0);
-    when(repo.findByOrgIdAndProductIdInAndGranularityAndSnapshotDateBetween(
-            any(), any(), any(), any(), any()))
-        .then(invocation -> Stream.of(existingSnapshot));
+    when(repo.findSnapshotsForRanges(any(), any(), any())).thenReturn(List.of(existingSnapshot));
     when(repo.save(any())).then(invocation -> invocation.getArgument(0));
     combiningRollupSnapshotStrategy.produceSnapshotsFromCalculations(
         "org123",
@@ -538,6 +514,197 @@ class CombiningRollupSnapshotStrategyTest {
     assertTrue(existingSnapshot.getTallyMeasurements().isEmpty());
   }
 
+  @Test
+  void testIncrementalRollupAppliesHourlyChangesToExistingDaily() {
+    TallySnapshot noonSnapshot =
+        createTallySnapshot(Granularity.HOURLY, "2021-02-25T12:00:00Z", 4.0);
+    TallySnapshot afternoonSnapshot =
+        createTallySnapshot(Granularity.HOURLY, "2021-02-25T13:00:00Z", 3.0);
+    // the rest of the day's hours, which an incremental rollup shouldn't need to read
+    TallySnapshot dailySnapshot =
+        createTallySnapshot(Granularity.DAILY, "2021-02-25T00:00:00Z", 20.0);
+    when(repo.findSnapshotsForRanges(any(), any(), any()))
+        .thenReturn(List.of(noonSnapshot, afternoonSnapshot, dailySnapshot));
+    when(repo.save(any())).then(invocation -> invocation.getArgument(0));
+    UsageCalculation.Key usageKey =
+        new UsageCalculation.Key(
+            OPEN_SHIFT_HOURLY,
+            ServiceLevel.PREMIUM,
+            Usage.PRODUCTION,
+            BillingProvider._ANY,
+            "_ANY");
+
+    // noon goes from 4 to 6, and the afternoon is no longer reported
+    combiningRollupSnapshotStrategy.produceSnapshotsFromCalculations(
+        "org123",
+        new DateRange(
+            OffsetDateTime.parse("2021-02-25T12:00:00Z"),
+            OffsetDateTime.parse("2021-02-25T14:00:00Z")),
+        tagProfile.getTagsWithPrometheusEnabledLookup(),
+        Map.of(
+            OffsetDateTime.parse("2021-02-25T12:00:00Z"),
+            createAccountUsageCalculation(usageKey, 6.0)),
+        Granularity.HOURLY,
+        Double::sum,
+        true);
+
+    // a single query, reading only the affected hours rather than the whole day
+    verify(repo)
+        .findSnapshotsForRanges(
+            any(),
+            any(),
+            eq(
+                Map.of(
+                    Granularity.HOURLY,
+                    new DateRange(
+                        OffsetDateTime.parse("2021-02-25T12:00:00Z"),
+                        OffsetDateTime.parse("2021-02-25T14:00:00Z")),
+                    Granularity.DAILY,
+                    new DateRange(
+                        OffsetDateTime.parse("2021-02-25T00:00:00Z"),
+                        OffsetDateTime.parse("2021-02-25T14:00:00Z")))));
+    verify(repo, never())
+        .findByOrgIdAndProductIdInAndGranularityAndSnapshotDateBetween(
+            any(), any(), any(), any(), any());
+    verify(repo, times(3)).save(any());
+    assertEquals(6.0, noonSnapshot.getMeasurement(HardwareMeasurementType.PHYSICAL, Uom.CORES));
+    assertTrue(afternoonSnapshot.getTallyMeasurements().isEmpty());
+    assertEquals(19.0, dailySnapshot.getMeasurement(HardwareMeasurementType.PHYSICAL, Uom.CORES));
+    assertEquals(19.0, dailySnapshot.getMeasurement(HardwareMeasurementType.TOTAL, Uom.CORES));
+  }
+
+  @Test
+  void testIncrementalRollupSumsComponentsWhenDailyMissing() {
+    TallySnapshot morningSnapshot =
+        createTallySnapshot(Granularity.HOURLY, "2021-02-25T09:00:00Z", 3.0);
+    when(repo.findSnapshotsForRanges(any(), any(), any())).thenReturn(List.of());
+    // the component hours of the missing daily snapshot are fetched on their own
+    when(repo.findByOrgIdAndProductIdInAndGranularityAndSnapshotDateBetween(
+            any(), any(), eq(Granularity.HOURLY), any(), any()))
+        .then(invocation -> Stream.of(morningSnapshot));
+    when(repo.save(any())).then(invocation -> invocation.getArgument(0));
+    UsageCalculation.Key usageKey =
+        new UsageCalculation.Key(
+            OPEN_SHIFT_HOURLY,
+            ServiceLevel.PREMIUM,
+            Usage.PRODUCTION,
+            BillingProvider._ANY,
+            "_ANY");
+
+    Map<String, List<TallySnapshot>> produced =
+        combiningRollupSnapshotStrategy.produceSnapshotsFromCalculations(
+            "org123",
+            new DateRange(
+                OffsetDateTime.parse("2021-02-25T12:00:00Z"),
+                OffsetDateTime.parse("2021-02-25T13:00:00Z")),
+            tagProfile.getTagsWithPrometheusEnabledLookup(),
+            Map.of(
+                OffsetDateTime.parse("2021-02-25T12:00:00Z"),
+                createAccountUsageCalculation(usageKey, 4.0)),
+            Granularity.HOURLY,
+            Double::sum,
+            true);
+
+    TallySnapshot daily =
+        produced.get("org123").stream()
+            .filter(s -> s.getGranularity() == Granularity.DAILY)
+            .findFirst()
+            .orElseThrow();
+    assertEquals(7.0, daily.getMeasurement(HardwareMeasurementType.PHYSICAL, Uom.CORES));
+    assertEquals(OffsetDateTime.parse("2021-02-25T00:00:00Z"), daily.getSnapshotDate());
+  }
+
+  @Test
+  void testIncrementalRollupFetchesComponentsOfAllMissingDailiesAtOnce() {
+    when(repo.findSnapshotsForRanges(any(), any(), any())).thenReturn(List.of());
+    when(repo.findByOrgIdAndProductIdInAndGranularityAndSnapshotDateBetween(
+            any(), any(), any(), any(), any()))
+        .then(invocation -> Stream.of());
+    when(repo.save(any())).then(invocation -> invocation.getArgument(0));
+    UsageCalculation.Key usageKey =
+        new UsageCalculation.Key(
+            OPEN_SHIFT_HOURLY,
+            ServiceLevel.PREMIUM,
+            Usage.PRODUCTION,
+            BillingProvider._ANY,
+            "_ANY");
+
+    Map<String, List<TallySnapshot>> produced =
+        combiningRollupSnapshotStrategy.produceSnapshotsFromCalculations(
+            "org123",
+            new DateRange(
+                OffsetDateTime.parse("2021-02-25T23:00:00Z"),
+                OffsetDateTime.parse("2021-02-26T01:00:00Z")),
+            tagProfile.getTagsWithPrometheusEnabledLookup(),
+            Map.of(
+                OffsetDateTime.parse("2021-02-25T23:00:00Z"),
+                createAccountUsageCalculation(usageKey, 4.0),
+                OffsetDateTime.parse("2021-02-26T00:00:00Z"),
+                createAccountUsageCalculation(usageKey, 5.0)),
+            Granularity.HOURLY,
+            Double::sum,
+            true);
+
+    verify(repo)
+        .findByOrgIdAndProductIdInAndGranularityAndSnapshotDateBetween(
+            eq("org123"),
+            any(),
+            eq(Granularity.HOURLY),
+            eq(OffsetDateTime.parse("2021-02-25T00:00:00Z")),
+            eq(
+                clock.calculateEndOfRange(
+                    OffsetDateTime.parse("2021-02-26T00:00:00Z"), Granularity.DAILY)));
+    assertEquals(
+        2,
+        produced.get("org123").stream()
+            .filter(s -> s.getGranularity() == Granularity.DAILY)
+            .count());
+  }
+
+  @Test
+  void testIncrementalRollupRemovesMeasurementsDroppedFromAllComponents() {
+    TallyMeasurementKey sockets =
+        new TallyMeasurementKey(HardwareMeasurementType.VIRTUAL, Uom.SOCKETS);
+    TallySnapshot noonSnapshot =
+        createTallySnapshot(Granularity.HOURLY, "2021-02-25T12:00:00Z", 4.0);
+    noonSnapshot.getTallyMeasurements().put(sockets, 0.1);
+    TallySnapshot afternoonSnapshot =
+        createTallySnapshot(Granularity.HOURLY, "2021-02-25T13:00:00Z", 3.0);
+    afternoonSnapshot.getTallyMeasurements().put(sockets, 0.2);
+    TallySnapshot dailySnapshot =
+        createTallySnapshot(Granularity.DAILY, "2021-02-25T00:00:00Z", 7.0);
+    dailySnapshot.getTallyMeasurements().put(sockets, 0.1 + 0.2);
+    when(repo.findSnapshotsForRanges(any(), any(), any()))
+        .thenReturn(List.of(noonSnapshot, afternoonSnapshot, dailySnapshot));
+    when(repo.save(any())).then(invocation -> invocation.getArgument(0));
+    UsageCalculation.Key usageKey =
+        new UsageCalculation.Key(
+            OPEN_SHIFT_HOURLY,
+            ServiceLevel.PREMIUM,
+            Usage.PRODUCTION,
+            BillingProvider._ANY,
+            "_ANY");
+
+    // neither hour reports sockets anymore
+    combiningRollupSnapshotStrategy.produceSnapshotsFromCalculations(
+        "org123",
+        new DateRange(
+            OffsetDateTime.parse("2021-02-25T12:00:00Z"),
+            OffsetDateTime.parse("2021-02-25T14:00:00Z")),
+        tagProfile.getTagsWithPrometheusEnabledLookup(),
+        Map.of(
+            OffsetDateTime.parse("2021-02-25T12:00:00Z"),
+            createAccountUsageCalculation(usageKey, 4.0),
+            OffsetDateTime.parse("2021-02-25T13:00:00Z"),
+            createAccountUsageCalculation(usageKey, 3.0)),
+        Granularity.HOURLY,
+        Double::sum,
+        true);
+
+    assertFalse(dailySnapshot.getTallyMeasurements().containsKey(sockets));
+    assertEquals(7.0, dailySnapshot.getMeasurement(HardwareMeasurementType.PHYSICAL, Uom.CORES));
+  }
+
   private AccountUsageCalculation createAccountUsageCalculation(
       UsageCalculation.Key usageKey, double v) {
     AccountUsageCalculation usage = new AccountUsageCalculation("org123");
@@ -0,0 +1,222 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.tally;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.candlepin.subscriptions.FixedClockConfiguration;
+import org.candlepin.subscriptions.db.AccountConfigRepository;
+import org.candlepin.subscriptions.db.TallyReportMarkerRepository;
+import org.candlepin.subscriptions.db.model.Granularity;
+import org.candlepin.subscriptions.db.model.TallySnapshot;
+import org.candlepin.subscriptions.registry.TagProfile;
+import org.candlepin.subscriptions.util.ApplicationClock;
+import org.candlepin.subscriptions.util.DateRange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.retry.support.RetryTemplate;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TallySnapshotControllerTest {
+
+  private static final String ORG_ID = "org123";
+  private static final String ACCOUNT = "account123";
+
+  @Mock private AccountConfigRepository accountRepo;
+  @Mock private InventoryAccountUsageCollector usageCollector;
+  @Mock private MaxSeenSnapshotStrategy maxSeenSnapshotStrategy;
+  @Mock private MetricUsageCollector metricUsageCollector;
+  @Mock private CombiningRollupSnapshotStrategy combiningRollupSnapshotStrategy;
+  @Mock private TagProfile tagProfile;
+  @Mock private SnapshotSummaryProducer summaryProducer;
+  @Mock private TallyReportMarkerRepository tallyReportMarkerRepository;
+
+  private final ApplicationClock clock = new FixedClockConfiguration().fixedClock();
+  private ExecutorService executorService;
+  private DateRange range;
+
+  @BeforeEach
+  void setup() {
+    range = new DateRange(clock.startOfCurrentHour().minusHours(2), clock.startOfCurrentHour());
+    when(accountRepo.findAccountNumberByOrgId(ORG_ID)).thenReturn(ACCOUNT);
+    when(tagProfile.getServiceTypes()).thenReturn(Set.of("OpenShift Cluster", "Kafka Cluster"));
+    when(tagProfile.isProductPAYGEligible(any())).thenReturn(true);
+    mockServiceType("OpenShift Cluster", "OpenShift-metrics", "osd-key");
+    mockServiceType("Kafka Cluster", "rhosak", "rhosak-key");
+  }
+
+  @AfterEach
+  void shutdown() {
+    if (executorService != null) {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  void testConcurrentServiceTypesProduceSameSummariesAsSerial() {
+    Map<String, List<TallySnapshot>> serial = produceSummaries(newController(Runnable::run));
+    executorService = Executors.newFixedThreadPool(2);
+    Map<String, List<TallySnapshot>> concurrent =
+        produceSummaries(newController(executorService));
+
+    assertEquals(serial, concurrent);
+    assertEquals(Set.of("osd-key", "rhosak-key"), concurrent.keySet());
+  }
+
+  @Test
+  void testMarkerUpdatedOnceForAllServiceTypes() {
+    executorService = Executors.newFixedThreadPool(2);
+    newController(executorService).produceHourlySnapshotsForOrg(ORG_ID, range);
+
+    verify(tallyReportMarkerRepository, times(1)).markUpdated(eq(ORG_ID), any());
+    verify(summaryProducer, times(1)).produceTallySummaryMessages(anyMap());
+  }
+
+  @Test
+  void testFailedMarkerUpdateDoesNotBlockSummaries() {
+    doThrow(new IllegalStateException("db is down"))
+        .when(tallyReportMarkerRepository)
+        .markUpdated(eq(ORG_ID), any());
+
+    newController(Runnable::run).produceHourlySnapshotsForOrg(ORG_ID, range);
+
+    InOrder inOrder = inOrder(summaryProducer, tallyReportMarkerRepository);
+    inOrder.verify(summaryProducer).produceTallySummaryMessages(anyMap());
+    inOrder.verify(tallyReportMarkerRepository).markUpdated(eq(ORG_ID), any());
+  }
+
+  @Test
+  void testFailedServiceTypeDoesNotDropOthers() {
+    when(metricUsageCollector.collect(eq("OpenShift Cluster"), any(), any(), any()))
+        .thenThrow(new IllegalStateException("Prometheus is down"));
+    executorService = Executors.newFixedThreadPool(2);
+
+    Map<String, List<TallySnapshot>> summaries =
+        produceSummaries(newController(executorService));
+
+    assertEquals(Set.of("rhosak-key"), summaries.keySet());
+  }
+
+  @Test
+  void testNoSummariesWhenNothingCollected() {
+    when(metricUsageCollector.collect(any(), any(), any(), any())).thenReturn(null);
+
+    newController(Runnable::run).produceHourlySnapshotsForOrg(ORG_ID, range);
+
+    verifyNoInteractions(tallyReportMarkerRepository, summaryProducer);
+  }
+
+  @Test
+  void testRollupsIncrementalUnlessRetallying() {
+    var retally = metricUsageCollector.collect("Kafka Cluster", ACCOUNT, ORG_ID, range);
+    when(retally.isWasRecalculated()).thenReturn(true);
+
+    newController(Runnable::run).produceHourlySnapshotsForOrg(ORG_ID, range);
+
+    verify(combiningRollupSnapshotStrategy)
+        .produceSnapshotsFromCalculations(
+            eq(ORG_ID),
+            eq(range),
+            eq(Set.of("OpenShift-metrics")),
+            anyMap(),
+            eq(Granularity.HOURLY),
+            any(),
+            eq(true));
+    verify(combiningRollupSnapshotStrategy)
+        .produceSnapshotsFromCalculations(
+            eq(ORG_ID),
+            eq(range),
+            eq(Set.of("rhosak")),
+            anyMap(),
+            eq(Granularity.HOURLY),
+            any(),
+            eq(false));
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, List<TallySnapshot>> produceSummaries(TallySnapshotController controller) {
+    clearInvocations(summaryProducer);
+    controller.produceHourlySnapshotsForOrg(ORG_ID, range);
+    ArgumentCaptor<Map<String, List<TallySnapshot>>> captor = ArgumentCaptor.forClass(Map.class);
+    verify(summaryProducer).produceTallySummaryMessages(captor.capture());
+    return captor.getValue();
+  }
+
+  private void mockServiceType(String serviceType, String productId, String summaryKey) {
+    OffsetDateTime hour = range.getStartDate();
+    var calculation = new AccountUsageCalculation(ORG_ID);
+    calculation.getProducts().add(productId);
+    var result = mock(MetricUsageCollector.CollectionResult.class);
+    when(result.getRange()).thenReturn(range);
+    when(result.getCalculations()).thenReturn(Map.of(hour, calculation));
+    when(metricUsageCollector.collect(serviceType, ACCOUNT, ORG_ID, range)).thenReturn(result);
+
+    Set<String> tags = Set.of(productId);
+    when(tagProfile.getTagsForServiceType(serviceType)).thenReturn(tags);
+    var snapshot = TallySnapshot.builder().orgId(ORG_ID).productId(productId).build();
+    when(combiningRollupSnapshotStrategy.produceSnapshotsFromCalculations(
+            eq(ORG_ID),
+            eq(range),
+            eq(tags),
+            anyMap(),
+            eq(Granularity.HOURLY),
+            any(),
+            anyBoolean()))
+        .thenReturn(Map.of(summaryKey, List.of(snapshot)));
+  }
+
+  private TallySnapshotController newController(Executor executor) {
+    return new TallySnapshotController(
+        accountRepo,
+        Set.of(),
+        usageCollector,
+        maxSeenSnapshotStrategy,
+        new RetryTemplate(),
+        metricUsageCollector,
+        combiningRollupSnapshotStrategy,
+        tagProfile,
+        summaryProducer,
+        tallyReportMarkerRepository,
+        clock,
+        executor);
+  }
+}
@@ -29,6 +29,7 @@ import org.candlepin.subscriptions.db.model.BillingProvider;
 import org.candlepin.subscriptions.db.model.HardwareMeasurementType;
 import org.candlepin.subscriptions.db.model.ServiceLevel;
 import org.candlepin.subscriptions.db.model.Usage;
+import org.candlepin.subscriptions.json.Measurement.Uom;
 import org.junit.jupiter.api.Test;
 
 class UsageCalculationTest {
@@ -118,6 +119,55 @@ class UsageCalculationTest {
         });
   }
 
+  @Test
+  void testAddSumsEveryTypeIntoTotal() {
+    UsageCalculation calculation = new UsageCalculation(createUsageKey("Product"));
+    calculation.add(HardwareMeasurementType.PHYSICAL, 4, 2, 1);
+    calculation.add(HardwareMeasurementType.VIRTUAL, 8, 1, 1);
+    calculation.add(HardwareMeasurementType.PHYSICAL, 2, 1, 1);
+
+    assertHardwareMeasurementTotals(calculation, HardwareMeasurementType.PHYSICAL, 3, 6, 2);
+    assertHardwareMeasurementTotals(calculation, HardwareMeasurementType.VIRTUAL, 1, 8, 1);
+    assertHardwareMeasurementTotals(calculation, HardwareMeasurementType.TOTAL, 4, 14, 3);
+    assertNullExcept(
+        calculation,
+        HardwareMeasurementType.TOTAL,
+        HardwareMeasurementType.PHYSICAL,
+        HardwareMeasurementType.VIRTUAL);
+  }
+
+  @Test
+  void testAddingBoxedAndPrimitiveValuesAgree() {
+    UsageCalculation primitive = new UsageCalculation(createUsageKey("Product"));
+    UsageCalculation boxed = new UsageCalculation(createUsageKey("Product"));
+    primitive.add(HardwareMeasurementType.PHYSICAL, 4, 2, 1);
+    boxed.add(HardwareMeasurementType.PHYSICAL, 4.0, 2.0, 1.0);
+    boxed.add(HardwareMeasurementType.PHYSICAL, Uom.CORES, 0.0);
+
+    for (HardwareMeasurementType type : HardwareMeasurementType.values()) {
+      UsageCalculation.Totals expected = primitive.getTotals(type);
+      UsageCalculation.Totals actual = boxed.getTotals(type);
+      assertEquals(expected == null, actual == null, type.toString());
+      if (expected != null) {
+        assertEquals(expected.getMeasurements(), actual.getMeasurements());
+      }
+    }
+    assertEquals(4.0, boxed.getTotals(HardwareMeasurementType.TOTAL).getMeasurement(Uom.CORES));
+    assertNull(
+        boxed.getTotals(HardwareMeasurementType.TOTAL).getMeasurement(Uom.STORAGE_GIBIBYTES));
+  }
+
+  @Test
+  void testMeasurementsAreACopyOfTheTotals() {
+    UsageCalculation calculation = new UsageCalculation(createUsageKey("Product"));
+    calculation.addPhysical(4, 2, 1);
+    UsageCalculation.Totals totals = calculation.getTotals(HardwareMeasurementType.PHYSICAL);
+
+    totals.getMeasurements().put(Uom.CORES, 100.0);
+
+    assertEquals(4.0, totals.getMeasurement(Uom.CORES));
+  }
+
   private void checkCloudProvider(HardwareMeasurementType providerType) {
     UsageCalculation calculation = new UsageCalculation(createUsageKey("Product"));
     IntStream.rangeClosed(0, 4)
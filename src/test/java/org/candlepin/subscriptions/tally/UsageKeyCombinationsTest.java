@@ -0,0 +1,131 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.tally;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.candlepin.subscriptions.db.model.BillingProvider;
+import org.candlepin.subscriptions.db.model.ServiceLevel;
+import org.candlepin.subscriptions.db.model.Usage;
+import org.candlepin.subscriptions.tally.UsageCalculation.Key;
+import org.junit.jupiter.api.Test;
+
+class UsageKeyCombinationsTest {
+
+  private static final Set<String> PRODUCTS =
+      Set.of("RHEL", "RHEL Server", "RHEL Workstation", "RHEL x86", "RHEL for x86");
+  private static final ServiceLevel[] SLAS = {
+    ServiceLevel.PREMIUM, ServiceLevel.STANDARD, ServiceLevel.SELF_SUPPORT, ServiceLevel.EMPTY
+  };
+  private static final Usage[] USAGES = {
+    Usage.PRODUCTION, Usage.DEVELOPMENT_TEST, Usage.DISASTER_RECOVERY, Usage.EMPTY
+  };
+
+  @Test
+  void testCombinationsMatchCreatedCombinations() {
+    UsageKeyCombinations keyCombinations = new UsageKeyCombinations();
+    for (ServiceLevel sla : SLAS) {
+      for (Usage usage : USAGES) {
+        assertEquals(createKeys(sla, usage), getKeys(keyCombinations, sla, usage));
+      }
+    }
+  }
+
+  @Test
+  void testSameInputsShareKeys() {
+    UsageKeyCombinations keyCombinations = new UsageKeyCombinations();
+    Set<Key> first = getKeys(keyCombinations, ServiceLevel.PREMIUM, Usage.PRODUCTION);
+    Set<Key> second = getKeys(keyCombinations, ServiceLevel.PREMIUM, Usage.PRODUCTION);
+    Set<Key> overlapping = getKeys(keyCombinations, ServiceLevel.STANDARD, Usage.PRODUCTION);
+
+    assertSame(first, second);
+    Key anySla =
+        new Key("RHEL", ServiceLevel._ANY, Usage.PRODUCTION, BillingProvider._ANY, "_ANY");
+    assertSame(find(first, anySla), find(overlapping, anySla));
+    // the _ANY/_ANY keys are shared between both tuples
+    assertEquals(PRODUCTS.size() * 6, keyCombinations.keyCount());
+  }
+
+  @Test
+  void testCombinationsAreUnmodifiable() {
+    Set<Key> keys =
+        new UsageKeyCombinations()
+            .get(
+                PRODUCTS,
+                Set.of(ServiceLevel.PREMIUM),
+                Set.of(Usage._ANY),
+                Set.of(BillingProvider._ANY),
+                Set.of("_ANY"));
+    Key key = new Key("RHEL", ServiceLevel._ANY, Usage._ANY, BillingProvider._ANY, "_ANY");
+
+    assertThrows(UnsupportedOperationException.class, () -> keys.add(key));
+  }
+
+  @Test
+  void testChangingInputsAfterwardsDoesNotAffectMemo() {
+    UsageKeyCombinations keyCombinations = new UsageKeyCombinations();
+    Set<String> products = new HashSet<>(Set.of("RHEL"));
+    Set<Key> rhelKeys =
+        keyCombinations.get(
+            products,
+            Set.of(ServiceLevel.PREMIUM),
+            Set.of(Usage.PRODUCTION),
+            Set.of(BillingProvider._ANY),
+            Set.of("_ANY"));
+    products.add("RHEL Server");
+
+    Set<Key> bothKeys =
+        keyCombinations.get(
+            products,
+            Set.of(ServiceLevel.PREMIUM),
+            Set.of(Usage.PRODUCTION),
+            Set.of(BillingProvider._ANY),
+            Set.of("_ANY"));
+
+    assertEquals(1, rhelKeys.size());
+    assertEquals(2, bothKeys.size());
+  }
+
+  private static Set<Key> createKeys(ServiceLevel sla, Usage usage) {
+    return InventoryAccountUsageCollector.createKeyCombinations(
+        PRODUCTS,
+        Set.of(sla, ServiceLevel._ANY),
+        Set.of(usage, Usage._ANY),
+        Set.of(BillingProvider._ANY),
+        Set.of("_ANY"));
+  }
+
+  private static Set<Key> getKeys(
+      UsageKeyCombinations keyCombinations, ServiceLevel sla, Usage usage) {
+    return keyCombinations.get(
+        PRODUCTS,
+        Set.of(sla, ServiceLevel._ANY),
+        Set.of(usage, Usage._ANY),
+        Set.of(BillingProvider._ANY),
+        Set.of("_ANY"));
+  }
+
+  private static Key find(Set<Key> keys, Key key) {
+    return keys.stream().filter(key::equals).findFirst().orElseThrow();
+  }
+}
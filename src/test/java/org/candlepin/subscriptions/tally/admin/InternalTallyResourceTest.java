@@ -24,11 +24,14 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 
 import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.core.Response.Status;
 import java.time.OffsetDateTime;
 import org.candlepin.subscriptions.ApplicationProperties;
 import org.candlepin.subscriptions.FixedClockConfiguration;
+import org.candlepin.subscriptions.exception.SubscriptionsException;
 import org.candlepin.subscriptions.retention.RemittanceRetentionController;
 import org.candlepin.subscriptions.retention.TallyRetentionController;
 import org.candlepin.subscriptions.security.SecurityProperties;
@@ -151,4 +154,15 @@ class InternalTallyResourceTest {
     resource.purgeRemittances();
     verify(remittanceRetentionController).purgeRemittancesAsync();
   }
+
+  @Test
+  void replayDeadLetterTasksFailsWhenTasksAreNotDeadLettered() {
+    when(internalTallyDataController.replayDeadLetterTasks("org1", null, null))
+        .thenThrow(new IllegalStateException("Tally tasks are not dead-lettered"));
+    var exception =
+        assertThrows(
+            SubscriptionsException.class,
+            () -> resource.replayDeadLetterTasks("org1", null, null));
+    assertEquals(Status.SERVICE_UNAVAILABLE, exception.getStatus());
+  }
 }
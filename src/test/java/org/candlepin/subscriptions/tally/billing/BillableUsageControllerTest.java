@@ -27,6 +27,7 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -109,6 +110,38 @@ class BillableUsageControllerTest {
     verifyNoInteractions(snapshotRepo, remittanceRepo);
   }
 
+  @Test
+  void monthlyWindowUsesRemittanceLookedUpForWholeSummary() {
+    BillableUsage usage = billable(CLOCK.startOfCurrentMonth(), 4.0);
+    BillableUsage otherUsage = billable(CLOCK.startOfCurrentMonth(), 2.0).withUom(Uom.CORES);
+    var summary =
+        RemittanceSummaryProjection.builder()
+            .orgId(usage.getOrgId())
+            .productId(usage.getProductId())
+            .metricId(usage.getUom().value())
+            .accumulationPeriod(InstanceMonthlyTotalKey.formatMonthId(usage.getSnapshotDate()))
+            .sla(usage.getSla().value())
+            .usage(usage.getUsage().value())
+            .billingProvider(usage.getBillingProvider().value())
+            .billingAccountId(usage.getBillingAccountId())
+            .totalRemittedPendingValue(3.0)
+            .build();
+    when(remittanceRepo.getRemittanceSummariesForKeys(any())).thenReturn(List.of(summary));
+    mockCurrentSnapshotMeasurementTotal(usage, 4.0);
+    mockCurrentSnapshotMeasurementTotal(otherUsage, 2.0);
+
+    var remittedTotals = controller.getTotalsRemitted(List.of(usage, otherUsage));
+    assertThat(remittedTotals.values(), containsInAnyOrder(3.0, 0.0));
+    controller.submitBillableUsage(BillingWindow.MONTHLY, usage, remittedTotals);
+    controller.submitBillableUsage(BillingWindow.MONTHLY, otherUsage, remittedTotals);
+
+    verify(remittanceRepo, never()).getRemittanceSummaries(any());
+    verify(remittanceRepo).save(remittance(usage, CLOCK.now(), 1.0));
+    verify(remittanceRepo).save(remittance(otherUsage, CLOCK.now(), 2.0));
+    // totals follow the remittance recorded while processing the summary
+    assertThat(remittedTotals.values(), containsInAnyOrder(4.0, 2.0));
+  }
+
   @Test
   void monthlyWindowNoCurrentRemittance() {
     BillableUsage usage = billable(CLOCK.startOfCurrentMonth(), 0.0003);
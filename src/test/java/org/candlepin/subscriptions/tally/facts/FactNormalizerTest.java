@@ -35,6 +35,7 @@ import java.time.OffsetDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Stream;
 import org.candlepin.subscriptions.ApplicationProperties;
 import org.candlepin.subscriptions.FixedClockConfiguration;
@@ -129,6 +130,69 @@ class FactNormalizerTest {
     assertEquals(Integer.valueOf(2), normalized.getSockets());
   }
 
+  @Test
+  void testHostsWithSameProductFactsShareResolvedProducts() {
+    OrgHostsData orgHostsData = hypervisorData();
+    InventoryHostFacts first = createRhsmHost(Arrays.asList(1), null, clock.now());
+    InventoryHostFacts second = createRhsmHost(Arrays.asList(1), null, clock.now());
+    second.setSystemProfileCoresPerSocket(6);
+    second.setSystemProfileSockets(2);
+
+    NormalizedFacts firstNormalized = normalizer.normalize(first, orgHostsData);
+    NormalizedFacts secondNormalized = normalizer.normalize(second, orgHostsData);
+
+    assertThat(firstNormalized.getProducts(), Matchers.hasItem("RHEL"));
+    assertSame(firstNormalized.getProducts(), secondNormalized.getProducts());
+    assertEquals(Integer.valueOf(12), secondNormalized.getCores());
+    assertEquals(1, orgHostsData.getProductResolutionMemo().size());
+  }
+
+  @Test
+  void testStaleRhsmFactsDoNotShareProductsWithCurrentOnes() {
+    OrgHostsData orgHostsData = hypervisorData();
+    InventoryHostFacts current = createRhsmHost(Arrays.asList(1), null, clock.now());
+    InventoryHostFacts stale = createRhsmHost(Arrays.asList(1), null, clock.now().minusDays(3));
+
+    NormalizedFacts currentNormalized = normalizer.normalize(current, orgHostsData);
+    NormalizedFacts staleNormalized = normalizer.normalize(stale, orgHostsData);
+
+    assertThat(currentNormalized.getProducts(), Matchers.hasItem("RHEL"));
+    assertEquals(
+        normalizer.normalize(stale, hypervisorData(), new ProductResolutionMemo()).getProducts(),
+        staleNormalized.getProducts());
+    assertFalse(staleNormalized.getProducts().contains("RHEL"));
+  }
+
+  @Test
+  void testResolvedProductsAreImmutable() {
+    Set<String> products =
+        normalizer
+            .normalize(createRhsmHost(Arrays.asList(1), null, clock.now()), hypervisorData())
+            .getProducts();
+
+    assertThrows(UnsupportedOperationException.class, () -> products.add("RHEL"));
+  }
+
+  @Test
+  void testProductFactsAreSplitOnlyWhenRead() {
+    InventoryHostFacts facts = new InventoryHostFacts();
+    assertNull(facts.getProducts());
+
+    facts.setProducts(null);
+    assertEquals(Set.of(), facts.getProducts());
+
+    facts.setProducts("1,2");
+    assertEquals("1,2", facts.getProductsValue());
+    assertEquals(Set.of("1", "2"), facts.getProducts());
+
+    facts.setSystemProfileProductIds("69");
+    facts.setQpcProductIds("");
+    facts.setQpcProducts("RHEL,EAP");
+    assertEquals(Set.of("69"), facts.getSystemProfileProductIds());
+    assertEquals(Set.of(), facts.getQpcProductIds());
+    assertEquals(Set.of("RHEL", "EAP"), facts.getQpcProducts());
+  }
+
   @Test
   void testNormalizeNonRhelProduct() {
     InventoryHostFacts rhsmHost = createRhsmHost(Arrays.asList(42), null, clock.now());
@@ -0,0 +1,50 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.tally.filler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.OffsetDateTime;
+import java.time.temporal.TemporalAmount;
+import org.candlepin.subscriptions.FixedClockConfiguration;
+import org.candlepin.subscriptions.db.model.Granularity;
+import org.candlepin.subscriptions.util.ApplicationClock;
+import org.candlepin.subscriptions.util.SnapshotTimeAdjuster;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class ReportFillerTest {
+
+  private final ApplicationClock clock = new FixedClockConfiguration().fixedClock();
+
+  @ParameterizedTest
+  @EnumSource(Granularity.class)
+  void expectedCapacityCountsEveryPeriodAndExistingSnap(Granularity granularity) {
+    SnapshotTimeAdjuster timeAdjuster = SnapshotTimeAdjuster.getTimeAdjuster(clock, granularity);
+    TemporalAmount offset = timeAdjuster.getSnapshotOffset();
+    OffsetDateTime start = timeAdjuster.adjustToPeriodStart(clock.now());
+    OffsetDateTime end = start.plus(offset).plus(offset).plus(offset);
+
+    assertEquals(4, ReportFiller.expectedCapacity(start, end, offset, 0));
+    assertEquals(6, ReportFiller.expectedCapacity(start, end, offset, 2));
+    assertEquals(0, ReportFiller.expectedCapacity(end, start, offset, 0));
+  }
+}
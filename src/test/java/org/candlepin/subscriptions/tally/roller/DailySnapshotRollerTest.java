@@ -20,6 +20,7 @@
  */
 package org.candlepin.subscriptions.tally.roller;
 
+import jakarta.persistence.EntityManager;
 import java.io.IOException;
 import org.candlepin.subscriptions.FixedClockConfiguration;
 import org.candlepin.subscriptions.db.TallySnapshotRepository;
@@ -44,6 +45,8 @@ class DailySnapshotRollerTest {
 
   @Autowired private TallySnapshotRepository repository;
 
+  @Autowired private EntityManager entityManager;
+
   @Autowired private TagProfile tagProfile;
 
   private ApplicationClock clock;
@@ -83,4 +86,9 @@ class DailySnapshotRollerTest {
   void testHandlesDuplicates() {
     tester.performRemovesDuplicates(Granularity.DAILY, clock.startOfToday(), clock.endOfToday());
   }
+
+  @Test
+  void testUnchangedRollIssuesNoWrites() {
+    tester.performUnchangedRollIssuesNoWrites(entityManager, true);
+  }
 }
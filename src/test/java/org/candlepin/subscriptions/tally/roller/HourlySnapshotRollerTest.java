@@ -22,6 +22,7 @@ package org.candlepin.subscriptions.tally.roller;
 
 import static org.candlepin.subscriptions.db.model.Granularity.HOURLY;
 
+import jakarta.persistence.EntityManager;
 import java.io.IOException;
 import org.candlepin.subscriptions.FixedClockConfiguration;
 import org.candlepin.subscriptions.db.TallySnapshotRepository;
@@ -52,6 +53,8 @@ class HourlySnapshotRollerTest {
 
   @Autowired private TallySnapshotRepository repository;
 
+  @Autowired private EntityManager entityManager;
+
   @Autowired private TagProfile testProfile;
 
   @Autowired private ApplicationClock clock;
@@ -105,4 +108,9 @@ class HourlySnapshotRollerTest {
   void testHandlesDuplicates() {
     tester.performRemovesDuplicates(HOURLY, clock.startOfCurrentHour(), clock.endOfCurrentHour());
   }
+
+  @Test
+  void testUnchangedRollIssuesNoWrites() {
+    tester.performUnchangedRollIssuesNoWrites(entityManager, true);
+  }
 }
@@ -20,6 +20,7 @@
  */
 package org.candlepin.subscriptions.tally.roller;
 
+import jakarta.persistence.EntityManager;
 import java.io.IOException;
 import org.candlepin.subscriptions.FixedClockConfiguration;
 import org.candlepin.subscriptions.db.TallySnapshotRepository;
@@ -44,6 +45,8 @@ class MonthlySnapshotRollerTest {
 
   @Autowired private TallySnapshotRepository repository;
 
+  @Autowired private EntityManager entityManager;
+
   @Autowired private TagProfile tagProfile;
 
   private ApplicationClock clock;
@@ -84,4 +87,9 @@ class MonthlySnapshotRollerTest {
     tester.performRemovesDuplicates(
         Granularity.MONTHLY, clock.startOfCurrentMonth(), clock.endOfCurrentMonth());
   }
+
+  @Test
+  void testUnchangedRollIssuesNoWrites() {
+    tester.performUnchangedRollIssuesNoWrites(entityManager, false);
+  }
 }
@@ -22,8 +22,10 @@ package org.candlepin.subscriptions.tally.roller;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import jakarta.persistence.EntityManager;
 import java.time.OffsetDateTime;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -40,6 +42,8 @@ import org.candlepin.subscriptions.json.Measurement.Uom;
 import org.candlepin.subscriptions.tally.AccountUsageCalculation;
 import org.candlepin.subscriptions.tally.UsageCalculation;
 import org.candlepin.subscriptions.tally.UsageCalculation.Totals;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.springframework.data.domain.PageRequest;
 
 /** Since the roller tests are very similar, this class provides some common test scenarios. */
@@ -297,6 +301,41 @@ public class SnapshotRollerTester<R extends BaseSnapshotRoller> {
     assertEquals(1, updatedSnaps.size());
   }
 
+  public void performUnchangedRollIssuesNoWrites(
+      EntityManager entityManager, boolean finestGranularity) {
+    AccountUsageCalculation a1Calc = createTestData();
+    Statistics statistics =
+        entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    statistics.setStatisticsEnabled(true);
+    try {
+      roller.rollSnapshots(a1Calc);
+      entityManager.flush();
+
+      // Rolling the same calculation again must not touch the snapshot or its measurements,
+      // though snapshots at the finest granularity are still returned for the tally summary.
+      statistics.clear();
+      Collection<TallySnapshot> unchanged = roller.rollSnapshots(a1Calc);
+      entityManager.flush();
+      assertEquals(finestGranularity ? 1 : 0, unchanged.size());
+      assertEquals(0, statistics.getEntityInsertCount());
+      assertEquals(0, statistics.getEntityUpdateCount());
+      assertEquals(0, statistics.getCollectionUpdateCount());
+      assertEquals(0, statistics.getCollectionRecreateCount());
+
+      // A changed value only updates the measurement collection of the existing snapshot.
+      statistics.clear();
+      a1Calc.getCalculation(createUsageKey(getTestProduct())).addPhysical(100, 200, 50);
+      Collection<TallySnapshot> changed = roller.rollSnapshots(a1Calc);
+      entityManager.flush();
+      assertEquals(1, changed.size());
+      assertEquals(0, statistics.getEntityInsertCount());
+      assertEquals(1, statistics.getCollectionUpdateCount());
+      assertEquals(0, statistics.getCollectionRecreateCount());
+    } finally {
+      statistics.setStatisticsEnabled(false);
+    }
+  }
+
   private UsageCalculation.Key createUsageKey(String product) {
     return new UsageCalculation.Key(
         product, ServiceLevel.EMPTY, Usage.EMPTY, BillingProvider.EMPTY, "sellerAcct");
@@ -20,6 +20,7 @@
  */
 package org.candlepin.subscriptions.tally.roller;
 
+import jakarta.persistence.EntityManager;
 import java.io.IOException;
 import org.candlepin.subscriptions.FixedClockConfiguration;
 import org.candlepin.subscriptions.db.TallySnapshotRepository;
@@ -44,6 +45,8 @@ class WeeklySnapshotRollerTest {
 
   @Autowired private TallySnapshotRepository repository;
 
+  @Autowired private EntityManager entityManager;
+
   @Autowired private TagProfile tagProfile;
 
   private ApplicationClock clock;
@@ -82,4 +85,9 @@ class WeeklySnapshotRollerTest {
     tester.performRemovesDuplicates(
         Granularity.WEEKLY, clock.startOfCurrentWeek(), clock.endOfCurrentWeek());
   }
+
+  @Test
+  void testUnchangedRollIssuesNoWrites() {
+    tester.performUnchangedRollIssuesNoWrites(entityManager, false);
+  }
 }
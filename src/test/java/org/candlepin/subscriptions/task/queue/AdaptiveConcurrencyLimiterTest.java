@@ -0,0 +1,267 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.task.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimiterTest {
+
+  private static final Duration LATENCY = Duration.ofMillis(100);
+
+  @Test
+  void growsUpToCeilingWhileLimitIsReached() throws InterruptedException {
+    var limiter = new AdaptiveConcurrencyLimiter("tasks", 2, 1, 4, () -> 0);
+
+    for (int i = 0; i < 100; i++) {
+      runRound(limiter, LATENCY);
+    }
+
+    assertEquals(4, limiter.getLimit());
+  }
+
+  @Test
+  void doesNotGrowWhenLimitIsNotReached() throws InterruptedException {
+    var limiter = new AdaptiveConcurrencyLimiter("tasks", 2, 1, 4, () -> 0);
+
+    for (int i = 0; i < 100; i++) {
+      limiter.acquire();
+      limiter.release(LATENCY);
+    }
+
+    assertEquals(2, limiter.getLimit());
+  }
+
+  @Test
+  void backsOffToFloorWhileConnectionsArePending() throws InterruptedException {
+    var limiter = new AdaptiveConcurrencyLimiter("tasks", 8, 2, 8, () -> 1);
+
+    for (int i = 0; i < 100; i++) {
+      runRound(limiter, LATENCY);
+    }
+
+    assertEquals(2, limiter.getLimit());
+  }
+
+  @Test
+  void ignoresBriefConnectionWaits() throws InterruptedException {
+    var pending = new AtomicInteger();
+    var limiter = new AdaptiveConcurrencyLimiter("tasks", 8, 1, 8, pending::get);
+
+    for (int i = 0; i < 10; i++) {
+      pending.set(i % 4 == 0 ? 1 : 0);
+      limiter.acquire();
+      limiter.release(LATENCY);
+    }
+
+    assertEquals(8, limiter.getLimit());
+  }
+
+  @Test
+  void backsOffOncePerLimitOfCompletions() throws InterruptedException {
+    var limiter = new AdaptiveConcurrencyLimiter("tasks", 8, 1, 8, () -> 1);
+    for (int i = 0; i < 3; i++) {
+      limiter.acquire();
+      limiter.release(LATENCY);
+    }
+    assertEquals(7, limiter.getLimit());
+
+    // holds for the next 7 completions,
+    for (int i = 0; i < 7; i++) {
+      limiter.acquire();
+      limiter.release(LATENCY);
+    }
+    assertEquals(7, limiter.getLimit());
+
+    // then backs off again while connections are still pending.
+    limiter.acquire();
+    limiter.release(LATENCY);
+    assertEquals(6, limiter.getLimit());
+  }
+
+  @Test
+  void backsOffAsConfigured() throws InterruptedException {
+    var limiter =
+        new AdaptiveConcurrencyLimiter(
+            "tasks", 8, 1, 8, () -> 1, new AdaptiveConcurrencyLimiter.BackOff(0.5, 2.0, 0.25));
+
+    limiter.acquire();
+    limiter.release(LATENCY);
+
+    assertEquals(4, limiter.getLimit());
+  }
+
+  @Test
+  void backsOffWhenLatencyRises() throws InterruptedException {
+    var limiter = new AdaptiveConcurrencyLimiter("tasks", 8, 1, 8, () -> 0);
+    for (int i = 0; i < 10; i++) {
+      limiter.acquire();
+      limiter.release(LATENCY);
+    }
+
+    limiter.acquire();
+    limiter.release(LATENCY.multipliedBy(10));
+
+    assertEquals(7, limiter.getLimit());
+  }
+
+  @Test
+  void convergesOnConnectionPoolSize() throws InterruptedException {
+    // Simulates tasks holding one connection each from a pool of 5 connections
+    int poolSize = 5;
+    var inFlight = new AtomicInteger();
+    var limiter =
+        new AdaptiveConcurrencyLimiter(
+            "tasks", 1, 1, 20, () -> Math.max(0, inFlight.get() - poolSize));
+    int maxRunning = 0;
+
+    for (int i = 0; i < 500; i++) {
+      int running = limiter.getLimit();
+      maxRunning = Math.max(maxRunning, running);
+      for (int j = 0; j < running; j++) {
+        limiter.acquire();
+      }
+      inFlight.set(running);
+      for (int j = 0; j < running; j++) {
+        limiter.release(LATENCY);
+      }
+      inFlight.set(0);
+    }
+
+    // The pool is used fully, and only overrun by one task before backing off
+    assertEquals(poolSize + 1, maxRunning);
+  }
+
+  @Test
+  void fixedLimiterNeverAdapts() throws InterruptedException {
+    var limiter = AdaptiveConcurrencyLimiter.fixed("tasks", 3);
+
+    for (int i = 0; i < 10; i++) {
+      runRound(limiter, LATENCY.multipliedBy(i + 1L));
+    }
+
+    assertEquals(3, limiter.getLimit());
+  }
+
+  @Test
+  void acquireWaitsUntilATaskIsReleased() throws InterruptedException {
+    var limiter = AdaptiveConcurrencyLimiter.fixed("tasks", 1);
+    limiter.acquire();
+    var acquired = new CountDownLatch(1);
+    var thread =
+        new Thread(
+            () -> {
+              try {
+                limiter.acquire();
+                acquired.countDown();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            });
+    thread.start();
+
+    assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+    limiter.release(LATENCY);
+    assertTrue(acquired.await(5, TimeUnit.SECONDS));
+    thread.join();
+  }
+
+  @Test
+  void tryAcquireGivesUpOnceTimeoutElapses() throws InterruptedException {
+    var limiter = AdaptiveConcurrencyLimiter.fixed("tasks", 1);
+    assertTrue(limiter.tryAcquire(Duration.ZERO));
+
+    assertFalse(limiter.tryAcquire(Duration.ofMillis(50)));
+    assertEquals(1, limiter.getInFlight());
+
+    limiter.release(LATENCY);
+    assertTrue(limiter.tryAcquire(Duration.ZERO));
+  }
+
+  @Test
+  void cancelFreesPermitWithoutAdapting() throws InterruptedException {
+    var limiter = new AdaptiveConcurrencyLimiter("tasks", 1, 1, 4, () -> 0);
+    for (int i = 0; i < 10; i++) {
+      limiter.acquire();
+      limiter.cancel();
+    }
+
+    assertEquals(1, limiter.getLimit());
+    assertEquals(0, limiter.getInFlight());
+  }
+
+  @Test
+  void exportsLimitAndInFlightGauges() throws InterruptedException {
+    var meterRegistry = new SimpleMeterRegistry();
+    var limiter = new AdaptiveConcurrencyLimiter("tasks", 3, 1, 4, () -> 0);
+    limiter.bindTo(meterRegistry);
+    limiter.acquire();
+
+    assertEquals(3.0, gauge(meterRegistry, "swatch_task_concurrency_limit"));
+    assertEquals(1.0, gauge(meterRegistry, "swatch_task_concurrency_in_flight"));
+  }
+
+  @Test
+  void rejectsInvalidBounds() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new AdaptiveConcurrencyLimiter("tasks", 1, 0, 4, () -> 0));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new AdaptiveConcurrencyLimiter("tasks", 1, 4, 2, () -> 0));
+  }
+
+  @Test
+  void rejectsInvalidBackOff() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new AdaptiveConcurrencyLimiter.BackOff(1.0, 2.0, 0.5));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new AdaptiveConcurrencyLimiter.BackOff(0.9, 1.0, 0.5));
+    assertThrows(
+        IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter.BackOff(0.9, 2.0, 0));
+  }
+
+  private static double gauge(SimpleMeterRegistry meterRegistry, String name) {
+    return meterRegistry.get(name).tag("group", "tasks").gauge().value();
+  }
+
+  private static void runRound(AdaptiveConcurrencyLimiter limiter, Duration latency)
+      throws InterruptedException {
+    int running = limiter.getLimit();
+    for (int i = 0; i < running; i++) {
+      limiter.acquire();
+    }
+    for (int i = 0; i < running; i++) {
+      limiter.release(latency);
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.task.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.List;
+import org.candlepin.subscriptions.task.TaskDescriptor;
+import org.candlepin.subscriptions.task.TaskType;
+import org.junit.jupiter.api.Test;
+
+class TaskCoalescerTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final TaskCoalescer coalescer = new TaskCoalescer(meterRegistry);
+
+  @Test
+  void mergesRangesOfPendingTasksForSameWork() {
+    var pending =
+        coalescer.register(hourlyTask("org1", "2023-07-01T01:00:00Z", "2023-07-01T02:00:00Z"));
+    assertTrue(pending.isPresent());
+    assertTrue(
+        coalescer
+            .register(hourlyTask("org1", "2023-07-01T00:00:00Z", "2023-07-01T01:00:00Z"))
+            .isEmpty());
+    assertTrue(
+        coalescer
+            .register(hourlyTask("org1", "2023-07-01T01:00:00Z", "2023-07-01T04:00:00Z"))
+            .isEmpty());
+
+    assertEquals(
+        hourlyTask("org1", "2023-07-01T00:00:00Z", "2023-07-01T04:00:00Z"),
+        coalescer.release(pending.get()));
+    assertEquals(2.0, coalescedCount(TaskType.UPDATE_HOURLY_SNAPSHOTS));
+    assertEquals(1.0, executedCount(TaskType.UPDATE_HOURLY_SNAPSHOTS));
+  }
+
+  @Test
+  void doesNotMergeTasksForOtherWork() {
+    assertTrue(coalescer.register(snapshotTask("org1")).isPresent());
+    assertTrue(coalescer.register(snapshotTask("org2")).isPresent());
+    assertTrue(
+        coalescer
+            .register(hourlyTask("org1", "2023-07-01T00:00:00Z", "2023-07-01T01:00:00Z"))
+            .isPresent());
+    assertTrue(coalescer.register(snapshotTask("org1")).isEmpty());
+  }
+
+  @Test
+  void queuesTaskAgainOncePendingTaskIsReleased() {
+    var pending = coalescer.register(snapshotTask("org1"));
+    assertEquals(snapshotTask("org1"), coalescer.release(pending.orElseThrow()));
+
+    assertTrue(coalescer.register(snapshotTask("org1")).isPresent());
+  }
+
+  @Test
+  void skipsTasksCoveredByExecutionStartedAfterEnqueue() {
+    Instant enqueuedAt = Instant.now().minusSeconds(60);
+    var wide = hourlyTask("org1", "2023-07-01T00:00:00Z", "2023-07-01T04:00:00Z");
+    var narrow = hourlyTask("org1", "2023-07-01T01:00:00Z", "2023-07-01T02:00:00Z");
+    var outside = hourlyTask("org1", "2023-07-01T03:00:00Z", "2023-07-01T05:00:00Z");
+
+    assertTrue(coalescer.shouldExecute(wide, enqueuedAt));
+    coalescer.recordExecution(wide, Instant.now());
+    assertFalse(coalescer.shouldExecute(narrow, enqueuedAt));
+    assertTrue(coalescer.shouldExecute(outside, enqueuedAt));
+    coalescer.recordExecution(outside, Instant.now());
+    // tasks enqueued after the last execution started are never skipped
+    assertTrue(coalescer.shouldExecute(narrow, Instant.now().plusSeconds(60)));
+    assertEquals(1.0, coalescedCount(TaskType.UPDATE_HOURLY_SNAPSHOTS));
+    assertEquals(3.0, executedCount(TaskType.UPDATE_HOURLY_SNAPSHOTS));
+  }
+
+  @Test
+  void doesNotSkipTasksCoveredByFailedExecution() {
+    Instant enqueuedAt = Instant.now().minusSeconds(60);
+    var wide = hourlyTask("org1", "2023-07-01T00:00:00Z", "2023-07-01T04:00:00Z");
+    var narrow = hourlyTask("org1", "2023-07-01T01:00:00Z", "2023-07-01T02:00:00Z");
+
+    // the execution of the wide task fails, so it is never recorded
+    assertTrue(coalescer.shouldExecute(wide, enqueuedAt));
+    assertTrue(coalescer.shouldExecute(narrow, enqueuedAt));
+    assertEquals(0.0, coalescedCount(TaskType.UPDATE_HOURLY_SNAPSHOTS));
+  }
+
+  private double coalescedCount(TaskType type) {
+    return meterRegistry.counter("swatch_task_coalesced", "type", type.name()).count();
+  }
+
+  private double executedCount(TaskType type) {
+    return meterRegistry.counter("swatch_task_executed", "type", type.name()).count();
+  }
+
+  private static TaskDescriptor snapshotTask(String orgId) {
+    return TaskDescriptor.builder(TaskType.UPDATE_SNAPSHOTS, "my-group")
+        .setSingleValuedArg("orgs", orgId)
+        .build();
+  }
+
+  private static TaskDescriptor hourlyTask(String orgId, String start, String end) {
+    return TaskDescriptor.builder(TaskType.UPDATE_HOURLY_SNAPSHOTS, "my-group")
+        .setSingleValuedArg("orgId", orgId)
+        .setArg("startDateTime", List.of(start))
+        .setArg("endDateTime", List.of(end))
+        .build();
+  }
+}
@@ -22,12 +22,20 @@ package org.candlepin.subscriptions.task.queue.inmemory;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import org.candlepin.subscriptions.exception.SubscriptionsException;
 import org.candlepin.subscriptions.tally.TallyTaskFactory;
+import org.candlepin.subscriptions.task.Task;
 import org.candlepin.subscriptions.task.TaskDescriptor;
 import org.candlepin.subscriptions.task.TaskType;
+import org.candlepin.subscriptions.task.queue.TaskCoalescer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
@@ -41,7 +49,7 @@ class ExecutorTaskQueueTest {
 
   @Test
   void ensureTaskIsExecutedPriorToShutdown() throws InterruptedException {
-    ExecutorTaskQueue queue = new ExecutorTaskQueue();
+    ExecutorTaskQueue queue = newQueue();
     ExecutorTaskProcessor processor =
         new ExecutorTaskProcessor(Executors.newCachedThreadPool(), taskFactory, queue, "my-group");
     TaskDescriptor expectedTaskDesc =
@@ -60,7 +68,7 @@ class ExecutorTaskQueueTest {
   @Test
   void verifyNoExceptionWhenTaskFails() throws InterruptedException {
     AtomicBoolean failed = new AtomicBoolean();
-    ExecutorTaskQueue queue = new ExecutorTaskQueue();
+    ExecutorTaskQueue queue = newQueue();
     ExecutorTaskProcessor processor =
         new ExecutorTaskProcessor(
             Executors.newCachedThreadPool(
@@ -86,4 +94,82 @@ class ExecutorTaskQueueTest {
     processor.shutdown(2000, TimeUnit.MILLISECONDS);
     assertFalse(failed.get());
   }
+
+  @Test
+  void coalescesTasksEnqueuedForSameOrgBeforeExecution() throws InterruptedException {
+    ExecutorTaskQueue queue = newQueue();
+    queue.enqueue(hourlyTask("org1", "2023-07-01T01:00:00Z", "2023-07-01T02:00:00Z"));
+    queue.enqueue(hourlyTask("org1", "2023-07-01T00:00:00Z", "2023-07-01T01:00:00Z"));
+    queue.enqueue(hourlyTask("org1", "2023-07-01T01:00:00Z", "2023-07-01T03:00:00Z"));
+    queue.enqueue(hourlyTask("org2", "2023-07-01T01:00:00Z", "2023-07-01T02:00:00Z"));
+    Mockito.when(taskFactory.build(Mockito.any())).thenReturn(() -> {});
+
+    ExecutorTaskProcessor processor =
+        new ExecutorTaskProcessor(Executors.newCachedThreadPool(), taskFactory, queue, "my-group");
+    processor.shutdown(2000, TimeUnit.MILLISECONDS);
+
+    Mockito.verify(taskFactory)
+        .build(hourlyTask("org1", "2023-07-01T00:00:00Z", "2023-07-01T03:00:00Z"));
+    Mockito.verify(taskFactory)
+        .build(hourlyTask("org2", "2023-07-01T01:00:00Z", "2023-07-01T02:00:00Z"));
+    Mockito.verifyNoMoreInteractions(taskFactory);
+  }
+
+  @Test
+  void queuesTaskAgainAfterInterruptedEnqueue() throws InterruptedException {
+    ExecutorTaskQueue queue = newQueue();
+    var task = hourlyTask("org1", "2023-07-01T00:00:00Z", "2023-07-01T01:00:00Z");
+
+    Thread.currentThread().interrupt();
+    assertThrows(SubscriptionsException.class, () -> queue.enqueue(task));
+    assertTrue(Thread.interrupted());
+
+    queue.enqueue(task);
+    // shut down first, so that take returns empty instead of blocking if nothing was queued
+    queue.shutdown();
+    assertEquals(Optional.of(task), queue.take("my-group"));
+  }
+
+  @Test
+  void runsTasksOfSmallOrgBetweenTasksOfLargeOrg() throws InterruptedException {
+    ExecutorTaskQueue queue = newQueue();
+    for (int offset = 0; offset < 3; offset++) {
+      queue.enqueue(pageTask("large-org", offset));
+    }
+    queue.enqueue(pageTask("small-org", 0));
+    List<String> executed = Collections.synchronizedList(new ArrayList<>());
+    Mockito.when(taskFactory.build(Mockito.any()))
+        .thenAnswer(
+            invocation -> {
+              TaskDescriptor task = invocation.getArgument(0);
+              return (Task) () -> executed.add(task.getArg("org_id").get(0));
+            });
+
+    ExecutorTaskProcessor processor =
+        new ExecutorTaskProcessor(
+            Executors.newSingleThreadExecutor(), taskFactory, queue, "my-group", 1);
+    processor.shutdown(2000, TimeUnit.MILLISECONDS);
+
+    assertEquals(List.of("large-org", "small-org", "large-org", "large-org"), executed);
+  }
+
+  private static ExecutorTaskQueue newQueue() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    return new ExecutorTaskQueue(new TaskCoalescer(meterRegistry), meterRegistry);
+  }
+
+  private static TaskDescriptor pageTask(String orgId, int offset) {
+    return TaskDescriptor.builder(TaskType.UPDATE_ORG_INVENTORY, "my-group")
+        .setSingleValuedArg("org_id", orgId)
+        .setSingleValuedArg("offset", String.valueOf(offset))
+        .build();
+  }
+
+  private static TaskDescriptor hourlyTask(String orgId, String start, String end) {
+    return TaskDescriptor.builder(TaskType.UPDATE_HOURLY_SNAPSHOTS, "my-group")
+        .setSingleValuedArg("orgId", orgId)
+        .setArg("startDateTime", List.of(start))
+        .setArg("endDateTime", List.of(end))
+        .build();
+  }
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.task.queue.inmemory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class FairShareTaskQueueTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final FairShareTaskQueue<String> queue =
+      new FairShareTaskQueue<>(100, "my-group", meterRegistry);
+
+  @Test
+  void takesTasksOfWaitingOrgsInTurn() throws InterruptedException {
+    putAll("org1", 5);
+    putAll("org2", 2);
+    putAll("org3", 1);
+
+    assertEquals(
+        List.of("org1", "org2", "org3", "org1", "org2", "org1", "org1", "org1"), takeOrgs(8));
+  }
+
+  @Test
+  void takesUpToOrgWeightTasksInARow() throws InterruptedException {
+    queue.setOrgWeights(Map.of("org1", 2));
+    putAll("org1", 5);
+    putAll("org2", 2);
+    putAll("org3", 1);
+
+    assertEquals(
+        List.of("org1", "org1", "org2", "org3", "org1", "org1", "org2", "org1"), takeOrgs(8));
+  }
+
+  @Test
+  void keepsTaskOrderWithinAnOrg() throws InterruptedException {
+    queue.put("org1", "org1-a");
+    queue.put("org2", "org2-a");
+    queue.put("org1", "org1-b");
+
+    assertEquals("org1-a", queue.take().orElseThrow());
+    assertEquals("org2-a", queue.take().orElseThrow());
+    assertEquals("org1-b", queue.take().orElseThrow());
+  }
+
+  @Test
+  void exposesDepthOfWaitingOrgsAndWaitTime() throws InterruptedException {
+    putAll("org1", 2);
+
+    var depth = meterRegistry.find("swatch_task_queue_depth").tag("org", "org1").gauge();
+    assertNotNull(depth);
+    assertEquals(2.0, depth.value());
+
+    takeOrgs(2);
+    assertNull(meterRegistry.find("swatch_task_queue_depth").tag("org", "org1").gauge());
+    assertEquals(
+        2, meterRegistry.get("swatch_task_queue_wait").tag("group", "my-group").timer().count());
+  }
+
+  @Test
+  void returnsQueuedTasksBeforeEmptyAfterShutdown() throws InterruptedException {
+    putAll("org1", 1);
+    queue.shutdown();
+
+    assertTrue(queue.take().isPresent());
+    assertTrue(queue.take().isEmpty());
+  }
+
+  private void putAll(String orgId, int count) throws InterruptedException {
+    for (int i = 0; i < count; i++) {
+      queue.put(orgId, orgId);
+    }
+  }
+
+  private List<String> takeOrgs(int count) throws InterruptedException {
+    List<String> orgs = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      orgs.add(queue.take().orElseThrow());
+    }
+    return orgs;
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.task.queue.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.candlepin.subscriptions.task.JsonTaskMessage;
+import org.candlepin.subscriptions.task.TaskExecutionException;
+import org.candlepin.subscriptions.task.TaskQueueProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaTaskFailureHandlerTest {
+
+  private static final Instant NOW = Instant.parse("2023-07-01T00:00:00Z");
+  private static final JsonTaskMessage TASK =
+      JsonTaskMessage.builder()
+          .groupId("tasks")
+          .type("UPDATE_SNAPSHOTS")
+          .args(Map.of("orgs", List.of("org1")))
+          .build();
+
+  @Mock private KafkaTemplate<String, JsonTaskMessage> producer;
+  @Captor private ArgumentCaptor<ProducerRecord<String, JsonTaskMessage>> sent;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private TaskQueueProperties properties;
+  private KafkaTaskFailureHandler handler;
+
+  @BeforeEach
+  void setup() {
+    properties = new TaskQueueProperties();
+    properties.setTopic("tasks");
+    properties.setRetryTopic("tasks.retry");
+    properties.setDeadLetterTopic("tasks.dead-letter");
+    properties.setMaxAttempts(3);
+    properties.setRetryBackOffInitialInterval(Duration.ofSeconds(30));
+    properties.setRetryBackOffMultiplier(2.0);
+    properties.setRetryBackOffMaxInterval(Duration.ofMinutes(1));
+    handler =
+        new KafkaTaskFailureHandler(
+            properties, producer, meterRegistry, Clock.fixed(NOW, ZoneOffset.UTC));
+  }
+
+  @Test
+  void retriesFailedTaskWithBackOff() {
+    when(producer.send(sent.capture())).thenReturn(CompletableFuture.completedFuture(null));
+
+    handler.handleFailure(taskRecord("tasks", null), failure());
+
+    ProducerRecord<String, JsonTaskMessage> retry = sent.getValue();
+    assertEquals("tasks.retry", retry.topic());
+    assertEquals("key", retry.key());
+    assertEquals(TASK, retry.value());
+    assertEquals("2", header(retry, KafkaTaskFailureHandler.ATTEMPT_HEADER));
+    assertEquals("tasks", header(retry, KafkaTaskFailureHandler.ORIGINAL_TOPIC_HEADER));
+    assertEquals(
+        String.valueOf(NOW.plusSeconds(30).toEpochMilli()),
+        header(retry, KafkaTaskFailureHandler.RETRY_AT_HEADER));
+    assertEquals(1.0, meterRegistry.counter("swatch_task_retried", tags()).count());
+  }
+
+  @Test
+  void backOffGrowsExponentiallyUpToMaxInterval() {
+    assertEquals(Duration.ofSeconds(30), handler.backOff(1));
+    assertEquals(Duration.ofSeconds(60), handler.backOff(2));
+    assertEquals(Duration.ofMinutes(1), handler.backOff(3));
+  }
+
+  @Test
+  void deadLettersTaskOutOfAttemptsWithFailureReason() {
+    when(producer.send(sent.capture())).thenReturn(CompletableFuture.completedFuture(null));
+
+    handler.handleFailure(taskRecord("tasks.retry", "3"), failure());
+
+    ProducerRecord<String, JsonTaskMessage> deadLetter = sent.getValue();
+    assertEquals("tasks.dead-letter", deadLetter.topic());
+    assertEquals(TASK, deadLetter.value());
+    assertEquals("3", header(deadLetter, KafkaTaskFailureHandler.ATTEMPT_HEADER));
+    assertEquals("tasks", header(deadLetter, KafkaTaskFailureHandler.ORIGINAL_TOPIC_HEADER));
+    assertEquals(
+        "java.lang.IllegalStateException: connection refused",
+        header(deadLetter, KafkaTaskFailureHandler.FAILURE_REASON_HEADER));
+    assertEquals(1.0, meterRegistry.counter("swatch_task_dead_lettered", tags()).count());
+  }
+
+  @Test
+  void dropsFailedTaskWhenNoTopicsAreConfigured() {
+    properties.setRetryTopic(null);
+    properties.setDeadLetterTopic(null);
+
+    handler.handleFailure(taskRecord("tasks", null), failure());
+
+    verify(producer, never()).send(any(ProducerRecord.class));
+  }
+
+  @Test
+  void remainingBackOffIsBoundedByMaxInterval() {
+    var due = taskRecord("tasks.retry", "2");
+    due.headers()
+        .add(
+            KafkaTaskFailureHandler.RETRY_AT_HEADER,
+            String.valueOf(NOW.minusSeconds(1).toEpochMilli()).getBytes(StandardCharsets.UTF_8));
+    var later = taskRecord("tasks.retry", "2");
+    later
+        .headers()
+        .add(
+            KafkaTaskFailureHandler.RETRY_AT_HEADER,
+            String.valueOf(NOW.plusSeconds(3600).toEpochMilli()).getBytes(StandardCharsets.UTF_8));
+
+    assertEquals(Duration.ZERO, handler.remainingBackOff(due));
+    assertEquals(Duration.ofMinutes(1), handler.remainingBackOff(later));
+  }
+
+  private ConsumerRecord<String, JsonTaskMessage> taskRecord(String topic, String attempt) {
+    var taskRecord = new ConsumerRecord<>(topic, 0, 0L, "key", TASK);
+    if (attempt != null) {
+      taskRecord
+          .headers()
+          .add(KafkaTaskFailureHandler.ATTEMPT_HEADER, attempt.getBytes(StandardCharsets.UTF_8))
+          .add(
+              KafkaTaskFailureHandler.ORIGINAL_TOPIC_HEADER,
+              "tasks".getBytes(StandardCharsets.UTF_8));
+    }
+    return taskRecord;
+  }
+
+  private static TaskExecutionException failure() {
+    return new TaskExecutionException(
+        "Error executing task", new IllegalStateException("connection refused"));
+  }
+
+  private static String header(ProducerRecord<?, ?> taskRecord, String name) {
+    return KafkaTaskFailureHandler.headerValue(taskRecord.headers(), name);
+  }
+
+  private static Tags tags() {
+    return Tags.of("topic", "tasks", "type", "UPDATE_SNAPSHOTS");
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.task.queue.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.candlepin.subscriptions.task.JsonTaskMessage;
+import org.candlepin.subscriptions.task.TaskFactory;
+import org.candlepin.subscriptions.task.TaskQueueProperties;
+import org.candlepin.subscriptions.task.queue.AdaptiveConcurrencyLimiter;
+import org.candlepin.subscriptions.task.queue.TaskCoalescer;
+import org.candlepin.subscriptions.util.KafkaConsumerRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.Acknowledgment;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaTaskProcessorTest {
+
+  private static final ConsumerRecord<String, JsonTaskMessage> TASK_RECORD =
+      new ConsumerRecord<>(
+          "tasks",
+          0,
+          0L,
+          null,
+          JsonTaskMessage.builder()
+              .groupId("tasks")
+              .type("UPDATE_SNAPSHOTS")
+              .args(Map.of("orgs", List.of("org1")))
+              .build());
+
+  @Mock private TaskFactory taskFactory;
+  @Mock private KafkaConsumerRegistry kafkaConsumerRegistry;
+  @Mock private KafkaTaskFailureHandler failureHandler;
+  @Mock private Acknowledgment acknowledgment;
+
+  private final AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.fixed("tasks", 1);
+  private KafkaTaskProcessor processor;
+
+  @BeforeEach
+  void setup() {
+    var properties = new TaskQueueProperties();
+    properties.setTopic("tasks");
+    properties.setConcurrencyAcquireTimeout(Duration.ofMillis(10));
+    processor =
+        new KafkaTaskProcessor(
+            taskFactory,
+            properties,
+            kafkaConsumerRegistry,
+            new TaskCoalescer(new SimpleMeterRegistry()),
+            failureHandler,
+            limiter);
+  }
+
+  @Test
+  void acknowledgesExecutedTaskAndFreesItsPermit() throws InterruptedException {
+    when(taskFactory.build(any())).thenReturn(() -> {});
+
+    processor.receive(TASK_RECORD, acknowledgment);
+
+    verify(acknowledgment).acknowledge();
+    assertTrue(limiter.tryAcquire(Duration.ZERO));
+  }
+
+  @Test
+  void redeliversTaskHeldBackByConcurrencyLimit() throws InterruptedException {
+    limiter.acquire();
+
+    processor.receive(TASK_RECORD, acknowledgment);
+
+    verify(acknowledgment).nack(Duration.ZERO);
+    verify(acknowledgment, never()).acknowledge();
+    verifyNoInteractions(taskFactory);
+  }
+}
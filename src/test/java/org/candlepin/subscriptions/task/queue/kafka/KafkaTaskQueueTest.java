@@ -35,6 +35,7 @@ import org.springframework.test.context.ActiveProfiles;
     partitions = 1,
     topics = {
       "${rhsm-subscriptions.tasks.topic}",
+      "${rhsm-subscriptions.tasks.retry-topic}",
       "${rhsm-subscriptions.subscription.tasks.topic}"
     })
 class KafkaTaskQueueTest extends KafkaTaskQueueTester {
@@ -0,0 +1,51 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package com.redhat.swatch.contract.repository;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import java.time.OffsetDateTime;
+
+@ApplicationScoped
+public class CapacityReportMarkerRepository
+    implements PanacheSpecificationSupport<CapacityReportMarkerEntity, String> {
+
+  /**
+   * Moves the capacity report marker of an org forward, so that cached capacity reports of the org
+   * are recomputed.
+   *
+   * @param orgId the org whose subscriptions changed
+   * @param updated when the subscriptions changed
+   */
+  public void markUpdated(String orgId, OffsetDateTime updated) {
+    // a single upsert, so concurrent writers for a new org don't race on the insert and an older
+    // timestamp never replaces a newer one
+    getEntityManager()
+        .createNativeQuery(
+            """
+            insert into capacity_report_markers (org_id, last_updated) values (:orgId, :updated)
+            on conflict (org_id) do update set last_updated =
+              greatest(capacity_report_markers.last_updated, excluded.last_updated)
+            """)
+        .setParameter("orgId", orgId)
+        .setParameter("updated", updated)
+        .executeUpdate();
+  }
+}
@@ -21,6 +21,7 @@
 package com.redhat.swatch.contract.repository;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.criteria.JoinType;
 import java.util.List;
 import java.util.UUID;
 import lombok.extern.slf4j.Slf4j;
@@ -28,12 +29,25 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 @ApplicationScoped
 public class ContractRepository implements PanacheSpecificationSupport<ContractEntity, UUID> {
+  /**
+   * Find the contracts matching a specification, along with their metrics.
+   *
+   * <p>Metrics are fetched in the same statement, so that mapping the contracts does not issue one
+   * query per contract. Hibernate de-duplicates the contracts repeated by the fetch join.
+   */
   public List<ContractEntity> getContracts(Specification<ContractEntity> specification) {
-    return find(ContractEntity.class, specification, null);
+    return find(ContractEntity.class, fetchMetrics().and(specification), null);
   }
 
   public ContractEntity findContract(UUID uuid) {
     log.info("Find contract by uuid {}", uuid);
     return find("uuid", uuid).firstResult();
   }
+
+  private static Specification<ContractEntity> fetchMetrics() {
+    return (root, query, builder) -> {
+      root.fetch(ContractEntity_.metrics, JoinType.LEFT);
+      return builder.conjunction();
+    };
+  }
 }
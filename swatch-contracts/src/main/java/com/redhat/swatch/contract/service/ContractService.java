@@ -37,21 +37,31 @@ import com.redhat.swatch.contract.openapi.model.Contract;
 import com.redhat.swatch.contract.openapi.model.OfferingProductTags;
 import com.redhat.swatch.contract.openapi.model.PartnerEntitlementContract;
 import com.redhat.swatch.contract.openapi.model.StatusResponse;
+import com.redhat.swatch.contract.repository.CapacityReportMarkerRepository;
 import com.redhat.swatch.contract.repository.ContractEntity;
 import com.redhat.swatch.contract.repository.ContractRepository;
 import com.redhat.swatch.contract.repository.Specification;
 import com.redhat.swatch.contract.repository.SubscriptionEntity;
 import com.redhat.swatch.contract.repository.SubscriptionRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.smallrye.mutiny.unchecked.Unchecked;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 
 /**
@@ -64,20 +74,26 @@ public class ContractService {
 
   private final ContractRepository contractRepository;
   private final SubscriptionRepository subscriptionRepository;
+  private final CapacityReportMarkerRepository capacityReportMarkerRepository;
   private final ContractMapper mapper;
   private final MeasurementMetricIdTransformer measurementMetricIdTransformer;
   private final SubscriptionSyncService syncService;
   @Inject @RestClient PartnerApi partnerApi;
   @Inject @RestClient SearchApi subscriptionApi;
 
+  @ConfigProperty(name = "CONTRACT_SYNC_PARTNER_CONCURRENCY", defaultValue = "4")
+  int partnerFetchConcurrency;
+
   ContractService(
       ContractRepository contractRepository,
       SubscriptionRepository subscriptionRepository,
+      CapacityReportMarkerRepository capacityReportMarkerRepository,
       ContractMapper mapper,
       MeasurementMetricIdTransformer measurementMetricIdTransformer,
       SubscriptionSyncService syncService) {
     this.contractRepository = contractRepository;
     this.subscriptionRepository = subscriptionRepository;
+    this.capacityReportMarkerRepository = capacityReportMarkerRepository;
     this.mapper = mapper;
     this.measurementMetricIdTransformer = measurementMetricIdTransformer;
     this.syncService = syncService;
@@ -122,6 +138,7 @@ public class ContractService {
     subscription.setSubscriptionId(contract.getUuid());
     contractRepository.persist(entity);
     subscriptionRepository.persist(subscription);
+    capacityReportMarkerRepository.markUpdated(subscription.getOrgId(), now);
 
     return contract;
   }
@@ -202,6 +219,7 @@ public class ContractService {
     }
     if (subscription != null) {
       subscriptionRepository.delete(subscription);
+      capacityReportMarkerRepository.markUpdated(subscription.getOrgId(), OffsetDateTime.now());
     }
   }
 
@@ -273,6 +291,7 @@ public class ContractService {
             .orElseGet(() -> createSubscriptionForContract(contract, true));
     subscription.setEndDate(now);
     subscriptionRepository.persist(subscription);
+    capacityReportMarkerRepository.markUpdated(subscription.getOrgId(), now);
   }
 
   private SubscriptionEntity createSubscriptionForContract(
@@ -300,7 +319,16 @@ public class ContractService {
     }
   }
 
-  @Transactional
+  /**
+   * Reconcile the currently active contracts of an org with the partner gateway.
+   *
+   * <p>Entitlements are fetched for all contracts concurrently and outside of any transaction, so
+   * slow partner gateway calls don't hold a database connection. The resulting contract and
+   * subscription changes are then applied together in a single short transaction.
+   *
+   * @param contractOrgSync the org ID to sync
+   * @return StatusResponse
+   */
   public StatusResponse syncContractByOrgId(String contractOrgSync) {
     StatusResponse statusResponse = new StatusResponse();
     final String failureMessage = "FAILED";
@@ -316,29 +344,37 @@ public class ContractService {
             .message(contractOrgSync + " not found in table");
       }
 
-      for (ContractEntity contract : currentContracts) {
-        var result =
-            partnerApi.getPartnerEntitlements(
-                new QueryPartnerEntitlementV1()
-                    .rhAccountId(contract.getOrgId())
-                    .customerAwsAccountId(contract.getBillingAccountId())
-                    .vendorProductCode(contract.getVendorProductCode())
-                    .source(contract.getBillingProvider()));
-        if (Objects.nonNull(result.getContent()) && !result.getContent().isEmpty()) {
-          var entitlementEntity =
-              transformEntitlementToContractEntity(result.getContent(), contract);
-          if (Objects.nonNull(entitlementEntity)) {
-            log.info("Syncing new Contract for {}", contractOrgSync);
-            statusResponse.setStatus(successMsg);
-            var now = OffsetDateTime.now();
-            persistSubscription(createSubscriptionForContract(entitlementEntity, true), now);
-            persistContract(entitlementEntity, now);
-          } else {
-            statusResponse.setStatus(failureMessage);
-            statusResponse.setMessage("Entitlement Cannot be found for " + contractOrgSync);
-            return statusResponse;
-          }
+      List<PartnerEntitlementSync> changes = new ArrayList<>();
+      boolean entitlementMissing = false;
+      for (PartnerEntitlementSync sync : fetchPartnerEntitlements(currentContracts)) {
+        if (!sync.hasEntitlements()) {
+          continue;
+        }
+        if (Objects.isNull(sync.contract())) {
+          entitlementMissing = true;
+          break;
         }
+        log.info("Syncing new Contract for {}", contractOrgSync);
+        statusResponse.setStatus(successMsg);
+        changes.add(sync);
+      }
+
+      if (!changes.isEmpty()) {
+        QuarkusTransaction.joiningExisting()
+            .run(
+                () ->
+                    changes.forEach(
+                        sync -> {
+                          var now = OffsetDateTime.now();
+                          persistSubscription(sync.subscription(), now);
+                          persistContract(sync.contract(), now);
+                        }));
+      }
+
+      if (entitlementMissing) {
+        statusResponse.setStatus(failureMessage);
+        statusResponse.setMessage("Entitlement Cannot be found for " + contractOrgSync);
+        return statusResponse;
       }
       statusResponse.setMessage("Contracts Synced for " + contractOrgSync);
     } catch (NumberFormatException e) {
@@ -355,6 +391,70 @@ public class ContractService {
     return statusResponse;
   }
 
+  /**
+   * Query the partner gateway for each contract on the worker pool, with at most {@link
+   * #partnerFetchConcurrency} requests in flight. Results are returned in the order of the given
+   * contracts.
+   */
+  private List<PartnerEntitlementSync> fetchPartnerEntitlements(List<ContractEntity> contracts)
+      throws ApiException {
+    try {
+      return Multi.createFrom()
+          .range(0, contracts.size())
+          .onItem()
+          .transformToUni(
+              index ->
+                  Uni.createFrom()
+                      .item(
+                          Unchecked.supplier(
+                              () -> fetchPartnerEntitlement(index, contracts.get(index))))
+                      .runSubscriptionOn(Infrastructure.getDefaultWorkerPool()))
+          .merge(partnerFetchConcurrency)
+          .collect()
+          .asList()
+          .await()
+          .indefinitely()
+          .stream()
+          .sorted(Comparator.comparingInt(PartnerEntitlementSync::index))
+          .toList();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof ApiException apiException) {
+        throw apiException;
+      }
+      throw e;
+    }
+  }
+
+  private PartnerEntitlementSync fetchPartnerEntitlement(int index, ContractEntity contract)
+      throws ApiException {
+    var result =
+        partnerApi.getPartnerEntitlements(
+            new QueryPartnerEntitlementV1()
+                .rhAccountId(contract.getOrgId())
+                .customerAwsAccountId(contract.getBillingAccountId())
+                .vendorProductCode(contract.getVendorProductCode())
+                .source(contract.getBillingProvider()));
+    if (Objects.isNull(result.getContent()) || result.getContent().isEmpty()) {
+      return new PartnerEntitlementSync(index, false, null, null);
+    }
+    var entitlementEntity = transformEntitlementToContractEntity(result.getContent(), contract);
+    if (Objects.isNull(entitlementEntity)) {
+      return new PartnerEntitlementSync(index, true, null, null);
+    }
+    return new PartnerEntitlementSync(
+        index, true, entitlementEntity, createSubscriptionForContract(entitlementEntity, true));
+  }
+
+  /**
+   * Outcome of reconciling a single contract with the partner gateway, ready to be persisted. The
+   * contract is null when the partner gateway returned entitlements that could not be mapped.
+   */
+  private record PartnerEntitlementSync(
+      int index,
+      boolean hasEntitlements,
+      ContractEntity contract,
+      SubscriptionEntity subscription) {}
+
   private boolean validPartnerEntitlementContract(PartnerEntitlementContract contract) {
     return Objects.nonNull(contract.getRedHatSubscriptionNumber())
         && Objects.nonNull(contract.getCloudIdentifiers())
@@ -384,6 +484,7 @@ public class ContractService {
   private void persistSubscription(SubscriptionEntity subscription, OffsetDateTime now) {
     subscription.setStartDate(now);
     subscriptionRepository.persist(subscription);
+    capacityReportMarkerRepository.markUpdated(subscription.getOrgId(), now);
   }
 
   private void persistContract(ContractEntity entity, OffsetDateTime now) {
@@ -35,6 +35,8 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -236,6 +238,42 @@ class ContractRepositoryTest {
         contractRepository.find(ContractEntity.class, spec), containsInAnyOrder(actualContract2));
   }
 
+  @Test
+  void whenGetContracts_thenMetricsAreFetchedInSameStatement() {
+    Statistics statistics = clearedStatistics();
+
+    List<ContractEntity> contracts =
+        contractRepository.getContracts(ContractEntity.orgIdEquals("org123"));
+
+    assertEquals(1, contracts.size());
+    assertEquals(2, contracts.get(0).getMetrics().size());
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void whenGetContractsByMetric_thenAllMetricsAreFetchedWithoutDuplicates() {
+    Statistics statistics = clearedStatistics();
+
+    List<ContractEntity> contracts =
+        contractRepository.getContracts(
+            ContractEntity.metricIdEquals("cpu-hours").and(ContractEntity.orgIdEquals("org123")));
+
+    assertEquals(1, contracts.size());
+    assertEquals(2, contracts.get(0).getMetrics().size());
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  private Statistics clearedStatistics() {
+    var entityManager = contractRepository.getEntityManager();
+    // Make sure contracts and their metrics are loaded from the database again
+    entityManager.flush();
+    entityManager.clear();
+    Statistics statistics =
+        entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    return statistics;
+  }
+
   @AfterAll
   public void cleanupTestData() {
     contractRepository.deleteAll();
@@ -25,6 +25,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -35,6 +36,7 @@ import com.redhat.swatch.clients.subscription.api.resources.SearchApi;
 import com.redhat.swatch.contract.BaseUnitTest;
 import com.redhat.swatch.contract.model.MeasurementMetricIdTransformer;
 import com.redhat.swatch.contract.openapi.model.*;
+import com.redhat.swatch.contract.repository.CapacityReportMarkerRepository;
 import com.redhat.swatch.contract.repository.ContractEntity;
 import com.redhat.swatch.contract.repository.ContractMetricEntity;
 import com.redhat.swatch.contract.repository.ContractRepository;
@@ -54,6 +56,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 
 @QuarkusTest
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -62,6 +65,7 @@ class ContractServiceTest extends BaseUnitTest {
   @InjectMock ContractRepository contractRepository;
   @InjectMock OfferingRepository offeringRepository;
   @InjectMock SubscriptionRepository subscriptionRepository;
+  @InjectMock CapacityReportMarkerRepository capacityReportMarkerRepository;
 
   @InjectMock SubscriptionSyncService syncService;
 
@@ -377,6 +381,7 @@ class ContractServiceTest extends BaseUnitTest {
   void testCreateContractCreatesSubscription() {
     contractService.createContract(contractDto);
     verify(subscriptionRepository).persist(any(SubscriptionEntity.class));
+    verify(capacityReportMarkerRepository).markUpdated(eq(contractDto.getOrgId()), any());
     verify(measurementMetricIdTransformer).translateContractMetricIdsToSubscriptionMetricIds(any());
   }
 
@@ -413,6 +418,7 @@ class ContractServiceTest extends BaseUnitTest {
     contractService.deleteContract(uuid.toString());
     verify(subscriptionRepository).delete(subscription);
     verify(contractRepository).delete(contract);
+    verify(capacityReportMarkerRepository).markUpdated(any(), any());
   }
 
   @Test
@@ -454,4 +460,33 @@ class ContractServiceTest extends BaseUnitTest {
     verify(measurementMetricIdTransformer, times(2))
         .translateContractMetricIdsToSubscriptionMetricIds(any());
   }
+
+  @Test
+  void testSyncContractByOrgIdFetchesAllEntitlementsBeforePersisting() throws ApiException {
+    var updateContract = new ContractEntity();
+    updateContract.setUuid(UUID.randomUUID());
+    updateContract.setOrgId("org123");
+    updateContract.setSubscriptionNumber("123456");
+    updateContract.setBillingProvider("redhat_fake");
+    updateContract.setBillingAccountId("896801664647");
+    updateContract.setStartDate(OffsetDateTime.now().minusDays(2));
+    updateContract.setEndDate(OffsetDateTime.now());
+    updateContract.setProductId("BASILISK123");
+    updateContract.setSku("MW01484");
+    when(contractRepository.getContracts(any()))
+        .thenReturn(List.of(actualContract1, updateContract));
+
+    OfferingProductTags productTags = new OfferingProductTags();
+    productTags.data(List.of("BASILISK123"));
+    when(syncService.getOfferingProductTags(any())).thenReturn(productTags);
+    mockSubscriptionServiceSubscription();
+
+    StatusResponse statusResponse = contractService.syncContractByOrgId("org123");
+
+    assertEquals("SUCCESS", statusResponse.getStatus());
+    InOrder inOrder = inOrder(syncService, subscriptionRepository);
+    inOrder.verify(syncService, times(2)).getOfferingProductTags(any());
+    inOrder.verify(subscriptionRepository, times(2)).persist(any(SubscriptionEntity.class));
+    verify(contractRepository, times(2)).persist(any(ContractEntity.class));
+  }
 }
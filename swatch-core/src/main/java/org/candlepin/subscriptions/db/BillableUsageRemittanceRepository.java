@@ -21,6 +21,7 @@
 package org.candlepin.subscriptions.db;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -58,12 +59,34 @@ public interface BillableUsageRemittanceRepository
 
   default List<RemittanceSummaryProjection> getRemittanceSummaries(
       BillableUsageRemittanceFilter filter) {
+    return summarize(buildSearchSpecification(filter));
+  }
+
+  /**
+   * Fetch the remittance summaries for several remittance keys with a single query. Each filter
+   * selects the summaries it would select on its own via {@link
+   * #getRemittanceSummaries(BillableUsageRemittanceFilter)}; callers match the results back to
+   * their keys using the grouping columns of each summary.
+   *
+   * @param filters one filter per remittance key
+   * @return the summaries of all keys
+   */
+  default List<RemittanceSummaryProjection> getRemittanceSummariesForKeys(
+      Collection<BillableUsageRemittanceFilter> filters) {
+    if (filters.isEmpty()) {
+      return List.of();
+    }
+    return summarize(
+        Specification.anyOf(filters.stream().map(this::buildSearchSpecification).toList()));
+  }
+
+  private List<RemittanceSummaryProjection> summarize(
+      Specification<BillableUsageRemittanceEntity> specification) {
     var entityManager = getEntityManager();
     var criteriaBuilder = entityManager.getCriteriaBuilder();
     var query = criteriaBuilder.createQuery(RemittanceSummaryProjection.class);
     var root = query.from(BillableUsageRemittanceEntity.class);
     var key = root.get(BillableUsageRemittanceEntity_.key);
-    var specification = buildSearchSpecification(filter);
     if (specification != null) {
       var predicate = specification.toPredicate(root, query, criteriaBuilder);
       query.where(predicate);
@@ -0,0 +1,85 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.db;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import org.candlepin.subscriptions.db.model.CapacityReportMarker;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Tracks the last time the subscription capacity of an org changed.
+ *
+ * <p>Every write to an org's subscriptions, their measurements or product IDs must bump the org's
+ * marker, as must changes to an offering, since capacity reports filter on offering attributes.
+ */
+public interface CapacityReportMarkerRepository
+    extends JpaRepository<CapacityReportMarker, String> {
+
+  @Query("select m.lastUpdated from CapacityReportMarker m where m.orgId = :orgId")
+  Optional<OffsetDateTime> findLastUpdatedByOrgId(@Param("orgId") String orgId);
+
+  /**
+   * Move the marker of an org forward, creating it if the org has none yet. A single upsert is used
+   * so that concurrent writers for the same org don't race on the insert, and an older timestamp
+   * never replaces a newer one.
+   *
+   * @param orgId the org whose capacity changed
+   * @param updated the time of the change
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      nativeQuery = true,
+      value =
+          """
+          insert into capacity_report_markers (org_id, last_updated) values (:orgId, :updated)
+          on conflict (org_id) do update
+            set last_updated = greatest(capacity_report_markers.last_updated, excluded.last_updated)
+          """)
+  void markUpdated(@Param("orgId") String orgId, @Param("updated") OffsetDateTime updated);
+
+  @Transactional
+  default void markUpdated(Collection<String> orgIds, OffsetDateTime updated) {
+    orgIds.stream().distinct().forEach(orgId -> markUpdated(orgId, updated));
+  }
+
+  /**
+   * Bump the markers of every org holding a subscription to an offering.
+   *
+   * @param sku the SKU of the offering that changed
+   * @param updated the time of the change
+   * @return the number of markers bumped
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      """
+      update CapacityReportMarker m set m.lastUpdated = :updated
+      where m.orgId in (select s.orgId from Subscription s where s.offering.sku = :sku)
+      """)
+  int markUpdatedForOffering(@Param("sku") String sku, @Param("updated") OffsetDateTime updated);
+}
@@ -45,6 +45,12 @@ public interface OfferingRepository extends JpaRepository<Offering, String> {
   @Query("select distinct o.productName from Offering o where o.sku = :sku")
   Optional<String> findProductNameBySku(@Param("sku") String sku);
 
+  @Query("select o.contentHash from Offering o where o.sku = :sku")
+  Optional<String> findContentHashBySku(@Param("sku") String sku);
+
+  @Query("select o.umbMessageHash from Offering o where o.sku = :sku")
+  Optional<String> findUmbMessageHashBySku(@Param("sku") String sku);
+
   @Query(value = "select distinct sku from Offering")
   Set<String> findAllDistinctSkus();
 }
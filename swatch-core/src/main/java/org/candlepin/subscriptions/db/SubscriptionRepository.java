@@ -27,6 +27,7 @@ import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -47,6 +48,7 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.util.ObjectUtils;
@@ -73,10 +75,197 @@ public interface SubscriptionRepository
   @EntityGraph(value = "graph.SubscriptionSync")
   Stream<Subscription> findByOrgId(String orgId);
 
+  @Query("select distinct s.orgId from Subscription s where s.subscriptionId = :subscriptionId")
+  Set<String> findOrgIdsBySubscriptionId(@Param("subscriptionId") String subscriptionId);
+
   void deleteBySubscriptionId(String subscriptionId);
 
   void deleteByOrgId(String orgId);
 
+  @Query("select distinct s.offering.sku from Subscription s where s.orgId in (:orgIds)")
+  Set<String> findDistinctSkusByOrgIdIn(@Param("orgIds") Collection<String> orgIds);
+
+  @Modifying
+  @Query(
+      nativeQuery = true,
+      value =
+          """
+          delete from subscription_measurements m where exists (
+            select 1 from subscription s
+            where s.subscription_id = m.subscription_id and s.start_date = m.start_date
+              and s.org_id in (:orgIds) and s.sku in (:skus))
+          """)
+  int deleteMeasurementsByOrgIdInAndSkuIn(
+      @Param("orgIds") Collection<String> orgIds, @Param("skus") Collection<String> skus);
+
+  @Modifying
+  @Query(
+      nativeQuery = true,
+      value =
+          """
+          delete from subscription_product_ids p where exists (
+            select 1 from subscription s
+            where s.subscription_id = p.subscription_id and s.start_date = p.start_date
+              and s.org_id in (:orgIds) and s.sku in (:skus))
+          """)
+  int deleteProductIdsByOrgIdInAndSkuIn(
+      @Param("orgIds") Collection<String> orgIds, @Param("skus") Collection<String> skus);
+
+  @Modifying
+  @Query(
+      nativeQuery = true,
+      value = "delete from subscription where org_id in (:orgIds) and sku in (:skus)")
+  int deleteSubscriptionsByOrgIdInAndSkuIn(
+      @Param("orgIds") Collection<String> orgIds, @Param("skus") Collection<String> skus);
+
+  /**
+   * Delete the subscriptions of the given orgs that use any of the given SKUs, along with their
+   * measurements and product IDs, using one statement per table instead of deleting each entity.
+   * No lifecycle callbacks are invoked, and already loaded entities are not updated.
+   *
+   * @param orgIds orgs whose subscriptions should be deleted
+   * @param skus SKUs of the subscriptions to delete
+   * @return the number of subscription records deleted
+   */
+  default int deleteByOrgIdInAndSkuIn(Collection<String> orgIds, Collection<String> skus) {
+    if (orgIds.isEmpty() || skus.isEmpty()) {
+      return 0;
+    }
+    deleteMeasurementsByOrgIdInAndSkuIn(orgIds, skus);
+    deleteProductIdsByOrgIdInAndSkuIn(orgIds, skus);
+    return deleteSubscriptionsByOrgIdInAndSkuIn(orgIds, skus);
+  }
+
+  /**
+   * Capacity measurements expected for the subscriptions of the offering with SKU :sku, derived by
+   * joining each subscription with the capacities of its offering.
+   */
+  String EXPECTED_OFFERING_MEASUREMENTS =
+      """
+      select s.subscription_id, s.start_date, c.metric_id, c.measurement_type,
+        s.quantity * c.capacity as value
+      from subscription s
+      join (
+        select o.sku, cast('CORES' as varchar(255)) as metric_id,
+          cast('PHYSICAL' as varchar(255)) as measurement_type, o.cores as capacity
+        from offering o
+        union all
+        select o.sku, 'CORES', 'HYPERVISOR', o.hypervisor_cores from offering o
+        union all
+        select o.sku, 'SOCKETS', 'PHYSICAL', o.sockets from offering o
+        union all
+        select o.sku, 'SOCKETS', 'HYPERVISOR', o.hypervisor_sockets from offering o
+      ) c on c.sku = s.sku
+      where s.sku = :sku and c.capacity > 0
+      """;
+
+  String MATCHES_EXPECTED_MEASUREMENT =
+      """
+      e.subscription_id = m.subscription_id and e.start_date = m.start_date
+        and e.metric_id = m.metric_id and e.measurement_type = m.measurement_type
+      """;
+
+  @Modifying
+  @Query(
+      nativeQuery = true,
+      value =
+          "update subscription_measurements m set value = (select e.value from ("
+              + EXPECTED_OFFERING_MEASUREMENTS
+              + ") e where "
+              + MATCHES_EXPECTED_MEASUREMENT
+              + ") where exists (select 1 from ("
+              + EXPECTED_OFFERING_MEASUREMENTS
+              + ") e where "
+              + MATCHES_EXPECTED_MEASUREMENT
+              + " and e.value <> m.value)")
+  int updateMeasurementsForOffering(@Param("sku") String sku);
+
+  @Modifying
+  @Query(
+      nativeQuery = true,
+      value =
+          """
+          delete from subscription_measurements m where exists (
+            select 1 from subscription s
+            where s.subscription_id = m.subscription_id and s.start_date = m.start_date
+              and s.sku = :sku)
+          and not exists (select 1 from (
+          """
+              + EXPECTED_OFFERING_MEASUREMENTS
+              + ") e where "
+              + MATCHES_EXPECTED_MEASUREMENT
+              + ")")
+  int deleteStaleMeasurementsForOffering(@Param("sku") String sku);
+
+  @Modifying
+  @Query(
+      nativeQuery = true,
+      value =
+          """
+          insert into subscription_measurements
+            (subscription_id, start_date, metric_id, measurement_type, value)
+          select e.subscription_id, e.start_date, e.metric_id, e.measurement_type, e.value from (
+          """
+              + EXPECTED_OFFERING_MEASUREMENTS
+              + ") e where not exists (select 1 from subscription_measurements m where "
+              + MATCHES_EXPECTED_MEASUREMENT
+              + ")")
+  int insertMissingMeasurementsForOffering(@Param("sku") String sku);
+
+  @Modifying
+  @Query(
+      nativeQuery = true,
+      value =
+          """
+          delete from subscription_measurements m where exists (
+            select 1 from subscription s
+            where s.subscription_id = m.subscription_id and s.start_date = m.start_date
+              and s.sku = :sku)
+          """)
+  int deleteMeasurementsForOffering(@Param("sku") String sku);
+
+  @Modifying
+  @Query(
+      nativeQuery = true,
+      value =
+          """
+          delete from subscription_product_ids p where exists (
+            select 1 from subscription s
+            where s.subscription_id = p.subscription_id and s.start_date = p.start_date
+              and s.sku = :sku)
+          """)
+  int deleteProductIdsForOffering(@Param("sku") String sku);
+
+  @Modifying
+  @Query(
+      nativeQuery = true,
+      value =
+          """
+          delete from subscription_product_ids p where exists (
+            select 1 from subscription s
+            where s.subscription_id = p.subscription_id and s.start_date = p.start_date
+              and s.sku = :sku)
+          and p.product_id not in (:productIds)
+          """)
+  int deleteProductIdsForOfferingNotIn(
+      @Param("sku") String sku, @Param("productIds") Collection<String> productIds);
+
+  @Modifying
+  @Query(
+      nativeQuery = true,
+      value =
+          """
+          insert into subscription_product_ids (subscription_id, start_date, product_id)
+          select s.subscription_id, s.start_date, cast(:productId as varchar(32))
+          from subscription s
+          where s.sku = :sku and not exists (
+            select 1 from subscription_product_ids p
+            where p.subscription_id = s.subscription_id and p.start_date = s.start_date
+              and p.product_id = :productId)
+          """)
+  int insertMissingProductIdForOffering(
+      @Param("sku") String sku, @Param("productId") String productId);
+
   private Specification<Subscription> buildSearchSpecification(DbReportCriteria dbReportCriteria) {
     /* The where call allows us to build a Specification object to operate on even if the first
      * specification method we call returns null (which it won't in this case, but it's good
@@ -0,0 +1,57 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.db;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import org.candlepin.subscriptions.db.model.TallyReportMarker;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+/** Tracks the last time tally snapshots changed for an org. */
+public interface TallyReportMarkerRepository extends JpaRepository<TallyReportMarker, String> {
+
+  @Query("select m.lastUpdated from TallyReportMarker m where m.orgId = :orgId")
+  Optional<OffsetDateTime> findLastUpdatedByOrgId(@Param("orgId") String orgId);
+
+  /**
+   * Move the marker of an org forward, creating it if the org has none yet. A single upsert is used
+   * so that concurrent writers for the same org don't race on the insert, and an older timestamp
+   * never replaces a newer one.
+   *
+   * @param orgId the org whose tally snapshots changed
+   * @param updated the time of the change
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      nativeQuery = true,
+      value =
+          """
+          insert into tally_report_markers (org_id, last_updated) values (:orgId, :updated)
+          on conflict (org_id) do update
+            set last_updated = greatest(tally_report_markers.last_updated, excluded.last_updated)
+          """)
+  void markUpdated(@Param("orgId") String orgId, @Param("updated") OffsetDateTime updated);
+}
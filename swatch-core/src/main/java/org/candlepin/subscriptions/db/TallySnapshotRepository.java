@@ -24,8 +24,11 @@ import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 import jakarta.persistence.QueryHint;
+import jakarta.persistence.criteria.JoinType;
 import java.time.OffsetDateTime;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Stream;
 import org.candlepin.subscriptions.db.model.BillingProvider;
@@ -33,10 +36,15 @@ import org.candlepin.subscriptions.db.model.Granularity;
 import org.candlepin.subscriptions.db.model.ServiceLevel;
 import org.candlepin.subscriptions.db.model.TallyMeasurementKey;
 import org.candlepin.subscriptions.db.model.TallySnapshot;
+import org.candlepin.subscriptions.db.model.TallySnapshot_;
 import org.candlepin.subscriptions.db.model.Usage;
+import org.candlepin.subscriptions.util.DateRange;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.QueryHints;
@@ -45,7 +53,8 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /** Interface that Spring Data will turn into a DAO for us. */
-public interface TallySnapshotRepository extends JpaRepository<TallySnapshot, UUID> {
+public interface TallySnapshotRepository
+    extends JpaRepository<TallySnapshot, UUID>, JpaSpecificationExecutor<TallySnapshot> {
 
   // suppress line length and params arguments, can't help either easily b/c this is a spring data
   // method
@@ -89,7 +98,7 @@ public interface TallySnapshotRepository extends JpaRepository<TallySnapshot, UU
   @Query(
       value =
           "delete from TallySnapshot where orgId=:orgId and granularity=:granularity and snapshotDate < :cutoffDate")
-  void deleteAllByOrgIdAndGranularityAndSnapshotDateBefore(
+  int deleteAllByOrgIdAndGranularityAndSnapshotDateBefore(
       String orgId, Granularity granularity, OffsetDateTime cutoffDate);
 
   @Query(
@@ -113,6 +122,34 @@ public interface TallySnapshotRepository extends JpaRepository<TallySnapshot, UU
       OffsetDateTime beginning,
       OffsetDateTime ending);
 
+  /**
+   * Fetch the snapshots of an org for several granularities with a single query, each granularity
+   * limited to its own date range. Measurements are fetched along with the snapshots, which are
+   * ordered by granularity and snapshot date.
+   *
+   * @param orgId the org of the snapshots
+   * @param productIds the products of the snapshots
+   * @param ranges for each granularity to fetch, the (inclusive) range of its snapshot dates
+   * @return the snapshots of all the requested granularities
+   */
+  default List<TallySnapshot> findSnapshotsForRanges(
+      String orgId, Collection<String> productIds, Map<Granularity, DateRange> ranges) {
+    if (productIds.isEmpty() || ranges.isEmpty()) {
+      return List.of();
+    }
+    Specification<TallySnapshot> inRanges =
+        Specification.anyOf(
+            ranges.entrySet().stream()
+                .map(entry -> matchingGranularityBetween(entry.getKey(), entry.getValue()))
+                .toList());
+    return findAll(
+        fetchingMeasurements()
+            .and(matchingOrgId(orgId))
+            .and(matchingProductIds(productIds))
+            .and(inRanges),
+        Sort.by(TallySnapshot_.GRANULARITY, TallySnapshot_.SNAPSHOT_DATE));
+  }
+
   void deleteByOrgId(String orgId);
 
   @SuppressWarnings("java:S107") // repository method has a lot of params, deal with it
@@ -195,4 +232,28 @@ public interface TallySnapshotRepository extends JpaRepository<TallySnapshot, UU
       @Param("beginning") OffsetDateTime beginning,
       @Param("ending") OffsetDateTime ending,
       @Param("measurementKey") TallyMeasurementKey measurementKey);
+
+  static Specification<TallySnapshot> fetchingMeasurements() {
+    return (root, query, builder) -> {
+      root.fetch(TallySnapshot_.tallyMeasurements, JoinType.LEFT);
+      return null;
+    };
+  }
+
+  static Specification<TallySnapshot> matchingOrgId(String orgId) {
+    return (root, query, builder) -> builder.equal(root.get(TallySnapshot_.orgId), orgId);
+  }
+
+  static Specification<TallySnapshot> matchingProductIds(Collection<String> productIds) {
+    return (root, query, builder) -> root.get(TallySnapshot_.productId).in(productIds);
+  }
+
+  static Specification<TallySnapshot> matchingGranularityBetween(
+      Granularity granularity, DateRange range) {
+    return (root, query, builder) ->
+        builder.and(
+            builder.equal(root.get(TallySnapshot_.granularity), granularity),
+            builder.between(
+                root.get(TallySnapshot_.snapshotDate), range.getStartDate(), range.getEndDate()));
+  }
 }
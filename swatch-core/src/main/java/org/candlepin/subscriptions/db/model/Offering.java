@@ -151,6 +151,20 @@ public class Offering implements Serializable {
   @Column(name = "derived_sku")
   private String derivedSku;
 
+  /**
+   * Digest of the normalized offering content, used by offering sync to detect unchanged upstream
+   * data without loading the stored offering. Not part of equality.
+   */
+  @Column(name = "content_hash")
+  private String contentHash;
+
+  /**
+   * Digest of the normalized UMB product message last applied to the offering, or null if the
+   * offering was last synced from the product service. Not part of equality.
+   */
+  @Column(name = "umb_message_hash")
+  private String umbMessageHash;
+
   public Boolean getHasUnlimitedUsage() {
     return hasUnlimitedUsage;
   }
@@ -20,6 +20,7 @@
  */
 package org.candlepin.subscriptions.rbac;
 
+import java.time.Duration;
 import java.util.List;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -37,4 +38,19 @@ public class RbacProperties extends HttpClientProperties {
 
   /** The RBAC application name that defines the permissions for this application. */
   private String applicationName = "subscriptions";
+
+  /**
+   * How long roles computed from RBAC permissions are reused for the same org and user before RBAC
+   * is asked again. A zero duration disables the cache.
+   */
+  private Duration permissionCacheTtl = Duration.ofSeconds(30);
+
+  /**
+   * How long cached roles may still be served while RBAC is failing. Must be at least as long as
+   * the TTL.
+   */
+  private Duration permissionCacheStaleTtl = Duration.ofMinutes(5);
+
+  /** Maximum number of org and user combinations kept in the permission cache. */
+  private long permissionCacheMaximumSize = 10000;
 }
@@ -24,13 +24,16 @@ import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.candlepin.subscriptions.rbac.model.Access;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.util.StringUtils;
 
 /** Provides RBAC functionality. */
 public class RbacService {
 
-  @Autowired private RbacApi api;
+  private final RbacApi api;
+
+  public RbacService(RbacApi api) {
+    this.api = api;
+  }
 
   public List<String> getPermissions(String rbacAppName) throws RbacApiException {
     // Get all permissions for the configured application name.
@@ -20,9 +20,19 @@
  */
 package org.candlepin.subscriptions.security;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import org.candlepin.subscriptions.rbac.RbacApiException;
 import org.candlepin.subscriptions.rbac.RbacProperties;
 import org.candlepin.subscriptions.rbac.RbacService;
@@ -35,22 +45,31 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.AuthenticationUserDetailsService;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.util.StringUtils;
 
 /**
  * Class in charge of populating the security context with the users roles based on the values in
  * the x-rh-identity header.
+ *
+ * <p>Roles computed from RBAC are cached per org and user for a short time, since a single page
+ * load in the UI fires several API calls for the same user. Concurrent lookups for the same user
+ * share one RBAC request, and if RBAC fails while refreshing an entry, the previous roles keep
+ * being served until the entry goes stale.
  */
 public class IdentityHeaderAuthenticationDetailsService
-    implements AuthenticationUserDetailsService<Authentication> {
+    implements AuthenticationUserDetailsService<Authentication>, MeterBinder {
 
   private static final Logger log =
       LoggerFactory.getLogger(IdentityHeaderAuthenticationDetailsService.class);
 
+  private static final String ROLE_CACHE_METRIC_NAME = "rhsm-subscriptions.rbac.permission-cache";
+
   private Attributes2GrantedAuthoritiesMapper authMapper;
   private SecurityProperties props;
   private RbacProperties rbacProps;
   private RoleProvider roleProvider;
   private RbacService rbacController;
+  private LoadingCache<RoleCacheKey, List<String>> roleCache;
 
   public IdentityHeaderAuthenticationDetailsService(
       SecurityProperties props,
@@ -66,12 +85,30 @@ public class IdentityHeaderAuthenticationDetailsService
       log.info("Running in DEV mode. Security will be disabled.");
     }
     this.roleProvider = new RoleProvider(rbacProps.getApplicationName(), props.isDevMode());
+    this.roleCache = buildRoleCache();
   }
 
   protected Collection<String> getUserRoles() {
     return roleProvider.getRoles(props.isDevMode() ? Collections.emptyList() : getPermissions());
   }
 
+  protected Collection<String> getUserRoles(InsightsUserPrincipal principal) {
+    Optional<RoleCacheKey> key = RoleCacheKey.of(principal);
+    if (roleCache == null || key.isEmpty()) {
+      return getUserRoles();
+    }
+    try {
+      return roleCache.getUnchecked(key.get());
+    } catch (UncheckedExecutionException e) {
+      if (e.getCause() instanceof RbacApiException) {
+        log.warn("Unable to determine roles from RBAC service.", e.getCause());
+        return roleProvider.getRoles(Collections.emptyList());
+      }
+      Throwables.throwIfUnchecked(e.getCause());
+      throw e;
+    }
+  }
+
   @Override
   public UserDetails loadUserDetails(Authentication authentication) {
     Object principal = authentication.getPrincipal();
@@ -82,8 +119,8 @@ public class IdentityHeaderAuthenticationDetailsService
       return (UserDetails) auth.getDetails();
     }
     Collection<String> userRoles;
-    if (principal instanceof InsightsUserPrincipal) {
-      userRoles = getUserRoles();
+    if (principal instanceof InsightsUserPrincipal insightsUserPrincipal) {
+      userRoles = getUserRoles(insightsUserPrincipal);
     } else {
       userRoles = Collections.singleton("INTERNAL");
     }
@@ -99,6 +136,13 @@ public class IdentityHeaderAuthenticationDetailsService
     this.authMapper = authMapper;
   }
 
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    if (roleCache != null) {
+      GuavaCacheMetrics.monitor(registry, roleCache, ROLE_CACHE_METRIC_NAME);
+    }
+  }
+
   private List<String> getPermissions() {
     try {
       return rbacController.getPermissions(rbacProps.getApplicationName());
@@ -107,4 +151,48 @@ public class IdentityHeaderAuthenticationDetailsService
       return Collections.emptyList();
     }
   }
+
+  private LoadingCache<RoleCacheKey, List<String>> buildRoleCache() {
+    Duration ttl = rbacProps.getPermissionCacheTtl();
+    if (props.isDevMode() || ttl == null || ttl.isZero() || ttl.isNegative()) {
+      return null;
+    }
+    Duration staleTtl = rbacProps.getPermissionCacheStaleTtl();
+    if (staleTtl == null || staleTtl.compareTo(ttl) < 0) {
+      staleTtl = ttl;
+    }
+    return CacheBuilder.newBuilder()
+        .maximumSize(rbacProps.getPermissionCacheMaximumSize())
+        // Entries past the TTL are reloaded on next use. A failed reload keeps the old roles, so
+        // they are served until they expire entirely.
+        .refreshAfterWrite(ttl)
+        .expireAfterWrite(staleTtl)
+        .recordStats()
+        .build(
+            new CacheLoader<>() {
+              // Runs on the requesting thread, so the RBAC client forwards that request's
+              // identity header, which belongs to the org and user of the key.
+              @Override
+              public List<String> load(RoleCacheKey key) throws RbacApiException {
+                log.debug("Looking up RBAC permissions for {}", key);
+                return List.copyOf(
+                    roleProvider.getRoles(
+                        rbacController.getPermissions(rbacProps.getApplicationName())));
+              }
+            });
+  }
+
+  private record RoleCacheKey(String orgId, String userId) {
+    static Optional<RoleCacheKey> of(InsightsUserPrincipal principal) {
+      InsightsUserPrincipal.User user = principal.getUser();
+      if (user == null || !StringUtils.hasText(principal.getOrgId())) {
+        return Optional.empty();
+      }
+      String userId = StringUtils.hasText(user.getUserId()) ? user.getUserId() : user.getUsername();
+      if (!StringUtils.hasText(userId)) {
+        return Optional.empty();
+      }
+      return Optional.of(new RoleCacheKey(principal.getOrgId(), userId));
+    }
+  }
 }
@@ -38,6 +38,12 @@ public class InsightsUserPrincipal implements RhIdentity.Identity {
     accountNumber = account;
   }
 
+  // package-private to be used for testing
+  InsightsUserPrincipal(String org, String account, String userId) {
+    this(org, account);
+    user.userId = userId;
+  }
+
   /** POJO representation of "internal" object inside the x-rh-identity object JSON. */
   @JsonIgnoreProperties(ignoreUnknown = true)
   public static class Internal {
@@ -53,11 +59,38 @@ public class InsightsUserPrincipal implements RhIdentity.Identity {
     }
   }
 
+  /** POJO representation of "user" object inside the x-rh-identity object JSON. */
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  public static class User {
+    @JsonProperty("user_id")
+    private String userId;
+
+    private String username;
+
+    public String getUserId() {
+      return userId;
+    }
+
+    public void setUserId(String userId) {
+      this.userId = userId;
+    }
+
+    public String getUsername() {
+      return username;
+    }
+
+    public void setUsername(String username) {
+      this.username = username;
+    }
+  }
+
   @JsonProperty("account_number")
   private String accountNumber;
 
   private Internal internal = new Internal();
 
+  private User user = new User();
+
   public String getOrgId() {
     return internal.getOrgId();
   }
@@ -78,6 +111,14 @@ public class InsightsUserPrincipal implements RhIdentity.Identity {
     this.internal = internal;
   }
 
+  public User getUser() {
+    return user;
+  }
+
+  public void setUser(User user) {
+    this.user = user;
+  }
+
   public String toString() {
     return getOrgId();
   }
@@ -22,7 +22,6 @@ package org.candlepin.subscriptions.tally;
 
 import java.util.EnumMap;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
@@ -51,7 +50,7 @@ public class UsageCalculation {
    * <p>Note that already data is scoped to an account, so account is not included in the key.
    */
   @Getter
-  @EqualsAndHashCode
+  @EqualsAndHashCode(cacheStrategy = EqualsAndHashCode.CacheStrategy.LAZY)
   @AllArgsConstructor
   @ToString
   public static class Key {
@@ -71,40 +70,65 @@ public class UsageCalculation {
     }
   }
 
-  /** Provides metric totals associated with each hardware type associated with a calculation. */
+  /**
+   * Provides metric totals associated with each hardware type associated with a calculation.
+   *
+   * <p>Totals are accumulated in a primitive array indexed by the unit of measure's ordinal, so
+   * that adding to them neither boxes nor allocates.
+   */
   public static class Totals {
-    private final Map<Measurement.Uom, Double> measurements = new EnumMap<>(Measurement.Uom.class);
+    private static final Measurement.Uom[] UOMS = Measurement.Uom.values();
+
+    private final double[] values = new double[UOMS.length];
+    private final boolean[] present = new boolean[UOMS.length];
 
     public String toString() {
       String entries =
-          measurements.entrySet().stream()
+          getMeasurements().entrySet().stream()
               .map(e -> String.format("%s: %s", e.getKey(), e.getValue()))
               .collect(Collectors.joining(", "));
       String uomMeasurements = String.format("[%s]", entries);
       return String.format("[uom_measurements: %s]", uomMeasurements);
     }
 
+    /** @return a copy of the measurements present in these totals, in unit of measure order */
     public Map<Measurement.Uom, Double> getMeasurements() {
+      Map<Measurement.Uom, Double> measurements = new EnumMap<>(Measurement.Uom.class);
+      for (int i = 0; i < UOMS.length; i++) {
+        if (present[i]) {
+          measurements.put(UOMS[i], values[i]);
+        }
+      }
       return measurements;
     }
 
     public Double getMeasurement(Measurement.Uom uom) {
-      return measurements.get(uom);
+      int i = uom.ordinal();
+      return present[i] ? values[i] : null;
     }
 
     public void increment(Measurement.Uom uom, Double amount) {
-      Double existingValue = getMeasurement(uom);
-      double value = existingValue == null ? 0.0 : existingValue;
-      double newValue = value + amount;
-      measurements.put(uom, newValue);
+      increment(uom, amount.doubleValue());
+    }
+
+    void increment(Measurement.Uom uom, double amount) {
+      int i = uom.ordinal();
+      values[i] += amount;
+      present[i] = true;
     }
   }
 
-  private final Map<HardwareMeasurementType, Totals> mappedTotals;
+  private static final HardwareMeasurementType[] TYPES = HardwareMeasurementType.values();
+
+  private final Totals[] mappedTotals;
 
   public UsageCalculation(Key key) {
     this.key = key;
-    this.mappedTotals = new EnumMap<>(HardwareMeasurementType.class);
+    this.mappedTotals = new Totals[TYPES.length];
+  }
+
+  public Key getKey() {
+    return key;
   }
 
   public String getProductId() {
@@ -128,18 +152,17 @@ public class UsageCalculation {
   }
 
   public Totals getTotals(HardwareMeasurementType type) {
-    return mappedTotals.get(type);
+    return mappedTotals[type.ordinal()];
   }
 
   public void add(HardwareMeasurementType type, Measurement.Uom uom, Double value) {
-    increment(type, uom, value);
-    if (type != HardwareMeasurementType.TOTAL) {
-      addToTotal(uom, value);
-    }
+    add(type, uom, value.doubleValue());
   }
 
   public void add(HardwareMeasurementType type, int cores, int sockets, int instances) {
-    add(type, (double) cores, (double) sockets, (double) instances);
+    add(type, Uom.CORES, cores);
+    add(type, Uom.SOCKETS, sockets);
+    add(type, Uom.INSTANCES, instances);
   }
 
   public void add(HardwareMeasurementType type, Double cores, Double sockets, Double instances) {
@@ -148,6 +171,13 @@ public class UsageCalculation {
     add(type, Uom.INSTANCES, instances);
   }
 
+  private void add(HardwareMeasurementType type, Measurement.Uom uom, double value) {
+    increment(type, uom, value);
+    if (type != HardwareMeasurementType.TOTAL) {
+      increment(HardwareMeasurementType.TOTAL, uom, value);
+    }
+  }
+
   public void addPhysical(int cores, int sockets, int instances) {
     add(HardwareMeasurementType.PHYSICAL, cores, sockets, instances);
   }
@@ -181,18 +211,26 @@ public class UsageCalculation {
     add(cloudType, cores, sockets, instances);
   }
 
-  private void increment(HardwareMeasurementType type, Measurement.Uom uom, Double value) {
-    Totals total = getOrDefault(type);
-    total.increment(uom, value);
+  private void increment(HardwareMeasurementType type, Measurement.Uom uom, double value) {
+    getOrDefault(type).increment(uom, value);
   }
 
   private Totals getOrDefault(HardwareMeasurementType type) {
-    this.mappedTotals.putIfAbsent(type, new Totals());
-    return this.mappedTotals.get(type);
+    Totals totals = mappedTotals[type.ordinal()];
+    if (totals == null) {
+      totals = new Totals();
+      mappedTotals[type.ordinal()] = totals;
+    }
+    return totals;
   }
 
   public boolean hasMeasurements() {
-    return !this.mappedTotals.isEmpty();
+    for (Totals totals : mappedTotals) {
+      if (totals != null) {
+        return true;
+      }
+    }
+    return false;
   }
 
   @Override
@@ -202,8 +240,10 @@ public class UsageCalculation {
         String.format(
             "[Product: %s, sla: %s, usage: %s, billingProvider: %s, billingAccountId: %s",
             key.productId, key.sla, key.usage, key.billingProvider, key.billingAccountId));
-    for (Entry<HardwareMeasurementType, Totals> entry : mappedTotals.entrySet()) {
-      builder.append(String.format(", %s: %s", entry.getKey(), entry.getValue()));
+    for (HardwareMeasurementType type : TYPES) {
+      if (mappedTotals[type.ordinal()] != null) {
+        builder.append(String.format(", %s: %s", type, mappedTotals[type.ordinal()]));
+      }
     }
     builder.append("]");
     return builder.toString();
@@ -20,7 +20,10 @@
  */
 package org.candlepin.subscriptions.task;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
 import lombok.Data;
 
 /** Settings particular to the task queue framework. */
@@ -41,4 +44,73 @@ public class TaskQueueProperties {
 
   /** Batch size number of records * */
   private String maxPollRecords = "15";
+
+  /**
+   * Number of tasks of an org that the in-memory task queue may hand out in a row while other orgs
+   * have tasks waiting, by org ID. Orgs not listed have a weight of 1.
+   */
+  private Map<String, Integer> orgWeights = new HashMap<>();
+
+  /**
+   * Whether the number of tasks running at once adapts to task latency and database connection
+   * pool contention, between min-concurrency and max-concurrency. When disabled, consumers run as
+   * many tasks as their threads allow.
+   */
+  private boolean adaptiveConcurrency = false;
+
+  private int minConcurrency = 1;
+
+  /**
+   * Ceiling of the adaptive concurrency. Defaults to the consumer's thread count, i.e. the executor
+   * thread limit or the kafka listener concurrency.
+   */
+  private Integer maxConcurrency;
+
+  /** Factor the adaptive concurrency is multiplied by when it backs off, between 0 and 1. */
+  private double concurrencyBackOffRatio = 0.9;
+
+  /**
+   * The adaptive concurrency backs off when the recent task latency exceeds its long-term average
+   * by more than this factor.
+   */
+  private double concurrencyLatencyTolerance = 2.0;
+
+  /**
+   * The adaptive concurrency backs off when the recent average of threads waiting for a database
+   * connection reaches this.
+   */
+  private double concurrencyPendingConnectionsTolerance = 0.5;
+
+  /**
+   * How long a kafka listener waits for the adaptive concurrency to let a task run. A task still
+   * held back then is redelivered instead, so this must stay well below the consumer's
+   * max.poll.interval.ms.
+   */
+  private Duration concurrencyAcquireTimeout = Duration.ofSeconds(30);
+
+  /**
+   * Topic that failed tasks are re-published on, to be attempted again once their back-off has
+   * elapsed. Failed tasks are not retried when unset.
+   */
+  private String retryTopic;
+
+  /**
+   * Topic that tasks are published on, along with the reason of their last failure, once they are
+   * out of attempts. Such tasks are only logged when unset.
+   */
+  private String deadLetterTopic;
+
+  /** Number of times a task is attempted before it is dead-lettered, including the first. */
+  private int maxAttempts = 5;
+
+  private Duration retryBackOffInitialInterval = Duration.ofSeconds(30);
+
+  private double retryBackOffMultiplier = 2.0;
+
+  /**
+   * Upper bound of the delay before a task is retried. A retry received before it is due is not
+   * waited out: its partition is paused and the record is redelivered once the remaining back-off
+   * has elapsed.
+   */
+  private Duration retryBackOffMaxInterval = Duration.ofMinutes(10);
 }
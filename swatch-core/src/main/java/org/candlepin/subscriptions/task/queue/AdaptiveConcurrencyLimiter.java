@@ -0,0 +1,249 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.task.queue;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+/**
+ * Limits the number of tasks of a group that run at once, adapting the limit to how the tasks and
+ * the database connection pool behave (AIMD).
+ *
+ * <p>After each task, the limit backs off (see {@link BackOff}) if the recent average of threads
+ * waiting for a database connection reaches its tolerance, or if the recent task latency exceeds
+ * its long-term average by more than the tolerated factor. Once backed off, the limit holds for one
+ * limit's worth of completions, so that a single congestion episode only backs off once.
+ * Otherwise, if the limit was reached when the task completed, it grows by one over roughly one
+ * limit's worth of completions. The limit always stays between the configured floor and ceiling.
+ */
+public class AdaptiveConcurrencyLimiter implements MeterBinder {
+
+  private static final double PENDING_CONNECTIONS_WEIGHT = 0.25;
+  private static final double RECENT_LATENCY_WEIGHT = 0.5;
+  private static final double LONG_TERM_LATENCY_WEIGHT = 0.05;
+
+  private final String group;
+  private final int minLimit;
+  private final int maxLimit;
+  private final IntSupplier pendingConnections;
+  private final BackOff backOff;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition permitReleased = lock.newCondition();
+  private volatile double limit;
+  private int inFlight;
+  private double recentLatency = Double.NaN;
+  private double longTermLatency = Double.NaN;
+  private double recentPendingConnections;
+  private int holdCompletions;
+
+  /**
+   * @param group the task group, used to tag metrics.
+   * @param initialLimit the limit to start with.
+   * @param minLimit the floor of the limit.
+   * @param maxLimit the ceiling of the limit.
+   * @param pendingConnections supplies the number of threads waiting for a database connection.
+   */
+  public AdaptiveConcurrencyLimiter(
+      String group, int initialLimit, int minLimit, int maxLimit, IntSupplier pendingConnections) {
+    this(group, initialLimit, minLimit, maxLimit, pendingConnections, BackOff.DEFAULT);
+  }
+
+  /**
+   * @param group the task group, used to tag metrics.
+   * @param initialLimit the limit to start with.
+   * @param minLimit the floor of the limit.
+   * @param maxLimit the ceiling of the limit.
+   * @param pendingConnections supplies the number of threads waiting for a database connection.
+   * @param backOff when and by how much the limit backs off.
+   */
+  public AdaptiveConcurrencyLimiter(
+      String group,
+      int initialLimit,
+      int minLimit,
+      int maxLimit,
+      IntSupplier pendingConnections,
+      BackOff backOff) {
+    if (minLimit < 1 || maxLimit < minLimit) {
+      throw new IllegalArgumentException(
+          String.format("Invalid concurrency bounds for %s: [%d, %d]", group, minLimit, maxLimit));
+    }
+    this.group = group;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.pendingConnections = pendingConnections;
+    this.backOff = backOff;
+    this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+  }
+
+  /** Creates a limiter that always allows the given number of tasks. */
+  public static AdaptiveConcurrencyLimiter fixed(String group, int limit) {
+    return new AdaptiveConcurrencyLimiter(group, limit, limit, limit, () -> 0);
+  }
+
+  /**
+   * Waits until another task may run, and counts it as running.
+   *
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public void acquire() throws InterruptedException {
+    lock.lock();
+    try {
+      while (inFlight >= getLimit()) {
+        permitReleased.await();
+      }
+      inFlight++;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Waits until another task may run, for at most the given time, and counts it as running.
+   *
+   * @param timeout how long to wait at most.
+   * @return true if the task may run, or false if the timeout elapsed first.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public boolean tryAcquire(Duration timeout) throws InterruptedException {
+    long remaining = timeout.toNanos();
+    lock.lock();
+    try {
+      while (inFlight >= getLimit()) {
+        if (remaining <= 0) {
+          return false;
+        }
+        remaining = permitReleased.awaitNanos(remaining);
+      }
+      inFlight++;
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Counts a task as completed and adapts the limit to how long it took.
+   *
+   * @param latency how long the task ran.
+   */
+  public void release(Duration latency) {
+    lock.lock();
+    try {
+      boolean limited = inFlight >= getLimit();
+      inFlight--;
+      adapt(latency.toNanos(), limited);
+      permitReleased.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Counts a task that was acquired but never ran as completed, leaving the limit unchanged. */
+  public void cancel() {
+    lock.lock();
+    try {
+      inFlight--;
+      permitReleased.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int getLimit() {
+    return (int) limit;
+  }
+
+  public int getMaxLimit() {
+    return maxLimit;
+  }
+
+  int getInFlight() {
+    lock.lock();
+    try {
+      return inFlight;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("swatch_task_concurrency_limit", this, AdaptiveConcurrencyLimiter::getLimit)
+        .tag("group", group)
+        .register(registry);
+    Gauge.builder(
+            "swatch_task_concurrency_in_flight", this, AdaptiveConcurrencyLimiter::getInFlight)
+        .tag("group", group)
+        .register(registry);
+  }
+
+  private void adapt(long latency, boolean limited) {
+    if (minLimit == maxLimit) {
+      return;
+    }
+    if (Double.isNaN(recentLatency)) {
+      recentLatency = latency;
+      longTermLatency = latency;
+    } else {
+      recentLatency += RECENT_LATENCY_WEIGHT * (latency - recentLatency);
+      longTermLatency += LONG_TERM_LATENCY_WEIGHT * (latency - longTermLatency);
+    }
+    recentPendingConnections +=
+        PENDING_CONNECTIONS_WEIGHT * (pendingConnections.getAsInt() - recentPendingConnections);
+    if (holdCompletions > 0) {
+      holdCompletions--;
+    } else if (recentPendingConnections >= backOff.pendingConnectionsTolerance()
+        || recentLatency > backOff.latencyTolerance() * longTermLatency) {
+      limit = Math.max(minLimit, limit * backOff.ratio());
+      holdCompletions = getLimit();
+    } else if (limited) {
+      limit = Math.min(maxLimit, limit + 1.0 / limit);
+    }
+  }
+
+  /**
+   * When and by how much the limit backs off.
+   *
+   * @param ratio the factor the limit is multiplied by when backing off, between 0 and 1.
+   * @param latencyTolerance how many times its long-term average the recent task latency may be
+   *     before backing off.
+   * @param pendingConnectionsTolerance the recent average of threads waiting for a database
+   *     connection at which to back off.
+   */
+  public record BackOff(double ratio, double latencyTolerance, double pendingConnectionsTolerance) {
+    public static final BackOff DEFAULT = new BackOff(0.9, 2.0, 0.5);
+
+    public BackOff {
+      if (ratio <= 0 || ratio >= 1 || latencyTolerance <= 1 || pendingConnectionsTolerance <= 0) {
+        throw new IllegalArgumentException(
+            String.format(
+                "Invalid concurrency back-off: ratio=%s, latencyTolerance=%s,"
+                    + " pendingConnectionsTolerance=%s",
+                ratio, latencyTolerance, pendingConnectionsTolerance));
+      }
+    }
+  }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.task.queue;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.candlepin.subscriptions.task.TaskDescriptor;
+import org.candlepin.subscriptions.task.TaskType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keyed registry of tasks, used by task queues to drop redundant tasks requested for the same work.
+ *
+ * <p>Tasks are for the same work when they have the same group, type and arguments, other than the
+ * requested time range (the startDateTime and endDateTime arguments). The time ranges of coalesced
+ * tasks are merged into a single range spanning all of them.
+ *
+ * <p>Queues that can see when their tasks are taken for execution register pending tasks, and
+ * merge later requests for the same work into them (see {@link #register} and {@link #release}).
+ * Queues that can't, like Kafka, instead skip a task when an execution of the same work covering
+ * its time range has started after the task was enqueued and completed successfully (see {@link
+ * #shouldExecute} and {@link #recordExecution}). Executions are only remembered by the process that
+ * ran them, and Kafka tasks are spread across partitions, so only redundant tasks received by the
+ * same process are skipped.
+ */
+public class TaskCoalescer {
+  private static final Logger log = LoggerFactory.getLogger(TaskCoalescer.class);
+
+  static final String START_ARG = "startDateTime";
+  static final String END_ARG = "endDateTime";
+
+  /**
+   * How long the last execution of some work is remembered. Tasks that wait in the queue for longer
+   * than this are executed even if redundant, which is safe but wasteful.
+   */
+  private static final Duration EXECUTION_RETENTION = Duration.ofHours(1);
+
+  private static final long MAX_TRACKED_EXECUTIONS = 10_000;
+
+  private final Map<TaskKey, PendingTask> pendingTasks = new ConcurrentHashMap<>();
+  private final Cache<TaskKey, Execution> lastExecutions =
+      CacheBuilder.newBuilder()
+          .expireAfterWrite(EXECUTION_RETENTION)
+          .maximumSize(MAX_TRACKED_EXECUTIONS)
+          .build();
+  private final MeterRegistry meterRegistry;
+
+  public TaskCoalescer(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Registers a task as pending execution. If a task for the same work is already pending, the
+   * time range of the given task is merged into it instead.
+   *
+   * @param taskDescriptor the task being enqueued
+   * @return the pending task to be queued, or empty if the task was merged into a pending one
+   */
+  public Optional<PendingTask> register(TaskDescriptor taskDescriptor) {
+    TaskKey key = TaskKey.of(taskDescriptor);
+    TimeRange range = TimeRange.of(taskDescriptor);
+    PendingTask registered = new PendingTask(key, taskDescriptor, range);
+    PendingTask pending =
+        pendingTasks.merge(
+            key,
+            registered,
+            (existing, ignored) -> {
+              existing.merge(range);
+              return existing;
+            });
+    if (pending != registered) {
+      coalesced(taskDescriptor);
+      return Optional.empty();
+    }
+    return Optional.of(registered);
+  }
+
+  /**
+   * Removes a pending task from the registry as it is taken for execution. Tasks enqueued from then
+   * on are no longer merged into it.
+   *
+   * @param pendingTask the task taken for execution
+   * @return the task to execute, including the time ranges of any tasks merged into it
+   */
+  public TaskDescriptor release(PendingTask pendingTask) {
+    // computeIfPresent locks the entry, so no range can be merged after it is read
+    TaskDescriptor[] released = {pendingTask.toTaskDescriptor()};
+    pendingTasks.computeIfPresent(
+        pendingTask.key,
+        (key, existing) -> {
+          if (existing != pendingTask) {
+            return existing;
+          }
+          released[0] = existing.toTaskDescriptor();
+          return null;
+        });
+    executed(released[0]);
+    return released[0];
+  }
+
+  /**
+   * Removes a pending task from the registry without executing it, for when it could not be queued.
+   * Tasks enqueued from then on are queued again instead of being merged into it; the ranges
+   * already merged into it are dropped along with it.
+   *
+   * @param pendingTask the task that could not be queued
+   */
+  public void discard(PendingTask pendingTask) {
+    pendingTasks.remove(pendingTask.key, pendingTask);
+  }
+
+  /**
+   * Determines whether a task still needs to be executed. A task is redundant when a successful
+   * execution of the same work, covering the task's time range, has started after the task was
+   * enqueued.
+   *
+   * @param taskDescriptor the task received from the queue
+   * @param enqueuedAt when the task was enqueued
+   * @return true if the task should be executed, false if it was coalesced
+   */
+  public boolean shouldExecute(TaskDescriptor taskDescriptor, Instant enqueuedAt) {
+    Execution last = lastExecutions.getIfPresent(TaskKey.of(taskDescriptor));
+    if (last != null
+        && !last.startedAt.isBefore(enqueuedAt)
+        && last.range.covers(TimeRange.of(taskDescriptor))) {
+      coalesced(taskDescriptor);
+      return false;
+    }
+    executed(taskDescriptor);
+    return true;
+  }
+
+  /**
+   * Records a successful execution of a task, so that tasks for the same work enqueued before it
+   * started can be skipped. Failed executions must not be recorded, so that the tasks they would
+   * cover are still executed.
+   *
+   * @param taskDescriptor the task that was executed
+   * @param startedAt when the execution started
+   */
+  public void recordExecution(TaskDescriptor taskDescriptor, Instant startedAt) {
+    lastExecutions.put(
+        TaskKey.of(taskDescriptor), new Execution(startedAt, TimeRange.of(taskDescriptor)));
+  }
+
+  private void coalesced(TaskDescriptor taskDescriptor) {
+    log.debug("Coalesced redundant task: {}", taskDescriptor);
+    meterRegistry
+        .counter("swatch_task_coalesced", "type", taskDescriptor.getTaskType().name())
+        .increment();
+  }
+
+  private void executed(TaskDescriptor taskDescriptor) {
+    meterRegistry
+        .counter("swatch_task_executed", "type", taskDescriptor.getTaskType().name())
+        .increment();
+  }
+
+  /** A task registered as pending, along with the time ranges merged into it. */
+  public static class PendingTask {
+    private final TaskKey key;
+    private final TaskDescriptor taskDescriptor;
+    private TimeRange range;
+
+    private PendingTask(TaskKey key, TaskDescriptor taskDescriptor, TimeRange range) {
+      this.key = key;
+      this.taskDescriptor = taskDescriptor;
+      this.range = range;
+    }
+
+    private synchronized void merge(TimeRange other) {
+      range = range.span(other);
+    }
+
+    private synchronized TaskDescriptor toTaskDescriptor() {
+      if (range.equals(TimeRange.of(taskDescriptor))) {
+        return taskDescriptor;
+      }
+      Map<String, List<String>> args = new HashMap<>(taskDescriptor.getTaskArgs());
+      args.put(START_ARG, List.of(range.start.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME)));
+      args.put(END_ARG, List.of(range.end.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME)));
+      return TaskDescriptor.builder(taskDescriptor.getTaskType(), taskDescriptor.getGroupId())
+          .setArgs(args)
+          .build();
+    }
+  }
+
+  private record TaskKey(
+      String groupId, TaskType type, Map<String, List<String>> args, boolean ranged) {
+    static TaskKey of(TaskDescriptor taskDescriptor) {
+      Map<String, List<String>> args = new HashMap<>(taskDescriptor.getTaskArgs());
+      // an unparsable range is part of the work identity, so that it is never merged
+      boolean ranged = TimeRange.of(taskDescriptor).start != null;
+      if (ranged) {
+        args.remove(START_ARG);
+        args.remove(END_ARG);
+      }
+      return new TaskKey(taskDescriptor.getGroupId(), taskDescriptor.getTaskType(), args, ranged);
+    }
+  }
+
+  private record Execution(Instant startedAt, TimeRange range) {}
+
+  /** Time range requested by a task, with null bounds when the task has no range. */
+  private record TimeRange(OffsetDateTime start, OffsetDateTime end) {
+    static TimeRange of(TaskDescriptor taskDescriptor) {
+      if (!taskDescriptor.hasArg(START_ARG) || !taskDescriptor.hasArg(END_ARG)) {
+        return new TimeRange(null, null);
+      }
+      try {
+        return new TimeRange(
+            OffsetDateTime.parse(taskDescriptor.getArg(START_ARG).get(0)),
+            OffsetDateTime.parse(taskDescriptor.getArg(END_ARG).get(0)));
+      } catch (DateTimeParseException e) {
+        return new TimeRange(null, null);
+      }
+    }
+
+    TimeRange span(TimeRange other) {
+      if (start == null || other.start == null) {
+        return this;
+      }
+      return new TimeRange(
+          start.isBefore(other.start) ? start : other.start,
+          end.isAfter(other.end) ? end : other.end);
+    }
+
+    boolean covers(TimeRange other) {
+      return start == null
+          || other.start == null
+          || (!start.isAfter(other.start) && !end.isBefore(other.end));
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.task.queue;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Objects;
+import java.util.function.IntSupplier;
+import javax.sql.DataSource;
+import org.candlepin.subscriptions.task.TaskQueueProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the concurrency limiter of each task consumer.
+ *
+ * <p>Consumers of task groups with adaptive concurrency enabled share the signal of the primary
+ * database connection pool, so that one heavy group backing off leaves connections to the others.
+ */
+public class TaskConcurrencyLimiterFactory {
+
+  private static final Logger log = LoggerFactory.getLogger(TaskConcurrencyLimiterFactory.class);
+
+  private final IntSupplier pendingConnections;
+  private final MeterRegistry meterRegistry;
+
+  public TaskConcurrencyLimiterFactory(DataSource dataSource, MeterRegistry meterRegistry) {
+    this.pendingConnections = pendingConnections(dataSource);
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Creates the limiter of a task group.
+   *
+   * @param taskQueueProperties the settings of the task group.
+   * @param concurrency the number of tasks the consumer runs at once without adaptive concurrency.
+   * @return an adaptive limiter between the configured floor and ceiling if enabled, otherwise a
+   *     fixed limiter of the given concurrency.
+   */
+  public AdaptiveConcurrencyLimiter create(
+      TaskQueueProperties taskQueueProperties, int concurrency) {
+    String group = taskQueueProperties.getTopic();
+    if (!taskQueueProperties.isAdaptiveConcurrency()) {
+      return AdaptiveConcurrencyLimiter.fixed(group, concurrency);
+    }
+    int maxConcurrency =
+        Objects.requireNonNullElse(taskQueueProperties.getMaxConcurrency(), concurrency);
+    log.info(
+        "Adapting concurrency of {} between {} and {} tasks",
+        group,
+        taskQueueProperties.getMinConcurrency(),
+        maxConcurrency);
+    var limiter =
+        new AdaptiveConcurrencyLimiter(
+            group,
+            concurrency,
+            taskQueueProperties.getMinConcurrency(),
+            maxConcurrency,
+            pendingConnections,
+            new AdaptiveConcurrencyLimiter.BackOff(
+                taskQueueProperties.getConcurrencyBackOffRatio(),
+                taskQueueProperties.getConcurrencyLatencyTolerance(),
+                taskQueueProperties.getConcurrencyPendingConnectionsTolerance()));
+    limiter.bindTo(meterRegistry);
+    return limiter;
+  }
+
+  private static IntSupplier pendingConnections(DataSource dataSource) {
+    if (!(dataSource instanceof HikariDataSource hikariDataSource)) {
+      return () -> 0;
+    }
+    return () -> {
+      // The pool is only available once the first connection was requested
+      HikariPoolMXBean pool = hikariDataSource.getHikariPoolMXBean();
+      return pool == null ? 0 : pool.getThreadsAwaitingConnection();
+    };
+  }
+}
@@ -20,13 +20,17 @@
  */
 package org.candlepin.subscriptions.task.queue;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.sql.DataSource;
 import org.candlepin.subscriptions.task.queue.inmemory.ExecutorTaskQueue;
 import org.candlepin.subscriptions.task.queue.inmemory.ExecutorTaskQueueConfiguration;
 import org.candlepin.subscriptions.task.queue.inmemory.ExecutorTaskQueueConsumerFactory;
 import org.candlepin.subscriptions.task.queue.kafka.KafkaTaskConsumerConfiguration;
 import org.candlepin.subscriptions.task.queue.kafka.KafkaTaskConsumerFactory;
 import org.candlepin.subscriptions.util.KafkaConsumerRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -46,13 +50,25 @@ public class TaskConsumerConfiguration {
   @Bean
   @Primary
   @Profile("kafka-queue")
-  KafkaTaskConsumerFactory kakfaTaskConsumerFactory(KafkaConsumerRegistry kafkaConsumerRegistry) {
-    return new KafkaTaskConsumerFactory(kafkaConsumerRegistry);
+  KafkaTaskConsumerFactory kakfaTaskConsumerFactory(
+      KafkaConsumerRegistry kafkaConsumerRegistry,
+      MeterRegistry meterRegistry,
+      KafkaProperties kafkaProperties,
+      TaskConcurrencyLimiterFactory limiterFactory) {
+    return new KafkaTaskConsumerFactory(
+        kafkaConsumerRegistry, meterRegistry, kafkaProperties, limiterFactory);
   }
 
   @Bean
   @Profile("!kafka-queue")
-  ExecutorTaskQueueConsumerFactory inMemoryTaskConsumerFactory(ExecutorTaskQueue queue) {
-    return new ExecutorTaskQueueConsumerFactory(queue);
+  ExecutorTaskQueueConsumerFactory inMemoryTaskConsumerFactory(
+      ExecutorTaskQueue queue, TaskConcurrencyLimiterFactory limiterFactory) {
+    return new ExecutorTaskQueueConsumerFactory(queue, limiterFactory);
+  }
+
+  @Bean
+  TaskConcurrencyLimiterFactory taskConcurrencyLimiterFactory(
+      ObjectProvider<DataSource> dataSource, MeterRegistry meterRegistry) {
+    return new TaskConcurrencyLimiterFactory(dataSource.getIfAvailable(), meterRegistry);
   }
 }
@@ -21,6 +21,7 @@
 package org.candlepin.subscriptions.task.queue.inmemory;
 
 import jakarta.annotation.PreDestroy;
+import java.time.Duration;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -28,6 +29,7 @@ import org.candlepin.subscriptions.task.TaskDescriptor;
 import org.candlepin.subscriptions.task.TaskExecutionException;
 import org.candlepin.subscriptions.task.TaskFactory;
 import org.candlepin.subscriptions.task.TaskWorker;
+import org.candlepin.subscriptions.task.queue.AdaptiveConcurrencyLimiter;
 import org.candlepin.subscriptions.task.queue.TaskConsumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,7 +37,9 @@ import org.slf4j.LoggerFactory;
 /**
  * Processor that is responsible for running queued tasks.
  *
- * <p>Uses a separate thread to convert TaskDescriptors into actual tasks.
+ * <p>Uses a separate thread to convert TaskDescriptors into actual tasks. A task is only taken from
+ * the queue once the concurrency limiter allows another task to run, so that the queue, rather than
+ * the executor, decides which org's task runs next.
  *
  * @see ExecutorTaskQueue
  */
@@ -46,14 +50,39 @@ public class ExecutorTaskProcessor implements TaskConsumer {
   private final ExecutorTaskQueue queue;
   private final String queueId;
   private final TaskFactory taskFactory;
+  private final AdaptiveConcurrencyLimiter limiter;
   private final Thread thread;
 
   public ExecutorTaskProcessor(
       ExecutorService executor, TaskFactory taskFactory, ExecutorTaskQueue queue, String queueId) {
+    this(executor, taskFactory, queue, queueId, Integer.MAX_VALUE);
+  }
+
+  public ExecutorTaskProcessor(
+      ExecutorService executor,
+      TaskFactory taskFactory,
+      ExecutorTaskQueue queue,
+      String queueId,
+      int maxRunningTasks) {
+    this(
+        executor,
+        taskFactory,
+        queue,
+        queueId,
+        AdaptiveConcurrencyLimiter.fixed(queueId, maxRunningTasks));
+  }
+
+  public ExecutorTaskProcessor(
+      ExecutorService executor,
+      TaskFactory taskFactory,
+      ExecutorTaskQueue queue,
+      String queueId,
+      AdaptiveConcurrencyLimiter limiter) {
     this.executor = executor;
     this.taskFactory = taskFactory;
     this.queue = queue;
     this.queueId = queueId;
+    this.limiter = limiter;
     this.thread = new Thread(this::run);
     this.thread.start();
   }
@@ -92,10 +121,26 @@ public class ExecutorTaskProcessor implements TaskConsumer {
     log.info("Starting in-memory task processor");
     while (true) {
       try {
-        Optional<TaskDescriptor> task = queue.take(queueId);
+        limiter.acquire();
+        Optional<TaskDescriptor> task;
+        try {
+          task = queue.take(queueId);
+        } catch (InterruptedException e) {
+          limiter.cancel();
+          throw e;
+        }
         if (task.isPresent()) {
-          this.executor.execute(() -> this.processTask(task.get()));
+          this.executor.execute(
+              () -> {
+                long start = System.nanoTime();
+                try {
+                  this.processTask(task.get());
+                } finally {
+                  limiter.release(Duration.ofNanos(System.nanoTime() - start));
+                }
+              });
         } else {
+          limiter.cancel();
           log.info("Stopping in-memory task processor");
           break;
         }
@@ -20,17 +20,19 @@
  */
 package org.candlepin.subscriptions.task.queue.inmemory;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.ws.rs.core.Response;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import org.candlepin.subscriptions.exception.ErrorCode;
 import org.candlepin.subscriptions.exception.SubscriptionsException;
 import org.candlepin.subscriptions.task.TaskDescriptor;
+import org.candlepin.subscriptions.task.queue.TaskCoalescer;
+import org.candlepin.subscriptions.task.queue.TaskCoalescer.PendingTask;
 import org.candlepin.subscriptions.task.queue.TaskQueue;
 
 /**
@@ -49,18 +51,40 @@ import org.candlepin.subscriptions.task.queue.TaskQueue;
  * java.util.concurrent.ThreadPoolExecutor} with a custom implementation of {@link
  * java.util.concurrent.BlockingQueue}.
  *
+ * <p>A task enqueued while a task for the same work is still waiting in the queue is merged into
+ * the waiting task, see {@link TaskCoalescer}.
+ *
+ * <p>Tasks of each group are taken fairly across orgs, see {@link FairShareTaskQueue}.
+ *
  * @see ExecutorService
  * @see Executors
  */
 public class ExecutorTaskQueue implements TaskQueue {
-  private final Map<String, BlockingQueue<Optional<TaskDescriptor>>> queues =
-      new ConcurrentHashMap<>();
+  private static final int QUEUE_CAPACITY = 1024;
+
+  /** Task arguments identifying the org of a task, in order of precedence. */
+  private static final List<String> ORG_ARGS = List.of("orgId", "org_id", "orgs");
+
+  private final Map<String, FairShareTaskQueue<PendingTask>> queues = new ConcurrentHashMap<>();
+  private final TaskCoalescer coalescer;
+  private final MeterRegistry meterRegistry;
+
+  public ExecutorTaskQueue(TaskCoalescer coalescer, MeterRegistry meterRegistry) {
+    this.coalescer = coalescer;
+    this.meterRegistry = meterRegistry;
+  }
 
   @Override
   public void enqueue(TaskDescriptor taskDescriptor) {
+    Optional<PendingTask> pendingTask = coalescer.register(taskDescriptor);
+    if (pendingTask.isEmpty()) {
+      return;
+    }
     try {
-      getQueue(taskDescriptor.getGroupId()).put(Optional.of(taskDescriptor));
+      getQueue(taskDescriptor.getGroupId()).put(orgOf(taskDescriptor), pendingTask.get());
     } catch (InterruptedException e) {
+      // never queued, so later tasks for the same work must not be merged into it
+      coalescer.discard(pendingTask.get());
       Thread.currentThread().interrupt();
       throw new SubscriptionsException(
           ErrorCode.UNHANDLED_EXCEPTION_ERROR,
@@ -70,23 +94,35 @@ public class ExecutorTaskQueue implements TaskQueue {
     }
   }
 
-  private BlockingQueue<Optional<TaskDescriptor>> getQueue(String groupId) {
-    return queues.computeIfAbsent(groupId, k -> new ArrayBlockingQueue<>(1024));
+  private FairShareTaskQueue<PendingTask> getQueue(String groupId) {
+    return queues.computeIfAbsent(
+        groupId, k -> new FairShareTaskQueue<>(QUEUE_CAPACITY, groupId, meterRegistry));
   }
 
-  Optional<TaskDescriptor> take(String queueId) throws InterruptedException {
-    return getQueue(queueId).take();
+  private static String orgOf(TaskDescriptor taskDescriptor) {
+    return ORG_ARGS.stream()
+        .filter(taskDescriptor::hasArg)
+        .map(arg -> taskDescriptor.getArg(arg).get(0))
+        .findFirst()
+        .orElse("");
   }
 
-  void shutdown() {
-    queues.values().forEach(this::shutdownQueue);
+  /**
+   * Sets how many tasks of an org may be taken in a row from a group while other orgs have tasks
+   * waiting. Orgs without a weight have a weight of 1.
+   *
+   * @param groupId the task group
+   * @param orgWeights weight of each org
+   */
+  void setOrgWeights(String groupId, Map<String, Integer> orgWeights) {
+    getQueue(groupId).setOrgWeights(orgWeights);
   }
 
-  private void shutdownQueue(BlockingQueue<Optional<TaskDescriptor>> queue) {
-    try {
-      queue.put(Optional.empty());
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
-    }
+  Optional<TaskDescriptor> take(String queueId) throws InterruptedException {
+    return getQueue(queueId).take().map(coalescer::release);
+  }
+
+  void shutdown() {
+    queues.values().forEach(FairShareTaskQueue::shutdown);
   }
 }
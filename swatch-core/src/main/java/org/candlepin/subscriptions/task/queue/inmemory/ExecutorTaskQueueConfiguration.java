@@ -20,6 +20,8 @@
  */
 package org.candlepin.subscriptions.task.queue.inmemory;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.candlepin.subscriptions.task.queue.TaskCoalescer;
 import org.candlepin.subscriptions.task.queue.TaskConsumerConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,8 +48,8 @@ public class ExecutorTaskQueueConfiguration {
    * @see TaskConsumerConfiguration
    */
   @Bean
-  ExecutorTaskQueue inMemoryQueue() {
+  ExecutorTaskQueue inMemoryQueue(MeterRegistry meterRegistry) {
     log.info("Configuring an in-memory task queue.");
-    return new ExecutorTaskQueue();
+    return new ExecutorTaskQueue(new TaskCoalescer(meterRegistry), meterRegistry);
   }
 }
@@ -23,25 +23,36 @@ package org.candlepin.subscriptions.task.queue.inmemory;
 import java.util.concurrent.Executors;
 import org.candlepin.subscriptions.task.TaskFactory;
 import org.candlepin.subscriptions.task.TaskQueueProperties;
+import org.candlepin.subscriptions.task.queue.TaskConcurrencyLimiterFactory;
 import org.candlepin.subscriptions.task.queue.TaskConsumerFactory;
 
 /** Factory for task consumers that read tasks from an in-memory queue. */
 public class ExecutorTaskQueueConsumerFactory
     implements TaskConsumerFactory<ExecutorTaskProcessor> {
   private final ExecutorTaskQueue executorTaskQueue;
+  private final TaskConcurrencyLimiterFactory limiterFactory;
 
-  public ExecutorTaskQueueConsumerFactory(ExecutorTaskQueue executorTaskQueue) {
+  public ExecutorTaskQueueConsumerFactory(
+      ExecutorTaskQueue executorTaskQueue, TaskConcurrencyLimiterFactory limiterFactory) {
     this.executorTaskQueue = executorTaskQueue;
+    this.limiterFactory = limiterFactory;
   }
 
   @Override
   public ExecutorTaskProcessor createTaskConsumer(
       TaskFactory taskFactory, TaskQueueProperties taskQueueProperties) {
 
+    executorTaskQueue.setOrgWeights(
+        taskQueueProperties.getTopic(), taskQueueProperties.getOrgWeights());
+    var limiter =
+        limiterFactory.create(
+            taskQueueProperties, taskQueueProperties.getExecutorTaskQueueThreadLimit());
+    // Threads are only started as needed, so the pool can be sized for the limiter's ceiling
     return new ExecutorTaskProcessor(
-        Executors.newFixedThreadPool(taskQueueProperties.getExecutorTaskQueueThreadLimit()),
+        Executors.newFixedThreadPool(limiter.getMaxLimit()),
         taskFactory,
         executorTaskQueue,
-        taskQueueProperties.getTopic());
+        taskQueueProperties.getTopic(),
+        limiter);
   }
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.task.queue.inmemory;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded blocking queue for the tasks of one task group, keeping a sub-queue per org.
+ *
+ * <p>Tasks are taken from the orgs having tasks waiting in weighted round-robin order: an org may
+ * have up to its weight (1 by default) tasks taken in a row before the next waiting org gets its
+ * turn. That way, a large backlog of one org does not starve the other orgs queued behind it.
+ *
+ * <p>The depth of each non-empty org sub-queue is exposed as the swatch_task_queue_depth gauge,
+ * and the time tasks spend waiting as the swatch_task_queue_wait timer.
+ */
+class FairShareTaskQueue<T> {
+  private final int capacity;
+  private final String groupId;
+  private final MeterRegistry meterRegistry;
+  private final Timer waitTimer;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+
+  private final Map<String, Deque<Entry<T>>> orgQueues = new HashMap<>();
+  private final Map<String, Gauge> orgDepthGauges = new HashMap<>();
+  // orgs having tasks waiting, in turn order; the org whose turn it is comes first
+  private final Deque<String> turns = new ArrayDeque<>();
+  private Map<String, Integer> orgWeights = Map.of();
+  private int takenInTurn;
+  private int size;
+  private boolean shutdown;
+
+  FairShareTaskQueue(int capacity, String groupId, MeterRegistry meterRegistry) {
+    this.capacity = capacity;
+    this.groupId = groupId;
+    this.meterRegistry = meterRegistry;
+    this.waitTimer = meterRegistry.timer("swatch_task_queue_wait", "group", groupId);
+  }
+
+  void setOrgWeights(Map<String, Integer> orgWeights) {
+    lock.lock();
+    try {
+      this.orgWeights = Map.copyOf(orgWeights);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Adds a task to the sub-queue of its org, waiting for space to become available if needed.
+   *
+   * @param orgId the org of the task, or an empty string for tasks not specific to an org
+   * @param task the task to add
+   * @throws InterruptedException if interrupted while waiting
+   */
+  void put(String orgId, T task) throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (size >= capacity) {
+        notFull.await();
+      }
+      orgQueues
+          .computeIfAbsent(
+              orgId,
+              org -> {
+                turns.addLast(org);
+                Deque<Entry<T>> orgQueue = new ArrayDeque<>();
+                orgDepthGauges.put(
+                    org,
+                    Gauge.builder("swatch_task_queue_depth", orgQueue, Deque::size)
+                        .tags("group", groupId, "org", org)
+                        .register(meterRegistry));
+                return orgQueue;
+              })
+          .addLast(new Entry<>(task, System.nanoTime()));
+      size++;
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Takes the next task, waiting for one to become available if needed.
+   *
+   * @return the next task, or empty once the queue is shut down and all its tasks were taken
+   * @throws InterruptedException if interrupted while waiting
+   */
+  Optional<T> take() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (size == 0 && !shutdown) {
+        notEmpty.await();
+      }
+      if (size == 0) {
+        return Optional.empty();
+      }
+      String orgId = turns.getFirst();
+      Deque<Entry<T>> orgQueue = orgQueues.get(orgId);
+      Entry<T> entry = orgQueue.removeFirst();
+      size--;
+      takenInTurn++;
+      if (orgQueue.isEmpty()) {
+        orgQueues.remove(orgId);
+        meterRegistry.remove(orgDepthGauges.remove(orgId));
+        turns.removeFirst();
+        takenInTurn = 0;
+      } else if (takenInTurn >= orgWeights.getOrDefault(orgId, 1)) {
+        turns.addLast(turns.removeFirst());
+        takenInTurn = 0;
+      }
+      notFull.signal();
+      waitTimer.record(Duration.ofNanos(System.nanoTime() - entry.enqueuedNanos));
+      return Optional.of(entry.task);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Makes {@link #take} return empty once all tasks already queued were taken. */
+  void shutdown() {
+    lock.lock();
+    try {
+      shutdown = true;
+      notEmpty.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private record Entry<T>(T task, long enqueuedNanos) {}
+}
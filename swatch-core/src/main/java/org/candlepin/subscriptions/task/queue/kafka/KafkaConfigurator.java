@@ -80,6 +80,30 @@ public class KafkaConfigurator {
       defaultListenerContainerFactory(
           ConsumerFactory<String, JsonTaskMessage> consumerFactory,
           KafkaProperties kafkaProperties) {
+    return createListenerContainerFactory(consumerFactory, kafkaProperties);
+  }
+
+  /**
+   * Container factory for the listeners of the task queue. Tasks are acknowledged manually, so that
+   * a task that can't run yet (a retry that is not due, or a task held back by the concurrency
+   * limit) can be negatively acknowledged and redelivered later. The container then pauses the
+   * partition while it keeps polling, rather than blocking the listener thread past the consumer's
+   * max.poll.interval.ms.
+   */
+  public KafkaListenerContainerFactory<ConcurrentMessageListenerContainer<String, JsonTaskMessage>>
+      manualAckListenerContainerFactory(
+          ConsumerFactory<String, JsonTaskMessage> consumerFactory,
+          KafkaProperties kafkaProperties) {
+    ConcurrentKafkaListenerContainerFactory<String, JsonTaskMessage> factory =
+        createListenerContainerFactory(consumerFactory, kafkaProperties);
+    factory.getContainerProperties().setAckMode(AckMode.MANUAL_IMMEDIATE);
+    return factory;
+  }
+
+  private ConcurrentKafkaListenerContainerFactory<String, JsonTaskMessage>
+      createListenerContainerFactory(
+          ConsumerFactory<String, JsonTaskMessage> consumerFactory,
+          KafkaProperties kafkaProperties) {
     ConcurrentKafkaListenerContainerFactory<String, JsonTaskMessage> factory =
         new ConcurrentKafkaListenerContainerFactory<>();
     factory.setConsumerFactory(consumerFactory);
@@ -0,0 +1,120 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.task.queue.kafka;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Predicate;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.candlepin.subscriptions.task.JsonTaskMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+/**
+ * Re-enqueues tasks from a dead-letter topic on the topic they were originally published on.
+ *
+ * <p>The dead-letter topic is read from the beginning up to its current end without committing
+ * any offset, so the dead-lettered tasks stay available until the topic retention removes them.
+ * Callers select the tasks to replay, e.g. by org or by when they were dead-lettered, to avoid
+ * replaying the same task twice.
+ */
+public class KafkaDeadLetterTaskReplayer {
+
+  private static final Logger log = LoggerFactory.getLogger(KafkaDeadLetterTaskReplayer.class);
+
+  private static final Duration POLL_TIMEOUT = Duration.ofSeconds(5);
+  private static final int MAX_POLL_RECORDS = 500;
+
+  private final ConsumerFactory<String, JsonTaskMessage> consumerFactory;
+  private final KafkaTemplate<String, JsonTaskMessage> producer;
+
+  public KafkaDeadLetterTaskReplayer(
+      ConsumerFactory<String, JsonTaskMessage> consumerFactory,
+      KafkaTemplate<String, JsonTaskMessage> producer) {
+    this.consumerFactory = consumerFactory;
+    this.producer = producer;
+  }
+
+  /**
+   * Replays the dead-lettered tasks that match the given filter.
+   *
+   * @param deadLetterTopic the dead-letter topic to read.
+   * @param filter selects the tasks to replay.
+   * @return the number of tasks that were re-enqueued.
+   */
+  public int replay(String deadLetterTopic, Predicate<DeadLetteredTask> filter) {
+    Properties overrides = new Properties();
+    overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, MAX_POLL_RECORDS);
+    int replayed = 0;
+    try (Consumer<String, JsonTaskMessage> consumer =
+        consumerFactory.createConsumer(null, null, "-dead-letter-replay", overrides)) {
+      List<TopicPartition> partitions =
+          consumer.partitionsFor(deadLetterTopic).stream()
+              .map(info -> new TopicPartition(deadLetterTopic, info.partition()))
+              .toList();
+      consumer.assign(partitions);
+      consumer.seekToBeginning(partitions);
+      Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+      while (!reached(consumer, endOffsets)) {
+        for (ConsumerRecord<String, JsonTaskMessage> deadLetter : consumer.poll(POLL_TIMEOUT)) {
+          DeadLetteredTask task = toDeadLetteredTask(deadLetter);
+          if (isReplayable(task, deadLetterTopic) && filter.test(task)) {
+            log.info("Replaying dead-lettered task on {}: {}", task.originalTopic(), task);
+            producer.send(task.originalTopic(), deadLetter.key(), task.message());
+            replayed++;
+          }
+        }
+      }
+    }
+    producer.flush();
+    log.info("Replayed {} task(s) from {}", replayed, deadLetterTopic);
+    return replayed;
+  }
+
+  private static boolean isReplayable(DeadLetteredTask task, String deadLetterTopic) {
+    // Records that failed to deserialize, or that do not say where they came from, are skipped.
+    return task.message() != null && !deadLetterTopic.equals(task.originalTopic());
+  }
+
+  private static boolean reached(Consumer<?, ?> consumer, Map<TopicPartition, Long> endOffsets) {
+    return endOffsets.entrySet().stream()
+        .allMatch(end -> consumer.position(end.getKey()) >= end.getValue());
+  }
+
+  private static DeadLetteredTask toDeadLetteredTask(
+      ConsumerRecord<String, JsonTaskMessage> deadLetter) {
+    return new DeadLetteredTask(
+        deadLetter.value(),
+        KafkaTaskFailureHandler.originalTopicOf(deadLetter),
+        KafkaTaskFailureHandler.attemptOf(deadLetter),
+        KafkaTaskFailureHandler.headerValue(
+            deadLetter.headers(), KafkaTaskFailureHandler.FAILURE_REASON_HEADER),
+        Instant.ofEpochMilli(deadLetter.timestamp()));
+  }
+}
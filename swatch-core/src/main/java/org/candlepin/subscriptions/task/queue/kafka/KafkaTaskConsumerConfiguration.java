@@ -66,4 +66,13 @@ public class KafkaTaskConsumerConfiguration {
 
     return kafkaConfigurator.defaultListenerContainerFactory(consumerFactory, kafkaProperties);
   }
+
+  @Bean
+  KafkaListenerContainerFactory<ConcurrentMessageListenerContainer<String, JsonTaskMessage>>
+      kafkaManualAckListenerContainerFactory(
+          ConsumerFactory<String, JsonTaskMessage> consumerFactory,
+          KafkaProperties kafkaProperties) {
+
+    return kafkaConfigurator.manualAckListenerContainerFactory(consumerFactory, kafkaProperties);
+  }
 }
@@ -20,24 +20,66 @@
  */
 package org.candlepin.subscriptions.task.queue.kafka;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.util.Objects;
+import org.candlepin.subscriptions.task.JsonTaskMessage;
 import org.candlepin.subscriptions.task.TaskFactory;
 import org.candlepin.subscriptions.task.TaskQueueProperties;
+import org.candlepin.subscriptions.task.queue.TaskCoalescer;
+import org.candlepin.subscriptions.task.queue.TaskConcurrencyLimiterFactory;
 import org.candlepin.subscriptions.task.queue.TaskConsumerFactory;
 import org.candlepin.subscriptions.util.KafkaConsumerRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
 
 /** Task consumer factory that creates consumers that read tasks from a kafka topic. */
-public class KafkaTaskConsumerFactory implements TaskConsumerFactory<KafkaTaskProcessor> {
+public class KafkaTaskConsumerFactory
+    implements TaskConsumerFactory<KafkaTaskProcessor>, DisposableBean {
 
   private final KafkaConsumerRegistry kafkaConsumerRegistry;
+  private final MeterRegistry meterRegistry;
+  private final TaskConcurrencyLimiterFactory limiterFactory;
+  private final int listenerConcurrency;
+  private final DefaultKafkaProducerFactory<String, JsonTaskMessage> failedTaskProducerFactory;
+  private final KafkaTemplate<String, JsonTaskMessage> failedTaskProducer;
 
-  public KafkaTaskConsumerFactory(KafkaConsumerRegistry kafkaConsumerRegistry) {
+  public KafkaTaskConsumerFactory(
+      KafkaConsumerRegistry kafkaConsumerRegistry,
+      MeterRegistry meterRegistry,
+      KafkaProperties kafkaProperties,
+      TaskConcurrencyLimiterFactory limiterFactory) {
     this.kafkaConsumerRegistry = kafkaConsumerRegistry;
+    this.meterRegistry = meterRegistry;
+    this.limiterFactory = limiterFactory;
+    this.listenerConcurrency =
+        Objects.requireNonNullElse(kafkaProperties.getListener().getConcurrency(), 1);
+    // Not exposed as beans, so that they do not compete with the task producer's.
+    this.failedTaskProducerFactory =
+        new DefaultKafkaProducerFactory<>(
+            KafkaTaskProducerConfiguration.getProducerProperties(kafkaProperties));
+    this.failedTaskProducer = new KafkaTemplate<>(failedTaskProducerFactory);
   }
 
   @Override
   public KafkaTaskProcessor createTaskConsumer(
       TaskFactory taskFactory, TaskQueueProperties taskQueueProperties) {
 
-    return new KafkaTaskProcessor(taskFactory, taskQueueProperties, kafkaConsumerRegistry);
+    return new KafkaTaskProcessor(
+        taskFactory,
+        taskQueueProperties,
+        kafkaConsumerRegistry,
+        new TaskCoalescer(meterRegistry),
+        new KafkaTaskFailureHandler(
+            taskQueueProperties, failedTaskProducer, meterRegistry, Clock.systemUTC()),
+        // Listener threads are bound to partitions, so the limiter can only run fewer tasks
+        limiterFactory.create(taskQueueProperties, listenerConcurrency));
+  }
+
+  @Override
+  public void destroy() {
+    failedTaskProducerFactory.destroy();
   }
 }
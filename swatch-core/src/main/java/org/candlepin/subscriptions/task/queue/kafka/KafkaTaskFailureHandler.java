@@ -0,0 +1,200 @@
+/*
+ * Copyright Red Hat, Inc.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Red Hat trademarks are not licensed under GPLv3. No permission is
+ * granted to use or replicate Red Hat trademarks that are incorporated
+ * in this software or its documentation.
+ */
+package org.candlepin.subscriptions.task.queue.kafka;
+
+import com.google.common.base.Throwables;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ExecutionException;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.candlepin.subscriptions.task.JsonTaskMessage;
+import org.candlepin.subscriptions.task.TaskQueueProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.util.StringUtils;
+
+/**
+ * Decides what happens to a task message that failed to execute.
+ *
+ * <p>While the task has attempts left, it is re-published on the retry topic with an exponentially
+ * growing delay. Once it is out of attempts, it is published on the dead-letter topic along with
+ * the reason of its last failure, from where it can be replayed with {@link
+ * KafkaDeadLetterTaskReplayer}. The attempt count and delay travel as record headers, so that the
+ * task message itself is unchanged.
+ */
+public class KafkaTaskFailureHandler {
+
+  private static final Logger log = LoggerFactory.getLogger(KafkaTaskFailureHandler.class);
+
+  public static final String ATTEMPT_HEADER = "swatch-task-attempt";
+  public static final String RETRY_AT_HEADER = "swatch-task-retry-at";
+  public static final String ORIGINAL_TOPIC_HEADER = "swatch-task-original-topic";
+  public static final String FAILURE_REASON_HEADER = "swatch-task-failure-reason";
+
+  private final TaskQueueProperties taskQueueProperties;
+  private final KafkaTemplate<String, JsonTaskMessage> producer;
+  private final MeterRegistry meterRegistry;
+  private final Clock clock;
+
+  public KafkaTaskFailureHandler(
+      TaskQueueProperties taskQueueProperties,
+      KafkaTemplate<String, JsonTaskMessage> producer,
+      MeterRegistry meterRegistry,
+      Clock clock) {
+    this.taskQueueProperties = taskQueueProperties;
+    this.producer = producer;
+    this.meterRegistry = meterRegistry;
+    this.clock = clock;
+  }
+
+  /** Whether failed tasks are re-published on a retry topic. */
+  public boolean isRetryEnabled() {
+    return StringUtils.hasText(taskQueueProperties.getRetryTopic())
+        && taskQueueProperties.getMaxAttempts() > 1;
+  }
+
+  /**
+   * Re-publishes a failed task on the retry topic, or on the dead-letter topic if it is out of
+   * attempts. The task is only logged if neither topic applies.
+   *
+   * @param taskRecord the record of the task that failed.
+   * @param failure the cause of the failure.
+   */
+  public void handleFailure(ConsumerRecord<String, JsonTaskMessage> taskRecord, Exception failure) {
+    JsonTaskMessage task = taskRecord.value();
+    int attempt = attemptOf(taskRecord);
+    String originalTopic = originalTopicOf(taskRecord);
+    if (isRetryEnabled() && attempt < taskQueueProperties.getMaxAttempts()) {
+      Duration backOff = backOff(attempt);
+      log.warn(
+          "Attempt {} of task {} failed, retrying in {}: {}",
+          attempt,
+          task,
+          backOff,
+          failure.getMessage());
+      var retry =
+          new ProducerRecord<>(taskQueueProperties.getRetryTopic(), taskRecord.key(), task);
+      setHeader(retry.headers(), ORIGINAL_TOPIC_HEADER, originalTopic);
+      setHeader(retry.headers(), ATTEMPT_HEADER, String.valueOf(attempt + 1));
+      setHeader(
+          retry.headers(),
+          RETRY_AT_HEADER,
+          String.valueOf(clock.instant().plus(backOff).toEpochMilli()));
+      publish(retry);
+      count("swatch_task_retried", task);
+    } else if (StringUtils.hasText(taskQueueProperties.getDeadLetterTopic())) {
+      log.error("Task failed after {} attempt(s), dead-lettering it: {}", attempt, task, failure);
+      var deadLetter =
+          new ProducerRecord<>(taskQueueProperties.getDeadLetterTopic(), taskRecord.key(), task);
+      setHeader(deadLetter.headers(), ORIGINAL_TOPIC_HEADER, originalTopic);
+      setHeader(deadLetter.headers(), ATTEMPT_HEADER, String.valueOf(attempt));
+      setHeader(
+          deadLetter.headers(),
+          FAILURE_REASON_HEADER,
+          Throwables.getRootCause(failure).toString());
+      publish(deadLetter);
+      count("swatch_task_dead_lettered", task);
+    } else {
+      // If a task fails to execute and has nowhere to go, it is logged and will not get retried.
+      log.error("Failed to execute task: {}", task, failure);
+    }
+  }
+
+  /**
+   * Determines how long a retried task still has to wait before it is due.
+   *
+   * @param taskRecord the record read from the retry topic.
+   * @return the remaining delay, zero if the task is already due.
+   */
+  public Duration remainingBackOff(ConsumerRecord<String, JsonTaskMessage> taskRecord) {
+    String retryAt = headerValue(taskRecord.headers(), RETRY_AT_HEADER);
+    if (retryAt == null) {
+      return Duration.ZERO;
+    }
+    Duration remaining =
+        Duration.between(clock.instant(), Instant.ofEpochMilli(Long.parseLong(retryAt)));
+    // Never wait longer than configured, in case the record was produced with another setting.
+    return remaining.isNegative()
+        ? Duration.ZERO
+        : min(remaining, taskQueueProperties.getRetryBackOffMaxInterval());
+  }
+
+  /** The delay before retrying a task whose given attempt (starting at 1) failed. */
+  Duration backOff(int attempt) {
+    double delay =
+        taskQueueProperties.getRetryBackOffInitialInterval().toMillis()
+            * Math.pow(taskQueueProperties.getRetryBackOffMultiplier(), attempt - 1.0);
+    Duration maxInterval = taskQueueProperties.getRetryBackOffMaxInterval();
+    return delay >= maxInterval.toMillis() ? maxInterval : Duration.ofMillis((long) delay);
+  }
+
+  static int attemptOf(ConsumerRecord<?, ?> taskRecord) {
+    String attempt = headerValue(taskRecord.headers(), ATTEMPT_HEADER);
+    return attempt == null ? 1 : Integer.parseInt(attempt);
+  }
+
+  static String originalTopicOf(ConsumerRecord<?, ?> taskRecord) {
+    String originalTopic = headerValue(taskRecord.headers(), ORIGINAL_TOPIC_HEADER);
+    return originalTopic == null ? taskRecord.topic() : originalTopic;
+  }
+
+  static String headerValue(Headers headers, String name) {
+    Header header = headers.lastHeader(name);
+    return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+  }
+
+  private static void setHeader(Headers headers, String name, String value) {
+    headers.add(name, value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static Duration min(Duration a, Duration b) {
+    return a.compareTo(b) <= 0 ? a : b;
+  }
+
+  private void publish(ProducerRecord<String, JsonTaskMessage> taskRecord) {
+    try {
+      // Wait for the send, so that the failed record is only committed once its task is safe.
+      producer.send(taskRecord).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while publishing failed task", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(
+          String.format("Unable to publish failed task to %s", taskRecord.topic()), e);
+    }
+  }
+
+  private void count(String name, JsonTaskMessage task) {
+    Counter.builder(name)
+        .tag("topic", taskQueueProperties.getTopic())
+        .tag("type", String.valueOf(task.getType()))
+        .register(meterRegistry)
+        .increment();
+  }
+}
@@ -20,6 +20,9 @@
  */
 package org.candlepin.subscriptions.task.queue.kafka;
 
+import java.time.Duration;
+import java.time.Instant;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.candlepin.subscriptions.task.JsonTaskMessage;
 import org.candlepin.subscriptions.task.TaskDescriptor;
 import org.candlepin.subscriptions.task.TaskExecutionException;
@@ -27,36 +30,138 @@ import org.candlepin.subscriptions.task.TaskFactory;
 import org.candlepin.subscriptions.task.TaskQueueProperties;
 import org.candlepin.subscriptions.task.TaskType;
 import org.candlepin.subscriptions.task.TaskWorker;
+import org.candlepin.subscriptions.task.queue.AdaptiveConcurrencyLimiter;
+import org.candlepin.subscriptions.task.queue.TaskCoalescer;
 import org.candlepin.subscriptions.task.queue.TaskConsumer;
 import org.candlepin.subscriptions.util.KafkaConsumerRegistry;
 import org.candlepin.subscriptions.util.SeekableKafkaConsumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 
-/** Responsible for receiving task messages from Kafka when they become available. */
+/**
+ * Responsible for receiving task messages from Kafka when they become available.
+ *
+ * <p>Tasks that fail are handed to a {@link KafkaTaskFailureHandler}. When retries are enabled, a
+ * second listener consumes the retry topic and executes each retried task once its back-off has
+ * elapsed. A retried task that is not due yet is negatively acknowledged with its remaining
+ * back-off, so that it is redelivered later without blocking the listener thread.
+ *
+ * <p>Likewise, a task that the concurrency limiter does not let run within the configured
+ * concurrency-acquire-timeout is negatively acknowledged and redelivered, so that a lowered limit
+ * never holds the listener thread past the consumer's max.poll.interval.ms.
+ */
 public class KafkaTaskProcessor extends SeekableKafkaConsumer implements TaskConsumer {
   private static final Logger log = LoggerFactory.getLogger(KafkaTaskProcessor.class);
 
   private final TaskWorker worker;
+  private final TaskCoalescer coalescer;
+  private final KafkaTaskFailureHandler failureHandler;
+  private final AdaptiveConcurrencyLimiter limiter;
+  private final String retryTopic;
+  private final Duration concurrencyAcquireTimeout;
 
   public KafkaTaskProcessor(
       TaskFactory taskFactory,
       TaskQueueProperties taskQueueProperties,
-      KafkaConsumerRegistry kafkaConsumerRegistry) {
+      KafkaConsumerRegistry kafkaConsumerRegistry,
+      TaskCoalescer coalescer,
+      KafkaTaskFailureHandler failureHandler,
+      AdaptiveConcurrencyLimiter limiter) {
     super(taskQueueProperties, kafkaConsumerRegistry);
     worker = new TaskWorker(taskFactory);
+    this.coalescer = coalescer;
+    this.failureHandler = failureHandler;
+    this.limiter = limiter;
+    this.retryTopic = taskQueueProperties.getRetryTopic();
+    this.concurrencyAcquireTimeout = taskQueueProperties.getConcurrencyAcquireTimeout();
+  }
+
+  @KafkaListener(
+      id = "#{__listener.groupId}",
+      topics = "#{__listener.topic}",
+      containerFactory = "kafkaManualAckListenerContainerFactory")
+  public void receive(
+      ConsumerRecord<String, JsonTaskMessage> taskRecord, Acknowledgment acknowledgment)
+      throws InterruptedException {
+    log.info("Message received from kafka: {}", taskRecord.value());
+    process(taskRecord, acknowledgment);
+  }
+
+  @KafkaListener(
+      id = "#{__listener.retryGroupId}",
+      topics = "#{__listener.retryTopic}",
+      autoStartup = "#{__listener.retryEnabled}",
+      containerFactory = "kafkaManualAckListenerContainerFactory")
+  public void receiveRetry(
+      ConsumerRecord<String, JsonTaskMessage> taskRecord, Acknowledgment acknowledgment)
+      throws InterruptedException {
+    // Holding back the partition only delays later retries, which are due no earlier than this one
+    // anyway.
+    Duration backOff = failureHandler.remainingBackOff(taskRecord);
+    if (!backOff.isZero()) {
+      log.debug("Retry of task not due for {}, redelivering it later: {}", backOff, taskRecord);
+      acknowledgment.nack(backOff);
+      return;
+    }
+    log.info(
+        "Retry {} received from kafka: {}",
+        KafkaTaskFailureHandler.attemptOf(taskRecord),
+        taskRecord.value());
+    process(taskRecord, acknowledgment);
+  }
+
+  public String getRetryGroupId() {
+    return groupId + "-retry";
+  }
+
+  /**
+   * The topic of the retry listener. Falls back to the task topic when retries are disabled, in
+   * which case the listener is never started.
+   */
+  public String getRetryTopic() {
+    return isRetryEnabled() ? retryTopic : topic;
+  }
+
+  public boolean isRetryEnabled() {
+    return failureHandler.isRetryEnabled();
   }
 
-  @KafkaListener(id = "#{__listener.groupId}", topics = "#{__listener.topic}")
-  public void receive(JsonTaskMessage taskMessage) {
+  private void process(
+      ConsumerRecord<String, JsonTaskMessage> taskRecord, Acknowledgment acknowledgment)
+      throws InterruptedException {
+    JsonTaskMessage taskMessage = taskRecord.value();
     try {
-      log.info("Message received from kafka: {}", taskMessage);
-      worker.executeTask(describe(taskMessage));
+      TaskDescriptor taskDescriptor = describe(taskMessage);
+      if (!limiter.tryAcquire(concurrencyAcquireTimeout)) {
+        log.debug("Concurrency limit reached, redelivering task later: {}", taskMessage);
+        acknowledgment.nack(Duration.ZERO);
+        return;
+      }
+      // Skip the task if the same work was already done since it was sent
+      if (!coalescer.shouldExecute(
+          taskDescriptor, Instant.ofEpochMilli(taskRecord.timestamp()))) {
+        limiter.cancel();
+        log.info("Skipping task already covered by a later execution: {}", taskMessage);
+      } else {
+        Instant startedAt = Instant.now();
+        execute(taskDescriptor);
+        coalescer.recordExecution(taskDescriptor, startedAt);
+      }
     } catch (TaskExecutionException e) {
-      // If a task fails to execute for any reason, it is logged and will
-      // not get retried.
-      log.error("Failed to execute task: {}", taskMessage, e);
+      failureHandler.handleFailure(taskRecord, e);
+    }
+    acknowledgment.acknowledge();
+  }
+
+  /** Executes a task that the limiter let run, releasing it once done. */
+  private void execute(TaskDescriptor taskDescriptor) throws TaskExecutionException {
+    long start = System.nanoTime();
+    try {
+      worker.executeTask(taskDescriptor);
+    } finally {
+      limiter.release(Duration.ofNanos(System.nanoTime() - start));
     }
   }
 
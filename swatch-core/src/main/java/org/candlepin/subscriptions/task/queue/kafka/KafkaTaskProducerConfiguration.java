@@ -72,4 +72,13 @@ public class KafkaTaskProducerConfiguration {
   public TaskQueue kafkaTaskQueue(KafkaTemplate<String, JsonTaskMessage> producer) {
     return new KafkaTaskQueue(producer);
   }
+
+  @Bean
+  public KafkaDeadLetterTaskReplayer deadLetterTaskReplayer(
+      KafkaProperties kafkaProperties,
+      KafkaTemplate<String, JsonTaskMessage> producer,
+      KafkaConfigurator kafkaConfigurator) {
+    return new KafkaDeadLetterTaskReplayer(
+        kafkaConfigurator.defaultConsumerFactory(kafkaProperties), producer);
+  }
 }
@@ -23,11 +23,19 @@ package com.redhat.swatch.configuration.registry;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  * Subscription is an offering with one or more variants. Defines a specific metering model. Has a
@@ -62,15 +70,19 @@ public class SubscriptionDefinition {
   private List<Metric> metrics = new ArrayList<>();
   private Defaults defaults;
 
+  /** Metrics by id, built by the registry once the definition is loaded. */
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
+  private transient Map<String, Metric> metricsById;
+
   /**
    * @param serviceType
    * @return Optional<Subscription>
    */
   public static Optional<SubscriptionDefinition> findByServiceType(String serviceType) {
-
-    return SubscriptionDefinitionRegistry.getInstance().getSubscriptions().stream()
-        .filter(subscription -> Objects.equals(subscription.getServiceType(), serviceType))
-        .findFirst();
+    return SubscriptionDefinitionRegistry.getInstance().findByServiceType(serviceType);
   }
 
   public List<String> getMetricIds() {
@@ -81,13 +93,26 @@ public class SubscriptionDefinition {
   }
 
   public Optional<Metric> getMetric(String metricId) {
+    if (Objects.nonNull(metricsById)) {
+      return Optional.ofNullable(metricsById.get(metricId));
+    }
     return this.getMetrics().stream().filter(x -> Objects.equals(x.getId(), metricId)).findFirst();
   }
 
+  public void setMetrics(List<Metric> metrics) {
+    this.metrics = metrics;
+    this.metricsById = null;
+  }
+
+  /** Index the metrics by id, keeping the first metric for an id. Called by the registry. */
+  void indexMetrics() {
+    Map<String, Metric> index = new HashMap<>();
+    getMetrics().forEach(metric -> index.putIfAbsent(metric.getId(), metric));
+    metricsById = Collections.unmodifiableMap(index);
+  }
+
   public static Optional<SubscriptionDefinition> findById(String id) {
-    return SubscriptionDefinitionRegistry.getInstance().getSubscriptions().stream()
-        .filter(subscription -> Objects.equals(subscription.getId(), id))
-        .findFirst();
+    return SubscriptionDefinitionRegistry.getInstance().findById(id);
   }
 
   /**
@@ -132,13 +157,7 @@ public class SubscriptionDefinition {
    * @return Optional<Subscription> subscription
    */
   public static Optional<SubscriptionDefinition> lookupSubscriptionByEngId(String engProductId) {
-    return SubscriptionDefinitionRegistry.getInstance().getSubscriptions().stream()
-        .filter(subscription -> !subscription.getVariants().isEmpty())
-        .filter(
-            subscription ->
-                subscription.getVariants().stream()
-                    .anyMatch(variant -> variant.getEngineeringIds().contains(engProductId)))
-        .findFirst();
+    return SubscriptionDefinitionRegistry.getInstance().lookupSubscriptionByEngId(engProductId);
   }
 
   /**
@@ -149,13 +168,8 @@ public class SubscriptionDefinition {
    */
   public static Optional<SubscriptionDefinition> lookupSubscriptionByProductName(
       String productName) {
-    return SubscriptionDefinitionRegistry.getInstance().getSubscriptions().stream()
-        .filter(subscription -> !subscription.getVariants().isEmpty())
-        .filter(
-            subscription ->
-                subscription.getVariants().stream()
-                    .anyMatch(variant -> variant.getProductNames().contains(productName)))
-        .findFirst();
+    return SubscriptionDefinitionRegistry.getInstance()
+        .lookupSubscriptionByProductName(productName);
   }
 
   /**
@@ -165,12 +179,6 @@ public class SubscriptionDefinition {
    * @return Optional<Subscription>
    */
   public static Optional<SubscriptionDefinition> lookupSubscriptionByRole(String role) {
-    return SubscriptionDefinitionRegistry.getInstance().getSubscriptions().stream()
-        .filter(subscription -> !subscription.getVariants().isEmpty())
-        .filter(
-            subscription ->
-                subscription.getVariants().stream()
-                    .anyMatch(variant -> variant.getRoles().contains(role)))
-        .findFirst();
+    return SubscriptionDefinitionRegistry.getInstance().lookupSubscriptionByRole(role);
   }
 }
@@ -23,17 +23,24 @@ package com.redhat.swatch.configuration.registry;
 import com.redhat.swatch.configuration.exception.ConfigResourcesLoadingException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.stream.Stream;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -44,23 +51,62 @@ import org.yaml.snakeyaml.constructor.Constructor;
 /**
  * Loads yaml files from src/main/resource/subscription_configs into List<Subscription>. Provides
  * lookup methods for that list.
+ *
+ * <p>Lookups are served from hash indexes built once the yaml files are loaded. When a key is
+ * shared by several definitions or variants, the index keeps the first one in load order, which is
+ * what a scan of the list would find.
  */
 @Slf4j
 class SubscriptionDefinitionRegistry {
 
-  private static SubscriptionDefinitionRegistry instance = null;
-
   @Getter private final List<SubscriptionDefinition> subscriptions;
+  private final Map<String, SubscriptionDefinition> subscriptionsById;
+  private final Map<String, SubscriptionDefinition> subscriptionsByServiceType;
+  private final Map<String, SubscriptionDefinition> subscriptionsByEngineeringId;
+  private final Map<String, SubscriptionDefinition> subscriptionsByProductName;
+  private final Map<String, SubscriptionDefinition> subscriptionsByRole;
+  private final Map<String, Variant> variantsByEngineeringId;
+  private final Map<String, Variant> variantsByRole;
+  private final Map<String, Variant> variantsByTag;
+
+  /** The shared registry, loaded the first time it's needed. */
+  private static final AtomicReference<SubscriptionDefinitionRegistry> INSTANCE =
+      new AtomicReference<>();
+
+  /**
+   * Reads of a loaded registry take no lock. If loading fails, the exception is thrown to the
+   * caller and the next call tries to load the registry again.
+   */
+  public static SubscriptionDefinitionRegistry getInstance() {
+    var registry = INSTANCE.get();
+    return registry != null ? registry : load();
+  }
 
-  public static synchronized SubscriptionDefinitionRegistry getInstance() {
-    if (instance == null) {
-      instance = new SubscriptionDefinitionRegistry();
+  private static synchronized SubscriptionDefinitionRegistry load() {
+    // another thread may have loaded the registry while this one waited for the lock
+    var registry = INSTANCE.get();
+    if (registry == null) {
+      registry = new SubscriptionDefinitionRegistry();
+      INSTANCE.set(registry);
     }
-    return instance;
+    return registry;
+  }
+
+  /**
+   * Load the yaml files again and atomically replace the shared registry. Threads already holding
+   * the previous registry keep a consistent view of it. If loading fails, the previous registry is
+   * kept.
+   *
+   * @return the newly loaded registry
+   */
+  static synchronized SubscriptionDefinitionRegistry reload() {
+    var registry = new SubscriptionDefinitionRegistry();
+    INSTANCE.set(registry);
+    return registry;
   }
 
   SubscriptionDefinitionRegistry() {
-    subscriptions = new ArrayList<>();
+    List<SubscriptionDefinition> loaded = new ArrayList<>();
     Constructor constructor = new Constructor(SubscriptionDefinition.class, new LoaderOptions());
     constructor.getPropertyUtils().setSkipMissingProperties(true);
 
@@ -80,6 +126,9 @@ class SubscriptionDefinitionRegistry {
       FileSystem fileSystem;
       try {
         fileSystem = FileSystems.newFileSystem(resourceUrl.toURI(), Collections.emptyMap());
+      } catch (FileSystemAlreadyExistsException e) {
+        // already opened by a previous load of the registry
+        fileSystem = FileSystems.getFileSystem(toUri(resourceUrl));
       } catch (IOException | URISyntaxException e) {
         throw new ConfigResourcesLoadingException(e);
       }
@@ -107,7 +156,7 @@ class SubscriptionDefinitionRegistry {
                   subscriptionFromYaml
                       .getVariants()
                       .forEach(variant -> variant.setSubscription(subscriptionFromYaml));
-                  subscriptions.add(subscriptionFromYaml);
+                  loaded.add(subscriptionFromYaml);
 
                 } catch (IOException e) {
                   throw new ConfigResourcesLoadingException(e);
@@ -117,5 +166,78 @@ class SubscriptionDefinitionRegistry {
       log.error("Error while listing files. {}", e.getMessage());
       throw new ConfigResourcesLoadingException(e);
     }
+
+    subscriptions = Collections.unmodifiableList(loaded);
+    subscriptions.forEach(SubscriptionDefinition::indexMetrics);
+    subscriptionsById = index(subscriptions, subscription -> Stream.of(subscription.getId()));
+    // definitions without a service type are indexed under null, as Objects.equals would match
+    subscriptionsByServiceType =
+        index(subscriptions, subscription -> Stream.of(subscription.getServiceType()));
+    subscriptionsByEngineeringId =
+        index(subscriptions, subscription -> variantKeys(subscription, Variant::getEngineeringIds));
+    subscriptionsByProductName =
+        index(subscriptions, subscription -> variantKeys(subscription, Variant::getProductNames));
+    subscriptionsByRole =
+        index(subscriptions, subscription -> variantKeys(subscription, Variant::getRoles));
+
+    List<Variant> variants =
+        subscriptions.stream()
+            .flatMap(subscription -> subscription.getVariants().stream())
+            .toList();
+    variantsByEngineeringId = index(variants, variant -> variant.getEngineeringIds().stream());
+    variantsByRole = index(variants, variant -> variant.getRoles().stream());
+    variantsByTag = index(variants, variant -> Stream.of(variant.getTag()));
+  }
+
+  Optional<SubscriptionDefinition> findById(String id) {
+    return Optional.ofNullable(subscriptionsById.get(id));
+  }
+
+  Optional<SubscriptionDefinition> findByServiceType(String serviceType) {
+    return Optional.ofNullable(subscriptionsByServiceType.get(serviceType));
+  }
+
+  Optional<SubscriptionDefinition> lookupSubscriptionByEngId(String engProductId) {
+    return Optional.ofNullable(subscriptionsByEngineeringId.get(engProductId));
+  }
+
+  Optional<SubscriptionDefinition> lookupSubscriptionByProductName(String productName) {
+    return Optional.ofNullable(subscriptionsByProductName.get(productName));
+  }
+
+  Optional<SubscriptionDefinition> lookupSubscriptionByRole(String role) {
+    return Optional.ofNullable(subscriptionsByRole.get(role));
+  }
+
+  Optional<Variant> findVariantByEngProductId(String engProductId) {
+    return Optional.ofNullable(variantsByEngineeringId.get(engProductId));
+  }
+
+  Optional<Variant> findVariantByRole(String role) {
+    return Optional.ofNullable(variantsByRole.get(role));
+  }
+
+  Optional<Variant> findVariantByTag(String tag) {
+    return Optional.ofNullable(variantsByTag.get(tag));
+  }
+
+  private static URI toUri(URL url) {
+    try {
+      return url.toURI();
+    } catch (URISyntaxException e) {
+      throw new ConfigResourcesLoadingException(e);
+    }
+  }
+
+  private static Stream<String> variantKeys(
+      SubscriptionDefinition subscription, Function<Variant, List<String>> keys) {
+    return subscription.getVariants().stream().flatMap(variant -> keys.apply(variant).stream());
+  }
+
+  private static <T> Map<String, T> index(List<T> values, Function<T, Stream<String>> keys) {
+    // HashMap rather than Map.copyOf, which rejects the null keys the lookups have to support
+    Map<String, T> index = new HashMap<>();
+    values.forEach(value -> keys.apply(value).forEach(key -> index.putIfAbsent(key, value)));
+    return Collections.unmodifiableMap(index);
   }
 }
@@ -24,7 +24,6 @@ import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
 import lombok.*;
 
@@ -46,14 +45,7 @@ public class Variant {
   private List<String> productNames = new ArrayList<>();
 
   public static Optional<Variant> findByRole(String role) {
-    return SubscriptionDefinition.lookupSubscriptionByRole(role)
-        .flatMap(
-            subscription ->
-                subscription.getVariants().stream()
-                    .filter(
-                        variant ->
-                            !variant.getRoles().isEmpty() && variant.getRoles().contains(role))
-                    .findFirst());
+    return SubscriptionDefinitionRegistry.getInstance().findVariantByRole(role);
   }
 
   /**
@@ -65,17 +57,10 @@ public class Variant {
    * @return Optional<Variant>
    */
   public static Optional<Variant> findByEngProductId(String engProductId) {
-    return SubscriptionDefinitionRegistry.getInstance().getSubscriptions().stream()
-        .flatMap(subscription -> subscription.getVariants().stream())
-        .filter(variant -> variant.getEngineeringIds().contains(engProductId))
-        .findFirst();
+    return SubscriptionDefinitionRegistry.getInstance().findVariantByEngProductId(engProductId);
   }
 
   public static Optional<Variant> findByTag(String defaultVariantTag) {
-    return SubscriptionDefinitionRegistry.getInstance().getSubscriptions().stream()
-        .filter(subscription -> !subscription.getVariants().isEmpty())
-        .flatMap(subscription -> subscription.getVariants().stream())
-        .filter(variant -> Objects.equals(variant.getTag(), defaultVariantTag))
-        .findFirst();
+    return SubscriptionDefinitionRegistry.getInstance().findVariantByTag(defaultVariantTag);
   }
 }
@@ -22,6 +22,15 @@ package com.redhat.swatch.configuration.registry;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
@@ -50,4 +59,138 @@ class SubscriptionDefinitionRegistryTest {
 
     assertEquals(actual, expected);
   }
+
+  @Test
+  void testReloadSwapsSharedInstance() {
+    var previous = SubscriptionDefinitionRegistry.getInstance();
+
+    var reloaded = SubscriptionDefinitionRegistry.reload();
+
+    assertNotSame(previous, reloaded);
+    assertSame(reloaded, SubscriptionDefinitionRegistry.getInstance());
+    assertEquals(previous.getSubscriptions(), reloaded.getSubscriptions());
+  }
+
+  @Test
+  void testFailedReloadThrowsOriginalExceptionAndKeepsSharedInstance() {
+    var previous = SubscriptionDefinitionRegistry.getInstance();
+    var thread = Thread.currentThread();
+    var contextClassLoader = thread.getContextClassLoader();
+    // a class loader without the subscription_configs directory
+    thread.setContextClassLoader(new URLClassLoader(new URL[0], null));
+    try {
+      assertThrows(NullPointerException.class, SubscriptionDefinitionRegistry::reload);
+    } finally {
+      thread.setContextClassLoader(contextClassLoader);
+    }
+
+    assertSame(previous, SubscriptionDefinitionRegistry.getInstance());
+  }
+
+  @Test
+  void testFindByIdFindsFirstMatchingDefinition() {
+    for (String id : keys(subscription -> Stream.of(subscription.getId()))) {
+      assertFindsSame(
+          first(subscription -> Objects.equals(subscription.getId(), id)),
+          subscriptionDefinitionRegistry.findById(id));
+    }
+  }
+
+  @Test
+  void testFindByServiceTypeFindsFirstMatchingDefinition() {
+    for (String serviceType : keys(subscription -> Stream.of(subscription.getServiceType()))) {
+      assertFindsSame(
+          first(subscription -> Objects.equals(subscription.getServiceType(), serviceType)),
+          subscriptionDefinitionRegistry.findByServiceType(serviceType));
+    }
+  }
+
+  @Test
+  void testLookupByEngIdFindsFirstMatchingVariant() {
+    for (String engId : variantKeys(Variant::getEngineeringIds)) {
+      assertFindsSame(
+          firstVariant(variant -> variant.getEngineeringIds().contains(engId))
+              .map(Variant::getSubscription),
+          subscriptionDefinitionRegistry.lookupSubscriptionByEngId(engId));
+      assertFindsSame(
+          firstVariant(variant -> variant.getEngineeringIds().contains(engId)),
+          subscriptionDefinitionRegistry.findVariantByEngProductId(engId));
+    }
+  }
+
+  @Test
+  void testLookupByProductNameFindsFirstMatchingVariant() {
+    for (String productName : variantKeys(Variant::getProductNames)) {
+      assertFindsSame(
+          firstVariant(variant -> variant.getProductNames().contains(productName))
+              .map(Variant::getSubscription),
+          subscriptionDefinitionRegistry.lookupSubscriptionByProductName(productName));
+    }
+  }
+
+  @Test
+  void testLookupByRoleFindsFirstMatchingVariant() {
+    for (String role : variantKeys(Variant::getRoles)) {
+      assertFindsSame(
+          firstVariant(variant -> variant.getRoles().contains(role))
+              .map(Variant::getSubscription),
+          subscriptionDefinitionRegistry.lookupSubscriptionByRole(role));
+      assertFindsSame(
+          firstVariant(variant -> variant.getRoles().contains(role)),
+          subscriptionDefinitionRegistry.findVariantByRole(role));
+    }
+  }
+
+  @Test
+  void testFindVariantByTagFindsFirstMatchingVariant() {
+    for (String tag : variantKeys(variant -> List.of(variant.getTag()))) {
+      assertFindsSame(
+          firstVariant(variant -> Objects.equals(variant.getTag(), tag)),
+          subscriptionDefinitionRegistry.findVariantByTag(tag));
+    }
+  }
+
+  @Test
+  void testUnknownKeysAreNotFound() {
+    var registry = subscriptionDefinitionRegistry;
+    assertEquals(Optional.empty(), registry.findById("bananas"));
+    assertEquals(Optional.empty(), registry.findByServiceType("bananas"));
+    assertEquals(Optional.empty(), registry.lookupSubscriptionByEngId("bananas"));
+    assertEquals(Optional.empty(), registry.lookupSubscriptionByProductName("bananas"));
+    assertEquals(Optional.empty(), registry.lookupSubscriptionByRole("bananas"));
+    assertEquals(Optional.empty(), registry.findVariantByEngProductId("bananas"));
+    assertEquals(Optional.empty(), registry.findVariantByRole("bananas"));
+    assertEquals(Optional.empty(), registry.findVariantByTag("bananas"));
+  }
+
+  private Optional<SubscriptionDefinition> first(Predicate<SubscriptionDefinition> filter) {
+    return subscriptionDefinitionRegistry.getSubscriptions().stream().filter(filter).findFirst();
+  }
+
+  private Optional<Variant> firstVariant(Predicate<Variant> filter) {
+    return subscriptionDefinitionRegistry.getSubscriptions().stream()
+        .flatMap(subscription -> subscription.getVariants().stream())
+        .filter(filter)
+        .findFirst();
+  }
+
+  private List<String> keys(Function<SubscriptionDefinition, Stream<String>> keys) {
+    List<String> values = new ArrayList<>();
+    subscriptionDefinitionRegistry
+        .getSubscriptions()
+        .forEach(subscription -> keys.apply(subscription).forEach(values::add));
+    return values;
+  }
+
+  private List<String> variantKeys(Function<Variant, List<String>> keys) {
+    return keys(
+        subscription ->
+            subscription.getVariants().stream().flatMap(variant -> keys.apply(variant).stream()));
+  }
+
+  private static <T> void assertFindsSame(Optional<T> expected, Optional<T> actual) {
+    assertTrue(expected.isPresent(), "expected a match");
+    assertTrue(actual.isPresent(), "expected the registry to find the match");
+    assertSame(expected.get(), actual.get());
+  }
 }
@@ -25,6 +25,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Stream;
 import org.hamcrest.Matchers;
@@ -236,4 +237,20 @@ class SubscriptionDefinitionTest {
 
     assertEquals(expected, actual);
   }
+
+  @Test
+  void testGetMetricFindsFirstMetricWithId() {
+    for (SubscriptionDefinition subscription :
+        SubscriptionDefinitionRegistry.getInstance().getSubscriptions()) {
+      for (String metricId : subscription.getMetricIds()) {
+        assertSame(
+            subscription.getMetrics().stream()
+                .filter(metric -> Objects.equals(metric.getId(), metricId))
+                .findFirst()
+                .orElseThrow(),
+            subscription.getMetric(metricId).orElseThrow());
+      }
+      assertEquals(Optional.empty(), subscription.getMetric("bananas"));
+    }
+  }
 }
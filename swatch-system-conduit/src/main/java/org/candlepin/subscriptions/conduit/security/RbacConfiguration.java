@@ -20,6 +20,7 @@
  */
 package org.candlepin.subscriptions.conduit.security;
 
+import org.candlepin.subscriptions.rbac.RbacApi;
 import org.candlepin.subscriptions.rbac.RbacApiFactory;
 import org.candlepin.subscriptions.rbac.RbacProperties;
 import org.candlepin.subscriptions.rbac.RbacService;
@@ -32,8 +33,8 @@ import org.springframework.context.annotation.Configuration;
 public class RbacConfiguration {
 
   @Bean
-  public RbacService rbacService() {
-    return new RbacService();
+  public RbacService rbacService(RbacApi rbacApi) {
+    return new RbacService(rbacApi);
   }
 
   @Bean